@@ -0,0 +1,24 @@
+package com.dushyant.opengldemo;
+
+/**
+ * Decoded pixels in memory, ARGB ints with rows top to bottom like android.graphics.Bitmap.
+ */
+final class ArgbImage {
+
+    final int width;
+    final int height;
+    final int[] pixels;
+
+    ArgbImage(int width, int height, int[] pixels) {
+        if (width <= 0 || height <= 0 || pixels.length < width * height) {
+            throw new IllegalArgumentException("Invalid image " + width + "x" + height + " with " + pixels.length + " pixels");
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+    }
+
+    ArgbImage(int width, int height) {
+        this(width, height, new int[width * height]);
+    }
+}
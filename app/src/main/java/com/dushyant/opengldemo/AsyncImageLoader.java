@@ -0,0 +1,143 @@
+package com.dushyant.opengldemo;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import java.io.IOException;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Decodes drawables on a background thread, downsampled to what the viewport and the
+ * GPU can use. Decoded bitmaps are cached across surface changes and handed to the GL
+ * thread through a queue, so the GL thread only ever does the texture upload.
+ * When asked, the bitmap is also compressed to ETC1 through a {@link CompressedTextureCache},
+ * which only transcodes on the first run. A drawable that cannot be decoded is logged and
+ * never shows up in {@link #poll()}. {@link #shutdown()} stops the decode thread for good.
+ */
+class AsyncImageLoader {
+
+    interface Listener {
+        //called on the loader thread once an image is waiting in {@link #poll()}
+        void onImageReady();
+    }
+
+    static class LoadedImage {
+        final int resId;
+        final Bitmap bitmap;
+        //the bitmap as ETC1, null unless asked for or if it could not be made
+        final CompressedTexture compressed;
+
+        LoadedImage(int resId, Bitmap bitmap, CompressedTexture compressed) {
+            this.resId = resId;
+            this.bitmap = bitmap;
+            this.compressed = compressed;
+        }
+    }
+
+    private static final String TAG = "AsyncImageLoader";
+
+    private static final long CACHE_BYTES = 32L * 1024 * 1024;
+
+    private final Resources mResources;
+    private final Listener mListener;
+    private final CompressedTextureCache mTextureCache;
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "image-loader");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    private final ConcurrentLinkedQueue<LoadedImage> mReady = new ConcurrentLinkedQueue<>();
+    private final DecodedImageCache<Bitmap> mCache = new DecodedImageCache<>(new DecodedImageCache.Sizer<Bitmap>() {
+        @Override
+        public long sizeOf(Bitmap bitmap) {
+            return bitmap.getByteCount();
+        }
+    }, CACHE_BYTES);
+
+    AsyncImageLoader(Resources resources, CompressedTextureCache textureCache, Listener listener) {
+        mResources = resources;
+        mTextureCache = textureCache;
+        mListener = listener;
+    }
+
+    /**
+     * Starts loading the drawable for a reqWidth x reqHeight viewport, compressed to ETC1 as
+     * well if compress is set. Safe to call from any thread, the result shows up in {@link #poll()}.
+     */
+    void load(final int resId, final int reqWidth, final int reqHeight, final int maxTextureSize,
+              final boolean compress) {
+        if (mExecutor.isShutdown()) {
+            return;
+        }
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                BitmapFactory.Options options = new BitmapFactory.Options();
+                Bitmap bitmap = decode(resId, reqWidth, reqHeight, maxTextureSize, options);
+                if (bitmap == null) {
+                    // nothing to hand over, the GL thread keeps showing a blank screen
+                    Log.e(TAG, "Could not decode resource " + resId);
+                    return;
+                }
+                CompressedTexture compressed = null;
+                if (compress) {
+                    try {
+                        compressed = mTextureCache.get(resId + "_" + options.inSampleSize, new Etc1Transcoder(bitmap));
+                    } catch (IOException | RuntimeException e) {
+                        // the bitmap gets uploaded as it is
+                        Log.w(TAG, "Could not compress the image", e);
+                    }
+                }
+                mReady.offer(new LoadedImage(resId, bitmap, compressed));
+                mListener.onImageReady();
+            }
+        });
+    }
+
+    //returns null if the drawable is not an image BitmapFactory can decode
+    private Bitmap decode(int resId, int reqWidth, int reqHeight, int maxTextureSize, BitmapFactory.Options options) {
+        // Read the size only, then decode at the planned sample size
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeResource(mResources, resId, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        options.inSampleSize = DecodeSizePlanner.computeInSampleSize(options.outWidth, options.outHeight,
+                reqWidth, reqHeight, maxTextureSize);
+        options.inJustDecodeBounds = false;
+
+        String key = resId + "@" + options.inSampleSize;
+        Bitmap bitmap = mCache.get(key);
+        if (bitmap == null) {
+            bitmap = BitmapFactory.decodeResource(mResources, resId, options);
+            if (bitmap != null) {
+                mCache.put(key, bitmap);
+            }
+        }
+        return bitmap;
+    }
+
+    //returns the most recently decoded image, or null if nothing new is waiting. GL thread only.
+    LoadedImage poll() {
+        LoadedImage latest = null;
+        LoadedImage image;
+        while ((image = mReady.poll()) != null) {
+            latest = image;
+        }
+        return latest;
+    }
+
+    //stops the decode thread, dropping loads not started yet; later loads are ignored
+    void shutdown() {
+        mExecutor.shutdownNow();
+    }
+}
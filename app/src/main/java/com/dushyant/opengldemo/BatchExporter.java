@@ -0,0 +1,275 @@
+package com.dushyant.opengldemo;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Applies one effect stack to many image files without a screen, as a bounded pipeline:
+ * decoding on a pool of threads, the effects one image at a time on the thread that calls
+ * {@link #export}, encoding on another pool.
+ *
+ * The stages hand images over through two ArrayBlockingQueues, a stage that gets ahead blocks
+ * until the next one catches up. So however many files there are, at most
+ * {@link #maxImagesInFlight()} images are in memory. The effects go through a
+ * {@link TiledEffectProcessor}, which keeps its backend images and tile buffer from one image
+ * to the next, and images larger than a texture are tiled.
+ *
+ * The RenderBackend is only used by the calling thread: a thread with a pbuffer EGL context
+ * current for {@link GLRenderBackend}, see {@link HeadlessExport}, or any thread for
+ * {@link SoftwareRenderBackend}. A failed file is reported and the others go on.
+ */
+class BatchExporter {
+
+    static final class Job {
+        final File input;
+        final File output;
+
+        Job(File input, File output) {
+            this.input = input;
+            this.output = output;
+        }
+    }
+
+    static final class Failure {
+        final Job job;
+        final Throwable error;
+
+        Failure(Job job, Throwable error) {
+            this.job = job;
+            this.error = error;
+        }
+    }
+
+    /**
+     * What one {@link #export} did. The histograms hold nanoseconds per image and stage.
+     */
+    static final class Report {
+        final int exported;
+        final List<Failure> failures;
+        final long elapsedNanos;
+        //most decoded and result images held at once, at most maxImagesInFlight()
+        final int peakImagesInFlight;
+        final LatencyHistogram.Snapshot decodeTimes;
+        final LatencyHistogram.Snapshot effectTimes;
+        final LatencyHistogram.Snapshot encodeTimes;
+
+        Report(int exported, List<Failure> failures, long elapsedNanos, int peakImagesInFlight,
+               LatencyHistogram.Snapshot decodeTimes, LatencyHistogram.Snapshot effectTimes,
+               LatencyHistogram.Snapshot encodeTimes) {
+            this.exported = exported;
+            this.failures = failures;
+            this.elapsedNanos = elapsedNanos;
+            this.peakImagesInFlight = peakImagesInFlight;
+            this.decodeTimes = decodeTimes;
+            this.effectTimes = effectTimes;
+            this.encodeTimes = encodeTimes;
+        }
+
+        double getImagesPerSecond() {
+            return elapsedNanos == 0 ? 0 : exported * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%d exported, %d failed, %.1f images/s, p50 decode %.1fms effects %.1fms encode %.1fms",
+                    exported, failures.size(), getImagesPerSecond(), decodeTimes.getValueAtPercentile(50) / 1e6,
+                    effectTimes.getValueAtPercentile(50) / 1e6, encodeTimes.getValueAtPercentile(50) / 1e6);
+        }
+    }
+
+    //an image between two stages, the image is null and error set once the job failed
+    private static final class Item {
+        final Job job;
+        ArgbImage image;
+        Throwable error;
+
+        Item(Job job) {
+            this.job = job;
+        }
+    }
+
+    //tells an encoder that no more images come
+    private static final Item END = new Item(null);
+
+    private final ImageCodec mCodec;
+    private final TiledEffectProcessor mProcessor;
+    private final int mDecodeThreads;
+    private final int mEncodeThreads;
+    private final int mQueueCapacity;
+
+    /**
+     * @param maxTileSize   largest image the backend takes at once, e.g. GL_MAX_TEXTURE_SIZE
+     * @param queueCapacity images waiting between two stages
+     */
+    BatchExporter(ImageCodec codec, RenderBackend backend, int maxTileSize, int decodeThreads, int encodeThreads,
+                  int queueCapacity) {
+        if (decodeThreads < 1 || encodeThreads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Need at least one thread per pool and a queue of at least one");
+        }
+        mCodec = codec;
+        mProcessor = new TiledEffectProcessor(backend, maxTileSize);
+        mDecodeThreads = decodeThreads;
+        mEncodeThreads = encodeThreads;
+        mQueueCapacity = queueCapacity;
+    }
+
+    //being decoded, waiting in either queue, source and result of the effects, being encoded
+    int maxImagesInFlight() {
+        return mDecodeThreads + mQueueCapacity + 2 + mQueueCapacity + mEncodeThreads;
+    }
+
+    private static void acquire(AtomicInteger inFlight, AtomicInteger peak) {
+        int now = inFlight.incrementAndGet();
+        for (int max = peak.get(); now > max && !peak.compareAndSet(max, now); ) {
+            max = peak.get();
+        }
+    }
+
+    /**
+     * Exports every job, returning once all outputs are written or have failed.
+     * Runs the effects on the calling thread, which has to own the backend.
+     *
+     * @throws InterruptedException if the calling thread is interrupted, the pools are stopped
+     */
+    Report export(final List<Job> jobs, EffectPipeline pipeline, final ImageCodec.Format format)
+            throws InterruptedException {
+        final BlockingQueue<Item> decoded = new ArrayBlockingQueue<>(mQueueCapacity);
+        final BlockingQueue<Item> processed = new ArrayBlockingQueue<>(mQueueCapacity);
+        final ConcurrentLinkedQueue<Failure> failures = new ConcurrentLinkedQueue<>();
+        final LatencyHistogram decodeTimes = new LatencyHistogram();
+        final LatencyHistogram effectTimes = new LatencyHistogram();
+        final LatencyHistogram encodeTimes = new LatencyHistogram();
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger exported = new AtomicInteger();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+        long start = System.nanoTime();
+
+        ExecutorService decoders = Executors.newFixedThreadPool(mDecodeThreads, threadFactory("export-decode-"));
+        ExecutorService encoders = Executors.newFixedThreadPool(mEncodeThreads, threadFactory("export-encode-"));
+        try {
+            for (int i = 0; i < mDecodeThreads; i++) {
+                decoders.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        // every job puts exactly one item on the queue, failed or not, the effects stage counts on it.
+                        // Errors too, e.g. running out of memory on one large file must not leave it waiting.
+                        for (int job = next.getAndIncrement(); job < jobs.size(); job = next.getAndIncrement()) {
+                            Item item = new Item(jobs.get(job));
+                            long begin = System.nanoTime();
+                            try {
+                                item.image = mCodec.decode(item.job.input);
+                                acquire(inFlight, peak);
+                                decodeTimes.record(System.nanoTime() - begin);
+                            } catch (Throwable t) {
+                                item.image = null;
+                                item.error = t;
+                            }
+                            try {
+                                decoded.put(item);
+                            } catch (InterruptedException e) {
+                                return;
+                            }
+                        }
+                    }
+                });
+            }
+            for (int i = 0; i < mEncodeThreads; i++) {
+                encoders.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            for (Item item = processed.take(); item != END; item = processed.take()) {
+                                long begin = System.nanoTime();
+                                try {
+                                    mCodec.encode(item.image, format, item.job.output);
+                                    encodeTimes.record(System.nanoTime() - begin);
+                                    exported.incrementAndGet();
+                                } catch (Throwable t) {
+                                    // an encoder that died would leave export() blocked on a full queue
+                                    failures.add(new Failure(item.job, t));
+                                } finally {
+                                    item.image = null;
+                                    inFlight.decrementAndGet();
+                                }
+                            }
+                        } catch (InterruptedException e) {
+                            // export() gave up
+                        }
+                    }
+                });
+            }
+
+            for (int i = 0; i < jobs.size(); i++) {
+                Item item = decoded.take();
+                if (item.error != null) {
+                    failures.add(new Failure(item.job, item.error));
+                    continue;
+                }
+                long begin = System.nanoTime();
+                ArgbImage source = item.image;
+                item.image = null;
+                try {
+                    ArgbImage result = new ArgbImage(source.width, source.height);
+                    acquire(inFlight, peak);
+                    item.image = result;
+                    mProcessor.process(pipeline, source.pixels, source.width, source.height, result.pixels);
+                    effectTimes.record(System.nanoTime() - begin);
+                } catch (RuntimeException e) {
+                    failures.add(new Failure(item.job, e));
+                    item.error = e;
+                } finally {
+                    // the source is done with either way
+                    inFlight.decrementAndGet();
+                }
+                if (item.error != null) {
+                    if (item.image != null) {
+                        inFlight.decrementAndGet();
+                    }
+                    continue;
+                }
+                processed.put(item);
+            }
+            for (int i = 0; i < mEncodeThreads; i++) {
+                processed.put(END);
+            }
+            encoders.shutdown();
+            encoders.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } finally {
+            decoders.shutdownNow();
+            encoders.shutdownNow();
+        }
+        List<Failure> failed = new ArrayList<>(failures);
+        return new Report(exported.get(), Collections.unmodifiableList(failed), System.nanoTime() - start,
+                peak.get(), decodeTimes.snapshot(), effectTimes.snapshot(), encodeTimes.snapshot());
+    }
+
+    //frees the backend images kept between images, the backend itself is the caller's
+    void release() {
+        mProcessor.release();
+    }
+
+    private static ThreadFactory threadFactory(final String prefix) {
+        return new ThreadFactory() {
+            private int mCount;
+
+            @Override
+            public synchronized Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, prefix + mCount++);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+}
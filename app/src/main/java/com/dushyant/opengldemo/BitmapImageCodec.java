@@ -0,0 +1,63 @@
+package com.dushyant.opengldemo;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * {@link ImageCodec} on BitmapFactory and Bitmap.compress. The bitmaps only live for the copy
+ * from or to the int[], so the native pixel memory does not pile up behind the pipeline.
+ */
+class BitmapImageCodec implements ImageCodec {
+
+    static final int DEFAULT_JPEG_QUALITY = 90;
+
+    private final int mJpegQuality;
+
+    BitmapImageCodec(int jpegQuality) {
+        mJpegQuality = jpegQuality;
+    }
+
+    BitmapImageCodec() {
+        this(DEFAULT_JPEG_QUALITY);
+    }
+
+    @Override
+    public ArgbImage decode(File file) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        Bitmap bitmap = BitmapFactory.decodeFile(file.getPath(), options);
+        if (bitmap == null) {
+            throw new IOException("Cannot decode " + file);
+        }
+        try {
+            ArgbImage image = new ArgbImage(bitmap.getWidth(), bitmap.getHeight());
+            bitmap.getPixels(image.pixels, 0, image.width, 0, 0, image.width, image.height);
+            return image;
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    @Override
+    public void encode(ArgbImage image, Format format, File file) throws IOException {
+        Bitmap bitmap = Bitmap.createBitmap(image.pixels, image.width, image.height, Bitmap.Config.ARGB_8888);
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+        try {
+            boolean written = format == Format.PNG
+                    ? bitmap.compress(Bitmap.CompressFormat.PNG, 100, out)
+                    : bitmap.compress(Bitmap.CompressFormat.JPEG, mJpegQuality, out);
+            if (!written) {
+                throw new IOException("Cannot encode " + file);
+            }
+        } finally {
+            out.close();
+            bitmap.recycle();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.dushyant.opengldemo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A run of {@link ColorStage}s fused into one fragment shader, so the image is read and
+ * written once instead of once per stage. Every stage clamps its result like an 8 bit
+ * intermediate texture would, so the fused pass matches running the stages one by one.
+ *
+ * {@link #apply(int[], int, int)} runs the same math on ARGB pixels, it is what headless
+ * tests check the shader math against and doubles as a software fallback.
+ *
+ * Immutable, the shader source and uniform values are computed once.
+ */
+final class ColorPass {
+
+    private final ColorStage[] mStages;
+    private final float[][] mStageParams;
+    private final String mFragmentShader;
+    private String mExternalFragmentShader;
+    private final String[] mUniformNames;
+    private final float[][] mUniformValues;
+
+    ColorPass(List<EffectDescriptor> stages) {
+        if (stages.isEmpty()) {
+            throw new IllegalArgumentException("A color pass needs at least one stage");
+        }
+        mStages = new ColorStage[stages.size()];
+        mStageParams = new float[stages.size()][];
+        List<String> uniformNames = new ArrayList<>();
+        List<float[]> uniformValues = new ArrayList<>();
+        StringBuilder uniforms = new StringBuilder();
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < stages.size(); i++) {
+            EffectDescriptor descriptor = stages.get(i);
+            ColorStage stage = ColorStage.of(descriptor);
+            if (stage == null) {
+                throw new IllegalArgumentException(descriptor + " is not a color stage");
+            }
+            mStages[i] = stage;
+            mStageParams[i] = stage.uniformValue(descriptor);
+            String uniformName = "u_stage" + i;
+            if (stage.hasUniform()) {
+                uniformNames.add(uniformName);
+                uniformValues.add(mStageParams[i]);
+                uniforms.append("uniform ").append(stage.uniformType()).append(' ').append(uniformName).append(";\n");
+            }
+            body.append("  ").append(stage.source(uniformName)).append('\n')
+                    .append("  c = clamp(c, 0.0, 1.0);\n");
+        }
+        mUniformNames = uniformNames.toArray(new String[uniformNames.size()]);
+        mUniformValues = uniformValues.toArray(new float[uniformValues.size()][]);
+        mFragmentShader = "precision mediump float;\n" +
+                "uniform sampler2D tex_sampler;\n" +
+                uniforms +
+                "varying vec2 v_texcoord;\n" +
+                "const vec3 LUMA = vec3(" + ColorStage.LUMA_R + ", " + ColorStage.LUMA_G + ", " + ColorStage.LUMA_B + ");\n" +
+                vec3("SATURATE_WEIGHTS", ColorStage.SATURATE_WEIGHTS) +
+                vec3("TINT_WEIGHTS", ColorStage.TINT_WEIGHTS) +
+                "void main() {\n" +
+                "  vec4 color = texture2D(tex_sampler, v_texcoord);\n" +
+                "  vec3 c = color.rgb;\n" +
+                body +
+                "  gl_FragColor = vec4(c, color.a);\n" +
+                "}\n";
+    }
+
+    private static String vec3(String name, float[] value) {
+        return "const vec3 " + name + " = vec3(" + value[0] + ", " + value[1] + ", " + value[2] + ");\n";
+    }
+
+    //to be linked with GLTextureRenderer's vertex shader
+    String getFragmentShader() {
+        return mFragmentShader;
+    }
+
+    //the same pass reading a SurfaceTexture frame, made on first use so streaming does not build it per frame
+    String getExternalFragmentShader() {
+        if (mExternalFragmentShader == null) {
+            mExternalFragmentShader = GLTextureRenderer.externalVariant(mFragmentShader);
+        }
+        return mExternalFragmentShader;
+    }
+
+    int getUniformCount() {
+        return mUniformNames.length;
+    }
+
+    String getUniformName(int index) {
+        return mUniformNames[index];
+    }
+
+    //1 component for a float uniform, 3 for a vec3
+    float[] getUniformValue(int index) {
+        return mUniformValues[index];
+    }
+
+    /**
+     * CPU reference of the shader: applies the stages to count ARGB pixels starting at offset,
+     * in place. Alpha is passed through, like gl_FragColor's alpha in the shader.
+     */
+    void apply(int[] pixels, int offset, int count) {
+        float[] c = new float[3];
+        for (int i = offset; i < offset + count; i++) {
+            int argb = pixels[i];
+            c[0] = ((argb >> 16) & 0xFF) / 255f;
+            c[1] = ((argb >> 8) & 0xFF) / 255f;
+            c[2] = (argb & 0xFF) / 255f;
+            for (int s = 0; s < mStages.length; s++) {
+                mStages[s].apply(c, mStageParams[s]);
+                clamp(c);
+            }
+            pixels[i] = (argb & 0xFF000000) | (toByte(c[0]) << 16) | (toByte(c[1]) << 8) | toByte(c[2]);
+        }
+    }
+
+    private static void clamp(float[] c) {
+        for (int i = 0; i < 3; i++) {
+            c[i] = Math.max(0f, Math.min(1f, c[i]));
+        }
+    }
+
+    //what the GPU does when it writes a normalized value into an 8 bit channel
+    private static int toByte(float value) {
+        return (int) (value * 255f + 0.5f);
+    }
+}
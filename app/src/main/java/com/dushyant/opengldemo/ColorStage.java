@@ -0,0 +1,226 @@
+package com.dushyant.opengldemo;
+
+import android.media.effect.EffectFactory;
+
+/**
+ * Effects that only map each pixel's color to a new color, with no dependency on its neighbours.
+ * Any run of them can be evaluated in one fragment shader, see {@link ColorPass}.
+ *
+ * Each stage is a GLSL statement that transforms {@code vec3 c} in place, {@code $p} stands for
+ * the stage's uniform and {@code LUMA} for the Rec. 601 luma weights. {@link #apply(float[], float[])}
+ * is the same math on the CPU, it has to be kept in step with the GLSL.
+ *
+ * The math is that of the framework filters behind EffectFactory (android.filterpacks.imageproc),
+ * so a stage gives the effect's colors up to rounding. Alpha is passed through, where the
+ * framework's brightness also scales it; the two agree on opaque images.
+ */
+enum ColorStage {
+
+    BRIGHTNESS(EffectFactory.EFFECT_BRIGHTNESS, "brightness", 1.0f,
+            "c = c * $p;") {
+        @Override
+        void apply(float[] c, float[] p) {
+            c[0] *= p[0];
+            c[1] *= p[0];
+            c[2] *= p[0];
+        }
+    },
+    CONTRAST(EffectFactory.EFFECT_CONTRAST, "contrast", 1.0f,
+            "c = (c - 0.5) * $p + 0.5;") {
+        @Override
+        void apply(float[] c, float[] p) {
+            for (int i = 0; i < 3; i++) {
+                c[i] = (c[i] - 0.5f) * p[0] + 0.5f;
+            }
+        }
+    },
+    /*
+     * scale in [-1, 1], -1 is grayscale and 0 leaves the image alone. Below 0 the color is blended
+     * with its weighted average, above 0 each channel is raised to its own power around it.
+     * The framework divides by the average unguarded, black stays black here.
+     */
+    SATURATE(EffectFactory.EFFECT_SATURATE, "scale", 0.0f,
+            "if ($p > 0.0) {"
+                    + " float de = max(dot(c, SATURATE_WEIGHTS), 0.0001);"
+                    + " c = de * pow(c / de, vec3(0.9, 2.1, 2.7) * $p + 1.0);"
+                    + " c = c / max(max(max(c.r, c.g), c.b), 1.0);"
+                    + " } else {"
+                    + " c = (1.0 + $p) * c - $p * (dot(c, SATURATE_WEIGHTS) + 1.0 / 255.0);"
+                    + " }") {
+        @Override
+        void apply(float[] c, float[] p) {
+            float scale = p[0];
+            float average = SATURATE_WEIGHTS[0] * c[0] + SATURATE_WEIGHTS[1] * c[1] + SATURATE_WEIGHTS[2] * c[2];
+            if (scale > 0f) {
+                float de = Math.max(average, 0.0001f);
+                float max = 1f;
+                for (int i = 0; i < 3; i++) {
+                    c[i] = de * (float) Math.pow(c[i] / de, SATURATE_EXPONENTS[i] * scale + 1f);
+                    max = Math.max(max, c[i]);
+                }
+                for (int i = 0; i < 3; i++) {
+                    c[i] /= max;
+                }
+            } else {
+                float kv = average + 1f / 255f;
+                for (int i = 0; i < 3; i++) {
+                    c[i] = (1f + scale) * c[i] - scale * kv;
+                }
+            }
+        }
+    },
+    /*
+     * scale in [0, 1], 0.5 is neutral, above warms (more red, less blue) and below cools. The
+     * uniform is 2 * scale - 1; the change is largest in the mid tones and green follows red
+     * a little when warming.
+     */
+    TEMPERATURE(EffectFactory.EFFECT_TEMPERATURE, "scale", 0.5f,
+            "{ vec3 n = c;"
+                    + " n.r = c.r + c.r * (1.0 - c.r) * $p;"
+                    + " n.b = c.b - c.b * (1.0 - c.b) * $p;"
+                    + " if ($p > 0.0) { n.g = c.g + c.g * (1.0 - c.g) * $p * 0.25; }"
+                    + " c = n / max(max(n.r, max(n.g, n.b)), 1.0); }") {
+        @Override
+        void apply(float[] c, float[] p) {
+            float scale = p[0];
+            c[0] = c[0] + c[0] * (1f - c[0]) * scale;
+            c[2] = c[2] - c[2] * (1f - c[2]) * scale;
+            if (scale > 0f) {
+                c[1] = c[1] + c[1] * (1f - c[1]) * scale * 0.25f;
+            }
+            float max = Math.max(c[0], Math.max(c[1], c[2]));
+            if (max > 1f) {
+                c[0] /= max;
+                c[1] /= max;
+                c[2] /= max;
+            }
+        }
+    },
+    //tint is an ARGB color, the result is 80% the pixel's average and 20% the tint
+    TINT(EffectFactory.EFFECT_TINT, "tint", 0xFF0000FF,
+            "c = 0.8 * dot(c, TINT_WEIGHTS) + 0.2 * $p;") {
+        @Override
+        void apply(float[] c, float[] p) {
+            float average = TINT_WEIGHTS[0] * c[0] + TINT_WEIGHTS[1] * c[1] + TINT_WEIGHTS[2] * c[2];
+            for (int i = 0; i < 3; i++) {
+                c[i] = 0.8f * average + 0.2f * p[i];
+            }
+        }
+    },
+    GRAYSCALE(EffectFactory.EFFECT_GRAYSCALE, null, null,
+            "c = vec3(dot(c, LUMA));") {
+        @Override
+        void apply(float[] c, float[] p) {
+            float luma = luma(c);
+            c[0] = luma;
+            c[1] = luma;
+            c[2] = luma;
+        }
+    },
+    NEGATIVE(EffectFactory.EFFECT_NEGATIVE, null, null,
+            "c = 1.0 - c;") {
+        @Override
+        void apply(float[] c, float[] p) {
+            c[0] = 1.0f - c[0];
+            c[1] = 1.0f - c[1];
+            c[2] = 1.0f - c[2];
+        }
+    },
+    //the framework's sepia matrix in 2048ths, white ends up clamped to a light brown
+    SEPIA(EffectFactory.EFFECT_SEPIA, null, null,
+            "c = vec3(dot(c, vec3(805.0, 1575.0, 387.0)), dot(c, vec3(715.0, 1405.0, 344.0)),"
+                    + " dot(c, vec3(557.0, 1097.0, 268.0))) / 2048.0;") {
+        @Override
+        void apply(float[] c, float[] p) {
+            float r = c[0];
+            float g = c[1];
+            float b = c[2];
+            c[0] = (805f * r + 1575f * g + 387f * b) / 2048f;
+            c[1] = (715f * r + 1405f * g + 344f * b) / 2048f;
+            c[2] = (557f * r + 1097f * g + 268f * b) / 2048f;
+        }
+    };
+
+    static final float LUMA_R = 0.299f;
+    static final float LUMA_G = 0.587f;
+    static final float LUMA_B = 0.114f;
+    //the averages the framework's saturate and tint filters work around, with GLSL constants of the same name
+    static final float[] SATURATE_WEIGHTS = {2f / 8f, 5f / 8f, 1f / 8f};
+    static final float[] TINT_WEIGHTS = {0.21f, 0.71f, 0.07f};
+
+    private static final float[] SATURATE_EXPONENTS = {0.9f, 2.1f, 2.7f};
+
+    private final String mEffectName;
+    private final String mParamName;
+    private final Object mDefaultValue;
+    private final String mSource;
+
+    ColorStage(String effectName, String paramName, Object defaultValue, String source) {
+        mEffectName = effectName;
+        mParamName = paramName;
+        mDefaultValue = defaultValue;
+        mSource = source;
+    }
+
+    //the stage for the descriptor, null if the effect is not a pure color mapping
+    static ColorStage of(EffectDescriptor descriptor) {
+        for (ColorStage stage : values()) {
+            if (stage.mEffectName.equals(descriptor.getEffectName())) {
+                return stage;
+            }
+        }
+        return null;
+    }
+
+    static float luma(float[] c) {
+        return LUMA_R * c[0] + LUMA_G * c[1] + LUMA_B * c[2];
+    }
+
+    /**
+     * CPU version of the stage's GLSL, transforms the rgb color in c (0 to 1, not clamped) in place.
+     *
+     * @param p the uniform value, see {@link #uniformValue(EffectDescriptor)}
+     */
+    abstract void apply(float[] c, float[] p);
+
+    String getEffectName() {
+        return mEffectName;
+    }
+
+    //false for stages without a parameter, they need no uniform
+    boolean hasUniform() {
+        return mParamName != null;
+    }
+
+    //GLSL type of the stage's uniform
+    String uniformType() {
+        return this == TINT ? "vec3" : "float";
+    }
+
+    //the GLSL statement with $p replaced by the given uniform name
+    String source(String uniformName) {
+        return mSource.replace("$p", uniformName);
+    }
+
+    //the uniform value for the descriptor's parameter, 1 float or 3 for a color, null without a uniform
+    float[] uniformValue(EffectDescriptor descriptor) {
+        if (!hasUniform()) {
+            return null;
+        }
+        Object value = descriptor.getParam(mParamName);
+        if (value == null) {
+            value = mDefaultValue;
+        }
+        if (this == TINT) {
+            int color = ((Number) value).intValue();
+            return new float[]{
+                    ((color >> 16) & 0xFF) / 255f,
+                    ((color >> 8) & 0xFF) / 255f,
+                    (color & 0xFF) / 255f};
+        }
+        if (this == TEMPERATURE) {
+            return new float[]{2f * ((Number) value).floatValue() - 1f};
+        }
+        return new float[]{((Number) value).floatValue()};
+    }
+}
@@ -0,0 +1,118 @@
+package com.dushyant.opengldemo;
+
+/**
+ * A block-compressed image with its mipmap levels, largest first, ready for
+ * glCompressedTexImage2D. Read from KTX or PKM files by {@link TextureContainers}.
+ *
+ * Only the ETC family is known: ETC1, which every ES 2 Android device samples, and the
+ * ETC2/EAC formats of ES 3. Each level holds whole 4x4 blocks, also when its size is not a
+ * multiple of 4.
+ */
+final class CompressedTexture {
+
+    // OES_compressed_ETC1_RGB8_texture
+    static final int GL_ETC1_RGB8_OES = 0x8D64;
+    // ES 3.0
+    static final int GL_COMPRESSED_R11_EAC = 0x9270;
+    static final int GL_COMPRESSED_SIGNED_R11_EAC = 0x9271;
+    static final int GL_COMPRESSED_RG11_EAC = 0x9272;
+    static final int GL_COMPRESSED_SIGNED_RG11_EAC = 0x9273;
+    static final int GL_COMPRESSED_RGB8_ETC2 = 0x9274;
+    static final int GL_COMPRESSED_SRGB8_ETC2 = 0x9275;
+    static final int GL_COMPRESSED_RGB8_PUNCHTHROUGH_ALPHA1_ETC2 = 0x9276;
+    static final int GL_COMPRESSED_SRGB8_PUNCHTHROUGH_ALPHA1_ETC2 = 0x9277;
+    static final int GL_COMPRESSED_RGBA8_ETC2_EAC = 0x9278;
+    static final int GL_COMPRESSED_SRGB8_ALPHA8_ETC2_EAC = 0x9279;
+
+    private static final int BLOCK_SIZE = 4;
+
+    final int internalFormat;
+    final int width;
+    final int height;
+    private final byte[][] mLevels;
+
+    /**
+     * @throws IllegalArgumentException for an unknown format, or levels that do not have the
+     *                                  size of the mip chain of width x height
+     */
+    CompressedTexture(int internalFormat, int width, int height, byte[][] levels) {
+        if (width < 1 || height < 1 || levels.length < 1 || levels.length > maxLevels(width, height)) {
+            throw new IllegalArgumentException("Bad texture " + width + "x" + height + " with " + levels.length + " levels");
+        }
+        for (int i = 0; i < levels.length; i++) {
+            int expected = levelSize(internalFormat, levelDimension(width, i), levelDimension(height, i));
+            if (levels[i].length != expected) {
+                throw new IllegalArgumentException("Level " + i + " has " + levels[i].length + " bytes, expected " + expected);
+            }
+        }
+        this.internalFormat = internalFormat;
+        this.width = width;
+        this.height = height;
+        mLevels = levels;
+    }
+
+    int getLevelCount() {
+        return mLevels.length;
+    }
+
+    byte[] getLevel(int level) {
+        return mLevels[level];
+    }
+
+    int getLevelWidth(int level) {
+        return levelDimension(width, level);
+    }
+
+    int getLevelHeight(int level) {
+        return levelDimension(height, level);
+    }
+
+    //whether every level down to 1x1 is there, which mipmapped filtering needs
+    boolean hasFullMipChain() {
+        return mLevels.length == maxLevels(width, height);
+    }
+
+    //bytes of all levels together
+    long getByteCount() {
+        long bytes = 0;
+        for (byte[] level : mLevels) {
+            bytes += level.length;
+        }
+        return bytes;
+    }
+
+    static int levelDimension(int size, int level) {
+        return Math.max(1, size >> level);
+    }
+
+    //levels of a full mip chain, down to 1x1
+    static int maxLevels(int width, int height) {
+        return 32 - Integer.numberOfLeadingZeros(Math.max(width, height));
+    }
+
+    //bytes of one width x height level
+    static int levelSize(int internalFormat, int width, int height) {
+        return ((width + BLOCK_SIZE - 1) / BLOCK_SIZE) * ((height + BLOCK_SIZE - 1) / BLOCK_SIZE) * blockBytes(internalFormat);
+    }
+
+    //bytes per 4x4 block
+    static int blockBytes(int internalFormat) {
+        switch (internalFormat) {
+            case GL_ETC1_RGB8_OES:
+            case GL_COMPRESSED_R11_EAC:
+            case GL_COMPRESSED_SIGNED_R11_EAC:
+            case GL_COMPRESSED_RGB8_ETC2:
+            case GL_COMPRESSED_SRGB8_ETC2:
+            case GL_COMPRESSED_RGB8_PUNCHTHROUGH_ALPHA1_ETC2:
+            case GL_COMPRESSED_SRGB8_PUNCHTHROUGH_ALPHA1_ETC2:
+                return 8;
+            case GL_COMPRESSED_RG11_EAC:
+            case GL_COMPRESSED_SIGNED_RG11_EAC:
+            case GL_COMPRESSED_RGBA8_ETC2_EAC:
+            case GL_COMPRESSED_SRGB8_ALPHA8_ETC2_EAC:
+                return 16;
+            default:
+                throw new IllegalArgumentException("Unknown compressed format 0x" + Integer.toHexString(internalFormat));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.dushyant.opengldemo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps transcoded textures on disk, so compressing an image happens on the first run and
+ * later launches only read the file. One file per key, holding a KTX container.
+ *
+ * Entries are tagged with the version of their source, e.g. the app version the drawable came
+ * with; an entry of another version is a miss and gets transcoded again. Like the
+ * {@link ProgramBinaryStore}, anything that does not check out is deleted, and a failed
+ * write only costs transcoding again next time.
+ *
+ * Entry layout: magic, format version, source version, length, CRC32, KTX bytes.
+ */
+class CompressedTextureCache {
+
+    static final int MAGIC = 0x45544358;//"ETCX"
+    static final int FORMAT_VERSION = 1;
+
+    private static final String SUFFIX = ".ktxc";
+
+    //compresses the source on a cache miss
+    interface Transcoder {
+        CompressedTexture transcode() throws IOException;
+    }
+
+    private final File mDir;
+    private final String mSourceVersion;
+    private final AtomicInteger mHits = new AtomicInteger();
+    private final AtomicInteger mTranscodes = new AtomicInteger();
+
+    CompressedTextureCache(File dir, String sourceVersion) {
+        mDir = dir;
+        mSourceVersion = sourceVersion;
+    }
+
+    /**
+     * Returns the cached texture for key, or transcodes and stores it. Keys become file names.
+     *
+     * @throws IOException if the transcoder fails
+     */
+    CompressedTexture get(String key, Transcoder transcoder) throws IOException {
+        CompressedTexture texture = load(key);
+        if (texture != null) {
+            mHits.incrementAndGet();
+            return texture;
+        }
+        texture = transcoder.transcode();
+        mTranscodes.incrementAndGet();
+        save(key, texture);
+        return texture;
+    }
+
+    int getHits() {
+        return mHits.get();
+    }
+
+    int getTranscodes() {
+        return mTranscodes.get();
+    }
+
+    private File entryFile(String key) {
+        return new File(mDir, key + SUFFIX);
+    }
+
+    //returns the stored texture, or null if there is none or it is stale or corrupt
+    CompressedTexture load(String key) {
+        File file = entryFile(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !mSourceVersion.equals(in.readUTF())) {
+                throw new IOException("Stale texture " + file);
+            }
+            int length = in.readInt();
+            long crc = in.readLong();
+            if (length < 0 || length > file.length()) {
+                throw new IOException("Bad texture length " + length);
+            }
+            byte[] ktx = new byte[length];
+            in.readFully(ktx);
+            if (crc(ktx) != crc) {
+                throw new IOException("Corrupt texture " + file);
+            }
+            return TextureContainers.read(new ByteArrayInputStream(ktx));
+        } catch (IOException | IllegalArgumentException e) {
+            close(in);
+            in = null;
+            file.delete();
+            return null;
+        } finally {
+            close(in);
+        }
+    }
+
+    //best effort, a texture that fails to save is transcoded again next launch
+    boolean save(String key, CompressedTexture texture) {
+        if (!mDir.isDirectory() && !mDir.mkdirs()) {
+            return false;
+        }
+        File file = entryFile(key);
+        File tmp = new File(mDir, key + ".tmp");
+        DataOutputStream out = null;
+        try {
+            ByteArrayOutputStream ktx = new ByteArrayOutputStream((int) texture.getByteCount() + 1024);
+            TextureContainers.writeKtx(texture, ktx);
+            byte[] bytes = ktx.toByteArray();
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(mSourceVersion);
+            out.writeInt(bytes.length);
+            out.writeLong(crc(bytes));
+            out.write(bytes);
+            out.close();
+            out = null;
+            //rename so a crash mid-write never leaves a half written entry behind
+            return tmp.renameTo(file);
+        } catch (IOException e) {
+            tmp.delete();
+            return false;
+        } finally {
+            close(out);
+        }
+    }
+
+    private static long crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        return crc.getValue();
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.dushyant.opengldemo;
+
+/**
+ * Picks the BitmapFactory.Options.inSampleSize for a decode.
+ * The decoded image should still cover the viewport, but never be larger than
+ * GL_MAX_TEXTURE_SIZE on either side, otherwise the upload fails.
+ */
+final class DecodeSizePlanner {
+
+    private DecodeSizePlanner() {
+    }
+
+    /**
+     * @param srcWidth       width of the encoded image
+     * @param srcHeight      height of the encoded image
+     * @param reqWidth       width the image is shown at, 0 or less means no requirement
+     * @param reqHeight      height the image is shown at, 0 or less means no requirement
+     * @param maxTextureSize GL_MAX_TEXTURE_SIZE, 0 or less means no limit
+     * @return a power of two sample size, at least 1
+     */
+    static int computeInSampleSize(int srcWidth, int srcHeight, int reqWidth, int reqHeight, int maxTextureSize) {
+        if (srcWidth <= 0 || srcHeight <= 0) {
+            throw new IllegalArgumentException("Invalid image size " + srcWidth + "x" + srcHeight);
+        }
+        int sampleSize = 1;
+        if (reqWidth > 0 && reqHeight > 0) {
+            // halve as long as the next smaller image still covers the requested size
+            while (srcWidth / (sampleSize * 2) >= reqWidth && srcHeight / (sampleSize * 2) >= reqHeight) {
+                sampleSize *= 2;
+            }
+        }
+        if (maxTextureSize > 0) {
+            // keep halving until it fits into a single texture
+            while (decodedSize(srcWidth, sampleSize) > maxTextureSize
+                    || decodedSize(srcHeight, sampleSize) > maxTextureSize) {
+                sampleSize *= 2;
+            }
+        }
+        return sampleSize;
+    }
+
+    //size of one side after decoding with the sample size, the decoder rounds up
+    static int decodedSize(int srcSize, int sampleSize) {
+        return (srcSize + sampleSize - 1) / sampleSize;
+    }
+}
@@ -0,0 +1,58 @@
+package com.dushyant.opengldemo;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Keeps decoded images around so a new surface or a rotation does not decode again.
+ * Bounded by the byte size reported by the {@link Sizer}, least recently used images go first.
+ *
+ * Thread safe, the loader thread puts and the GL thread reads.
+ */
+class DecodedImageCache<V> {
+
+    interface Sizer<V> {
+        long sizeOf(V value);
+    }
+
+    private final Sizer<V> mSizer;
+    private final long mMaxBytes;
+    private final LinkedHashMap<String, V> mImages = new LinkedHashMap<>(16, 0.75f, true);
+    private long mBytes;
+
+    DecodedImageCache(Sizer<V> sizer, long maxBytes) {
+        mSizer = sizer;
+        mMaxBytes = maxBytes;
+    }
+
+    synchronized V get(String key) {
+        return mImages.get(key);
+    }
+
+    //the newest image is always kept, even if it alone is larger than the limit
+    synchronized void put(String key, V image) {
+        V old = mImages.put(key, image);
+        if (old != null) {
+            mBytes -= mSizer.sizeOf(old);
+        }
+        mBytes += mSizer.sizeOf(image);
+        Iterator<V> eldest = mImages.values().iterator();
+        while (mBytes > mMaxBytes && mImages.size() > 1) {
+            mBytes -= mSizer.sizeOf(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    synchronized void clear() {
+        mImages.clear();
+        mBytes = 0;
+    }
+
+    synchronized int size() {
+        return mImages.size();
+    }
+
+    synchronized long getBytes() {
+        return mBytes;
+    }
+}
@@ -0,0 +1,90 @@
+package com.dushyant.opengldemo;
+
+import android.media.effect.Effect;
+
+/**
+ * Runs an {@link EffectChainPlanner.Plan} on the GL thread. Effect passes go through the
+ * {@link EffectRegistry}, fused color passes through {@link GLTextureRenderer#renderPass}.
+ * Results between passes live in the {@link PingPongBuffers}, the last pass writes the
+ * output texture. With {@link #setFrameStats(FrameStats)} the effect lookups are timed as
+ * EFFECT_CREATE and left out of the APPLY stage the caller runs the chain in.
+ *
+ * Holds GL objects of the current context, make a new one per EGL context.
+ */
+class EffectChain {
+
+    private final GLStateCache mGL;
+    private final GLResourceManager mResources;
+    private final GLTextureRenderer mRenderer;
+    private final PingPongBuffers mBuffers;
+    private int mOutputFramebuffer;
+    private FrameStats mStats;//null when not timed
+
+    EffectChain(GLStateCache gl, GLResourceManager resources, GLTextureRenderer renderer) {
+        mGL = gl;
+        mResources = resources;
+        mRenderer = renderer;
+        mBuffers = new PingPongBuffers(resources);
+    }
+
+    void setFrameStats(FrameStats stats) {
+        mStats = stats;
+    }
+
+    void apply(EffectChainPlanner.Plan plan, EffectRegistry<Effect> registry,
+               int sourceTexture, int width, int height, int outputTexture) {
+        mBuffers.ensure(plan.getIntermediateCount(), width, height);
+        for (int i = 0; i < plan.getPassCount(); i++) {
+            EffectChainPlanner.Pass pass = plan.getPass(i);
+            int input = texture(pass.source, sourceTexture, outputTexture);
+            if (pass.isColorPass()) {
+                mRenderer.renderPass(input, framebuffer(pass.target, outputTexture), width, height, pass.colorPass);
+            } else {
+                Effect effect = obtain(registry, pass.effect);
+                effect.apply(input, width, height, texture(pass.target, sourceTexture, outputTexture));
+                // the effect framework binds its own programs, textures and framebuffers
+                mGL.invalidate();
+            }
+        }
+    }
+
+    //the effect from the registry, creating it on a miss
+    private Effect obtain(EffectRegistry<Effect> registry, EffectDescriptor descriptor) {
+        if (mStats == null) {
+            return registry.obtain(descriptor);
+        }
+        mStats.begin(FrameStats.Stage.EFFECT_CREATE);
+        Effect effect = registry.obtain(descriptor);
+        mStats.endNested(FrameStats.Stage.EFFECT_CREATE, FrameStats.Stage.APPLY);
+        return effect;
+    }
+
+    //draws the source scaled into outputTexture of width x height, e.g. for a preview's proxy
+    void downscale(int sourceTexture, int outputTexture, int width, int height) {
+        mRenderer.copyTexture(sourceTexture, framebuffer(EffectChainPlanner.OUTPUT, outputTexture), width, height);
+    }
+
+    private int texture(int buffer, int sourceTexture, int outputTexture) {
+        switch (buffer) {
+            case EffectChainPlanner.SOURCE:
+                return sourceTexture;
+            case EffectChainPlanner.OUTPUT:
+                return outputTexture;
+            default:
+                return mBuffers.getTexture(buffer);
+        }
+    }
+
+    private int framebuffer(int buffer, int outputTexture) {
+        if (buffer != EffectChainPlanner.OUTPUT) {
+            return mBuffers.getFramebuffer(buffer);
+        }
+        // output textures come from the result cache and only get rendered on a miss,
+        // so one framebuffer is simply re-pointed at the current one every time
+        if (mOutputFramebuffer == 0) {
+            mOutputFramebuffer = mResources.genFramebuffer();
+        }
+        PingPongBuffers.attach(mGL, mOutputFramebuffer, outputTexture);
+        return mOutputFramebuffer;
+    }
+}
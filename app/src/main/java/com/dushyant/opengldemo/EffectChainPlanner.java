@@ -0,0 +1,120 @@
+package com.dushyant.opengldemo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Turns a list of effects into render passes and decides which texture each pass reads and writes.
+ *
+ * Runs of adjacent {@link ColorStage}s, a single one included, become one {@link ColorPass},
+ * at most {@link #MAX_FUSED_STAGES} at a time to stay within the uniform limits. Every other
+ * effect is a pass of its own.
+ *
+ * The first pass reads {@link #SOURCE} and the last one writes {@link #OUTPUT}. The passes in
+ * between alternate between two intermediate buffers, 0 and 1, so a chain of any length needs at
+ * most two of them and no pass ever reads the texture it writes.
+ */
+final class EffectChainPlanner {
+
+    static final int SOURCE = -1;
+    static final int OUTPUT = -2;
+
+    static final int MAX_FUSED_STAGES = 8;
+
+    /**
+     * One draw: either an EffectFactory effect or a fused run of color stages.
+     */
+    static final class Pass {
+        final EffectDescriptor effect;//null for a color pass
+        final ColorPass colorPass;//null for an effect pass
+        final int stageCount;
+        final int source;
+        final int target;
+
+        Pass(EffectDescriptor effect, ColorPass colorPass, int stageCount, int source, int target) {
+            this.effect = effect;
+            this.colorPass = colorPass;
+            this.stageCount = stageCount;
+            this.source = source;
+            this.target = target;
+        }
+
+        boolean isColorPass() {
+            return colorPass != null;
+        }
+    }
+
+    static final class Plan {
+        private final List<Pass> mPasses;
+        private final int mIntermediateCount;
+
+        Plan(List<Pass> passes) {
+            mPasses = Collections.unmodifiableList(passes);
+            mIntermediateCount = Math.min(2, Math.max(0, passes.size() - 1));
+        }
+
+        int getPassCount() {
+            return mPasses.size();
+        }
+
+        Pass getPass(int index) {
+            return mPasses.get(index);
+        }
+
+        //how many ping-pong buffers the plan uses, 0 to 2
+        int getIntermediateCount() {
+            return mIntermediateCount;
+        }
+
+        /**
+         * The color pass if the whole plan is a single one. It can then be drawn straight to
+         * the screen from the source texture, without an output texture in between.
+         */
+        ColorPass getDirectPass() {
+            if (mPasses.size() == 1 && mPasses.get(0).isColorPass()) {
+                return mPasses.get(0).colorPass;
+            }
+            return null;
+        }
+    }
+
+    private EffectChainPlanner() {
+    }
+
+    static Plan plan(List<EffectDescriptor> stages) {
+        // group the stages into passes first, buffers can only be assigned once the count is known
+        // each group is {first stage, stage count, fused}
+        List<int[]> groups = new ArrayList<>();
+        int i = 0;
+        while (i < stages.size()) {
+            int run = 0;
+            while (i + run < stages.size() && run < MAX_FUSED_STAGES
+                    && ColorStage.of(stages.get(i + run)) != null) {
+                run++;
+            }
+            if (run > 0) {
+                groups.add(new int[]{i, run, 1});
+                i += run;
+            } else {
+                groups.add(new int[]{i, 1, 0});
+                i++;
+            }
+        }
+
+        List<Pass> passes = new ArrayList<>(groups.size());
+        int source = SOURCE;
+        for (int pass = 0; pass < groups.size(); pass++) {
+            int target = pass == groups.size() - 1 ? OUTPUT : pass % 2;
+            int[] group = groups.get(pass);
+            if (group[2] == 1) {
+                ColorPass colorPass = new ColorPass(stages.subList(group[0], group[0] + group[1]));
+                passes.add(new Pass(null, colorPass, group[1], source, target));
+            } else {
+                passes.add(new Pass(stages.get(group[0]), null, 1, source, target));
+            }
+            source = target;
+        }
+        return new Plan(passes);
+    }
+}
@@ -0,0 +1,140 @@
+package com.dushyant.opengldemo;
+
+import android.media.effect.EffectFactory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Describes one effect: the EffectFactory effect name plus the parameters set on it.
+ * Two descriptors with the same name and parameters share the same {@link #key()},
+ * which is what the {@link EffectRegistry} caches on.
+ */
+final class EffectDescriptor {
+
+    //the effect needs the whole image, e.g. it depends on the position relative to the center
+    static final int GLOBAL = -1;
+
+    //how far each effect reads around an output pixel, for tiling. Effects not listed are GLOBAL.
+    private static final Map<String, Integer> HALOS = new HashMap<>();
+
+    static {
+        // per pixel
+        for (String name : new String[]{EffectFactory.EFFECT_BLACKWHITE, EffectFactory.EFFECT_BRIGHTNESS,
+                EffectFactory.EFFECT_CONTRAST, EffectFactory.EFFECT_CROSSPROCESS, EffectFactory.EFFECT_DUOTONE,
+                EffectFactory.EFFECT_FILLLIGHT, EffectFactory.EFFECT_GRAYSCALE, EffectFactory.EFFECT_NEGATIVE,
+                EffectFactory.EFFECT_POSTERIZE, EffectFactory.EFFECT_SATURATE, EffectFactory.EFFECT_SEPIA,
+                EffectFactory.EFFECT_TEMPERATURE, EffectFactory.EFFECT_TINT}) {
+            HALOS.put(name, 0);
+        }
+        // 3x3 neighbourhoods
+        HALOS.put(EffectFactory.EFFECT_SHARPEN, 1);
+        HALOS.put(EffectFactory.EFFECT_GRAIN, 1);
+        // fisheye, vignette, lomoish and documentary depend on the distance to the image center,
+        // autofix on the histogram of the whole image, flip and rotate move pixels across it
+    }
+
+    private final String mEffectName;
+    private final String[] mParamNames;
+    private final Object[] mParamValues;
+    private final String mKey;
+    private final int mHalo;
+
+    /**
+     * @param effectName one of the EffectFactory.EFFECT_* names
+     * @param params     alternating parameter name / value pairs, e.g. "scale", 0.5f
+     */
+    EffectDescriptor(String effectName, Object... params) {
+        if (params.length % 2 != 0) {
+            throw new IllegalArgumentException("Parameters must be name/value pairs: " + Arrays.toString(params));
+        }
+        mEffectName = effectName;
+        mParamNames = new String[params.length / 2];
+        mParamValues = new Object[params.length / 2];
+        StringBuilder key = new StringBuilder(effectName).append('{');
+        for (int i = 0; i < mParamNames.length; i++) {
+            mParamNames[i] = (String) params[2 * i];
+            mParamValues[i] = params[2 * i + 1];
+            if (i > 0) {
+                key.append(',');
+            }
+            key.append(mParamNames[i]).append('=').append(mParamValues[i]);
+        }
+        mKey = key.append('}').toString();
+        Integer halo = HALOS.get(effectName);
+        mHalo = halo == null ? GLOBAL : halo;
+    }
+
+    String getEffectName() {
+        return mEffectName;
+    }
+
+    int getParamCount() {
+        return mParamNames.length;
+    }
+
+    String getParamName(int index) {
+        return mParamNames[index];
+    }
+
+    Object getParamValue(int index) {
+        return mParamValues[index];
+    }
+
+    //the value of the named parameter, null if it is not set
+    Object getParam(String name) {
+        for (int i = 0; i < mParamNames.length; i++) {
+            if (mParamNames[i].equals(name)) {
+                return mParamValues[i];
+            }
+        }
+        return null;
+    }
+
+    //pixels on each side of an output pixel the effect reads, or GLOBAL
+    int getHalo() {
+        return mHalo;
+    }
+
+    //a copy with the named parameter set to value, added at the end if this one does not have it
+    EffectDescriptor withParam(String name, Object value) {
+        boolean found = false;
+        Object[] params = new Object[2 * mParamNames.length + 2];
+        int length = 0;
+        for (int i = 0; i < mParamNames.length; i++) {
+            params[length++] = mParamNames[i];
+            if (mParamNames[i].equals(name)) {
+                params[length++] = value;
+                found = true;
+            } else {
+                params[length++] = mParamValues[i];
+            }
+        }
+        if (!found) {
+            params[length++] = name;
+            params[length++] = value;
+        }
+        return new EffectDescriptor(mEffectName, Arrays.copyOf(params, length));
+    }
+
+    //identifies the effect together with its parameters
+    String key() {
+        return mKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof EffectDescriptor && mKey.equals(((EffectDescriptor) o).mKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return mKey.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return mKey;
+    }
+}
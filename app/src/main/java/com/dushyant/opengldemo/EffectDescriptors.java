@@ -0,0 +1,68 @@
+package com.dushyant.opengldemo;
+
+import android.graphics.Color;
+import android.media.effect.EffectFactory;
+
+/**
+ * The effects offered by the spinner, indexed by spinner position (see R.array.spinner_array).
+ * Most entries are a single effect, the last ones stack several. Position 0 is "None" and has
+ * no pipeline.
+ */
+final class EffectDescriptors {
+
+    private static final EffectPipeline[] EFFECTS = {
+            null,//None
+            effect(EffectFactory.EFFECT_AUTOFIX, "scale", 0.5f),
+            effect(EffectFactory.EFFECT_BLACKWHITE, "black", .1f, "white", .7f),
+            effect(EffectFactory.EFFECT_BRIGHTNESS, "brightness", 2.0f),
+            effect(EffectFactory.EFFECT_CONTRAST, "contrast", 1.4f),
+            effect(EffectFactory.EFFECT_CROSSPROCESS),
+            effect(EffectFactory.EFFECT_DOCUMENTARY),
+            effect(EffectFactory.EFFECT_DUOTONE, "first_color", Color.YELLOW, "second_color", Color.DKGRAY),
+            effect(EffectFactory.EFFECT_FILLLIGHT, "strength", .8f),
+            effect(EffectFactory.EFFECT_FISHEYE, "scale", .5f),
+            effect(EffectFactory.EFFECT_FLIP, "vertical", true),
+            effect(EffectFactory.EFFECT_FLIP, "horizontal", true),
+            effect(EffectFactory.EFFECT_GRAIN, "strength", 1.0f),
+            effect(EffectFactory.EFFECT_GRAYSCALE),
+            effect(EffectFactory.EFFECT_LOMOISH),
+            effect(EffectFactory.EFFECT_NEGATIVE),
+            effect(EffectFactory.EFFECT_POSTERIZE),
+            effect(EffectFactory.EFFECT_ROTATE, "angle", 180),
+            effect(EffectFactory.EFFECT_SATURATE, "scale", .5f),
+            effect(EffectFactory.EFFECT_SEPIA),
+            effect(EffectFactory.EFFECT_SHARPEN),
+            effect(EffectFactory.EFFECT_TEMPERATURE, "scale", .9f),
+            effect(EffectFactory.EFFECT_TINT, "tint", Color.MAGENTA),
+            effect(EffectFactory.EFFECT_VIGNETTE, "scale", .5f),
+            new EffectPipeline(
+                    new EffectDescriptor(EffectFactory.EFFECT_AUTOFIX, "scale", 0.5f),
+                    new EffectDescriptor(EffectFactory.EFFECT_CONTRAST, "contrast", 1.4f),
+                    new EffectDescriptor(EffectFactory.EFFECT_VIGNETTE, "scale", .5f)),
+            // only color stages, rendered as one fused pass
+            new EffectPipeline(
+                    new EffectDescriptor(EffectFactory.EFFECT_BRIGHTNESS, "brightness", 1.2f),
+                    new EffectDescriptor(EffectFactory.EFFECT_CONTRAST, "contrast", 1.2f),
+                    new EffectDescriptor(EffectFactory.EFFECT_SATURATE, "scale", .3f),
+                    new EffectDescriptor(EffectFactory.EFFECT_TEMPERATURE, "scale", .7f)),
+    };
+
+    private EffectDescriptors() {
+    }
+
+    private static EffectPipeline effect(String effectName, Object... params) {
+        return new EffectPipeline(new EffectDescriptor(effectName, params));
+    }
+
+    static int size() {
+        return EFFECTS.length;
+    }
+
+    //returns null for "None" and for positions outside the table
+    static EffectPipeline get(int position) {
+        if (position < 0 || position >= EFFECTS.length) {
+            return null;
+        }
+        return EFFECTS[position];
+    }
+}
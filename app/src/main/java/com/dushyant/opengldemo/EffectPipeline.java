@@ -0,0 +1,85 @@
+package com.dushyant.opengldemo;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An ordered stack of effects, each one applied to the output of the previous one.
+ * Immutable; the {@link EffectChainPlanner.Plan} is made on first use and kept.
+ */
+final class EffectPipeline {
+
+    private final List<EffectDescriptor> mStages;
+    private final String mKey;
+    private EffectChainPlanner.Plan mPlan;
+
+    EffectPipeline(EffectDescriptor... stages) {
+        mStages = Collections.unmodifiableList(Arrays.asList(stages.clone()));
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < stages.length; i++) {
+            if (i > 0) {
+                key.append(" > ");
+            }
+            key.append(stages[i].key());
+        }
+        mKey = key.toString();
+    }
+
+    List<EffectDescriptor> getStages() {
+        return mStages;
+    }
+
+    int size() {
+        return mStages.size();
+    }
+
+    //a copy with the stage at index replaced
+    EffectPipeline withStage(int index, EffectDescriptor stage) {
+        EffectDescriptor[] stages = mStages.toArray(new EffectDescriptor[mStages.size()]);
+        stages[index] = stage;
+        return new EffectPipeline(stages);
+    }
+
+    //identifies the effects and their order, what results are cached on
+    String key() {
+        return mKey;
+    }
+
+    /**
+     * Pixels on each side of an output pixel the whole stack reads, the halos of the stages add up.
+     * {@link EffectDescriptor#GLOBAL} if one of them needs the whole image.
+     */
+    int getHalo() {
+        int halo = 0;
+        for (EffectDescriptor stage : mStages) {
+            if (stage.getHalo() == EffectDescriptor.GLOBAL) {
+                return EffectDescriptor.GLOBAL;
+            }
+            halo += stage.getHalo();
+        }
+        return halo;
+    }
+
+    EffectChainPlanner.Plan plan() {
+        if (mPlan == null) {
+            mPlan = EffectChainPlanner.plan(mStages);
+        }
+        return mPlan;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof EffectPipeline && mKey.equals(((EffectPipeline) o).mKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return mKey.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return mKey;
+    }
+}
@@ -0,0 +1,75 @@
+package com.dushyant.opengldemo;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builds each effect once and hands the same instance back on every frame.
+ * Entries are kept in least-recently-used order and the oldest one is released
+ * once more than {@code maxEntries} effects are alive.
+ *
+ * Not thread safe, only touch it from the GL thread.
+ */
+class EffectRegistry<E> {
+
+    /**
+     * Creates and releases the actual effect objects, the android implementation is
+     * {@link MediaEffectFactory}.
+     */
+    interface Factory<E> {
+        E create(EffectDescriptor descriptor);
+
+        void release(E effect);
+    }
+
+    private final Factory<E> mFactory;
+    private final int mMaxEntries;
+    private final LinkedHashMap<String, E> mEffects;
+
+    EffectRegistry(Factory<E> factory, int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1: " + maxEntries);
+        }
+        mFactory = factory;
+        mMaxEntries = maxEntries;
+        //accessOrder = true keeps the least recently used entry first
+        mEffects = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    //returns the cached effect for the descriptor, creating it on first use
+    E obtain(EffectDescriptor descriptor) {
+        E effect = mEffects.get(descriptor.key());
+        if (effect == null) {
+            effect = mFactory.create(descriptor);
+            mEffects.put(descriptor.key(), effect);
+            trimToSize();
+        }
+        return effect;
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, E>> eldest = mEffects.entrySet().iterator();
+        while (mEffects.size() > mMaxEntries) {
+            E evicted = eldest.next().getValue();
+            eldest.remove();
+            mFactory.release(evicted);
+        }
+    }
+
+    //releases every cached effect, call it before the GL context goes away
+    void releaseAll() {
+        for (E effect : mEffects.values()) {
+            mFactory.release(effect);
+        }
+        mEffects.clear();
+    }
+
+    int size() {
+        return mEffects.size();
+    }
+
+    int getMaxEntries() {
+        return mMaxEntries;
+    }
+}
@@ -0,0 +1,127 @@
+package com.dushyant.opengldemo;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Keeps the output texture of recently applied effects so that redrawing an unchanged
+ * frame, or switching back to an effect that was used a moment ago, is a plain blit.
+ *
+ * Results are keyed by the generation of the source image plus the key of the effect
+ * ({@link EffectPipeline#key()}).
+ * Bumping the source generation through {@link #onSourceChanged(long)} marks every older
+ * result dirty and frees it. Total texture memory is bounded by a byte budget, the least
+ * recently used results are freed first.
+ *
+ * Not thread safe, only touch it from the GL thread.
+ */
+class EffectResultCache {
+
+    /**
+     * Creates and deletes the output textures, the android implementation is {@link GLTextureAllocator}.
+     */
+    interface TextureAllocator {
+        int allocate(int width, int height);
+
+        void free(int textureId);
+    }
+
+    private static final int BYTES_PER_PIXEL = 4;//RGBA
+
+    private static class Entry {
+        final long generation;
+        final int textureId;
+        final long bytes;
+
+        Entry(long generation, int textureId, long bytes) {
+            this.generation = generation;
+            this.textureId = textureId;
+            this.bytes = bytes;
+        }
+    }
+
+    private final TextureAllocator mAllocator;
+    private final long mBudgetBytes;
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private long mUsedBytes;
+
+    EffectResultCache(TextureAllocator allocator, long budgetBytes) {
+        mAllocator = allocator;
+        mBudgetBytes = budgetBytes;
+    }
+
+    private static String key(long generation, String effectKey) {
+        return generation + ":" + effectKey;
+    }
+
+    /**
+     * Returns the texture holding the result of the effect applied to the given source
+     * generation, or 0 if it has to be rendered.
+     */
+    int get(long generation, String effectKey) {
+        Entry entry = mEntries.get(key(generation, effectKey));
+        return entry == null ? 0 : entry.textureId;
+    }
+
+    /**
+     * Allocates the output texture for a result that is about to be rendered and makes room
+     * for it by freeing the least recently used results. The newest result is always kept,
+     * even if it alone is larger than the budget.
+     */
+    int allocate(long generation, String effectKey, int width, int height) {
+        String key = key(generation, effectKey);
+        Entry old = mEntries.remove(key);
+        if (old != null) {
+            free(old);
+        }
+        long bytes = (long) width * height * BYTES_PER_PIXEL;
+        trimTo(mBudgetBytes - bytes);
+        Entry entry = new Entry(generation, mAllocator.allocate(width, height), bytes);
+        mEntries.put(key, entry);
+        mUsedBytes += bytes;
+        return entry.textureId;
+    }
+
+    //the source image was replaced, every result rendered from an older generation is dirty
+    void onSourceChanged(long generation) {
+        Iterator<Entry> it = mEntries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.generation != generation) {
+                it.remove();
+                free(entry);
+            }
+        }
+    }
+
+    private void trimTo(long maxBytes) {
+        Iterator<Entry> eldest = mEntries.values().iterator();
+        while (mUsedBytes > maxBytes && eldest.hasNext()) {
+            Entry entry = eldest.next();
+            eldest.remove();
+            free(entry);
+        }
+    }
+
+    private void free(Entry entry) {
+        mUsedBytes -= entry.bytes;
+        mAllocator.free(entry.textureId);
+    }
+
+    //frees every cached result, call it while the GL context is still current
+    void releaseAll() {
+        trimTo(-1);
+    }
+
+    int size() {
+        return mEntries.size();
+    }
+
+    long getUsedBytes() {
+        return mUsedBytes;
+    }
+
+    long getBudgetBytes() {
+        return mBudgetBytes;
+    }
+}
@@ -0,0 +1,36 @@
+package com.dushyant.opengldemo;
+
+/**
+ * What the renderer should show: a spinner position and the effects to apply, which may be the
+ * position's entry from {@link EffectDescriptors} with parameters changed. Immutable, so it can
+ * be handed between threads as is.
+ */
+final class EffectSelection {
+
+    static final EffectSelection NONE = new EffectSelection(0, null);
+
+    final int position;
+    final EffectPipeline pipeline;//null renders the source as is
+
+    EffectSelection(int position, EffectPipeline pipeline) {
+        this.position = position;
+        this.pipeline = pipeline;
+    }
+
+    static EffectSelection of(int position) {
+        return new EffectSelection(position, EffectDescriptors.get(position));
+    }
+
+    //a copy with one parameter of one stage changed, its results are cached separately
+    EffectSelection withParam(int stage, String name, Object value) {
+        if (pipeline == null) {
+            throw new IllegalStateException("No effect selected");
+        }
+        return new EffectSelection(position, pipeline.withStage(stage, pipeline.getStages().get(stage).withParam(name, value)));
+    }
+
+    @Override
+    public String toString() {
+        return position + ": " + pipeline;
+    }
+}
@@ -0,0 +1,94 @@
+package com.dushyant.opengldemo;
+
+import android.annotation.TargetApi;
+import android.opengl.EGL14;
+import android.opengl.EGLConfig;
+import android.opengl.EGLContext;
+import android.opengl.EGLDisplay;
+import android.opengl.EGLSurface;
+import android.os.Build;
+
+/**
+ * An ES 2 context on a 1x1 pbuffer, made current on the thread that creates it, for rendering
+ * into textures without a window. EGL14 needs API 17, check {@link #isSupported()} first.
+ *
+ * Use and release it on the creating thread.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
+class EglPbufferContext {
+
+    private EGLDisplay mDisplay;
+    private EGLContext mContext;
+    private EGLSurface mSurface;
+
+    static boolean isSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1;
+    }
+
+    EglPbufferContext() {
+        mDisplay = EGL14.eglGetDisplay(EGL14.EGL_DEFAULT_DISPLAY);
+        if (mDisplay == null || mDisplay == EGL14.EGL_NO_DISPLAY) {
+            throw new IllegalStateException("No EGL display");
+        }
+        int[] version = new int[2];
+        if (!EGL14.eglInitialize(mDisplay, version, 0, version, 1)) {
+            throw failure("eglInitialize");
+        }
+        try {
+            int[] configAttributes = {
+                    EGL14.EGL_RED_SIZE, 8,
+                    EGL14.EGL_GREEN_SIZE, 8,
+                    EGL14.EGL_BLUE_SIZE, 8,
+                    EGL14.EGL_ALPHA_SIZE, 8,
+                    EGL14.EGL_RENDERABLE_TYPE, EGL14.EGL_OPENGL_ES2_BIT,
+                    EGL14.EGL_SURFACE_TYPE, EGL14.EGL_PBUFFER_BIT,
+                    EGL14.EGL_NONE
+            };
+            EGLConfig[] configs = new EGLConfig[1];
+            int[] count = new int[1];
+            if (!EGL14.eglChooseConfig(mDisplay, configAttributes, 0, configs, 0, 1, count, 0) || count[0] == 0) {
+                throw failure("eglChooseConfig");
+            }
+            int[] contextAttributes = {EGL14.EGL_CONTEXT_CLIENT_VERSION, 2, EGL14.EGL_NONE};
+            mContext = EGL14.eglCreateContext(mDisplay, configs[0], EGL14.EGL_NO_CONTEXT, contextAttributes, 0);
+            if (mContext == null || mContext == EGL14.EGL_NO_CONTEXT) {
+                throw failure("eglCreateContext");
+            }
+            // everything renders into textures, the surface only has to exist
+            int[] surfaceAttributes = {EGL14.EGL_WIDTH, 1, EGL14.EGL_HEIGHT, 1, EGL14.EGL_NONE};
+            mSurface = EGL14.eglCreatePbufferSurface(mDisplay, configs[0], surfaceAttributes, 0);
+            if (mSurface == null || mSurface == EGL14.EGL_NO_SURFACE) {
+                throw failure("eglCreatePbufferSurface");
+            }
+            if (!EGL14.eglMakeCurrent(mDisplay, mSurface, mSurface, mContext)) {
+                throw failure("eglMakeCurrent");
+            }
+        } catch (RuntimeException e) {
+            release();
+            throw e;
+        }
+    }
+
+    private static IllegalStateException failure(String call) {
+        return new IllegalStateException(call + " failed: 0x" + Integer.toHexString(EGL14.eglGetError()));
+    }
+
+    //destroys the context, the GL objects made in it go with it
+    void release() {
+        if (mDisplay == null) {
+            return;
+        }
+        EGL14.eglMakeCurrent(mDisplay, EGL14.EGL_NO_SURFACE, EGL14.EGL_NO_SURFACE, EGL14.EGL_NO_CONTEXT);
+        if (mSurface != null && mSurface != EGL14.EGL_NO_SURFACE) {
+            EGL14.eglDestroySurface(mDisplay, mSurface);
+        }
+        if (mContext != null && mContext != EGL14.EGL_NO_CONTEXT) {
+            EGL14.eglDestroyContext(mDisplay, mContext);
+        }
+        EGL14.eglReleaseThread();
+        EGL14.eglTerminate(mDisplay);
+        mDisplay = null;
+        mSurface = null;
+        mContext = null;
+    }
+}
@@ -0,0 +1,68 @@
+package com.dushyant.opengldemo;
+
+import android.graphics.Bitmap;
+import android.opengl.ETC1Util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Compresses a bitmap to ETC1 with a full mip chain, each level scaled down from the previous
+ * one with filtering. ETC1 has no alpha, which the images here do not use. Slow, meant for a
+ * {@link CompressedTextureCache} miss on the loader thread.
+ */
+class Etc1Transcoder implements CompressedTextureCache.Transcoder {
+
+    private static final int RGB565_BYTES = 2;
+
+    private final Bitmap mBitmap;
+
+    Etc1Transcoder(Bitmap bitmap) {
+        mBitmap = bitmap;
+    }
+
+    @Override
+    public CompressedTexture transcode() throws IOException {
+        int width = mBitmap.getWidth();
+        int height = mBitmap.getHeight();
+        byte[][] levels = new byte[CompressedTexture.maxLevels(width, height)][];
+        Bitmap level = mBitmap;
+        for (int i = 0; i < levels.length; i++) {
+            if (i > 0) {
+                Bitmap smaller = Bitmap.createScaledBitmap(level, CompressedTexture.levelDimension(width, i),
+                        CompressedTexture.levelDimension(height, i), true);
+                recycleLevel(level);
+                level = smaller;
+            }
+            levels[i] = compress(level);
+        }
+        recycleLevel(level);
+        return new CompressedTexture(CompressedTexture.GL_ETC1_RGB8_OES, width, height, levels);
+    }
+
+    private static byte[] compress(Bitmap level) throws IOException {
+        // the encoder takes packed RGB565
+        Bitmap rgb = level.copy(Bitmap.Config.RGB_565, false);
+        if (rgb == null) {
+            throw new IOException("Could not convert a " + level.getWidth() + "x" + level.getHeight() + " level");
+        }
+        ByteBuffer pixels = ByteBuffer.allocateDirect(rgb.getRowBytes() * rgb.getHeight()).order(ByteOrder.nativeOrder());
+        rgb.copyPixelsToBuffer(pixels);
+        pixels.position(0);
+        ETC1Util.ETC1Texture etc1 = ETC1Util.compressTexture(pixels, rgb.getWidth(), rgb.getHeight(),
+                RGB565_BYTES, rgb.getRowBytes());
+        rgb.recycle();
+        ByteBuffer data = etc1.getData();
+        byte[] bytes = new byte[data.remaining()];
+        data.get(bytes);
+        return bytes;
+    }
+
+    //the source belongs to the caller, only the scaled copies are ours
+    private void recycleLevel(Bitmap level) {
+        if (level != mBitmap) {
+            level.recycle();
+        }
+    }
+}
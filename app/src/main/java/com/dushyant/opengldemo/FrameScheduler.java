@@ -0,0 +1,113 @@
+package com.dushyant.opengldemo;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Turns frame-available callbacks of a camera or video stream into renders. Callbacks may come
+ * from any thread and in bursts; only the first one after a latch asks for a render, so the
+ * renderer draws at most once per display frame and always the newest frame, never a backlog.
+ * Frames that arrived and were replaced before a draw latched them count as dropped.
+ *
+ * {@link #latchFrame()} and {@link #onFrameDrawn()} are for the GL thread and do not allocate,
+ * the transform matrix and timestamp of the latched frame are kept in preallocated fields.
+ */
+class FrameScheduler {
+
+    //where frames come from, a SurfaceTexture on the device and a fake in tests
+    interface FrameSource {
+        //makes the newest frame current, GL thread
+        void updateTexImage();
+
+        //timestamp of the current frame in nanoseconds
+        long getTimestamp();
+
+        //texture coordinate transform of the current frame, 16 floats column-major
+        void getTransformMatrix(float[] matrix);
+    }
+
+    private final FrameSource mSource;
+    private final Runnable mRenderRequester;
+    private final FrameStats mStats;
+    private final FrameStats.Clock mClock;
+    private final boolean mMeasureLatency;
+    private final AtomicInteger mAvailable = new AtomicInteger();
+    private final AtomicLong mLatched = new AtomicLong();
+    private final AtomicLong mDropped = new AtomicLong();
+    private final float[] mTransform = new float[16];
+    private long mTimestamp;
+    private boolean mHasFrame;
+    private boolean mUndrawn;//latched but onFrameDrawn not called yet
+
+    /**
+     * @param renderRequester called when a frame becomes available and no render is pending
+     * @param measureLatency  whether frame timestamps are on the clock's time base, as camera
+     *                        frames are on System.nanoTime(); decoded video carries presentation
+     *                        times instead, which say nothing about latency
+     */
+    FrameScheduler(FrameSource source, Runnable renderRequester, FrameStats stats, FrameStats.Clock clock,
+                   boolean measureLatency) {
+        mSource = source;
+        mRenderRequester = renderRequester;
+        mStats = stats;
+        mClock = clock;
+        mMeasureLatency = measureLatency;
+    }
+
+    //any thread
+    void onFrameAvailable() {
+        if (mAvailable.getAndIncrement() == 0) {
+            mRenderRequester.run();
+        }
+    }
+
+    /**
+     * Makes the newest available frame current, returns false if none arrived since the last
+     * latch. A frame arriving while this runs asks for another render.
+     */
+    boolean latchFrame() {
+        int available = mAvailable.getAndSet(0);
+        if (available == 0) {
+            return false;
+        }
+        mSource.updateTexImage();
+        mSource.getTransformMatrix(mTransform);
+        mTimestamp = mSource.getTimestamp();
+        mHasFrame = true;
+        mUndrawn = true;
+        mLatched.incrementAndGet();
+        mDropped.addAndGet(available - 1);
+        return true;
+    }
+
+    //records the latency of a newly latched frame, call once its draw calls are issued. Redraws of
+    //the same frame, e.g. for another effect, are not counted again.
+    void onFrameDrawn() {
+        if (mUndrawn && mMeasureLatency && mTimestamp != 0) {
+            mStats.record(FrameStats.Stage.LATENCY, mClock.nanoTime() - mTimestamp);
+        }
+        mUndrawn = false;
+    }
+
+    //whether a frame was ever latched, before that the texture has no content
+    boolean hasFrame() {
+        return mHasFrame;
+    }
+
+    //transform of the current frame, the array is reused by the next latch
+    float[] getTransform() {
+        return mTransform;
+    }
+
+    long getTimestamp() {
+        return mTimestamp;
+    }
+
+    long getLatchedFrames() {
+        return mLatched.get();
+    }
+
+    long getDroppedFrames() {
+        return mDropped.get();
+    }
+}
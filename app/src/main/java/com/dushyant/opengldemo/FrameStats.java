@@ -0,0 +1,233 @@
+package com.dushyant.opengldemo;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-frame instrumentation of MyGLRenderer: CPU wall time of each {@link Stage} of a frame,
+ * GPU time from a {@link GpuTimer}, frame counters and dropped frames.
+ *
+ * A frame counts as dropped when its CPU time alone exceeds the frame budget (one vsync
+ * interval by default). The renderer draws on demand, so gaps between frames say nothing.
+ *
+ * Recording (the begin/end methods) is for the GL thread and never allocates. Snapshots can
+ * be taken from any thread and exported as JSON or a compact binary dump.
+ */
+class FrameStats {
+
+    enum Stage {
+        EFFECT_CREATE("effectCreate"),//the EffectContext and every effect lookup, creations included
+        APPLY("apply"),
+        BLIT("blit"),
+        FRAME("frame"),
+        GPU("gpu"),
+        LATENCY("latency");//camera/video frames, from the frame's timestamp to the end of its draw
+
+        final String jsonName;
+
+        Stage(String jsonName) {
+            this.jsonName = jsonName;
+        }
+    }
+
+    interface Clock {
+        long nanoTime();
+    }
+
+    static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+    };
+
+    static final long DEFAULT_FRAME_BUDGET_NANOS = 1000000000L / 60;
+
+    private static final int BINARY_MAGIC = 0x46535453;//"FSTS"
+    private static final int BINARY_VERSION = 2;//2 added LATENCY
+
+    private final Clock mClock;
+    private final long mFrameBudgetNanos;
+    private final LatencyHistogram[] mHistograms = new LatencyHistogram[Stage.values().length];
+    private final long[] mStageStart = new long[Stage.values().length];
+    private final AtomicLong mFrames = new AtomicLong();
+    private final AtomicLong mDroppedFrames = new AtomicLong();
+
+    FrameStats(Clock clock, long frameBudgetNanos) {
+        mClock = clock;
+        mFrameBudgetNanos = frameBudgetNanos;
+        for (int i = 0; i < mHistograms.length; i++) {
+            mHistograms[i] = new LatencyHistogram();
+        }
+    }
+
+    FrameStats() {
+        this(SYSTEM_CLOCK, DEFAULT_FRAME_BUDGET_NANOS);
+    }
+
+    void begin(Stage stage) {
+        mStageStart[stage.ordinal()] = mClock.nanoTime();
+    }
+
+    //returns the stage's duration in nanoseconds
+    long end(Stage stage) {
+        long elapsed = mClock.nanoTime() - mStageStart[stage.ordinal()];
+        mHistograms[stage.ordinal()].record(elapsed);
+        return elapsed;
+    }
+
+    /**
+     * Ends a stage that ran inside another one, e.g. an effect lookup during APPLY. Its time is
+     * taken out of the outer stage, which has to be running, so the two do not overlap.
+     */
+    long endNested(Stage stage, Stage outer) {
+        long elapsed = end(stage);
+        mStageStart[outer.ordinal()] += elapsed;
+        return elapsed;
+    }
+
+    void beginFrame() {
+        begin(Stage.FRAME);
+    }
+
+    void endFrame() {
+        long elapsed = end(Stage.FRAME);
+        mFrames.incrementAndGet();
+        if (elapsed > mFrameBudgetNanos) {
+            mDroppedFrames.incrementAndGet();
+        }
+    }
+
+    //GPU time of a frame, reported later than the frame itself by the GpuTimer
+    void recordGpu(long nanos) {
+        record(Stage.GPU, nanos);
+    }
+
+    //a duration measured elsewhere, e.g. a frame's latency from its timestamp
+    void record(Stage stage, long nanos) {
+        mHistograms[stage.ordinal()].record(nanos);
+    }
+
+    long getFrames() {
+        return mFrames.get();
+    }
+
+    long getDroppedFrames() {
+        return mDroppedFrames.get();
+    }
+
+    Snapshot snapshot() {
+        LatencyHistogram.Snapshot[] stages = new LatencyHistogram.Snapshot[mHistograms.length];
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = mHistograms[i].snapshot();
+        }
+        return new Snapshot(mFrames.get(), mDroppedFrames.get(), stages);
+    }
+
+    /**
+     * Counters and per-stage histograms at one point in time.
+     */
+    static final class Snapshot {
+        final long frames;
+        final long droppedFrames;
+        private final LatencyHistogram.Snapshot[] mStages;
+
+        Snapshot(long frames, long droppedFrames, LatencyHistogram.Snapshot[] stages) {
+            this.frames = frames;
+            this.droppedFrames = droppedFrames;
+            mStages = stages;
+        }
+
+        LatencyHistogram.Snapshot get(Stage stage) {
+            return mStages[stage.ordinal()];
+        }
+
+        //{"frames":..,"dropped":..,"unit":"ns","stages":{"apply":{"count":..,"mean":..,"p50":..,"p99":..,"max":..},..}}
+        String toJson() {
+            StringBuilder json = new StringBuilder(512);
+            json.append("{\"frames\":").append(frames)
+                    .append(",\"dropped\":").append(droppedFrames)
+                    .append(",\"unit\":\"ns\",\"stages\":{");
+            for (Stage stage : Stage.values()) {
+                LatencyHistogram.Snapshot histogram = get(stage);
+                if (stage.ordinal() > 0) {
+                    json.append(',');
+                }
+                json.append('"').append(stage.jsonName).append("\":{\"count\":").append(histogram.getTotalCount())
+                        .append(",\"mean\":").append(String.format(Locale.US, "%.1f", histogram.getMean()))
+                        .append(",\"p50\":").append(histogram.getValueAtPercentile(50))
+                        .append(",\"p99\":").append(histogram.getValueAtPercentile(99))
+                        .append(",\"max\":").append(histogram.getMax())
+                        .append('}');
+            }
+            return json.append("}}").toString();
+        }
+
+        /**
+         * Writes the full histograms, only the non-empty buckets, so nothing is lost to
+         * percentile summaries. Read it back with {@link #readBinary(InputStream)}.
+         */
+        void writeBinary(OutputStream out) throws IOException {
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(BINARY_MAGIC);
+            data.writeByte(BINARY_VERSION);
+            data.writeLong(frames);
+            data.writeLong(droppedFrames);
+            data.writeByte(mStages.length);
+            for (LatencyHistogram.Snapshot histogram : mStages) {
+                data.writeLong(histogram.getTotalCount());
+                data.writeLong(histogram.getSum());
+                data.writeLong(histogram.getMax());
+                int used = 0;
+                for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+                    if (histogram.getCount(i) != 0) {
+                        used++;
+                    }
+                }
+                data.writeShort(used);
+                for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+                    if (histogram.getCount(i) != 0) {
+                        data.writeShort(i);
+                        data.writeLong(histogram.getCount(i));
+                    }
+                }
+            }
+            data.flush();
+        }
+
+        static Snapshot readBinary(InputStream in) throws IOException {
+            DataInputStream data = new DataInputStream(in);
+            if (data.readInt() != BINARY_MAGIC || data.readByte() != BINARY_VERSION) {
+                throw new IOException("Not a frame stats dump");
+            }
+            long frames = data.readLong();
+            long dropped = data.readLong();
+            int stageCount = data.readByte();
+            if (stageCount != Stage.values().length) {
+                throw new IOException("Expected " + Stage.values().length + " stages, got " + stageCount);
+            }
+            LatencyHistogram.Snapshot[] stages = new LatencyHistogram.Snapshot[stageCount];
+            for (int s = 0; s < stageCount; s++) {
+                long total = data.readLong();
+                long sum = data.readLong();
+                long max = data.readLong();
+                long[] counts = new long[LatencyHistogram.BUCKET_COUNT];
+                int used = data.readUnsignedShort();
+                for (int i = 0; i < used; i++) {
+                    int bucket = data.readUnsignedShort();
+                    if (bucket >= counts.length) {
+                        throw new IOException("Bucket out of range: " + bucket);
+                    }
+                    counts[bucket] = data.readLong();
+                }
+                stages[s] = new LatencyHistogram.Snapshot(counts, total, sum, max);
+            }
+            return new Snapshot(frames, dropped, stages);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.dushyant.opengldemo;
+
+import java.nio.Buffer;
+
+/**
+ * The GLES20 calls the renderers make, behind an interface so they can run against a fake on the JVM.
+ * Method names and arguments mirror android.opengl.GLES20, {@link AndroidGLApi} forwards to it.
+ */
+interface GLApi {
+
+    // Textures
+    void glGenTextures(int n, int[] textures, int offset);
+
+    void glDeleteTextures(int n, int[] textures, int offset);
+
+    void glBindTexture(int target, int texture);
+
+    void glActiveTexture(int texture);
+
+    void glTexParameteri(int target, int pname, int param);
+
+    //pixels may be null to only allocate the storage, e.g. for a framebuffer attachment
+    void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                      int format, int type, Buffer pixels);
+
+    //imageSize bytes of compressed blocks in internalformat
+    void glCompressedTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                                int imageSize, Buffer data);
+
+    void glGenerateMipmap(int target);
+
+    // Shaders and programs
+    int glCreateShader(int type);
+
+    void glShaderSource(int shader, String source);
+
+    void glCompileShader(int shader);
+
+    void glGetShaderiv(int shader, int pname, int[] params, int offset);
+
+    String glGetShaderInfoLog(int shader);
+
+    void glDeleteShader(int shader);
+
+    int glCreateProgram();
+
+    void glAttachShader(int program, int shader);
+
+    void glLinkProgram(int program);
+
+    void glGetProgramiv(int program, int pname, int[] params, int offset);
+
+    String glGetProgramInfoLog(int program);
+
+    void glDeleteProgram(int program);
+
+    void glUseProgram(int program);
+
+    int glGetUniformLocation(int program, String name);
+
+    int glGetAttribLocation(int program, String name);
+
+    void glUniform1i(int location, int x);
+
+    void glUniform1f(int location, float x);
+
+    void glUniform3f(int location, float x, float y, float z);
+
+    void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset);
+
+    // Program binaries, GLES3 glGetProgramBinary / glProgramBinary
+    boolean supportsProgramBinary();
+
+    //returns the linked binary of the program and stores its format in binaryFormat[offset]
+    byte[] glGetProgramBinary(int program, int[] binaryFormat, int offset);
+
+    void glProgramBinary(int program, int binaryFormat, byte[] binary);
+
+    // GPU timer queries, GLES3 query objects with the EXT_disjoint_timer_query targets
+    boolean supportsTimerQuery();
+
+    void glGenQueries(int n, int[] ids, int offset);
+
+    void glDeleteQueries(int n, int[] ids, int offset);
+
+    void glBeginQuery(int target, int id);
+
+    void glEndQuery(int target);
+
+    void glGetQueryObjectuiv(int id, int pname, int[] params, int offset);
+
+    // Vertex data and drawing
+    void glGenBuffers(int n, int[] buffers, int offset);
+
+    void glDeleteBuffers(int n, int[] buffers, int offset);
+
+    void glBindBuffer(int target, int buffer);
+
+    void glBufferData(int target, int size, Buffer data, int usage);
+
+    //client side array, the data is copied by the driver on every draw
+    void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, Buffer ptr);
+
+    //offset into the currently bound GL_ARRAY_BUFFER
+    void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, int offset);
+
+    void glEnableVertexAttribArray(int index);
+
+    // Framebuffers
+    void glGenFramebuffers(int n, int[] framebuffers, int offset);
+
+    void glDeleteFramebuffers(int n, int[] framebuffers, int offset);
+
+    void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level);
+
+    int glCheckFramebufferStatus(int target);
+
+    void glBindFramebuffer(int target, int framebuffer);
+
+    void glViewport(int x, int y, int width, int height);
+
+    void glEnable(int cap);
+
+    void glDisable(int cap);
+
+    void glClearColor(float red, float green, float blue, float alpha);
+
+    void glClear(int mask);
+
+    void glDrawArrays(int mode, int first, int count);
+
+    //rows come bottom to top, like everything else in GL
+    void glReadPixels(int x, int y, int width, int height, int format, int type, Buffer pixels);
+
+    // State queries
+    int glGetError();
+
+    void glGetIntegerv(int pname, int[] params, int offset);
+
+    String glGetString(int name);
+
+    /**
+     * Identifies the EGL context current on this thread, equal tokens mean the same context.
+     * Used to tell a new surface on the old context apart from a lost context.
+     */
+    Object currentContext();
+}
@@ -0,0 +1,107 @@
+package com.dushyant.opengldemo;
+
+/**
+ * Ring buffer of the last GL calls and their arguments, for a post-mortem dump after a GL error.
+ * Recording only writes into preallocated arrays, so it can stay on for every frame.
+ *
+ * Arguments are stored as doubles, which hold every GL int and float exactly.
+ * Single writer (the GL thread), {@link #dump()} is meant for after the fact.
+ */
+class GLCallTrace {
+
+    static final int MAX_ARGS = 4;
+
+    private final String[] mOps;
+    private final int[] mArgCounts;
+    private final double[] mArgs;
+    private long mRecorded;
+
+    GLCallTrace(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+        }
+        mOps = new String[capacity];
+        mArgCounts = new int[capacity];
+        mArgs = new double[capacity * MAX_ARGS];
+    }
+
+    private int next(String op, int argCount) {
+        int slot = (int) (mRecorded++ % mOps.length);
+        mOps[slot] = op;
+        mArgCounts[slot] = argCount;
+        return slot * MAX_ARGS;
+    }
+
+    void record(String op) {
+        next(op, 0);
+    }
+
+    void record(String op, double a) {
+        int i = next(op, 1);
+        mArgs[i] = a;
+    }
+
+    void record(String op, double a, double b) {
+        int i = next(op, 2);
+        mArgs[i] = a;
+        mArgs[i + 1] = b;
+    }
+
+    void record(String op, double a, double b, double c) {
+        int i = next(op, 3);
+        mArgs[i] = a;
+        mArgs[i + 1] = b;
+        mArgs[i + 2] = c;
+    }
+
+    void record(String op, double a, double b, double c, double d) {
+        int i = next(op, 4);
+        mArgs[i] = a;
+        mArgs[i + 1] = b;
+        mArgs[i + 2] = c;
+        mArgs[i + 3] = d;
+    }
+
+    //number of calls recorded since creation, including the ones that were overwritten
+    long getRecorded() {
+        return mRecorded;
+    }
+
+    int size() {
+        return (int) Math.min(mRecorded, mOps.length);
+    }
+
+    //the i-th oldest call still in the buffer, formatted like "glBindTexture(3553, 2)"
+    String get(int i) {
+        if (i < 0 || i >= size()) {
+            throw new IndexOutOfBoundsException("index " + i + ", size " + size());
+        }
+        int slot = (int) ((mRecorded - size() + i) % mOps.length);
+        StringBuilder call = new StringBuilder(mOps[slot]).append('(');
+        for (int arg = 0; arg < mArgCounts[slot]; arg++) {
+            if (arg > 0) {
+                call.append(", ");
+            }
+            double value = mArgs[slot * MAX_ARGS + arg];
+            if (value == Math.rint(value) && !Double.isInfinite(value)) {
+                call.append((long) value);
+            } else {
+                call.append((float) value);
+            }
+        }
+        return call.append(')').toString();
+    }
+
+    //oldest call first, one per line
+    String dump() {
+        StringBuilder dump = new StringBuilder();
+        for (int i = 0; i < size(); i++) {
+            dump.append(get(i)).append('\n');
+        }
+        return dump.toString();
+    }
+
+    void clear() {
+        mRecorded = 0;
+    }
+}
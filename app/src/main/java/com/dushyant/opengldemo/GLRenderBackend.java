@@ -0,0 +1,169 @@
+package com.dushyant.opengldemo;
+
+import android.media.effect.Effect;
+import android.media.effect.EffectFactory;
+import android.opengl.GLES20;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link RenderBackend} on GLES20, built from the same pieces MyGLRenderer uses: images are
+ * textures owned by the {@link GLResourceManager}, plans run through an {@link EffectChain}
+ * and the output is the current surface drawn by {@link GLTextureRenderer}.
+ *
+ * Without an {@link EffectRegistry} only plans made of color passes can be applied.
+ * GL thread only, make a new one per EGL context.
+ */
+class GLRenderBackend implements RenderBackend {
+
+    //copies the source when a plan has no passes at all
+    private static final ColorPass COPY = new ColorPass(Collections.singletonList(
+            new EffectDescriptor(EffectFactory.EFFECT_BRIGHTNESS, "brightness", 1.0f)));
+
+    private final GLStateCache mGL;
+    private final GLResourceManager mResources;
+    private final GLTextureRenderer mRenderer;
+    private final EffectRegistry<Effect> mRegistry;
+    private final EffectChain mChain;
+    //width and height of every texture handed out
+    private final Map<Integer, int[]> mSizes = new HashMap<>();
+    private int mOutputWidth;
+    private int mOutputHeight;
+    private int mReadFramebuffer;
+    private ByteBuffer mPixelBuffer;
+
+    GLRenderBackend(GLStateCache gl, GLResourceManager resources, GLTextureRenderer renderer,
+                    EffectRegistry<Effect> registry) {
+        mGL = gl;
+        mResources = resources;
+        mRenderer = renderer;
+        mRegistry = registry;
+        mChain = new EffectChain(gl, resources, renderer);
+    }
+
+    @Override
+    public void setOutputSize(int width, int height) {
+        mOutputWidth = width;
+        mOutputHeight = height;
+        mRenderer.setViewportSize(width, height);
+    }
+
+    @Override
+    public int createImage(int width, int height) {
+        int texture = GLTextureAllocator.createTexture(mResources, width, height);
+        mSizes.put(texture, new int[]{width, height});
+        return texture;
+    }
+
+    @Override
+    public void deleteImage(int image) {
+        if (mSizes.remove(image) != null) {
+            mResources.deleteTexture(image);
+        }
+    }
+
+    private int[] size(int image) {
+        int[] size = image == OUTPUT ? new int[]{mOutputWidth, mOutputHeight} : mSizes.get(image);
+        if (size == null) {
+            throw new IllegalArgumentException("No image " + image);
+        }
+        return size;
+    }
+
+    private ByteBuffer pixelBuffer(int pixels) {
+        if (mPixelBuffer == null || mPixelBuffer.capacity() < pixels * 4) {
+            mPixelBuffer = ByteBuffer.allocateDirect(pixels * 4).order(ByteOrder.nativeOrder());
+        }
+        mPixelBuffer.clear();
+        return mPixelBuffer;
+    }
+
+    @Override
+    public void writePixels(int image, int[] argb) {
+        int[] size = size(image);
+        ByteBuffer rgba = pixelBuffer(size[0] * size[1]);
+        for (int i = 0; i < size[0] * size[1]; i++) {
+            int pixel = argb[i];
+            rgba.put((byte) (pixel >> 16)).put((byte) (pixel >> 8)).put((byte) pixel).put((byte) (pixel >>> 24));
+        }
+        rgba.flip();
+        // first row first, the same way GLUtils.texImage2D uploads a bitmap
+        mGL.glBindTexture(GLES20.GL_TEXTURE_2D, image);
+        mGL.glTexImage2D(GLES20.GL_TEXTURE_2D, 0, GLES20.GL_RGBA, size[0], size[1], 0,
+                GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, rgba);
+    }
+
+    @Override
+    public void readPixels(int image, int[] argb) {
+        int[] size = size(image);
+        int width = size[0];
+        int height = size[1];
+        if (image == OUTPUT) {
+            mGL.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, 0);
+        } else {
+            framebufferFor(image);
+        }
+        ByteBuffer rgba = pixelBuffer(width * height);
+        mGL.glReadPixels(0, 0, width, height, GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, rgba);
+        for (int y = 0; y < height; y++) {
+            // textures keep the first row at the bottom, the surface shows it upright so its rows are reversed
+            int row = image == OUTPUT ? height - 1 - y : y;
+            for (int x = 0; x < width; x++) {
+                int i = (y * width + x) * 4;
+                argb[row * width + x] = (rgba.get(i + 3) & 0xFF) << 24 | (rgba.get(i) & 0xFF) << 16
+                        | (rgba.get(i + 1) & 0xFF) << 8 | (rgba.get(i + 2) & 0xFF);
+            }
+        }
+    }
+
+    @Override
+    public void applyEffects(EffectChainPlanner.Plan plan, int source, int target) {
+        int[] size = size(source);
+        if (plan.getPassCount() == 0) {
+            mRenderer.renderPass(source, framebufferFor(target), size[0], size[1], COPY);
+            return;
+        }
+        if (mRegistry == null) {
+            for (int i = 0; i < plan.getPassCount(); i++) {
+                if (!plan.getPass(i).isColorPass()) {
+                    throw new UnsupportedOperationException("No effect context for " + plan.getPass(i).effect);
+                }
+            }
+        }
+        mChain.apply(plan, mRegistry, source, size[0], size[1], target);
+    }
+
+    //one framebuffer, pointed at whichever texture is read or copied into
+    private int framebufferFor(int texture) {
+        if (mReadFramebuffer == 0) {
+            mReadFramebuffer = mResources.genFramebuffer();
+        }
+        PingPongBuffers.attach(mGL, mReadFramebuffer, texture);
+        return mReadFramebuffer;
+    }
+
+    @Override
+    public void drawToOutput(int image, ColorPass pass) {
+        if (pass == null) {
+            mRenderer.renderTexture(image);
+        } else {
+            mRenderer.renderTexture(image, pass);
+        }
+    }
+
+    @Override
+    public void release() {
+        for (int texture : mSizes.keySet()) {
+            mResources.deleteTexture(texture);
+        }
+        mSizes.clear();
+        if (mReadFramebuffer != 0) {
+            mResources.deleteFramebuffer(mReadFramebuffer);
+            mReadFramebuffer = 0;
+        }
+    }
+}
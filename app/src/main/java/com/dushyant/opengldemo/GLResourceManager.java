@@ -0,0 +1,217 @@
+package com.dushyant.opengldemo;
+
+import android.opengl.GLES20;
+
+import java.io.File;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Owns the GL objects the renderers create so that they are made once per EGL context
+ * and deleted deterministically.
+ *
+ * Every handle handed out is tracked until it is deleted, {@link #getOutstanding(Kind)}
+ * makes leaks visible. When {@link #onSurfaceCreated()} sees a different EGL context the
+ * old handles died with the old context and are forgotten without deleting them.
+ * Programs come from a {@link ShaderProgramCache}, so asking twice for the same sources
+ * links only once; such a shared program is counted per createProgram and only deleted
+ * by the last deleteProgram.
+ *
+ * GL thread only.
+ */
+class GLResourceManager {
+
+    enum Kind {
+        TEXTURE, PROGRAM, BUFFER, FRAMEBUFFER, QUERY
+    }
+
+    private final GLApi mGL;
+    private final File mProgramBinaryDir;
+    private final Map<Kind, Set<Integer>> mLive = new EnumMap<>(Kind.class);
+    //createProgram calls not yet matched by deleteProgram, per live program
+    private final Map<Integer, Integer> mProgramRefs = new HashMap<>();
+    private final int[] mName = new int[1];
+    private Object mContext;
+    private ShaderProgramCache mPrograms;
+
+    /**
+     * @param programBinaryDir where linked program binaries are kept between launches,
+     *                         null to always compile from source
+     */
+    GLResourceManager(GLApi gl, File programBinaryDir) {
+        mGL = gl;
+        mProgramBinaryDir = programBinaryDir;
+        for (Kind kind : Kind.values()) {
+            mLive.put(kind, new HashSet<Integer>());
+        }
+    }
+
+    GLApi gl() {
+        return mGL;
+    }
+
+    /**
+     * Call from Renderer.onSurfaceCreated.
+     *
+     * @return true if the context is new (or everything was released) and the caller has to
+     * create its GL objects again, false if the objects made earlier are still valid
+     */
+    boolean onSurfaceCreated() {
+        Object context = mGL.currentContext();
+        if (mContext != null && mContext.equals(context)) {
+            return false;
+        }
+        for (Set<Integer> handles : mLive.values()) {
+            handles.clear();
+        }
+        mProgramRefs.clear();
+        mContext = context;
+        mPrograms = new ShaderProgramCache(mGL, openProgramBinaryStore());
+        return true;
+    }
+
+    private ProgramBinaryStore openProgramBinaryStore() {
+        if (mProgramBinaryDir == null) {
+            return null;
+        }
+        return new ProgramBinaryStore(mProgramBinaryDir, ProgramBinaryStore.fingerprint(
+                mGL.glGetString(GLES20.GL_VENDOR),
+                mGL.glGetString(GLES20.GL_RENDERER),
+                mGL.glGetString(GLES20.GL_VERSION)));
+    }
+
+    //hit/miss and compile time counters of the current context
+    ShaderProgramCache getProgramCache() {
+        return mPrograms;
+    }
+
+    int genTexture() {
+        mGL.glGenTextures(1, mName, 0);
+        mLive.get(Kind.TEXTURE).add(mName[0]);
+        return mName[0];
+    }
+
+    void deleteTexture(int texture) {
+        if (mLive.get(Kind.TEXTURE).remove(texture)) {
+            delete(Kind.TEXTURE, texture);
+        }
+    }
+
+    int genBuffer() {
+        mGL.glGenBuffers(1, mName, 0);
+        mLive.get(Kind.BUFFER).add(mName[0]);
+        return mName[0];
+    }
+
+    void deleteBuffer(int buffer) {
+        if (mLive.get(Kind.BUFFER).remove(buffer)) {
+            delete(Kind.BUFFER, buffer);
+        }
+    }
+
+    int genFramebuffer() {
+        mGL.glGenFramebuffers(1, mName, 0);
+        mLive.get(Kind.FRAMEBUFFER).add(mName[0]);
+        return mName[0];
+    }
+
+    void deleteFramebuffer(int framebuffer) {
+        if (mLive.get(Kind.FRAMEBUFFER).remove(framebuffer)) {
+            delete(Kind.FRAMEBUFFER, framebuffer);
+        }
+    }
+
+    int genQuery() {
+        mGL.glGenQueries(1, mName, 0);
+        mLive.get(Kind.QUERY).add(mName[0]);
+        return mName[0];
+    }
+
+    void deleteQuery(int query) {
+        if (mLive.get(Kind.QUERY).remove(query)) {
+            delete(Kind.QUERY, query);
+        }
+    }
+
+    int createProgram(String vertexSource, String fragmentSource) {
+        int program = mPrograms.obtain(vertexSource, fragmentSource);
+        if (program != 0) {
+            mLive.get(Kind.PROGRAM).add(program);
+            Integer refs = mProgramRefs.get(program);
+            mProgramRefs.put(program, refs == null ? 1 : refs + 1);
+        }
+        return program;
+    }
+
+    //the program is deleted once every createProgram that returned it has been matched
+    void deleteProgram(int program) {
+        Integer refs = mProgramRefs.get(program);
+        if (refs == null) {
+            return;
+        }
+        if (refs > 1) {
+            mProgramRefs.put(program, refs - 1);
+            return;
+        }
+        mProgramRefs.remove(program);
+        if (mLive.get(Kind.PROGRAM).remove(program)) {
+            delete(Kind.PROGRAM, program);
+        }
+    }
+
+    private void delete(Kind kind, int handle) {
+        switch (kind) {
+            case TEXTURE:
+                mName[0] = handle;
+                mGL.glDeleteTextures(1, mName, 0);
+                break;
+            case PROGRAM:
+                mPrograms.remove(handle);
+                mGL.glDeleteProgram(handle);
+                break;
+            case BUFFER:
+                mName[0] = handle;
+                mGL.glDeleteBuffers(1, mName, 0);
+                break;
+            case FRAMEBUFFER:
+                mName[0] = handle;
+                mGL.glDeleteFramebuffers(1, mName, 0);
+                break;
+            case QUERY:
+                mName[0] = handle;
+                mGL.glDeleteQueries(1, mName, 0);
+                break;
+        }
+    }
+
+    //deletes every outstanding handle, the next onSurfaceCreated then creates them again
+    void releaseAll() {
+        for (Map.Entry<Kind, Set<Integer>> live : mLive.entrySet()) {
+            Iterator<Integer> handles = live.getValue().iterator();
+            while (handles.hasNext()) {
+                int handle = handles.next();
+                handles.remove();
+                delete(live.getKey(), handle);
+            }
+        }
+        mProgramRefs.clear();
+        mContext = null;
+        mPrograms = null;
+    }
+
+    int getOutstanding(Kind kind) {
+        return mLive.get(kind).size();
+    }
+
+    int getOutstandingTotal() {
+        int total = 0;
+        for (Set<Integer> handles : mLive.values()) {
+            total += handles.size();
+        }
+        return total;
+    }
+}
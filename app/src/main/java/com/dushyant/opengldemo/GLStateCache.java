@@ -0,0 +1,668 @@
+package com.dushyant.opengldemo;
+
+import android.opengl.GLES20;
+
+import java.nio.Buffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link GLApi} decorator that remembers the bound state and drops calls that would not change it:
+ * glUseProgram, glActiveTexture, glBindTexture, glBindBuffer, glBindFramebuffer, glEnable/glDisable,
+ * glUniform1i/glUniform1f, glClearColor, glViewport and the vertex attribute setup.
+ *
+ * ES2 has no vertex array objects, so the attribute pointers and enables are cached per attribute
+ * index instead, which gives the same effect for a renderer that keeps drawing the same quad.
+ *
+ * Anything else that touches GL behind its back (android.media.effect for example) leaves the
+ * cache stale, call {@link #invalidate()} afterwards. Counts issued and elided calls, in total
+ * and since {@link #beginFrame()}.
+ */
+class GLStateCache implements GLApi {
+
+    static final int GL_TEXTURE_EXTERNAL_OES = 0x8D65;
+
+    private static final int UNKNOWN = -1;
+    private static final int MAX_TEXTURE_UNITS = 8;
+    private static final int MAX_ATTRIBS = 8;
+    private static final int MAX_CAPS = 8;
+    private static final int MAX_UNIFORMS = 16;
+    private static final long UNKNOWN_UNIFORM = Long.MIN_VALUE;
+    private static final long FLOAT_UNIFORM = 1L << 32;
+
+    private final GLApi mGL;
+
+    private int mProgram;
+    private int mActiveTexture;
+    //[unit][0] = GL_TEXTURE_2D, [unit][1] = GL_TEXTURE_EXTERNAL_OES
+    private final int[][] mTextures = new int[MAX_TEXTURE_UNITS][2];
+    private int mArrayBuffer;
+    private int mFramebuffer;
+    private final int[] mCaps = new int[MAX_CAPS];
+    private final int[] mCapEnabled = new int[MAX_CAPS];
+    private int mCapCount;
+    private final float[] mClearColor = new float[4];
+    private boolean mClearColorKnown;
+    private final int[] mViewport = new int[4];
+    private boolean mViewportKnown;
+
+    private final int[] mAttribEnabled = new int[MAX_ATTRIBS];
+    private final int[] mAttribBuffer = new int[MAX_ATTRIBS];
+    private final int[] mAttribSize = new int[MAX_ATTRIBS];
+    private final int[] mAttribType = new int[MAX_ATTRIBS];
+    private final boolean[] mAttribNormalized = new boolean[MAX_ATTRIBS];
+    private final int[] mAttribStride = new int[MAX_ATTRIBS];
+    private final int[] mAttribOffset = new int[MAX_ATTRIBS];
+
+    //uniform values per program, indexed by location
+    private final Map<Integer, long[]> mUniforms = new HashMap<>();
+    private long[] mCurrentUniforms;
+
+    private long mIssued;
+    private long mElided;
+    private int mFrameIssued;
+    private int mFrameElided;
+
+    GLStateCache(GLApi gl) {
+        mGL = gl;
+        invalidate();
+    }
+
+    //forget everything, the next call of each kind goes through
+    void invalidate() {
+        mProgram = UNKNOWN;
+        mActiveTexture = UNKNOWN;
+        for (int[] unit : mTextures) {
+            Arrays.fill(unit, UNKNOWN);
+        }
+        mArrayBuffer = UNKNOWN;
+        mFramebuffer = UNKNOWN;
+        mCapCount = 0;
+        mClearColorKnown = false;
+        mViewportKnown = false;
+        Arrays.fill(mAttribEnabled, UNKNOWN);
+        Arrays.fill(mAttribBuffer, UNKNOWN);
+        mUniforms.clear();
+        mCurrentUniforms = null;
+    }
+
+    void beginFrame() {
+        mFrameIssued = 0;
+        mFrameElided = 0;
+    }
+
+    long getIssued() {
+        return mIssued;
+    }
+
+    long getElided() {
+        return mElided;
+    }
+
+    int getFrameIssued() {
+        return mFrameIssued;
+    }
+
+    int getFrameElided() {
+        return mFrameElided;
+    }
+
+    private void issued() {
+        mIssued++;
+        mFrameIssued++;
+    }
+
+    private void elided() {
+        mElided++;
+        mFrameElided++;
+    }
+
+    private static int textureSlot(int target) {
+        if (target == GLES20.GL_TEXTURE_2D) {
+            return 0;
+        }
+        return target == GL_TEXTURE_EXTERNAL_OES ? 1 : UNKNOWN;
+    }
+
+    private int activeUnit() {
+        if (mActiveTexture == UNKNOWN) {
+            return UNKNOWN;
+        }
+        int unit = mActiveTexture - GLES20.GL_TEXTURE0;
+        return unit >= 0 && unit < MAX_TEXTURE_UNITS ? unit : UNKNOWN;
+    }
+
+    // Textures
+    @Override
+    public void glGenTextures(int n, int[] textures, int offset) {
+        issued();
+        mGL.glGenTextures(n, textures, offset);
+    }
+
+    @Override
+    public void glDeleteTextures(int n, int[] textures, int offset) {
+        issued();
+        mGL.glDeleteTextures(n, textures, offset);
+        // a deleted texture is unbound everywhere, and its name may come back for a new texture
+        for (int i = 0; i < n; i++) {
+            for (int[] unit : mTextures) {
+                for (int slot = 0; slot < unit.length; slot++) {
+                    if (unit[slot] == textures[offset + i]) {
+                        unit[slot] = 0;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void glBindTexture(int target, int texture) {
+        int unit = activeUnit();
+        int slot = textureSlot(target);
+        if (unit != UNKNOWN && slot != UNKNOWN && mTextures[unit][slot] == texture) {
+            elided();
+            return;
+        }
+        issued();
+        mGL.glBindTexture(target, texture);
+        if (unit != UNKNOWN && slot != UNKNOWN) {
+            mTextures[unit][slot] = texture;
+        }
+    }
+
+    @Override
+    public void glActiveTexture(int texture) {
+        if (mActiveTexture == texture) {
+            elided();
+            return;
+        }
+        issued();
+        mGL.glActiveTexture(texture);
+        mActiveTexture = texture;
+    }
+
+    @Override
+    public void glTexParameteri(int target, int pname, int param) {
+        issued();
+        mGL.glTexParameteri(target, pname, param);
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                             int format, int type, Buffer pixels) {
+        issued();
+        mGL.glTexImage2D(target, level, internalformat, width, height, border, format, type, pixels);
+    }
+
+    @Override
+    public void glCompressedTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                                       int imageSize, Buffer data) {
+        issued();
+        mGL.glCompressedTexImage2D(target, level, internalformat, width, height, border, imageSize, data);
+    }
+
+    @Override
+    public void glGenerateMipmap(int target) {
+        issued();
+        mGL.glGenerateMipmap(target);
+    }
+
+    // Shaders and programs
+    @Override
+    public int glCreateShader(int type) {
+        issued();
+        return mGL.glCreateShader(type);
+    }
+
+    @Override
+    public void glShaderSource(int shader, String source) {
+        issued();
+        mGL.glShaderSource(shader, source);
+    }
+
+    @Override
+    public void glCompileShader(int shader) {
+        issued();
+        mGL.glCompileShader(shader);
+    }
+
+    @Override
+    public void glGetShaderiv(int shader, int pname, int[] params, int offset) {
+        issued();
+        mGL.glGetShaderiv(shader, pname, params, offset);
+    }
+
+    @Override
+    public String glGetShaderInfoLog(int shader) {
+        issued();
+        return mGL.glGetShaderInfoLog(shader);
+    }
+
+    @Override
+    public void glDeleteShader(int shader) {
+        issued();
+        mGL.glDeleteShader(shader);
+    }
+
+    @Override
+    public int glCreateProgram() {
+        issued();
+        return mGL.glCreateProgram();
+    }
+
+    @Override
+    public void glAttachShader(int program, int shader) {
+        issued();
+        mGL.glAttachShader(program, shader);
+    }
+
+    @Override
+    public void glLinkProgram(int program) {
+        issued();
+        mGL.glLinkProgram(program);
+        // relinking resets the uniforms
+        mUniforms.remove(program);
+        if (program == mProgram) {
+            mCurrentUniforms = null;
+        }
+    }
+
+    @Override
+    public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+        issued();
+        mGL.glGetProgramiv(program, pname, params, offset);
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program) {
+        issued();
+        return mGL.glGetProgramInfoLog(program);
+    }
+
+    @Override
+    public void glDeleteProgram(int program) {
+        issued();
+        mGL.glDeleteProgram(program);
+        mUniforms.remove(program);
+        if (program == mProgram) {
+            // a deleted program stays in use until another one is bound, its name may be reused though
+            mProgram = UNKNOWN;
+            mCurrentUniforms = null;
+        }
+    }
+
+    @Override
+    public void glUseProgram(int program) {
+        if (mProgram == program) {
+            elided();
+            return;
+        }
+        issued();
+        mGL.glUseProgram(program);
+        mProgram = program;
+        mCurrentUniforms = mUniforms.get(program);
+        if (mCurrentUniforms == null && program != 0) {
+            mCurrentUniforms = new long[MAX_UNIFORMS];
+            Arrays.fill(mCurrentUniforms, UNKNOWN_UNIFORM);
+            mUniforms.put(program, mCurrentUniforms);
+        }
+    }
+
+    @Override
+    public int glGetUniformLocation(int program, String name) {
+        issued();
+        return mGL.glGetUniformLocation(program, name);
+    }
+
+    @Override
+    public int glGetAttribLocation(int program, String name) {
+        issued();
+        return mGL.glGetAttribLocation(program, name);
+    }
+
+    @Override
+    public void glUniform1i(int location, int x) {
+        long[] uniforms = mCurrentUniforms;
+        boolean cacheable = uniforms != null && location >= 0 && location < MAX_UNIFORMS;
+        if (cacheable && uniforms[location] == x) {
+            elided();
+            return;
+        }
+        issued();
+        mGL.glUniform1i(location, x);
+        if (cacheable) {
+            uniforms[location] = x;
+        }
+    }
+
+    @Override
+    public void glUniform1f(int location, float x) {
+        // tagged so a float never compares equal to an int set through glUniform1i
+        long value = FLOAT_UNIFORM | (Float.floatToRawIntBits(x) & 0xFFFFFFFFL);
+        long[] uniforms = mCurrentUniforms;
+        boolean cacheable = uniforms != null && location >= 0 && location < MAX_UNIFORMS;
+        if (cacheable && uniforms[location] == value) {
+            elided();
+            return;
+        }
+        issued();
+        mGL.glUniform1f(location, x);
+        if (cacheable) {
+            uniforms[location] = value;
+        }
+    }
+
+    @Override
+    public void glUniform3f(int location, float x, float y, float z) {
+        issued();
+        mGL.glUniform3f(location, x, y, z);
+    }
+
+    @Override
+    public void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset) {
+        issued();
+        mGL.glUniformMatrix4fv(location, count, transpose, value, offset);
+    }
+
+    @Override
+    public boolean supportsProgramBinary() {
+        return mGL.supportsProgramBinary();
+    }
+
+    @Override
+    public byte[] glGetProgramBinary(int program, int[] binaryFormat, int offset) {
+        issued();
+        return mGL.glGetProgramBinary(program, binaryFormat, offset);
+    }
+
+    @Override
+    public void glProgramBinary(int program, int binaryFormat, byte[] binary) {
+        issued();
+        mGL.glProgramBinary(program, binaryFormat, binary);
+        mUniforms.remove(program);
+    }
+
+    // Timer queries, no state to cache
+    @Override
+    public boolean supportsTimerQuery() {
+        return mGL.supportsTimerQuery();
+    }
+
+    @Override
+    public void glGenQueries(int n, int[] ids, int offset) {
+        issued();
+        mGL.glGenQueries(n, ids, offset);
+    }
+
+    @Override
+    public void glDeleteQueries(int n, int[] ids, int offset) {
+        issued();
+        mGL.glDeleteQueries(n, ids, offset);
+    }
+
+    @Override
+    public void glBeginQuery(int target, int id) {
+        issued();
+        mGL.glBeginQuery(target, id);
+    }
+
+    @Override
+    public void glEndQuery(int target) {
+        issued();
+        mGL.glEndQuery(target);
+    }
+
+    @Override
+    public void glGetQueryObjectuiv(int id, int pname, int[] params, int offset) {
+        issued();
+        mGL.glGetQueryObjectuiv(id, pname, params, offset);
+    }
+
+    // Vertex data and drawing
+    @Override
+    public void glGenBuffers(int n, int[] buffers, int offset) {
+        issued();
+        mGL.glGenBuffers(n, buffers, offset);
+    }
+
+    @Override
+    public void glDeleteBuffers(int n, int[] buffers, int offset) {
+        issued();
+        mGL.glDeleteBuffers(n, buffers, offset);
+        for (int i = 0; i < n; i++) {
+            int buffer = buffers[offset + i];
+            if (mArrayBuffer == buffer) {
+                mArrayBuffer = 0;
+            }
+            for (int index = 0; index < MAX_ATTRIBS; index++) {
+                if (mAttribBuffer[index] == buffer) {
+                    mAttribBuffer[index] = UNKNOWN;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void glBindBuffer(int target, int buffer) {
+        if (target == GLES20.GL_ARRAY_BUFFER && mArrayBuffer == buffer) {
+            elided();
+            return;
+        }
+        issued();
+        mGL.glBindBuffer(target, buffer);
+        if (target == GLES20.GL_ARRAY_BUFFER) {
+            mArrayBuffer = buffer;
+        }
+    }
+
+    @Override
+    public void glBufferData(int target, int size, Buffer data, int usage) {
+        issued();
+        mGL.glBufferData(target, size, data, usage);
+    }
+
+    @Override
+    public void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, Buffer ptr) {
+        issued();
+        mGL.glVertexAttribPointer(index, size, type, normalized, stride, ptr);
+        if (index >= 0 && index < MAX_ATTRIBS) {
+            mAttribBuffer[index] = UNKNOWN;//client memory, never cached
+        }
+    }
+
+    @Override
+    public void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, int offset) {
+        boolean cacheable = index >= 0 && index < MAX_ATTRIBS && mArrayBuffer != UNKNOWN;
+        if (cacheable && mAttribBuffer[index] == mArrayBuffer && mAttribSize[index] == size
+                && mAttribType[index] == type && mAttribNormalized[index] == normalized
+                && mAttribStride[index] == stride && mAttribOffset[index] == offset) {
+            elided();
+            return;
+        }
+        issued();
+        mGL.glVertexAttribPointer(index, size, type, normalized, stride, offset);
+        if (cacheable) {
+            mAttribBuffer[index] = mArrayBuffer;
+            mAttribSize[index] = size;
+            mAttribType[index] = type;
+            mAttribNormalized[index] = normalized;
+            mAttribStride[index] = stride;
+            mAttribOffset[index] = offset;
+        } else if (index >= 0 && index < MAX_ATTRIBS) {
+            mAttribBuffer[index] = UNKNOWN;
+        }
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index) {
+        boolean cacheable = index >= 0 && index < MAX_ATTRIBS;
+        if (cacheable && mAttribEnabled[index] == 1) {
+            elided();
+            return;
+        }
+        issued();
+        mGL.glEnableVertexAttribArray(index);
+        if (cacheable) {
+            mAttribEnabled[index] = 1;
+        }
+    }
+
+    // Framebuffers
+    @Override
+    public void glGenFramebuffers(int n, int[] framebuffers, int offset) {
+        issued();
+        mGL.glGenFramebuffers(n, framebuffers, offset);
+    }
+
+    @Override
+    public void glDeleteFramebuffers(int n, int[] framebuffers, int offset) {
+        issued();
+        mGL.glDeleteFramebuffers(n, framebuffers, offset);
+        // deleting the bound framebuffer binds the default one
+        for (int i = 0; i < n; i++) {
+            if (mFramebuffer == framebuffers[offset + i]) {
+                mFramebuffer = 0;
+            }
+        }
+    }
+
+    @Override
+    public void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level) {
+        issued();
+        mGL.glFramebufferTexture2D(target, attachment, textarget, texture, level);
+    }
+
+    @Override
+    public int glCheckFramebufferStatus(int target) {
+        issued();
+        return mGL.glCheckFramebufferStatus(target);
+    }
+
+    @Override
+    public void glBindFramebuffer(int target, int framebuffer) {
+        if (target == GLES20.GL_FRAMEBUFFER && mFramebuffer == framebuffer) {
+            elided();
+            return;
+        }
+        issued();
+        mGL.glBindFramebuffer(target, framebuffer);
+        mFramebuffer = target == GLES20.GL_FRAMEBUFFER ? framebuffer : UNKNOWN;
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height) {
+        if (mViewportKnown && mViewport[0] == x && mViewport[1] == y
+                && mViewport[2] == width && mViewport[3] == height) {
+            elided();
+            return;
+        }
+        issued();
+        mGL.glViewport(x, y, width, height);
+        mViewport[0] = x;
+        mViewport[1] = y;
+        mViewport[2] = width;
+        mViewport[3] = height;
+        mViewportKnown = true;
+    }
+
+    //returns the slot of the capability, adding it if there is room, UNKNOWN if the table is full
+    private int capSlot(int cap) {
+        for (int i = 0; i < mCapCount; i++) {
+            if (mCaps[i] == cap) {
+                return i;
+            }
+        }
+        if (mCapCount == MAX_CAPS) {
+            return UNKNOWN;
+        }
+        mCaps[mCapCount] = cap;
+        mCapEnabled[mCapCount] = UNKNOWN;
+        return mCapCount++;
+    }
+
+    private boolean setCap(int cap, int enabled) {
+        int slot = capSlot(cap);
+        if (slot != UNKNOWN && mCapEnabled[slot] == enabled) {
+            elided();
+            return false;
+        }
+        issued();
+        if (slot != UNKNOWN) {
+            mCapEnabled[slot] = enabled;
+        }
+        return true;
+    }
+
+    @Override
+    public void glEnable(int cap) {
+        if (setCap(cap, 1)) {
+            mGL.glEnable(cap);
+        }
+    }
+
+    @Override
+    public void glDisable(int cap) {
+        if (setCap(cap, 0)) {
+            mGL.glDisable(cap);
+        }
+    }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha) {
+        if (mClearColorKnown && mClearColor[0] == red && mClearColor[1] == green
+                && mClearColor[2] == blue && mClearColor[3] == alpha) {
+            elided();
+            return;
+        }
+        issued();
+        mGL.glClearColor(red, green, blue, alpha);
+        mClearColor[0] = red;
+        mClearColor[1] = green;
+        mClearColor[2] = blue;
+        mClearColor[3] = alpha;
+        mClearColorKnown = true;
+    }
+
+    @Override
+    public void glClear(int mask) {
+        issued();
+        mGL.glClear(mask);
+    }
+
+    @Override
+    public void glDrawArrays(int mode, int first, int count) {
+        issued();
+        mGL.glDrawArrays(mode, first, count);
+    }
+
+    @Override
+    public void glReadPixels(int x, int y, int width, int height, int format, int type, Buffer pixels) {
+        issued();
+        mGL.glReadPixels(x, y, width, height, format, type, pixels);
+    }
+
+    // State queries
+    @Override
+    public int glGetError() {
+        issued();
+        return mGL.glGetError();
+    }
+
+    @Override
+    public void glGetIntegerv(int pname, int[] params, int offset) {
+        issued();
+        mGL.glGetIntegerv(pname, params, offset);
+    }
+
+    @Override
+    public String glGetString(int name) {
+        issued();
+        return mGL.glGetString(name);
+    }
+
+    @Override
+    public Object currentContext() {
+        return mGL.currentContext();
+    }
+}
@@ -0,0 +1,46 @@
+package com.dushyant.opengldemo;
+
+import android.opengl.GLES20;
+
+/**
+ * Generates the output textures effects render into. Their storage is allocated up front
+ * so a fused color pass can attach them to a framebuffer; the effect framework would
+ * size the storage itself when it writes to the texture.
+ */
+class GLTextureAllocator implements EffectResultCache.TextureAllocator {
+
+    private final GLResourceManager mResources;
+
+    GLTextureAllocator(GLResourceManager resources) {
+        mResources = resources;
+    }
+
+    @Override
+    public int allocate(int width, int height) {
+        return createTexture(mResources, width, height);
+    }
+
+    //an RGBA texture of the given size with undefined content, ready to render into
+    static int createTexture(GLResourceManager resources, int width, int height) {
+        GLApi gl = resources.gl();
+        int texture = resources.genTexture();
+        gl.glBindTexture(GLES20.GL_TEXTURE_2D, texture);
+        gl.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_NEAREST);
+        gl.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_NEAREST);
+        gl.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_CLAMP_TO_EDGE);
+        gl.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_CLAMP_TO_EDGE);
+        allocateStorage(gl, texture, width, height);
+        return texture;
+    }
+
+    static void allocateStorage(GLApi gl, int texture, int width, int height) {
+        gl.glBindTexture(GLES20.GL_TEXTURE_2D, texture);
+        gl.glTexImage2D(GLES20.GL_TEXTURE_2D, 0, GLES20.GL_RGBA, width, height, 0,
+                GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, null);
+    }
+
+    @Override
+    public void free(int textureId) {
+        mResources.deleteTexture(textureId);
+    }
+}
@@ -5,8 +5,8 @@ import android.opengl.GLES20;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
-
-import static android.opengl.GLES20.glDeleteProgram;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Created by Dushyant on 1/2/2017.
@@ -14,13 +14,35 @@ import static android.opengl.GLES20.glDeleteProgram;
 
 class GLTextureRenderer {
 
+    private final GLApi mGL;
+    private GLResourceManager mResources;
     private int mProgram;
     private int mTexSamplerHandle;
     private int mTexCoordHandle;
     private int mPosCoordHandle;
 
-    private FloatBuffer mTexVertices;
-    private FloatBuffer mPosVertices;
+    private int mVertexBuffer;
+    private final FloatBuffer mQuadVertices;
+    private int mViewportWidth;
+    private int mViewportHeight;
+    //what the screen draws show and how it is placed, mLayout is recomputed when one of them changes
+    private int mContentWidth;
+    private int mContentHeight;
+    private ImageLayout.Mode mLayoutMode = ImageLayout.Mode.FIT;
+    private ImageLayout mLayout;
+    private final int[] mMaxViewportDims = new int[2];
+
+    //programs of the fused color passes by fragment shader, valid for the current context
+    private final Map<String, PassProgram> mPassPrograms = new HashMap<>();
+
+    private static class PassProgram {
+        int program;
+        int texSamplerHandle;
+        int texCoordHandle;
+        int posCoordHandle;
+        int texMatrixHandle;//only in programs reading an external texture
+        int[] uniformHandles;
+    }
 
     //for square
     //Vertex shaders perform operations on each vertex, and the results of these operations are used in the
@@ -44,10 +66,28 @@ class GLTextureRenderer {
                     "  gl_FragColor = texture2D(tex_sampler, v_texcoord);\n" +
                     "}\n";
 
+    //for SurfaceTexture frames, the texture coordinates go through the frame's transform matrix
+    private static final String EXTERNAL_VERTEX_SHADER =
+            "uniform mat4 u_tex_matrix;\n" +
+                    "attribute vec4 a_position;\n" +
+                    "attribute vec2 a_texcoord;\n" +
+                    "varying vec2 v_texcoord;\n" +
+                    "void main() {\n" +
+                    "  gl_Position = a_position;\n" +
+                    "  v_texcoord = (u_tex_matrix * vec4(a_texcoord, 0.0, 1.0)).xy;\n" +
+                    "}\n";
+
+    private static final String EXTERNAL_COPY_SHADER = externalVariant(FRAGMENT_SHADER);
+
     private static final float[] TEX_VERTICES = {
             0.0f, 1.0f, 1.0f, 1.0f, 0.0f, 0.0f, 1.0f, 0.0f
     };
 
+    //texture coordinates for drawing into a texture, keeps the orientation instead of flipping it for the screen
+    private static final float[] OFFSCREEN_TEX_VERTICES = {
+            0.0f, 0.0f, 1.0f, 0.0f, 0.0f, 1.0f, 1.0f, 1.0f
+    };
+
     private static final float[] POS_VERTICES = {
             -1.0f, -1.0f, 1.0f, -1.0f, -1.0f, 1.0f, 1.0f, 1.0f
     };
@@ -67,75 +107,304 @@ class GLTextureRenderer {
         create a ByteBuffer large enough to hold our data, and tell it to store its data using the native byte order.
         We then convert it into a FloatBuffer so that we can use it to hold floating-point data. Finally,
         we copy our array into the buffer.
-    * 4. call renderTexture()
+    * 4. upload the buffer once into a vertex buffer object (VBO), so the driver does not have to
+    *   copy the vertices out of our FloatBuffer on every draw
+    * 5. call renderTexture()
     *
     */
-    void initializeOpenGL() {
+    GLTextureRenderer(GLApi gl) {
+        mGL = gl;
+        // the buffer lives on the Java side and survives context loss, so set it up only once
+        mQuadVertices = initializeByteBuffer();
+    }
+
+    // Call once per EGL context, the program is owned by the resource manager
+    void initializeOpenGL(GLResourceManager resources) {
+        mResources = resources;
         // Create program
-        mProgram = GLToolbox.createProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+        mProgram = resources.createProgram(VERTEX_SHADER, FRAGMENT_SHADER);
 
         // Bind attributes and uniforms
         /*A uniform(in this case 'tex_sampler') is a global GLSL(Shading Language) variable declared with the "uniform" storage
         qualifier. These act as parameters that the user of a shader program can pass to that program.
         They are stored in a program object.*/
-        mTexSamplerHandle = GLES20.glGetUniformLocation(mProgram, "tex_sampler");
-        mTexCoordHandle = GLES20.glGetAttribLocation(mProgram, "a_texcoord");
-        mPosCoordHandle = GLES20.glGetAttribLocation(mProgram, "a_position");
+        mTexSamplerHandle = mGL.glGetUniformLocation(mProgram, "tex_sampler");
+        mTexCoordHandle = mGL.glGetAttribLocation(mProgram, "a_texcoord");
+        mPosCoordHandle = mGL.glGetAttribLocation(mProgram, "a_position");
 
-        initializeByteBuffer();
+        // the programs of the old context are gone, the resource manager links them again on demand
+        mPassPrograms.clear();
+        mGL.glGetIntegerv(GLES20.GL_MAX_VIEWPORT_DIMS, mMaxViewportDims, 0);
+        mLayout = null;
+
+        // Upload the quad once, every draw reads it straight from GPU memory
+        mVertexBuffer = resources.genBuffer();
+        mGL.glBindBuffer(GLES20.GL_ARRAY_BUFFER, mVertexBuffer);
+        mGL.glBufferData(GLES20.GL_ARRAY_BUFFER, mQuadVertices.capacity() * FLOAT_SIZE_BYTES,
+                mQuadVertices, GLES20.GL_STATIC_DRAW);
     }
 
     private static final int FLOAT_SIZE_BYTES = 4;
+    //interleaved x, y, s, t per vertex
+    private static final int COMPONENTS_PER_VERTEX = 4;
+    private static final int VERTEX_STRIDE_BYTES = COMPONENTS_PER_VERTEX * FLOAT_SIZE_BYTES;
+    private static final int TEX_OFFSET_BYTES = 2 * FLOAT_SIZE_BYTES;
 
-    private void initializeByteBuffer() {
-        // Setup coordinate buffers
-        //textureBuffer
-        mTexVertices = ByteBuffer.allocateDirect(TEX_VERTICES.length * FLOAT_SIZE_BYTES)
-                .order(ByteOrder.nativeOrder()).asFloatBuffer();
-        mTexVertices.put(TEX_VERTICES).position(0);
+    //the screen quad is vertices 0-3, the offscreen quad 4-7
+    private static final int QUAD_VERTEX_COUNT = 4;
+    private static final int OFFSCREEN_FIRST_VERTEX = QUAD_VERTEX_COUNT;
 
-        //verticesBuffers
-        mPosVertices = ByteBuffer.allocateDirect(POS_VERTICES.length * FLOAT_SIZE_BYTES)
+    static FloatBuffer initializeByteBuffer() {
+        // Setup coordinate buffer, position and texture coordinate of each vertex next to each other
+        // so one fetch brings in everything the vertex shader needs
+        FloatBuffer vertices = ByteBuffer.allocateDirect(2 * QUAD_VERTEX_COUNT * VERTEX_STRIDE_BYTES)
                 .order(ByteOrder.nativeOrder()).asFloatBuffer();
-        mPosVertices.put(POS_VERTICES).position(0);
+        for (int i = 0; i < QUAD_VERTEX_COUNT; i++) {
+            vertices.put(POS_VERTICES, 2 * i, 2);
+            vertices.put(TEX_VERTICES, 2 * i, 2);
+        }
+        for (int i = 0; i < QUAD_VERTEX_COUNT; i++) {
+            vertices.put(POS_VERTICES, 2 * i, 2);
+            vertices.put(OFFSCREEN_TEX_VERTICES, 2 * i, 2);
+        }
+        vertices.position(0);
+        return vertices;
+    }
+
+    //size of the surface, the screen draws place the content in it
+    void setViewportSize(int width, int height) {
+        if (width != mViewportWidth || height != mViewportHeight) {
+            mViewportWidth = width;
+            mViewportHeight = height;
+            mLayout = null;
+        }
+    }
+
+    //size of the image the screen draws show, which keeps its aspect ratio on screen
+    void setContentSize(int width, int height) {
+        if (width != mContentWidth || height != mContentHeight) {
+            mContentWidth = width;
+            mContentHeight = height;
+            mLayout = null;
+        }
+    }
+
+    void setLayoutMode(ImageLayout.Mode mode) {
+        if (mode != mLayoutMode) {
+            mLayoutMode = mode;
+            mLayout = null;
+        }
+    }
+
+    //the current layout of the content on the surface, null before the surface size is known
+    ImageLayout getLayout() {
+        if (mLayout == null && mViewportWidth > 0 && mViewportHeight > 0) {
+            ImageLayout layout = ImageLayout.compute(mLayoutMode, mContentWidth, mContentHeight,
+                    mViewportWidth, mViewportHeight);
+            int maxDims = Math.min(mMaxViewportDims[0], mMaxViewportDims[1]);
+            if (maxDims > 0 && (layout.width > maxDims || layout.height > maxDims)) {
+                // a cropped image larger than the driver's viewport would be squeezed, show it whole instead
+                layout = ImageLayout.compute(ImageLayout.Mode.FIT, mContentWidth, mContentHeight,
+                        mViewportWidth, mViewportHeight);
+            }
+            mLayout = layout;
+        }
+        return mLayout;
+    }
+
+    /*
+     * Binds the screen and sets the viewport to the image rectangle, the draw that follows only
+     * touches those pixels. The whole surface is cleared first: the back buffer's old contents are
+     * undefined after a swap, and a full clear also spares tiled GPUs loading them.
+     */
+    private void beginScreenDraw() {
+        mGL.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, 0);
+        // glClear ignores the viewport and covers the whole surface
+        mGL.glClearColor(0.0f, 0.0f, 0.0f, 1.0f);//black
+        mGL.glClear(GLES20.GL_COLOR_BUFFER_BIT);
+        // without a surface size the viewport is left as it is
+        ImageLayout layout = getLayout();
+        if (layout != null) {
+            mGL.glViewport(layout.x, layout.y, layout.width, layout.height);
+            GLToolbox.checkGlError(mGL, "glViewport");
+        }
+    }
+
+    //a frame without content, e.g. while the image is decoding
+    void clearScreen() {
+        mGL.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, 0);
+        mGL.glClearColor(0.0f, 0.0f, 0.0f, 1.0f);
+        mGL.glClear(GLES20.GL_COLOR_BUFFER_BIT);
     }
 
     void renderTexture(int textureId){
-        //Bind default FBO
-        GLES20.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, 0);
+        //Bind default FBO, with the viewport on the image rectangle
+        beginScreenDraw();
+        drawTexture(textureId, 0);
+    }
 
-        // Use openGL to use our shader program
-        GLES20.glUseProgram(mProgram);
-        GLToolbox.checkGlError("glUseProgram");
+    // Draws textureId scaled to width x height into framebuffer, keeping its row order
+    void copyTexture(int textureId, int framebuffer, int width, int height) {
+        mGL.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, framebuffer);
+        mGL.glViewport(0, 0, width, height);
+        drawTexture(textureId, OFFSCREEN_FIRST_VERTEX);
+    }
 
-        //CheckError
-        GLToolbox.checkGlError("glViewport");
+    private void drawTexture(int textureId, int firstVertex) {
+        // Use openGL to use our shader program
+        mGL.glUseProgram(mProgram);
+        GLToolbox.checkGlError(mGL, "glUseProgram");
 
         // Disable blending
-        GLES20.glDisable(GLES20.GL_BLEND);
+        mGL.glDisable(GLES20.GL_BLEND);
 
         // Set the vertex attributes
-            //tells the openGL how to use buffer data(or how to use coordinate data)
-        GLES20.glVertexAttribPointer(mTexCoordHandle, 2, GLES20.GL_FLOAT, false, 0, mTexVertices);
+            //tells the openGL how to use buffer data(or how to use coordinate data), offsets into the VBO
+        mGL.glBindBuffer(GLES20.GL_ARRAY_BUFFER, mVertexBuffer);
+        mGL.glVertexAttribPointer(mTexCoordHandle, 2, GLES20.GL_FLOAT, false, VERTEX_STRIDE_BYTES, TEX_OFFSET_BYTES);
             //enable the vertex attribute and move on to the next attribute
-        GLES20.glEnableVertexAttribArray(mTexCoordHandle);
-        GLES20.glVertexAttribPointer(mPosCoordHandle, 2, GLES20.GL_FLOAT, false, 0, mPosVertices);
-        GLES20.glEnableVertexAttribArray(mPosCoordHandle);
-        GLToolbox.checkGlError("vertex attribute setup");
+        mGL.glEnableVertexAttribArray(mTexCoordHandle);
+        mGL.glVertexAttribPointer(mPosCoordHandle, 2, GLES20.GL_FLOAT, false, VERTEX_STRIDE_BYTES, 0);
+        mGL.glEnableVertexAttribArray(mPosCoordHandle);
+        GLToolbox.checkGlError(mGL, "vertex attribute setup");
 
         // Set the input texture
             //current texture image unit
-        GLES20.glActiveTexture(GLES20.GL_TEXTURE0);
-        GLToolbox.checkGlError("glActiveTexture");
+        mGL.glActiveTexture(GLES20.GL_TEXTURE0);
+        GLToolbox.checkGlError(mGL, "glActiveTexture");
             //Changes the texture's stored state
-        GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, textureId);
-        GLToolbox.checkGlError("glBindTexture");
-        GLES20.glUniform1i(mTexSamplerHandle, 0);
-
-        // Draw
-        GLES20.glClearColor(0.0f, 0.0f, 0.0f, 1.0f);//black
-        GLES20.glClear(GLES20.GL_COLOR_BUFFER_BIT);
-        GLES20.glDrawArrays(GLES20.GL_TRIANGLE_STRIP, 0, 4);//draw the square using triangle strip
+        mGL.glBindTexture(GLES20.GL_TEXTURE_2D, textureId);
+        GLToolbox.checkGlError(mGL, "glBindTexture");
+        mGL.glUniform1i(mTexSamplerHandle, 0);
+
+        // Draw, the image covers the viewport so only the letterbox ever needs a clear
+        mGL.glDrawArrays(GLES20.GL_TRIANGLE_STRIP, firstVertex, QUAD_VERTEX_COUNT);//draw the square using triangle strip
+    }
+
+    // Same as renderTexture(int) with the pass's shader, the effect is applied while drawing to the screen
+    void renderTexture(int textureId, ColorPass pass) {
+        beginScreenDraw();
+        drawPass(textureId, 0, pass);
+    }
+
+    /**
+     * Draws textureId through the fused shader of the pass into framebuffer, an offscreen target
+     * of width x height. Every pixel of the target is overwritten, so there is no clear.
+     */
+    void renderPass(int textureId, int framebuffer, int width, int height, ColorPass pass) {
+        mGL.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, framebuffer);
+        mGL.glViewport(0, 0, width, height);
+        drawPass(textureId, framebuffer, pass);
+    }
+
+    private void drawPass(int textureId, int framebuffer, ColorPass pass) {
+        PassProgram program = passProgram(pass);
+        mGL.glUseProgram(program.program);
+        GLToolbox.checkGlError(mGL, "glUseProgram");
+        mGL.glDisable(GLES20.GL_BLEND);
+
+        mGL.glBindBuffer(GLES20.GL_ARRAY_BUFFER, mVertexBuffer);
+        mGL.glVertexAttribPointer(program.texCoordHandle, 2, GLES20.GL_FLOAT, false, VERTEX_STRIDE_BYTES, TEX_OFFSET_BYTES);
+        mGL.glEnableVertexAttribArray(program.texCoordHandle);
+        mGL.glVertexAttribPointer(program.posCoordHandle, 2, GLES20.GL_FLOAT, false, VERTEX_STRIDE_BYTES, 0);
+        mGL.glEnableVertexAttribArray(program.posCoordHandle);
+
+        mGL.glActiveTexture(GLES20.GL_TEXTURE0);
+        mGL.glBindTexture(GLES20.GL_TEXTURE_2D, textureId);
+        mGL.glUniform1i(program.texSamplerHandle, 0);
+        setPassUniforms(program, pass);
+        GLToolbox.checkGlError(mGL, "pass setup");
+
+        int first = framebuffer == 0 ? 0 : OFFSCREEN_FIRST_VERTEX;
+        mGL.glDrawArrays(GLES20.GL_TRIANGLE_STRIP, first, QUAD_VERTEX_COUNT);
+    }
+
+    // Draws a SurfaceTexture frame to the screen, through the pass if it is not null
+    void renderExternal(int externalTexture, float[] texMatrix, ColorPass pass) {
+        beginScreenDraw();
+        drawExternal(externalTexture, texMatrix, 0, pass);
+    }
+
+    /**
+     * Draws a SurfaceTexture frame through the pass, or a plain copy for a null pass, into framebuffer.
+     * texMatrix is the frame's SurfaceTexture.getTransformMatrix(). On the screen the frame shows
+     * upright, in a texture its first row lands in the first texture row like an uploaded bitmap,
+     * so the result can go through the same effects and renderTexture as the still image.
+     */
+    void renderExternal(int externalTexture, float[] texMatrix, int framebuffer, int width, int height, ColorPass pass) {
+        mGL.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, framebuffer);
+        mGL.glViewport(0, 0, width, height);
+        drawExternal(externalTexture, texMatrix, framebuffer, pass);
+    }
+
+    private void drawExternal(int externalTexture, float[] texMatrix, int framebuffer, ColorPass pass) {
+        PassProgram program = pass == null
+                ? program(EXTERNAL_VERTEX_SHADER, EXTERNAL_COPY_SHADER, null)
+                : program(EXTERNAL_VERTEX_SHADER, pass.getExternalFragmentShader(), pass);
+        mGL.glUseProgram(program.program);
+        GLToolbox.checkGlError(mGL, "glUseProgram");
+        mGL.glDisable(GLES20.GL_BLEND);
+
+        mGL.glBindBuffer(GLES20.GL_ARRAY_BUFFER, mVertexBuffer);
+        mGL.glVertexAttribPointer(program.texCoordHandle, 2, GLES20.GL_FLOAT, false, VERTEX_STRIDE_BYTES, TEX_OFFSET_BYTES);
+        mGL.glEnableVertexAttribArray(program.texCoordHandle);
+        mGL.glVertexAttribPointer(program.posCoordHandle, 2, GLES20.GL_FLOAT, false, VERTEX_STRIDE_BYTES, 0);
+        mGL.glEnableVertexAttribArray(program.posCoordHandle);
+
+        mGL.glActiveTexture(GLES20.GL_TEXTURE0);
+        mGL.glBindTexture(GLStateCache.GL_TEXTURE_EXTERNAL_OES, externalTexture);
+        mGL.glUniform1i(program.texSamplerHandle, 0);
+        mGL.glUniformMatrix4fv(program.texMatrixHandle, 1, false, texMatrix, 0);
+        setPassUniforms(program, pass);
+        GLToolbox.checkGlError(mGL, "external pass setup");
+
+        // the transform matrix expects GL's bottom-up texture coordinates, which is what the offscreen
+        // quad has. The screen quad flips them, which writes the frame top row first into a texture.
+        int first = framebuffer == 0 ? OFFSCREEN_FIRST_VERTEX : 0;
+        mGL.glDrawArrays(GLES20.GL_TRIANGLE_STRIP, first, QUAD_VERTEX_COUNT);
+    }
+
+    private void setPassUniforms(PassProgram program, ColorPass pass) {
+        if (pass == null) {
+            return;
+        }
+        for (int i = 0; i < pass.getUniformCount(); i++) {
+            float[] value = pass.getUniformValue(i);
+            if (value.length == 1) {
+                mGL.glUniform1f(program.uniformHandles[i], value[0]);
+            } else {
+                mGL.glUniform3f(program.uniformHandles[i], value[0], value[1], value[2]);
+            }
+        }
+    }
+
+    //fragment shader reading a GL_TEXTURE_EXTERNAL_OES texture instead of a 2D one
+    static String externalVariant(String fragmentShader) {
+        return "#extension GL_OES_EGL_image_external : require\n"
+                + fragmentShader.replace("uniform sampler2D tex_sampler;", "uniform samplerExternalOES tex_sampler;");
+    }
+
+    private PassProgram passProgram(ColorPass pass) {
+        return program(VERTEX_SHADER, pass.getFragmentShader(), pass);
+    }
+
+    //fragment shaders are only ever linked with one vertex shader, so they identify the program
+    private PassProgram program(String vertexShader, String fragmentShader, ColorPass pass) {
+        PassProgram program = mPassPrograms.get(fragmentShader);
+        if (program == null) {
+            program = new PassProgram();
+            program.program = mResources.createProgram(vertexShader, fragmentShader);
+            program.texSamplerHandle = mGL.glGetUniformLocation(program.program, "tex_sampler");
+            program.texCoordHandle = mGL.glGetAttribLocation(program.program, "a_texcoord");
+            program.posCoordHandle = mGL.glGetAttribLocation(program.program, "a_position");
+            program.texMatrixHandle = mGL.glGetUniformLocation(program.program, "u_tex_matrix");
+            program.uniformHandles = new int[pass == null ? 0 : pass.getUniformCount()];
+            for (int i = 0; i < program.uniformHandles.length; i++) {
+                program.uniformHandles[i] = mGL.glGetUniformLocation(program.program, pass.getUniformName(i));
+            }
+            mPassPrograms.put(fragmentShader, program);
+        }
+        return program;
     }
 
 }
@@ -20,17 +20,39 @@ import android.opengl.GLES20;
 
 public class GLToolbox {
 
+    /**
+     * How much checkGlError costs. glGetError is synchronous and can stall the pipeline on tiled GPUs.
+     * OFF: never calls glGetError, the release default.
+     * PER_FRAME: per-call checks are skipped, checkFrameErrors drains the error queue once per frame.
+     * STRICT: glGetError after every checked call, the failing op is named in the exception.
+     */
+    enum ErrorCheckMode {
+        OFF, PER_FRAME, STRICT
+    }
+
+    private static volatile ErrorCheckMode sErrorCheckMode =
+            BuildConfig.DEBUG ? ErrorCheckMode.PER_FRAME : ErrorCheckMode.OFF;
+
+    static ErrorCheckMode getErrorCheckMode() {
+        return sErrorCheckMode;
+    }
+
+    //can be switched at runtime, e.g. to STRICT while chasing a bug
+    static void setErrorCheckMode(ErrorCheckMode mode) {
+        sErrorCheckMode = mode;
+    }
+
     //loading shaders into openGL from native os
-    public static int loadShadersIntoOpenGL(int shaderType, String source) {
-        int shader = GLES20.glCreateShader(shaderType);//Load the Specified shader
+    static int loadShadersIntoOpenGL(GLApi gl, int shaderType, String source) {
+        int shader = gl.glCreateShader(shaderType);//Load the Specified shader
         if (shader != 0) {//is shader in not null
-            GLES20.glShaderSource(shader, source);//pass the defined shader source
-            GLES20.glCompileShader(shader);//compile the shade
+            gl.glShaderSource(shader, source);//pass the defined shader source
+            gl.glCompileShader(shader);//compile the shade
             int[] compiled = new int[1];//get the compilation status using glGetShaderiv()
-            GLES20.glGetShaderiv(shader, GLES20.GL_COMPILE_STATUS, compiled, 0);
+            gl.glGetShaderiv(shader, GLES20.GL_COMPILE_STATUS, compiled, 0);
             if (compiled[0] == 0) {//0 means compilation failed
-                String info = GLES20.glGetShaderInfoLog(shader);//log to find out Why error occured
-                GLES20.glDeleteShader(shader);//delete the shader
+                String info = gl.glGetShaderInfoLog(shader);//log to find out Why error occured
+                gl.glDeleteShader(shader);//delete the shader
                 throw new RuntimeException("Could not compile shader " + shaderType + ":" + info);
             }
         }
@@ -38,37 +60,59 @@ public class GLToolbox {
     }
 
     //linking the fragment and vertex shader into a program
-    public static int createProgram(String vertexSource, String fragmentSource) {
-        int vertexShader = loadShadersIntoOpenGL(GLES20.GL_VERTEX_SHADER, vertexSource);
+    static int createProgram(GLApi gl, String vertexSource, String fragmentSource) {
+        int vertexShader = loadShadersIntoOpenGL(gl, GLES20.GL_VERTEX_SHADER, vertexSource);
         if (vertexShader == 0) {
             return 0;
         }
-        int pixelShader = loadShadersIntoOpenGL(GLES20.GL_FRAGMENT_SHADER, fragmentSource);
+        int pixelShader = loadShadersIntoOpenGL(gl, GLES20.GL_FRAGMENT_SHADER, fragmentSource);
         if (pixelShader == 0) {
+            gl.glDeleteShader(vertexShader);
             return 0;
         }
         //create a program object
-        int program = GLES20.glCreateProgram();
+        int program = gl.glCreateProgram();
         if (program != 0) {//if not null
-            GLES20.glAttachShader(program, vertexShader);//attach vertex Shader
-            checkGlError("glAttachShader");//throws exception if error occurs while attaching shader
-            GLES20.glAttachShader(program, pixelShader);//attach fragment Shader
-            checkGlError("glAttachShader");
-            GLES20.glLinkProgram(program);//links both fragment and vertex shader
+            gl.glAttachShader(program, vertexShader);//attach vertex Shader
+            checkGlError(gl, "glAttachShader");//throws exception if error occurs while attaching shader
+            gl.glAttachShader(program, pixelShader);//attach fragment Shader
+            checkGlError(gl, "glAttachShader");
+            gl.glLinkProgram(program);//links both fragment and vertex shader
             int[] linkStatus = new int[1];//check link status
-            GLES20.glGetProgramiv(program, GLES20.GL_LINK_STATUS, linkStatus, 0);
+            gl.glGetProgramiv(program, GLES20.GL_LINK_STATUS, linkStatus, 0);
             if (linkStatus[0] != GLES20.GL_TRUE) {//link failed
-                String info = GLES20.glGetProgramInfoLog(program);//put error into logs
-                GLES20.glDeleteProgram(program);//delete program
+                String info = gl.glGetProgramInfoLog(program);//put error into logs
+                gl.glDeleteProgram(program);//delete program
+                gl.glDeleteShader(vertexShader);
+                gl.glDeleteShader(pixelShader);
                 throw new RuntimeException("Could not link program: " + info);
             }
         }
+        //the program keeps the attached shaders alive, flag them so they go away together with it
+        gl.glDeleteShader(vertexShader);
+        gl.glDeleteShader(pixelShader);
         return program;
     }
 
-    public static void checkGlError(String op) {
+    //checks right after op in STRICT mode only
+    static void checkGlError(GLApi gl, String op) {
+        if (sErrorCheckMode != ErrorCheckMode.STRICT) {
+            return;
+        }
+        throwOnError(gl, op);
+    }
+
+    //call once at the end of a frame, catches whatever the skipped per-call checks would have
+    static void checkFrameErrors(GLApi gl, String frame) {
+        if (sErrorCheckMode == ErrorCheckMode.OFF) {
+            return;
+        }
+        throwOnError(gl, frame);
+    }
+
+    private static void throwOnError(GLApi gl, String op) {
         int error;
-        while ((error = GLES20.glGetError()) != GLES20.GL_NO_ERROR) {
+        while ((error = gl.glGetError()) != GLES20.GL_NO_ERROR) {
             throw new RuntimeException(op + ": glError " + error);
         }
     }
@@ -0,0 +1,123 @@
+package com.dushyant.opengldemo;
+
+/**
+ * Measures the GPU time of each frame with EXT_disjoint_timer_query and feeds it to
+ * {@link FrameStats#recordGpu(long)}.
+ *
+ * Results arrive a few frames late, so a small ring of queries is kept in flight and only
+ * results that are already available get read, the GL thread never waits for the GPU.
+ * When every query is still in flight the frame goes unmeasured. After the driver reports a
+ * disjoint event (frequency change, context switch) the results of the queries in flight at
+ * that point are dropped. Does nothing when the driver lacks the extension.
+ *
+ * GL thread only, create one per EGL context.
+ */
+class GpuTimer {
+
+    // EXT_disjoint_timer_query
+    static final int GL_TIME_ELAPSED_EXT = 0x88BF;
+    static final int GL_GPU_DISJOINT_EXT = 0x8FBB;
+    // GLES30, the extension reuses them
+    static final int GL_QUERY_RESULT = 0x8866;
+    static final int GL_QUERY_RESULT_AVAILABLE = 0x8867;
+
+    static final int QUERY_COUNT = 4;
+
+    private final GLApi mGL;
+    private final FrameStats mStats;
+    private final int[] mQueries;
+    private final int[] mValue = new int[1];
+    private int mNext;//ring slot the next frame's query uses
+    private int mPending;//queries ended but not read yet, the oldest is mPending slots behind mNext
+    private int mTainted;//oldest pending results to drop because of a disjoint event
+    private boolean mActive;
+    private long mMeasured;
+    private long mDiscarded;
+    private long mSkipped;
+
+    GpuTimer(GLResourceManager resources, FrameStats stats) {
+        mGL = resources.gl();
+        mStats = stats;
+        if (mGL.supportsTimerQuery()) {
+            mQueries = new int[QUERY_COUNT];
+            for (int i = 0; i < QUERY_COUNT; i++) {
+                mQueries[i] = resources.genQuery();
+            }
+        } else {
+            mQueries = null;
+        }
+    }
+
+    boolean isEnabled() {
+        return mQueries != null;
+    }
+
+    void beginFrame() {
+        if (mQueries == null) {
+            return;
+        }
+        poll();
+        if (mPending == QUERY_COUNT) {
+            // the GPU is more than QUERY_COUNT frames behind, don't wait for it
+            mSkipped++;
+            return;
+        }
+        mGL.glBeginQuery(GL_TIME_ELAPSED_EXT, mQueries[mNext]);
+        mActive = true;
+    }
+
+    void endFrame() {
+        if (!mActive) {
+            return;
+        }
+        mGL.glEndQuery(GL_TIME_ELAPSED_EXT);
+        mActive = false;
+        mNext = (mNext + 1) % QUERY_COUNT;
+        mPending++;
+    }
+
+    //reads the results that are ready, oldest first, queries complete in the order they were issued
+    void poll() {
+        if (mPending == 0 || !isAvailable(oldestPending())) {
+            return;
+        }
+        mGL.glGetIntegerv(GL_GPU_DISJOINT_EXT, mValue, 0);
+        if (mValue[0] != 0) {
+            mTainted = mPending;
+        }
+        do {
+            mGL.glGetQueryObjectuiv(oldestPending(), GL_QUERY_RESULT, mValue, 0);
+            mPending--;
+            if (mTainted > 0) {
+                mTainted--;
+                mDiscarded++;
+            } else {
+                mStats.recordGpu(mValue[0] & 0xFFFFFFFFL);
+                mMeasured++;
+            }
+        } while (mPending > 0 && isAvailable(oldestPending()));
+    }
+
+    private int oldestPending() {
+        return mQueries[(mNext - mPending + QUERY_COUNT) % QUERY_COUNT];
+    }
+
+    private boolean isAvailable(int query) {
+        mGL.glGetQueryObjectuiv(query, GL_QUERY_RESULT_AVAILABLE, mValue, 0);
+        return mValue[0] != 0;
+    }
+
+    long getMeasured() {
+        return mMeasured;
+    }
+
+    //results dropped because of a disjoint event
+    long getDiscarded() {
+        return mDiscarded;
+    }
+
+    //frames that went unmeasured because every query was still in flight
+    long getSkipped() {
+        return mSkipped;
+    }
+}
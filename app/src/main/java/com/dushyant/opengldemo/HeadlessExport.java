@@ -0,0 +1,82 @@
+package com.dushyant.opengldemo;
+
+import android.media.effect.Effect;
+import android.media.effect.EffectContext;
+import android.opengl.GLES20;
+
+import java.util.List;
+
+/**
+ * Runs a {@link BatchExporter} on the device without a window: on a pbuffer EGL context with
+ * the same GL backend as the screen where EGL14 exists (API 17), on the CPU backend otherwise,
+ * which only knows the color effects and the {@link SoftwareKernels}.
+ *
+ * {@link #run} blocks and owns the GL context for its duration, call it on a background thread.
+ */
+final class HeadlessExport {
+
+    private static final int MAX_CACHED_EFFECTS = 8;
+    private static final int QUEUE_CAPACITY = 2;
+    // bounds the textures of one tile: 2048 x 2048 RGBA is 16MB each
+    private static final int MAX_TILE_SIZE = 2048;
+
+    private HeadlessExport() {
+    }
+
+    static BatchExporter.Report run(List<BatchExporter.Job> jobs, EffectPipeline pipeline, ImageCodec.Format format)
+            throws InterruptedException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int decodeThreads = Math.max(1, cores / 2);
+        int encodeThreads = Math.max(1, cores / 2);
+        ImageCodec codec = new BitmapImageCodec();
+        if (!EglPbufferContext.isSupported()) {
+            SoftwareRenderBackend backend = new SoftwareRenderBackend(cores);
+            BatchExporter exporter = new BatchExporter(codec, backend, MAX_TILE_SIZE, decodeThreads, encodeThreads,
+                    QUEUE_CAPACITY);
+            try {
+                return exporter.export(jobs, pipeline, format);
+            } finally {
+                exporter.release();
+                backend.release();
+            }
+        }
+
+        EglPbufferContext egl = new EglPbufferContext();
+        EffectContext effectContext = null;
+        EffectRegistry<Effect> registry = null;
+        GLResourceManager resources = null;
+        try {
+            GLStateCache gl = new GLStateCache(AndroidGLApi.INSTANCE);
+            resources = new GLResourceManager(gl, null);
+            resources.onSurfaceCreated();
+            GLTextureRenderer renderer = new GLTextureRenderer(gl);
+            renderer.initializeOpenGL(resources);
+            effectContext = EffectContext.createWithCurrentGlContext();
+            registry = new EffectRegistry<>(new MediaEffectFactory(effectContext), MAX_CACHED_EFFECTS);
+            int[] maxTextureSize = new int[1];
+            gl.glGetIntegerv(GLES20.GL_MAX_TEXTURE_SIZE, maxTextureSize, 0);
+
+            GLRenderBackend backend = new GLRenderBackend(gl, resources, renderer, registry);
+            BatchExporter exporter = new BatchExporter(codec, backend, Math.min(MAX_TILE_SIZE, maxTextureSize[0]),
+                    decodeThreads, encodeThreads, QUEUE_CAPACITY);
+            try {
+                return exporter.export(jobs, pipeline, format);
+            } finally {
+                exporter.release();
+                backend.release();
+            }
+        } finally {
+            // the GL objects go with the context, but the effects have to be released while it is current
+            if (registry != null) {
+                registry.releaseAll();
+            }
+            if (effectContext != null) {
+                effectContext.release();
+            }
+            if (resources != null) {
+                resources.releaseAll();
+            }
+            egl.release();
+        }
+    }
+}
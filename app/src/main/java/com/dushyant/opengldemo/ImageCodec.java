@@ -0,0 +1,20 @@
+package com.dushyant.opengldemo;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Reads and writes image files for {@link BatchExporter}. {@link BitmapImageCodec} uses
+ * BitmapFactory on the device, other JVMs bring their own.
+ * Called from several threads at once.
+ */
+interface ImageCodec {
+
+    enum Format {
+        JPEG, PNG
+    }
+
+    ArgbImage decode(File file) throws IOException;
+
+    void encode(ArgbImage image, Format format, File file) throws IOException;
+}
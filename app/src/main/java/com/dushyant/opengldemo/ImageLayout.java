@@ -0,0 +1,95 @@
+package com.dushyant.opengldemo;
+
+/**
+ * Where an image goes on a surface: the rectangle it is drawn into, in the surface's pixels with
+ * GL's bottom-left origin, ready for glViewport. The rectangle keeps the image's aspect ratio and
+ * may reach past the surface edges, GL clips what falls outside. The rest of the surface is
+ * the letterbox.
+ *
+ * Immutable, made only when the image, the surface or the mode changes.
+ */
+final class ImageLayout {
+
+    enum Mode {
+        //the whole image, as large as it fits, letterboxed on two sides
+        FIT,
+        //covers the whole surface, the image is cropped on two sides
+        FILL,
+        //pixel for pixel in the middle, letterboxed or cropped
+        CENTER
+    }
+
+    final int x;
+    final int y;
+    final int width;
+    final int height;
+    final int surfaceWidth;
+    final int surfaceHeight;
+
+    ImageLayout(int x, int y, int width, int height, int surfaceWidth, int surfaceHeight) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.surfaceWidth = surfaceWidth;
+        this.surfaceHeight = surfaceHeight;
+    }
+
+    //the whole surface, for content of unknown size
+    static ImageLayout fullSurface(int surfaceWidth, int surfaceHeight) {
+        return new ImageLayout(0, 0, surfaceWidth, surfaceHeight, surfaceWidth, surfaceHeight);
+    }
+
+    static ImageLayout compute(Mode mode, int imageWidth, int imageHeight, int surfaceWidth, int surfaceHeight) {
+        if (imageWidth <= 0 || imageHeight <= 0) {
+            return fullSurface(surfaceWidth, surfaceHeight);
+        }
+        int width;
+        int height;
+        if (mode == Mode.CENTER) {
+            width = imageWidth;
+            height = imageHeight;
+        } else {
+            // compare the aspect ratios without dividing: the image is wider than the surface if
+            // imageWidth / imageHeight > surfaceWidth / surfaceHeight
+            boolean wider = (long) imageWidth * surfaceHeight > (long) surfaceWidth * imageHeight;
+            if (wider == (mode == Mode.FIT)) {
+                // the width decides
+                width = surfaceWidth;
+                height = (int) Math.max(1, Math.round((double) surfaceWidth * imageHeight / imageWidth));
+            } else {
+                height = surfaceHeight;
+                width = (int) Math.max(1, Math.round((double) surfaceHeight * imageWidth / imageHeight));
+            }
+        }
+        // floor division keeps the image centered also when it is larger than the surface
+        int x = (int) Math.floor((surfaceWidth - width) / 2.0);
+        int y = (int) Math.floor((surfaceHeight - height) / 2.0);
+        return new ImageLayout(x, y, width, height, surfaceWidth, surfaceHeight);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ImageLayout)) {
+            return false;
+        }
+        ImageLayout other = (ImageLayout) o;
+        return x == other.x && y == other.y && width == other.width && height == other.height
+                && surfaceWidth == other.surfaceWidth && surfaceHeight == other.surfaceHeight;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = x;
+        hash = 31 * hash + y;
+        hash = 31 * hash + width;
+        hash = 31 * hash + height;
+        hash = 31 * hash + surfaceWidth;
+        return 31 * hash + surfaceHeight;
+    }
+
+    @Override
+    public String toString() {
+        return width + "x" + height + "@" + x + "," + y + " in " + surfaceWidth + "x" + surfaceHeight;
+    }
+}
@@ -0,0 +1,150 @@
+package com.dushyant.opengldemo;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram of non-negative values, nanoseconds in practice, in the spirit
+ * of HdrHistogram. Every power of two is split into {@link #SUB_BUCKETS} linear buckets, so a
+ * reported value is never more than 1/{@link #SUB_BUCKETS} above the recorded one.
+ *
+ * {@link #record(long)} is a couple of atomic increments and never allocates, any number of
+ * threads may record at once. {@link #snapshot()} copies the counts for reporting, counts
+ * recorded while it runs may or may not be included.
+ */
+class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 6;
+    static final int SUB_BUCKETS = 1 << (SUB_BUCKET_BITS - 1);
+    //values below 2^41 ns, about 36 minutes, larger ones land in the last bucket
+    static final int MAX_MAGNITUDE = 40 - SUB_BUCKET_BITS + 1;
+    static final int BUCKET_COUNT = (MAX_MAGNITUDE + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong mTotalCount = new AtomicLong();
+    private final AtomicLong mSum = new AtomicLong();
+    private final AtomicLong mMax = new AtomicLong();
+
+    static int bucketIndex(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) Math.max(0, value);
+        }
+        int magnitude = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        if (magnitude > MAX_MAGNITUDE) {
+            return BUCKET_COUNT - 1;
+        }
+        return magnitude * SUB_BUCKETS + (int) (value >>> magnitude);
+    }
+
+    //smallest value that lands in the bucket
+    static long lowestValue(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int magnitude = index / SUB_BUCKETS - 1;
+        return (long) (index - magnitude * SUB_BUCKETS) << magnitude;
+    }
+
+    //largest value that lands in the bucket
+    static long highestValue(int index) {
+        return index == BUCKET_COUNT - 1 ? Long.MAX_VALUE : lowestValue(index + 1) - 1;
+    }
+
+    void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        mCounts.incrementAndGet(bucketIndex(value));
+        mTotalCount.incrementAndGet();
+        mSum.addAndGet(value);
+        long max = mMax.get();
+        while (value > max && !mMax.compareAndSet(max, value)) {
+            max = mMax.get();
+        }
+    }
+
+    long getTotalCount() {
+        return mTotalCount.get();
+    }
+
+    //not atomic with respect to concurrent record() calls
+    void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts.set(i, 0);
+        }
+        mTotalCount.set(0);
+        mSum.set(0);
+        mMax.set(0);
+    }
+
+    Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = mCounts.get(i);
+            total += counts[i];
+        }
+        // the bucket copy is what the percentiles come from, keep the total consistent with it
+        return new Snapshot(counts, total, mSum.get(), mMax.get());
+    }
+
+    /**
+     * Immutable copy of the histogram for reporting and export.
+     */
+    static final class Snapshot {
+        private final long[] mCounts;
+        private final long mTotalCount;
+        private final long mSum;
+        private final long mMax;
+
+        Snapshot(long[] counts, long totalCount, long sum, long max) {
+            if (counts.length != BUCKET_COUNT) {
+                throw new IllegalArgumentException("Expected " + BUCKET_COUNT + " buckets, got " + counts.length);
+            }
+            mCounts = counts;
+            mTotalCount = totalCount;
+            mSum = sum;
+            mMax = max;
+        }
+
+        long getTotalCount() {
+            return mTotalCount;
+        }
+
+        long getMax() {
+            return mMax;
+        }
+
+        long getSum() {
+            return mSum;
+        }
+
+        double getMean() {
+            return mTotalCount == 0 ? 0 : (double) mSum / mTotalCount;
+        }
+
+        long getCount(int bucket) {
+            return mCounts[bucket];
+        }
+
+        /**
+         * The value below or at which the given percentage of the recorded values fall, reported
+         * as the top of its bucket but never above the largest recorded value. 0 when empty.
+         */
+        long getValueAtPercentile(double percentile) {
+            if (mTotalCount == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * mTotalCount);
+            rank = Math.max(1, rank);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += mCounts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValue(i), mMax);
+                }
+            }
+            return mMax;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.dushyant.opengldemo;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands the latest of a stream of values from any thread to a consumer thread, e.g. UI
+ * selections to the GL thread through GLSurfaceView.queueEvent.
+ *
+ * Lock-free: {@link #post(Object)} swaps the value into a single slot and only schedules a
+ * delivery when the slot was empty, so a burst of posts before the consumer runs coalesces
+ * into one delivery of the last value. Values posted by one thread are delivered in order,
+ * possibly with some skipped, and the last one is always delivered.
+ */
+class LatestValueMailbox<T> {
+
+    interface Receiver<T> {
+        //called on the consumer thread
+        void receive(T value);
+    }
+
+    private final AtomicReference<T> mPending = new AtomicReference<>();
+    private final Executor mConsumer;
+    private final Receiver<T> mReceiver;
+    private final Runnable mDelivery = new Runnable() {
+        @Override
+        public void run() {
+            T value = mPending.getAndSet(null);
+            if (value != null) {
+                mReceiver.receive(value);
+            }
+        }
+    };
+
+    /**
+     * @param consumer runs deliveries on the consumer thread, in submission order
+     */
+    LatestValueMailbox(Executor consumer, Receiver<T> receiver) {
+        mConsumer = consumer;
+        mReceiver = receiver;
+    }
+
+    //any thread, replaces a value that was not delivered yet
+    void post(T value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        if (mPending.getAndSet(value) == null) {
+            mConsumer.execute(mDelivery);
+        }
+    }
+
+    //true while a posted value waits for its delivery
+    boolean hasPending() {
+        return mPending.get() != null;
+    }
+}
@@ -17,6 +17,7 @@ import android.widget.Toast;
 public class MainActivity extends AppCompatActivity implements AdapterView.OnItemSelectedListener {
     private Spinner spinner;
     GLSurfaceView glSurfaceView;
+    private MyGLRenderer renderer;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -41,7 +42,8 @@ public class MainActivity extends AppCompatActivity implements AdapterView.OnIte
             glSurfaceView = (GLSurfaceView) findViewById(R.id.glSurfaceView);
             // Create an OpenGL ES 2.0 context
             glSurfaceView.setEGLContextClientVersion(2);
-            glSurfaceView.setRenderer(new MyGLRenderer(MainActivity.this));
+            renderer = new MyGLRenderer(MainActivity.this, glSurfaceView);
+            glSurfaceView.setRenderer(renderer);
             // Render the view only when there is a change in the drawing data,
             // works when suface created or requestRender() is called
             glSurfaceView.setRenderMode(GLSurfaceView.RENDERMODE_WHEN_DIRTY);
@@ -52,11 +54,44 @@ public class MainActivity extends AppCompatActivity implements AdapterView.OnIte
         }
     }
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+        if (glSurfaceView != null) {
+            glSurfaceView.onResume();
+        }
+    }
+
+    @Override
+    protected void onPause() {
+        if (glSurfaceView != null) {
+            // release the cached effects on the GL thread before its context is torn down
+            glSurfaceView.queueEvent(new Runnable() {
+                @Override
+                public void run() {
+                    renderer.release();
+                }
+            });
+            glSurfaceView.onPause();
+        }
+        super.onPause();
+    }
+
+    @Override
+    protected void onDestroy() {
+        if (renderer != null) {
+            renderer.shutdown();
+        }
+        super.onDestroy();
+    }
+
     @Override
     public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
-        MyGLRenderer.EFFECT_VALUE = position;
         Toast.makeText(MainActivity.this, "Item " + (position + 1), Toast.LENGTH_SHORT).show();
-        glSurfaceView.requestRender();
+        if (renderer != null) {
+            // delivered on the GL thread, which requests the frame
+            renderer.selectEffect(position);
+        }
     }
 
     @Override
@@ -0,0 +1,31 @@
+package com.dushyant.opengldemo;
+
+import android.media.effect.Effect;
+import android.media.effect.EffectContext;
+import android.media.effect.EffectFactory;
+
+/**
+ * Creates android.media.effect Effects for the {@link EffectRegistry}.
+ */
+class MediaEffectFactory implements EffectRegistry.Factory<Effect> {
+
+    private final EffectFactory mEffectFactory;
+
+    MediaEffectFactory(EffectContext effectContext) {
+        mEffectFactory = effectContext.getFactory();
+    }
+
+    @Override
+    public Effect create(EffectDescriptor descriptor) {
+        Effect effect = mEffectFactory.createEffect(descriptor.getEffectName());
+        for (int i = 0; i < descriptor.getParamCount(); i++) {
+            effect.setParameter(descriptor.getParamName(i), descriptor.getParamValue(i));
+        }
+        return effect;
+    }
+
+    @Override
+    public void release(Effect effect) {
+        effect.release();
+    }
+}
@@ -2,14 +2,16 @@ package com.dushyant.opengldemo;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.Color;
+import android.graphics.SurfaceTexture;
 import android.media.effect.Effect;
 import android.media.effect.EffectContext;
-import android.media.effect.EffectFactory;
 import android.opengl.GLES20;
 import android.opengl.GLSurfaceView;
 import android.opengl.GLUtils;
+import android.util.Log;
+
+import java.io.File;
+import java.util.concurrent.Executor;
 
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
@@ -19,17 +21,197 @@ import javax.microedition.khronos.opengles.GL10;
  */
 
 public class MyGLRenderer implements GLSurfaceView.Renderer {
-    static int EFFECT_VALUE = 0;
-    private int[] mTextures = new int[2];
+
+    //called on the GL thread
+    interface StreamListener {
+        //the camera or decoder renders its frames into surfaceTexture, e.g. through a Surface made from it
+        void onStreamReady(SurfaceTexture surfaceTexture);
+
+        //the SurfaceTexture is released, stop the producer
+        void onStreamStopped();
+    }
+
+    //a startStream() call, kept so the stream can be set up again on a new context
+    private static final class StreamRequest {
+        final int width;
+        final int height;
+        final boolean realtimeTimestamps;
+        final StreamListener listener;
+
+        StreamRequest(int width, int height, boolean realtimeTimestamps, StreamListener listener) {
+            this.width = width;
+            this.height = height;
+            this.realtimeTimestamps = realtimeTimestamps;
+            this.listener = listener;
+        }
+    }
+
+    private static final int MAX_CACHED_EFFECTS = 8;
+    private static final long RESULT_CACHE_BUDGET_BYTES = 32L * 1024 * 1024;
+    private static final long PROXY_CACHE_BUDGET_BYTES = 4L * 1024 * 1024;
+    private int[] mTextures = new int[1];
+    private long mSourceGeneration;//bumped whenever mTextures[0] gets new pixels
     private EffectContext mEffectContext;
-    private Effect mEffect;
-    private GLTextureRenderer glTextureRenderer = new GLTextureRenderer();
+    private EffectRegistry<Effect> mEffectRegistry;
+    private EffectResultCache mResultCache;
+    private EffectChain mEffectChain;
+    // previews of effects on a downscaled source, shown until the full resolution pass is due
+    private ProxyCache mProxyCache;
+    private EffectChain mPreviewChain;
+    private final RefineScheduler mRefineScheduler;
+    private static final String TAG = "MyGLRenderer";
+    private static final int CALL_TRACE_SIZE = 256;
+    private final GLCallTrace mCallTrace;//only in STRICT error checking
+    private final GLStateCache mGL;
+    private final GLResourceManager mResources;
+    private GLTextureRenderer glTextureRenderer;
     private int mImageWidth;
     private int mImageHeight;
-    private Context context;
+    private int[] mMaxTextureSize = new int[1];
+    private Bitmap mUploadedBitmap;
+    private TextureUploader mTextureUploader;
+    private TextureUploader.Mode mTextureMode = TextureUploader.Mode.NEAREST;
+    private TextureUploader.Mode mUploadedMode;
+    private int mSurfaceWidth;
+    private int mSurfaceHeight;
+    private final AsyncImageLoader mImageLoader;
+    private final FrameStats mFrameStats = new FrameStats();
+    private GpuTimer mGpuTimer;
+    // written by the UI thread, delivered to mSelection on the GL thread before the frame it affects
+    private final LatestValueMailbox<EffectSelection> mSelectionMailbox;
+    private EffectSelection mSelection = EffectSelection.NONE;
+    private final GLSurfaceView mGlSurfaceView;
+    // the camera/video stream shown instead of the image, made on the first frame after startStream()
+    private StreamRequest mStreamRequest;
+    private StreamRenderer mStream;
+    private SurfaceTextureFrameSource mStreamSource;
+
+    MyGLRenderer(Context context, final GLSurfaceView glSurfaceView) {
+        mGlSurfaceView = glSurfaceView;
+        GLApi driver = AndroidGLApi.INSTANCE;
+        if (GLToolbox.getErrorCheckMode() == GLToolbox.ErrorCheckMode.STRICT) {
+            // keep the last calls around so a GL error can be traced back
+            mCallTrace = new GLCallTrace(CALL_TRACE_SIZE);
+            driver = new TracingGLApi(driver, mCallTrace);
+        } else {
+            mCallTrace = null;
+        }
+        mGL = new GLStateCache(driver);
+        glTextureRenderer = new GLTextureRenderer(mGL);
+        mResources = new GLResourceManager(mGL, new File(context.getCacheDir(), "program-binaries"));
+        // decoding happens on the loader thread, ask for a frame once the bitmap is ready for upload
+        // ETC1 versions of the drawable, transcoded on the first run, until the app is updated
+        CompressedTextureCache textureCache = new CompressedTextureCache(new File(context.getCacheDir(), "textures"),
+                String.valueOf(BuildConfig.VERSION_CODE));
+        mImageLoader = new AsyncImageLoader(context.getResources(), textureCache, new AsyncImageLoader.Listener() {
+            @Override
+            public void onImageReady() {
+                glSurfaceView.requestRender();
+            }
+        });
+        mSelectionMailbox = new LatestValueMailbox<>(new Executor() {
+            @Override
+            public void execute(Runnable delivery) {
+                glSurfaceView.queueEvent(delivery);
+            }
+        }, new LatestValueMailbox.Receiver<EffectSelection>() {
+            @Override
+            public void receive(EffectSelection selection) {
+                // a burst of selections arrives here once, with the last one, and renders once
+                mSelection = selection;
+                glSurfaceView.requestRender();
+            }
+        });
+        mRefineScheduler = new RefineScheduler(FrameStats.SYSTEM_CLOCK, new RefineScheduler.Delayer() {
+            @Override
+            public void postDelayed(Runnable task, long delayMillis) {
+                glSurfaceView.postDelayed(task, delayMillis);
+            }
+
+            @Override
+            public void remove(Runnable task) {
+                glSurfaceView.removeCallbacks(task);
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                glSurfaceView.requestRender();
+            }
+        }, RefineScheduler.DEFAULT_DELAY_NANOS);
+    }
+
+    //any thread
+    void setEffect(EffectSelection selection) {
+        mSelectionMailbox.post(selection);
+    }
 
-    MyGLRenderer(Context context) {
-        this.context = context;
+    //any thread, shows the spinner entry at position with its default parameters
+    void selectEffect(int position) {
+        setEffect(EffectSelection.of(position));
+    }
+
+    /**
+     * How the image is uploaded and filtered, see {@link TextureUploader.Mode}. The image is loaded
+     * again in the new mode, the old texture is shown until it is ready. Any thread.
+     */
+    void setTextureMode(final TextureUploader.Mode mode) {
+        mGlSurfaceView.queueEvent(new Runnable() {
+            @Override
+            public void run() {
+                if (mode == mTextureMode) {
+                    return;
+                }
+                mTextureMode = mode;
+                if (mSurfaceWidth > 0) {
+                    loadImage();
+                }
+            }
+        });
+    }
+
+    //how the image or stream is placed on the screen, see {@link ImageLayout.Mode}. Any thread.
+    void setLayoutMode(final ImageLayout.Mode mode) {
+        mGlSurfaceView.queueEvent(new Runnable() {
+            @Override
+            public void run() {
+                glTextureRenderer.setLayoutMode(mode);
+                mGlSurfaceView.requestRender();
+            }
+        });
+    }
+
+    /**
+     * Shows the frames of a camera or video stream instead of the image, with the selected effects.
+     * The listener gets the SurfaceTexture to render width x height frames into. Pass
+     * realtimeTimestamps for camera frames, whose timestamps are on System.nanoTime()'s clock,
+     * so the latency from capture to draw is recorded in the frame stats.
+     *
+     * The view keeps rendering only when dirty: each frame-available callback requests one
+     * render, and a burst of frames between two renders results in one draw of the newest.
+     * Any thread.
+     */
+    void startStream(final int width, final int height, final boolean realtimeTimestamps,
+                     final StreamListener listener) {
+        mGlSurfaceView.queueEvent(new Runnable() {
+            @Override
+            public void run() {
+                endStream();
+                mStreamRequest = new StreamRequest(width, height, realtimeTimestamps, listener);
+                mGlSurfaceView.requestRender();
+            }
+        });
+    }
+
+    //any thread, goes back to the image
+    void stopStream() {
+        mGlSurfaceView.queueEvent(new Runnable() {
+            @Override
+            public void run() {
+                endStream();
+                mStreamRequest = null;
+                mGlSurfaceView.requestRender();
+            }
+        });
     }
 
     @Override
@@ -37,151 +219,254 @@ public class MyGLRenderer implements GLSurfaceView.Renderer {
         //GL10 = no need to use this in GL20,rather use static implementation of GL20
         // Set the background frame color
 //        GLES20.glClearColor(0.0f, 153.0f, 54.0f, 10.0f);
+
+        if (!mResources.onSurfaceCreated()) {
+            // new surface on the same context, every GL object made earlier is still valid
+            return;
+        }
+        // A new context starts from default state, and the effects of the old one died with it, drop them without releasing
+        mGL.invalidate();
+        // the stream's texture died with the old context, the next frame sets the stream up again
+        mStream = null;
+        if (mStreamSource != null) {
+            mStreamSource.release();
+            mStreamSource = null;
+            mStreamRequest.listener.onStreamStopped();
+        }
+        mEffectRegistry = null;
+        mEffectContext = null;
+        mResultCache = new EffectResultCache(new GLTextureAllocator(mResources), RESULT_CACHE_BUDGET_BYTES);
+        mEffectChain = new EffectChain(mGL, mResources, glTextureRenderer);
+        mEffectChain.setFrameStats(mFrameStats);
+        mProxyCache = new ProxyCache(new GLTextureAllocator(mResources), PROXY_CACHE_BUDGET_BYTES);
+        // its own ping-pong buffers, so switching between preview and full resolution does not resize them
+        mPreviewChain = new EffectChain(mGL, mResources, glTextureRenderer);
+        mPreviewChain.setFrameStats(mFrameStats);
+        mRefineScheduler.cancel();
+        mGpuTimer = new GpuTimer(mResources, mFrameStats);
+        mTextureUploader = new TextureUploader(mGL);
+        // same for the source texture, the decoded bitmap is still cached and gets uploaded again
+        mTextures[0] = 0;
+        mUploadedBitmap = null;
+        mGL.glGetIntegerv(GLES20.GL_MAX_TEXTURE_SIZE, mMaxTextureSize, 0);
+        glTextureRenderer.initializeOpenGL(mResources);//initialize OpenGL feature like program etc.
     }
 
     @Override
     public void onSurfaceChanged(GL10 glNotUsed, int width, int height) {
-//        GLES20.glViewport(0, 0, width, height);
-        loadTextures();//load the texture for generating square
-        glTextureRenderer.initializeOpenGL();//initialize OpenGL feature like program,ByteBuffer etc.
+        // the renderer sets the viewport to the image's rectangle on every screen draw
+        glTextureRenderer.setViewportSize(width, height);
+        mSurfaceWidth = width;
+        mSurfaceHeight = height;
+        loadImage();
     }
 
-    private void loadTextures() {
-        // Generate textures
-        GLES20.glGenTextures(2, mTextures, 0);
+    private void loadImage() {
+        // decode in the background, the upload happens in onDrawFrame once the bitmap is ready
+        mImageLoader.load(R.drawable.puppy, mSurfaceWidth, mSurfaceHeight, mMaxTextureSize[0],
+                mTextureMode == TextureUploader.Mode.ETC1);
+    }
 
-        // Load input bitmap
-        Bitmap bitmap = BitmapFactory.decodeResource(context.getResources(), R.drawable.puppy);
+    //uploads the latest bitmap handed over by the loader, returns false while there is nothing to draw
+    private boolean loadTextures() {
+        AsyncImageLoader.LoadedImage image = mImageLoader.poll();
+        if (image == null || (image.bitmap == mUploadedBitmap && mTextures[0] != 0 && mUploadedMode == mTextureMode)) {
+            return mTextures[0] != 0;
+        }
+        Bitmap bitmap = image.bitmap;
         mImageWidth = bitmap.getWidth();
         mImageHeight = bitmap.getHeight();
+        mUploadedBitmap = bitmap;
+        mUploadedMode = mTextureMode;
+        mResultCache.onSourceChanged(++mSourceGeneration);
+        mProxyCache.onSourceChanged(mSourceGeneration, mImageWidth, mImageHeight);
 
-        // Upload to texture
-        GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, mTextures[0]);
-        GLUtils.texImage2D(GLES20.GL_TEXTURE_2D, 0, bitmap, 0);
+        // Generate textures
+        if (mTextures[0] == 0) {
+            mTextures[0] = mResources.genTexture();
+        }
 
-        // initialize texture parameters for generating square
-        GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_NEAREST);
-        GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_NEAREST);
-        GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_CLAMP_TO_EDGE);
-        GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_CLAMP_TO_EDGE);
-        //i here indicates the type of the value you want to specify
-        //go to https://open.gl/textures for more details
+        // Upload to texture, the compressed levels if there are some and the driver takes them
+        mGL.glBindTexture(GLES20.GL_TEXTURE_2D, mTextures[0]);
+        if (image.compressed == null || !mTextureUploader.uploadCompressed(image.compressed)) {
+            GLUtils.texImage2D(GLES20.GL_TEXTURE_2D, 0, bitmap, 0);
+            // texture parameters and mipmaps for the mode, go to https://open.gl/textures for more details
+            mTextureUploader.finishUpload(mTextureMode, mImageWidth, mImageHeight);
+        }
+        return true;
     }
 
     @Override
     public void onDrawFrame(GL10 gl) {
+        try {
+            mFrameStats.beginFrame();
+            mGpuTimer.beginFrame();
+            drawFrame();
+            mGpuTimer.endFrame();
+            GLToolbox.checkFrameErrors(mGL, "onDrawFrame");
+            mFrameStats.endFrame();
+        } catch (RuntimeException e) {
+            if (mCallTrace != null) {
+                Log.e(TAG, "Last GL calls before the failure:\n" + mCallTrace.dump());
+            }
+            throw e;
+        }
+    }
+
+    private void drawFrame() {
+        mGL.beginFrame();
         if (mEffectContext == null) {
             //Only need to do this once
+            mFrameStats.begin(FrameStats.Stage.EFFECT_CREATE);
             mEffectContext = EffectContext.createWithCurrentGlContext();//binds the EffectContext with current openGL context
+            mEffectRegistry = new EffectRegistry<>(new MediaEffectFactory(mEffectContext), MAX_CACHED_EFFECTS);
+            mGL.invalidate();
+            mFrameStats.end(FrameStats.Stage.EFFECT_CREATE);
         }
-        if (EFFECT_VALUE != 0) {
-            // if no effect is chosen, just render the original bitmap
-            drawEffect();
-            glTextureRenderer.renderTexture(mTextures[1]);
+        if (mStreamRequest != null) {
+            mRefineScheduler.cancel();
+            drawStream();
+            return;
+        }
+        if (!loadTextures()) {
+            // the image is still decoding
+            glTextureRenderer.clearScreen();
+            return;
+        }
+        glTextureRenderer.setContentSize(mImageWidth, mImageHeight);
+        EffectPipeline pipeline = mSelection.pipeline;
+        ColorPass directPass = pipeline == null ? null : pipeline.plan().getDirectPass();
+        if (directPass != null) {
+            // color only effects are computed in the on-screen pass itself, no output texture to write and read back
+            mRefineScheduler.cancel();
+            mFrameStats.begin(FrameStats.Stage.BLIT);
+            glTextureRenderer.renderTexture(mTextures[0], directPass);
+            mFrameStats.end(FrameStats.Stage.BLIT);
+        } else if (pipeline != null) {
+            // render the result of drawEffect(), only applying the effects if they are not cached yet
+            String key = pipeline.key();
+            int resultTexture = mResultCache.get(mSourceGeneration, key);
+            if (resultTexture != 0) {
+                mRefineScheduler.cancel();
+            } else if (ProxyCache.shouldPreview(mImageWidth, mImageHeight) && !mRefineScheduler.isDue(key)) {
+                // show the effect on the proxy now, the full resolution pass follows once the selection settles
+                mFrameStats.begin(FrameStats.Stage.APPLY);
+                resultTexture = drawPreview(pipeline);
+                mFrameStats.end(FrameStats.Stage.APPLY);
+                mRefineScheduler.schedule(key);
+            } else {
+                resultTexture = mResultCache.allocate(mSourceGeneration, key, mImageWidth, mImageHeight);
+                mFrameStats.begin(FrameStats.Stage.APPLY);
+                drawEffect(pipeline, resultTexture);
+                mFrameStats.end(FrameStats.Stage.APPLY);
+                mRefineScheduler.onRefined(key);
+            }
+            mFrameStats.begin(FrameStats.Stage.BLIT);
+            glTextureRenderer.renderTexture(resultTexture);
+            mFrameStats.end(FrameStats.Stage.BLIT);
         } else {
-            // render the result of applyEffect()
+            // if no effect is chosen, just render the original bitmap
+            mRefineScheduler.cancel();
+            mFrameStats.begin(FrameStats.Stage.BLIT);
             glTextureRenderer.renderTexture(mTextures[0]);
+            mFrameStats.end(FrameStats.Stage.BLIT);
+        }
+    }
+
+    private void drawStream() {
+        if (mStream == null) {
+            StreamRequest request = mStreamRequest;
+            int texture = StreamRenderer.createExternalTexture(mResources);
+            mStreamSource = new SurfaceTextureFrameSource(texture, request.width, request.height);
+            FrameScheduler scheduler = new FrameScheduler(mStreamSource, new Runnable() {
+                @Override
+                public void run() {
+                    mGlSurfaceView.requestRender();
+                }
+            }, mFrameStats, FrameStats.SYSTEM_CLOCK, request.realtimeTimestamps);
+            mStreamSource.setScheduler(scheduler);
+            mStream = new StreamRenderer(mResources, glTextureRenderer, mEffectChain, scheduler, mFrameStats,
+                    texture, request.width, request.height);
+            request.listener.onStreamReady(mStreamSource.getSurfaceTexture());
+        }
+        glTextureRenderer.setContentSize(mStreamRequest.width, mStreamRequest.height);
+        if (!mStream.drawFrame(mSelection.pipeline, mEffectRegistry)) {
+            // no frame from the producer yet
+            glTextureRenderer.clearScreen();
+        }
+    }
+
+    // releases the stream's SurfaceTexture and textures, the request stays
+    private void endStream() {
+        if (mStream != null) {
+            mStream.release();
+            mStream = null;
+        }
+        if (mStreamSource != null) {
+            mStreamSource.release();
+            mStreamSource = null;
+            mStreamRequest.listener.onStreamStopped();
+        }
+    }
+
+    private void drawEffect(EffectPipeline pipeline, int outputTexture) {
+        // Effects are built once per descriptor and reused across frames, the passes in between
+        // go through the two pooled ping-pong buffers
+        mEffectChain.apply(pipeline.plan(), mEffectRegistry, mTextures[0], mImageWidth, mImageHeight, outputTexture);
+    }
+
+    //returns the effect applied to the proxy, rendering the proxy and the effect if they are not cached
+    private int drawPreview(EffectPipeline pipeline) {
+        int proxy = mProxyCache.getProxy();
+        if (proxy == 0) {
+            proxy = mProxyCache.allocateProxy();
+            mPreviewChain.downscale(mTextures[0], proxy, mProxyCache.getWidth(), mProxyCache.getHeight());
+        }
+        int preview = mProxyCache.getResult(pipeline.key());
+        if (preview == 0) {
+            preview = mProxyCache.allocateResult(pipeline.key());
+            mPreviewChain.apply(pipeline.plan(), mEffectRegistry, proxy, mProxyCache.getWidth(),
+                    mProxyCache.getHeight(), preview);
+            // scaled up to the screen, filter it instead of showing DIVISOR x DIVISOR blocks
+            mGL.glBindTexture(GLES20.GL_TEXTURE_2D, preview);
+            mGL.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_LINEAR);
+            mGL.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_LINEAR);
+        }
+        return preview;
+    }
+
+    //stage timings and frame counters since the renderer was created, safe to read from any thread
+    FrameStats getFrameStats() {
+        return mFrameStats;
+    }
+
+    // Releases the cached effects, results and GL objects while their GL context is still current, run it on the GL thread
+    void release() {
+        // the producer has to stop with the surface, start the stream again after resuming
+        endStream();
+        mStreamRequest = null;
+        if (mResultCache != null) {
+            mResultCache.releaseAll();
+            mProxyCache.releaseAll();
+        }
+        mRefineScheduler.cancel();
+        if (mEffectRegistry != null) {
+            mEffectRegistry.releaseAll();
+            mEffectRegistry = null;
+        }
+        if (mEffectContext != null) {
+            mEffectContext.release();
+            mEffectContext = null;
+        }
+        // the source texture and the program, the next onSurfaceCreated makes them again
+        mResources.releaseAll();
+        if (BuildConfig.DEBUG) {
+            Log.d(TAG, "Frame stats: " + mFrameStats.snapshot().toJson());
         }
     }
 
-    private void drawEffect() {
-        EffectFactory effectFactory = mEffectContext.getFactory();
-        if (mEffect != null) {
-            mEffect.release();
-        }
-        // Initialize the correct effect
-        switch (EFFECT_VALUE) {
-            case 0:
-                break;
-            case 1:
-                mEffect = effectFactory.createEffect(EffectFactory.EFFECT_AUTOFIX);
-                mEffect.setParameter("scale", 0.5f);
-                break;
-            case 2:
-                mEffect = effectFactory.createEffect(EffectFactory.EFFECT_BLACKWHITE);
-                mEffect.setParameter("black", .1f);
-                mEffect.setParameter("white", .7f);
-                break;
-            case 3:
-                mEffect = effectFactory.createEffect(EffectFactory.EFFECT_BRIGHTNESS);
-                mEffect.setParameter("brightness", 2.0f);
-                break;
-            case 4:
-                mEffect = effectFactory.createEffect(EffectFactory.EFFECT_CONTRAST);
-                mEffect.setParameter("contrast", 1.4f);
-                break;
-            case 5:
-                mEffect = effectFactory.createEffect(EffectFactory.EFFECT_CROSSPROCESS);
-                break;
-            case 6:
-                mEffect = effectFactory.createEffect(EffectFactory.EFFECT_DOCUMENTARY);
-                break;
-            case 7:
-                mEffect = effectFactory.createEffect(EffectFactory.EFFECT_DUOTONE);
-                mEffect.setParameter("first_color", Color.YELLOW);
-                mEffect.setParameter("second_color", Color.DKGRAY);
-                break;
-            case 8:
-                mEffect = effectFactory.createEffect(EffectFactory.EFFECT_FILLLIGHT);
-                mEffect.setParameter("strength", .8f);
-                break;
-            case 9:
-                mEffect = effectFactory.createEffect(EffectFactory.EFFECT_FISHEYE);
-                mEffect.setParameter("scale", .5f);
-                break;
-            case 10:
-                mEffect = effectFactory.createEffect(EffectFactory.EFFECT_FLIP);
-                mEffect.setParameter("vertical", true);
-                break;
-            case 11:
-                mEffect = effectFactory.createEffect(EffectFactory.EFFECT_FLIP);
-                mEffect.setParameter("horizontal", true);
-                break;
-            case 12:
-                mEffect = effectFactory.createEffect(EffectFactory.EFFECT_GRAIN);
-                mEffect.setParameter("strength", 1.0f);
-                break;
-            case 13:
-                mEffect = effectFactory.createEffect(EffectFactory.EFFECT_GRAYSCALE);
-                break;
-            case 14:
-                mEffect = effectFactory.createEffect(EffectFactory.EFFECT_LOMOISH);
-                break;
-            case 15:
-                mEffect = effectFactory.createEffect(EffectFactory.EFFECT_NEGATIVE);
-                break;
-            case 16:
-                mEffect = effectFactory.createEffect(EffectFactory.EFFECT_POSTERIZE);
-                break;
-            case 17:
-                mEffect = effectFactory.createEffect(EffectFactory.EFFECT_ROTATE);
-                mEffect.setParameter("angle", 180);
-                break;
-            case 18:
-                mEffect = effectFactory.createEffect(EffectFactory.EFFECT_SATURATE);
-                mEffect.setParameter("scale", .5f);
-                break;
-            case 19:
-                mEffect = effectFactory.createEffect(EffectFactory.EFFECT_SEPIA);
-                break;
-            case 20:
-                mEffect = effectFactory.createEffect(EffectFactory.EFFECT_SHARPEN);
-                break;
-            case 21:
-                mEffect = effectFactory.createEffect(EffectFactory.EFFECT_TEMPERATURE);
-                mEffect.setParameter("scale", .9f);
-                break;
-            case 22:
-                mEffect = effectFactory.createEffect(EffectFactory.EFFECT_TINT);
-                mEffect.setParameter("tint", Color.MAGENTA);
-                break;
-            case 23:
-                mEffect = effectFactory.createEffect(EffectFactory.EFFECT_VIGNETTE);
-                mEffect.setParameter("scale", .5f);
-                break;
-            default:
-                break;
-        }
-        mEffect.apply(mTextures[0], mImageWidth, mImageHeight, mTextures[1]);
+    //stops the image decoding thread, call it from Activity.onDestroy
+    void shutdown() {
+        mImageLoader.shutdown();
     }
 }
@@ -0,0 +1,79 @@
+package com.dushyant.opengldemo;
+
+import android.opengl.GLES20;
+
+/**
+ * The two intermediate textures of an effect chain, each attached to a framebuffer of its own.
+ * They are created on first use and only get new storage when the image size changes, so
+ * running a chain of any length does not create GL objects per frame.
+ *
+ * The handles belong to the {@link GLResourceManager}, make a new instance per EGL context.
+ * GL thread only.
+ */
+class PingPongBuffers {
+
+    static final int COUNT = 2;
+
+    private final GLResourceManager mResources;
+    private final int[] mTextures = new int[COUNT];
+    private final int[] mFramebuffers = new int[COUNT];
+    private int mWidth;
+    private int mHeight;
+
+    PingPongBuffers(GLResourceManager resources) {
+        mResources = resources;
+    }
+
+    //makes sure buffers 0 to count-1 exist and have the given size
+    void ensure(int count, int width, int height) {
+        GLApi gl = mResources.gl();
+        if (width != mWidth || height != mHeight) {
+            for (int i = 0; i < COUNT; i++) {
+                if (mTextures[i] != 0) {
+                    GLTextureAllocator.allocateStorage(gl, mTextures[i], width, height);
+                }
+            }
+            mWidth = width;
+            mHeight = height;
+        }
+        for (int i = 0; i < count; i++) {
+            if (mTextures[i] == 0) {
+                mTextures[i] = GLTextureAllocator.createTexture(mResources, width, height);
+                mFramebuffers[i] = mResources.genFramebuffer();
+                attach(gl, mFramebuffers[i], mTextures[i]);
+            }
+        }
+    }
+
+    static void attach(GLApi gl, int framebuffer, int texture) {
+        gl.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, framebuffer);
+        gl.glFramebufferTexture2D(GLES20.GL_FRAMEBUFFER, GLES20.GL_COLOR_ATTACHMENT0,
+                GLES20.GL_TEXTURE_2D, texture, 0);
+        int status = gl.glCheckFramebufferStatus(GLES20.GL_FRAMEBUFFER);
+        if (status != GLES20.GL_FRAMEBUFFER_COMPLETE) {
+            throw new RuntimeException("Framebuffer " + framebuffer + " incomplete: " + status);
+        }
+    }
+
+    int getTexture(int buffer) {
+        return mTextures[buffer];
+    }
+
+    int getFramebuffer(int buffer) {
+        return mFramebuffers[buffer];
+    }
+
+    //frees both buffers, e.g. when memory is tight, the next ensure() makes them again
+    void release() {
+        for (int i = 0; i < COUNT; i++) {
+            if (mTextures[i] != 0) {
+                mResources.deleteFramebuffer(mFramebuffers[i]);
+                mResources.deleteTexture(mTextures[i]);
+                mTextures[i] = 0;
+                mFramebuffers[i] = 0;
+            }
+        }
+        mWidth = 0;
+        mHeight = 0;
+    }
+}
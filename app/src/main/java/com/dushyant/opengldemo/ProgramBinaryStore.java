@@ -0,0 +1,193 @@
+package com.dushyant.opengldemo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+/**
+ * Persists linked program binaries on disk, one file per program key.
+ *
+ * A binary is only valid for the driver that produced it, so the store is tagged with a
+ * fingerprint of the GL vendor, renderer and version. Opening the store with a different
+ * fingerprint wipes it, and every entry repeats the fingerprint in its header so a file
+ * written by another driver is never handed back. Anything that does not check out is
+ * deleted and reported as a miss, the caller then compiles from source.
+ *
+ * Entry layout: magic, format version, fingerprint, binary format, length, CRC32, bytes.
+ */
+class ProgramBinaryStore {
+
+    static final int MAGIC = 0x474C5042;//"GLPB"
+    static final int FORMAT_VERSION = 1;
+
+    private static final String SUFFIX = ".bin";
+    private static final String FINGERPRINT_FILE = "fingerprint";
+
+    static class ProgramBinary {
+        final int format;
+        final byte[] data;
+
+        ProgramBinary(int format, byte[] data) {
+            this.format = format;
+            this.data = data;
+        }
+    }
+
+    private final File mDir;
+    private final String mFingerprint;
+
+    ProgramBinaryStore(File dir, String fingerprint) {
+        mDir = dir;
+        mFingerprint = fingerprint;
+        if (!fingerprint.equals(readFingerprint())) {
+            clear();
+            writeFingerprint();
+        }
+    }
+
+    static String fingerprint(String vendor, String renderer, String version) {
+        return vendor + "|" + renderer + "|" + version;
+    }
+
+    String getFingerprint() {
+        return mFingerprint;
+    }
+
+    private File entryFile(String key) {
+        return new File(mDir, key + SUFFIX);
+    }
+
+    //returns the stored binary, or null if there is none or it does not belong to this driver
+    ProgramBinary load(String key) {
+        File file = entryFile(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !mFingerprint.equals(in.readUTF())) {
+                throw new IOException("Stale program binary " + file);
+            }
+            int format = in.readInt();
+            int length = in.readInt();
+            long crc = in.readLong();
+            if (length < 0 || length > file.length()) {
+                throw new IOException("Bad program binary length " + length);
+            }
+            byte[] data = new byte[length];
+            in.readFully(data);
+            if (crc(data) != crc) {
+                throw new IOException("Corrupt program binary " + file);
+            }
+            return new ProgramBinary(format, data);
+        } catch (IOException e) {
+            close(in);
+            in = null;
+            file.delete();
+            return null;
+        } finally {
+            close(in);
+        }
+    }
+
+    //best effort, a program that fails to save is simply compiled again next launch
+    boolean save(String key, ProgramBinary binary) {
+        if (!mDir.isDirectory() && !mDir.mkdirs()) {
+            return false;
+        }
+        File file = entryFile(key);
+        File tmp = new File(mDir, key + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(mFingerprint);
+            out.writeInt(binary.format);
+            out.writeInt(binary.data.length);
+            out.writeLong(crc(binary.data));
+            out.write(binary.data);
+            out.close();
+            out = null;
+            //rename so a crash mid-write never leaves a half written entry behind
+            return tmp.renameTo(file);
+        } catch (IOException e) {
+            tmp.delete();
+            return false;
+        } finally {
+            close(out);
+        }
+    }
+
+    void remove(String key) {
+        entryFile(key).delete();
+    }
+
+    //deletes every entry
+    void clear() {
+        File[] files = mDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.getName().endsWith(SUFFIX)) {
+                file.delete();
+            }
+        }
+    }
+
+    private String readFingerprint() {
+        File file = new File(mDir, FINGERPRINT_FILE);
+        if (!file.isFile()) {
+            return null;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new FileInputStream(file));
+            return in.readInt() == FORMAT_VERSION ? in.readUTF() : null;
+        } catch (IOException e) {
+            return null;
+        } finally {
+            close(in);
+        }
+    }
+
+    private void writeFingerprint() {
+        if (!mDir.isDirectory() && !mDir.mkdirs()) {
+            return;
+        }
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new FileOutputStream(new File(mDir, FINGERPRINT_FILE)));
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(mFingerprint);
+        } catch (IOException e) {
+            // entries still carry the fingerprint, worst case the store is wiped again next time
+        } finally {
+            close(out);
+        }
+    }
+
+    private static long crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        return crc.getValue();
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
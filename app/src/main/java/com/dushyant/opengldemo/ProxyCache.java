@@ -0,0 +1,108 @@
+package com.dushyant.opengldemo;
+
+/**
+ * Textures for effect previews: a downscaled copy of the source image, the proxy, and the
+ * results of effects applied to it. At 1/DIVISOR of the width and height an effect costs
+ * about 1/16 of the full resolution pass, so a preview can be shown in the frame the
+ * selection arrives in.
+ *
+ * Results share a byte budget and are freed least recently used first, like the full
+ * resolution {@link EffectResultCache}; the proxy itself is kept until the source changes,
+ * it is what every preview starts from.
+ *
+ * Not thread safe, only touch it from the GL thread.
+ */
+class ProxyCache {
+
+    static final int DIVISOR = 4;
+    //images below this many pixels are quick enough to render at full resolution right away
+    static final int MIN_PREVIEW_PIXELS = 512 * 512;
+
+    private static final int BYTES_PER_PIXEL = 4;//RGBA
+
+    private final EffectResultCache.TextureAllocator mAllocator;
+    private final EffectResultCache mResults;
+    private long mGeneration;
+    private int mWidth;
+    private int mHeight;
+    private int mProxyTexture;
+
+    //budgetBytes bounds the results, the proxy comes on top
+    ProxyCache(EffectResultCache.TextureAllocator allocator, long budgetBytes) {
+        mAllocator = allocator;
+        mResults = new EffectResultCache(allocator, budgetBytes);
+    }
+
+    //1/DIVISOR of a full resolution dimension, rounded up
+    static int proxyDimension(int full) {
+        return Math.max(1, (full + DIVISOR - 1) / DIVISOR);
+    }
+
+    //whether an image of this size gets a preview before its full resolution pass
+    static boolean shouldPreview(int width, int height) {
+        return (long) width * height >= MIN_PREVIEW_PIXELS;
+    }
+
+    /**
+     * The source image was replaced by generation, of width x height. Frees the proxy and every
+     * result made from the old source.
+     */
+    void onSourceChanged(long generation, int width, int height) {
+        mGeneration = generation;
+        mWidth = proxyDimension(width);
+        mHeight = proxyDimension(height);
+        mResults.onSourceChanged(generation);
+        freeProxy();
+    }
+
+    int getWidth() {
+        return mWidth;
+    }
+
+    int getHeight() {
+        return mHeight;
+    }
+
+    //the downscaled source, 0 if it has to be allocated and drawn first
+    int getProxy() {
+        return mProxyTexture;
+    }
+
+    //allocates the proxy texture, the caller draws the source into it
+    int allocateProxy() {
+        freeProxy();
+        mProxyTexture = mAllocator.allocate(mWidth, mHeight);
+        return mProxyTexture;
+    }
+
+    //the preview of the effect, or 0 if it has to be rendered
+    int getResult(String effectKey) {
+        return mResults.get(mGeneration, effectKey);
+    }
+
+    //allocates the texture the preview of the effect is about to be rendered into
+    int allocateResult(String effectKey) {
+        return mResults.allocate(mGeneration, effectKey, mWidth, mHeight);
+    }
+
+    int size() {
+        return mResults.size();
+    }
+
+    long getUsedBytes() {
+        return mResults.getUsedBytes() + (mProxyTexture == 0 ? 0 : (long) mWidth * mHeight * BYTES_PER_PIXEL);
+    }
+
+    private void freeProxy() {
+        if (mProxyTexture != 0) {
+            mAllocator.free(mProxyTexture);
+            mProxyTexture = 0;
+        }
+    }
+
+    //frees every texture, call it while the GL context is still current
+    void releaseAll() {
+        mResults.releaseAll();
+        freeProxy();
+    }
+}
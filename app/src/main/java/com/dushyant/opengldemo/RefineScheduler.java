@@ -0,0 +1,116 @@
+package com.dushyant.opengldemo;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides when the full resolution pass of an effect runs after its preview was shown.
+ *
+ * A preview schedules the refine of its effect key for when the selection has settled, after
+ * a delay. Scheduling another key before then cancels the pending refine, so scrolling through
+ * the spinner only ever renders previews. When the delay is up a render is requested, and the
+ * frame that finds {@link #isDue(String)} true renders at full resolution.
+ *
+ * Every method but the delayed task is called on the GL thread; the task only requests a render.
+ */
+class RefineScheduler {
+
+    //runs tasks later on some thread, View.postDelayed on Android
+    interface Delayer {
+        void postDelayed(Runnable task, long delayMillis);
+
+        void remove(Runnable task);
+    }
+
+    static final long DEFAULT_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(150);
+
+    private final FrameStats.Clock mClock;
+    private final Delayer mDelayer;
+    private final Runnable mRenderRequester;
+    private final long mDelayNanos;
+
+    private String mPendingKey;//null when nothing is pending
+    private long mDeadline;
+    private int mPendingId;
+    private Runnable mPendingTask;
+    // the id of the last task that ran, a task that runs a bit before the deadline still counts
+    private final AtomicInteger mFiredId = new AtomicInteger();
+
+    private int mScheduled;
+    private int mCancelled;
+    private int mRefined;
+
+    RefineScheduler(FrameStats.Clock clock, Delayer delayer, Runnable renderRequester, long delayNanos) {
+        mClock = clock;
+        mDelayer = delayer;
+        mRenderRequester = renderRequester;
+        mDelayNanos = delayNanos;
+    }
+
+    /**
+     * A preview of the effect was shown, refine it once the delay has passed. Cancels a
+     * pending refine of another key, does nothing if this key is pending already.
+     */
+    void schedule(String key) {
+        if (key.equals(mPendingKey)) {
+            return;
+        }
+        cancel();
+        final int id = ++mPendingId;
+        mPendingKey = key;
+        mDeadline = mClock.nanoTime() + mDelayNanos;
+        mPendingTask = new Runnable() {
+            @Override
+            public void run() {
+                mFiredId.set(id);
+                mRenderRequester.run();
+            }
+        };
+        mScheduled++;
+        // rounded up, so the task does not run before the deadline
+        mDelayer.postDelayed(mPendingTask, (mDelayNanos + 999999) / 1000000);
+    }
+
+    //drops the pending refine, e.g. the selection changed to something that needs none
+    void cancel() {
+        if (mPendingKey == null) {
+            return;
+        }
+        mDelayer.remove(mPendingTask);
+        mPendingKey = null;
+        mPendingTask = null;
+        mCancelled++;
+    }
+
+    //whether the frame about to be drawn should render key at full resolution
+    boolean isDue(String key) {
+        return key.equals(mPendingKey) && (mFiredId.get() == mPendingId || mClock.nanoTime() - mDeadline >= 0);
+    }
+
+    //the full resolution result of key was rendered
+    void onRefined(String key) {
+        if (key.equals(mPendingKey)) {
+            // the clock may have passed the deadline before the task ran
+            mDelayer.remove(mPendingTask);
+            mPendingKey = null;
+            mPendingTask = null;
+        }
+        mRefined++;
+    }
+
+    boolean isPending() {
+        return mPendingKey != null;
+    }
+
+    int getScheduled() {
+        return mScheduled;
+    }
+
+    int getCancelled() {
+        return mCancelled;
+    }
+
+    int getRefined() {
+        return mRefined;
+    }
+}
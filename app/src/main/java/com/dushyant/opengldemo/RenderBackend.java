@@ -0,0 +1,41 @@
+package com.dushyant.opengldemo;
+
+/**
+ * Renders effect pipelines and blits independent of where the pixels live.
+ * {@link GLRenderBackend} draws with GLES20 on the device, {@link SoftwareRenderBackend} draws
+ * into int[] buffers on any JVM, so the pipeline can run and be measured without a GPU.
+ *
+ * Images are handles the backend hands out, {@link #OUTPUT} is the output surface.
+ * Pixels are ARGB ints with rows top to bottom, the layout of android.graphics.Bitmap.
+ * Not thread safe, a GL backend has to be used on its GL thread.
+ */
+interface RenderBackend {
+
+    int OUTPUT = 0;
+
+    //size of the output surface, what drawToOutput stretches images to
+    void setOutputSize(int width, int height);
+
+    int createImage(int width, int height);
+
+    void deleteImage(int image);
+
+    //replaces the content of the image with the first width * height pixels of argb
+    void writePixels(int image, int[] argb);
+
+    //reads the whole image, or the output surface for OUTPUT, into the first width * height pixels of argb
+    void readPixels(int image, int[] argb);
+
+    /**
+     * Runs the plan from source into target, both the same size.
+     *
+     * @throws UnsupportedOperationException if the backend cannot run one of the plan's effects
+     */
+    void applyEffects(EffectChainPlanner.Plan plan, int source, int target);
+
+    //stretches the image over the whole output, applying pass on the way if it is not null
+    void drawToOutput(int image, ColorPass pass);
+
+    //frees every image and whatever else the backend holds on to
+    void release();
+}
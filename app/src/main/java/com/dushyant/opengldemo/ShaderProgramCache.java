@@ -0,0 +1,143 @@
+package com.dushyant.opengldemo;
+
+import android.opengl.GLES20;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Hands out linked programs keyed by a hash of their vertex and fragment source.
+ *
+ * Within a context the same sources always give back the same program. Where the driver
+ * supports program binaries, freshly linked programs are written to a {@link ProgramBinaryStore}
+ * and the next launch loads them from there instead of compiling. A binary the driver refuses
+ * is dropped and the program is compiled from source.
+ *
+ * GL thread only, one instance per EGL context.
+ */
+class ShaderProgramCache {
+
+    private final GLApi mGL;
+    private final ProgramBinaryStore mStore;
+    private final Map<String, Integer> mPrograms = new HashMap<>();
+
+    private int mHits;
+    private int mBinaryHits;
+    private int mCompiles;
+    private long mCompileNanos;
+
+    /**
+     * @param store where binaries are persisted, or null to keep the cache in memory only
+     */
+    ShaderProgramCache(GLApi gl, ProgramBinaryStore store) {
+        mGL = gl;
+        mStore = gl.supportsProgramBinary() ? store : null;
+    }
+
+    static String key(String vertexSource, String fragmentSource) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(vertexSource.getBytes("UTF-8"));
+            digest.update((byte) 0);//so moving text between the two shaders changes the key
+            digest.update(fragmentSource.getBytes("UTF-8"));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);//both are mandatory on every platform
+        }
+    }
+
+    int obtain(String vertexSource, String fragmentSource) {
+        String key = key(vertexSource, fragmentSource);
+        Integer cached = mPrograms.get(key);
+        if (cached != null) {
+            mHits++;
+            return cached;
+        }
+        int program = loadBinary(key);
+        if (program == 0) {
+            program = compile(key, vertexSource, fragmentSource);
+        }
+        if (program != 0) {
+            mPrograms.put(key, program);
+        }
+        return program;
+    }
+
+    private int loadBinary(String key) {
+        if (mStore == null) {
+            return 0;
+        }
+        ProgramBinaryStore.ProgramBinary binary = mStore.load(key);
+        if (binary == null) {
+            return 0;
+        }
+        int program = mGL.glCreateProgram();
+        mGL.glProgramBinary(program, binary.format, binary.data);
+        int[] linkStatus = new int[1];
+        mGL.glGetProgramiv(program, GLES20.GL_LINK_STATUS, linkStatus, 0);
+        if (linkStatus[0] != GLES20.GL_TRUE) {
+            // the driver changed under us in a way the fingerprint did not catch
+            mGL.glDeleteProgram(program);
+            mStore.remove(key);
+            return 0;
+        }
+        mBinaryHits++;
+        return program;
+    }
+
+    private int compile(String key, String vertexSource, String fragmentSource) {
+        long start = System.nanoTime();
+        int program = GLToolbox.createProgram(mGL, vertexSource, fragmentSource);
+        mCompileNanos += System.nanoTime() - start;
+        mCompiles++;
+        if (program != 0 && mStore != null) {
+            int[] format = new int[1];
+            byte[] data = mGL.glGetProgramBinary(program, format, 0);
+            if (data != null && data.length > 0) {
+                mStore.save(key, new ProgramBinaryStore.ProgramBinary(format[0], data));
+            }
+        }
+        return program;
+    }
+
+    //forgets a program that was deleted so the next obtain builds it again
+    void remove(int program) {
+        Iterator<Integer> it = mPrograms.values().iterator();
+        while (it.hasNext()) {
+            if (it.next() == program) {
+                it.remove();
+            }
+        }
+    }
+
+    //in memory hits, the same program asked for again within this context
+    int getHits() {
+        return mHits;
+    }
+
+    //programs loaded from a stored binary instead of compiling
+    int getBinaryHits() {
+        return mBinaryHits;
+    }
+
+    //programs compiled from source
+    int getMisses() {
+        return mCompiles;
+    }
+
+    long getCompileNanos() {
+        return mCompileNanos;
+    }
+
+    boolean isPersistent() {
+        return mStore != null;
+    }
+}
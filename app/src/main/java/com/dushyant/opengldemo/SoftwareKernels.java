@@ -0,0 +1,102 @@
+package com.dushyant.opengldemo;
+
+import android.media.effect.EffectFactory;
+
+/**
+ * CPU versions of the non-color effects the software backend knows, over ARGB int[] images.
+ * Each kernel writes rows [rowStart, rowEnd) of dst so it can be split into bands.
+ */
+final class SoftwareKernels {
+
+    //EffectFactory's sharpen without a "scale" parameter
+    static final float DEFAULT_SHARPEN_SCALE = 0.5f;
+
+    private SoftwareKernels() {
+    }
+
+    static boolean supports(EffectDescriptor effect) {
+        String name = effect.getEffectName();
+        if (EffectFactory.EFFECT_FLIP.equals(name) || EffectFactory.EFFECT_SHARPEN.equals(name)) {
+            return true;
+        }
+        if (EffectFactory.EFFECT_ROTATE.equals(name)) {
+            Object angle = effect.getParam("angle");
+            return angle instanceof Number && ((Number) angle).intValue() % 360 == 180;
+        }
+        return false;
+    }
+
+    static void apply(EffectDescriptor effect, int[] src, int[] dst, int width, int height,
+                      int rowStart, int rowEnd) {
+        String name = effect.getEffectName();
+        if (EffectFactory.EFFECT_FLIP.equals(name)) {
+            flip(src, dst, width, height, Boolean.TRUE.equals(effect.getParam("horizontal")),
+                    Boolean.TRUE.equals(effect.getParam("vertical")), rowStart, rowEnd);
+        } else if (EffectFactory.EFFECT_SHARPEN.equals(name)) {
+            Object scale = effect.getParam("scale");
+            sharpen(src, dst, width, height, scale instanceof Number ? ((Number) scale).floatValue() : DEFAULT_SHARPEN_SCALE,
+                    rowStart, rowEnd);
+        } else if (supports(effect)) {
+            // a half turn is flipping both ways
+            flip(src, dst, width, height, true, true, rowStart, rowEnd);
+        } else {
+            throw new UnsupportedOperationException("No software kernel for " + effect);
+        }
+    }
+
+    static void flip(int[] src, int[] dst, int width, int height, boolean horizontal, boolean vertical,
+                     int rowStart, int rowEnd) {
+        for (int y = rowStart; y < rowEnd; y++) {
+            int srcRow = (vertical ? height - 1 - y : y) * width;
+            int dstRow = y * width;
+            if (!horizontal) {
+                System.arraycopy(src, srcRow, dst, dstRow, width);
+                continue;
+            }
+            for (int x = 0; x < width; x++) {
+                dst[dstRow + x] = src[srcRow + width - 1 - x];
+            }
+        }
+    }
+
+    /**
+     * Laplacian sharpen, each channel becomes c + scale * (4c - up - down - left - right).
+     * Reads one pixel around the output pixel, clamped at the image edges like GL_CLAMP_TO_EDGE.
+     */
+    static void sharpen(int[] src, int[] dst, int width, int height, float scale, int rowStart, int rowEnd) {
+        for (int y = rowStart; y < rowEnd; y++) {
+            int row = y * width;
+            int up = Math.max(y - 1, 0) * width;
+            int down = Math.min(y + 1, height - 1) * width;
+            for (int x = 0; x < width; x++) {
+                int left = Math.max(x - 1, 0);
+                int right = Math.min(x + 1, width - 1);
+                int center = src[row + x];
+                int n = src[up + x];
+                int s = src[down + x];
+                int w = src[row + left];
+                int e = src[row + right];
+                int pixel = center & 0xFF000000;
+                for (int shift = 0; shift < 24; shift += 8) {
+                    int c = center >> shift & 0xFF;
+                    int laplacian = 4 * c - (n >> shift & 0xFF) - (s >> shift & 0xFF) - (w >> shift & 0xFF) - (e >> shift & 0xFF);
+                    int v = Math.round(c + scale * laplacian);
+                    pixel |= Math.max(0, Math.min(255, v)) << shift;
+                }
+                dst[row + x] = pixel;
+            }
+        }
+    }
+
+    //nearest neighbour stretch of the whole src over the whole dst, like a GL_NEAREST textured quad
+    static void blit(int[] src, int srcWidth, int srcHeight, int[] dst, int dstWidth, int dstHeight,
+                     int rowStart, int rowEnd) {
+        for (int y = rowStart; y < rowEnd; y++) {
+            int srcRow = (int) (((long) y * 2 + 1) * srcHeight / (2L * dstHeight)) * srcWidth;
+            int dstRow = y * dstWidth;
+            for (int x = 0; x < dstWidth; x++) {
+                dst[dstRow + x] = src[srcRow + (int) (((long) x * 2 + 1) * srcWidth / (2L * dstWidth))];
+            }
+        }
+    }
+}
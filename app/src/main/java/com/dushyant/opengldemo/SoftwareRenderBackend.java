@@ -0,0 +1,170 @@
+package com.dushyant.opengldemo;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link RenderBackend} that rasterizes in plain Java over int[] ARGB buffers, for CI machines
+ * without a GPU and for measuring the pipeline itself. Color passes run {@link ColorPass#apply},
+ * the math the shaders are checked against, other effects run the {@link SoftwareKernels}.
+ *
+ * Every pass is split into row bands on a {@link TileExecutor}. Bands only write their own rows,
+ * so the result does not depend on the parallelism. Intermediate results go to two pooled
+ * scratch buffers, like the GL backend's ping-pong textures.
+ */
+class SoftwareRenderBackend implements RenderBackend {
+
+    private static class Image {
+        final int width;
+        final int height;
+        final int[] pixels;
+
+        Image(int width, int height) {
+            if (width <= 0 || height <= 0) {
+                throw new IllegalArgumentException("Invalid image size " + width + "x" + height);
+            }
+            this.width = width;
+            this.height = height;
+            this.pixels = new int[width * height];
+        }
+    }
+
+    private static final int SCRATCH_BUFFERS = 2;
+
+    private final TileExecutor mTiles;
+    private final Map<Integer, Image> mImages = new HashMap<>();
+    private final Image[] mScratch = new Image[SCRATCH_BUFFERS];
+    private int mNextImage = OUTPUT + 1;
+    private Image mOutput;
+
+    //parallelism 1 renders on the calling thread
+    SoftwareRenderBackend(int parallelism) {
+        mTiles = new TileExecutor(parallelism);
+    }
+
+    @Override
+    public void setOutputSize(int width, int height) {
+        if (mOutput == null || mOutput.width != width || mOutput.height != height) {
+            mOutput = new Image(width, height);
+        }
+    }
+
+    @Override
+    public int createImage(int width, int height) {
+        mImages.put(mNextImage, new Image(width, height));
+        return mNextImage++;
+    }
+
+    @Override
+    public void deleteImage(int image) {
+        mImages.remove(image);
+    }
+
+    private Image image(int image) {
+        Image found = image == OUTPUT ? mOutput : mImages.get(image);
+        if (found == null) {
+            throw new IllegalArgumentException("No image " + image);
+        }
+        return found;
+    }
+
+    @Override
+    public void writePixels(int image, int[] argb) {
+        Image target = image(image);
+        System.arraycopy(argb, 0, target.pixels, 0, target.pixels.length);
+    }
+
+    @Override
+    public void readPixels(int image, int[] argb) {
+        Image source = image(image);
+        System.arraycopy(source.pixels, 0, argb, 0, source.pixels.length);
+    }
+
+    private Image scratch(int buffer, int width, int height) {
+        Image scratch = mScratch[buffer];
+        if (scratch == null || scratch.width != width || scratch.height != height) {
+            scratch = new Image(width, height);
+            mScratch[buffer] = scratch;
+        }
+        return scratch;
+    }
+
+    @Override
+    public void applyEffects(EffectChainPlanner.Plan plan, int source, int target) {
+        final Image in = image(source);
+        final Image out = image(target);
+        if (in == out || in.width != out.width || in.height != out.height) {
+            throw new IllegalArgumentException("Source and target must be different images of the same size");
+        }
+        // fail before touching any pixels
+        for (int i = 0; i < plan.getPassCount(); i++) {
+            EffectChainPlanner.Pass pass = plan.getPass(i);
+            if (!pass.isColorPass() && !SoftwareKernels.supports(pass.effect)) {
+                throw new UnsupportedOperationException("No software kernel for " + pass.effect);
+            }
+        }
+        if (plan.getPassCount() == 0) {
+            System.arraycopy(in.pixels, 0, out.pixels, 0, in.pixels.length);
+            return;
+        }
+        for (int i = 0; i < plan.getPassCount(); i++) {
+            EffectChainPlanner.Pass pass = plan.getPass(i);
+            runPass(pass, buffer(pass.source, in, out), buffer(pass.target, in, out));
+        }
+    }
+
+    private Image buffer(int buffer, Image source, Image target) {
+        switch (buffer) {
+            case EffectChainPlanner.SOURCE:
+                return source;
+            case EffectChainPlanner.OUTPUT:
+                return target;
+            default:
+                return scratch(buffer, source.width, source.height);
+        }
+    }
+
+    private void runPass(final EffectChainPlanner.Pass pass, final Image in, final Image out) {
+        final int width = in.width;
+        mTiles.run(in.height, new TileExecutor.RowTask() {
+            @Override
+            public void run(int rowStart, int rowEnd) {
+                if (pass.isColorPass()) {
+                    int offset = rowStart * width;
+                    int count = (rowEnd - rowStart) * width;
+                    System.arraycopy(in.pixels, offset, out.pixels, offset, count);
+                    pass.colorPass.apply(out.pixels, offset, count);
+                } else {
+                    SoftwareKernels.apply(pass.effect, in.pixels, out.pixels, width, in.height, rowStart, rowEnd);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void drawToOutput(int image, final ColorPass pass) {
+        if (mOutput == null) {
+            throw new IllegalStateException("setOutputSize() first");
+        }
+        final Image in = image(image);
+        final Image out = mOutput;
+        mTiles.run(out.height, new TileExecutor.RowTask() {
+            @Override
+            public void run(int rowStart, int rowEnd) {
+                SoftwareKernels.blit(in.pixels, in.width, in.height, out.pixels, out.width, out.height, rowStart, rowEnd);
+                if (pass != null) {
+                    pass.apply(out.pixels, rowStart * out.width, (rowEnd - rowStart) * out.width);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void release() {
+        mImages.clear();
+        Arrays.fill(mScratch, null);
+        mOutput = null;
+        mTiles.shutdown();
+    }
+}
@@ -0,0 +1,114 @@
+package com.dushyant.opengldemo;
+
+import android.media.effect.Effect;
+import android.opengl.GLES20;
+
+/**
+ * Draws the frames of a camera or video stream, which arrive in a GL_TEXTURE_EXTERNAL_OES
+ * texture, through the same effects as the still image.
+ *
+ * Without effects or with color-only ones the frame goes to the screen in one pass, the effects
+ * computed by the external variant of the fused shader. Other effects need a 2D texture: the
+ * frame is copied into one first, then runs through the {@link EffectChain} into an output
+ * texture that is drawn like the still image's results. Both textures are made for the first
+ * such frame and reused, so a frame does not allocate, neither GL objects nor on the Java heap.
+ *
+ * Holds GL objects of the current context, make a new one per EGL context. GL thread only.
+ */
+class StreamRenderer {
+
+    private final GLApi mGL;
+    private final GLResourceManager mResources;
+    private final GLTextureRenderer mRenderer;
+    private final EffectChain mEffectChain;
+    private final FrameScheduler mScheduler;
+    private final FrameStats mStats;
+    private final int mWidth;
+    private final int mHeight;
+    private final int mExternalTexture;
+    private int mFrameTexture;//2D copy of the current frame, input of the effect chain
+    private int mFrameFramebuffer;
+    private int mOutputTexture;
+
+    StreamRenderer(GLResourceManager resources, GLTextureRenderer renderer, EffectChain effectChain,
+                   FrameScheduler scheduler, FrameStats stats, int externalTexture, int width, int height) {
+        mGL = resources.gl();
+        mResources = resources;
+        mRenderer = renderer;
+        mEffectChain = effectChain;
+        mScheduler = scheduler;
+        mStats = stats;
+        mWidth = width;
+        mHeight = height;
+        mExternalTexture = externalTexture;
+    }
+
+    //the texture a stream's SurfaceTexture is attached to, owned by the StreamRenderer made with it
+    static int createExternalTexture(GLResourceManager resources) {
+        GLApi gl = resources.gl();
+        int texture = resources.genTexture();
+        // external textures only support linear or nearest filtering and clamping, and have no mipmaps
+        gl.glBindTexture(GLStateCache.GL_TEXTURE_EXTERNAL_OES, texture);
+        gl.glTexParameteri(GLStateCache.GL_TEXTURE_EXTERNAL_OES, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_LINEAR);
+        gl.glTexParameteri(GLStateCache.GL_TEXTURE_EXTERNAL_OES, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_LINEAR);
+        gl.glTexParameteri(GLStateCache.GL_TEXTURE_EXTERNAL_OES, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_CLAMP_TO_EDGE);
+        gl.glTexParameteri(GLStateCache.GL_TEXTURE_EXTERNAL_OES, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_CLAMP_TO_EDGE);
+        return texture;
+    }
+
+    FrameScheduler getScheduler() {
+        return mScheduler;
+    }
+
+    /**
+     * Latches the newest frame if one arrived and draws the current frame with the pipeline,
+     * null for none. Returns false while the stream has not delivered a frame yet.
+     */
+    boolean drawFrame(EffectPipeline pipeline, EffectRegistry<Effect> registry) {
+        mScheduler.latchFrame();
+        if (!mScheduler.hasFrame()) {
+            return false;
+        }
+        float[] transform = mScheduler.getTransform();
+        ColorPass directPass = pipeline == null ? null : pipeline.plan().getDirectPass();
+        if (pipeline == null || directPass != null) {
+            mStats.begin(FrameStats.Stage.BLIT);
+            mRenderer.renderExternal(mExternalTexture, transform, directPass);
+            mStats.end(FrameStats.Stage.BLIT);
+        } else {
+            // every frame is a new source, so unlike the still image there is no result to cache
+            ensureTextures();
+            mStats.begin(FrameStats.Stage.APPLY);
+            mRenderer.renderExternal(mExternalTexture, transform, mFrameFramebuffer, mWidth, mHeight, null);
+            mEffectChain.apply(pipeline.plan(), registry, mFrameTexture, mWidth, mHeight, mOutputTexture);
+            mStats.end(FrameStats.Stage.APPLY);
+            mStats.begin(FrameStats.Stage.BLIT);
+            mRenderer.renderTexture(mOutputTexture);
+            mStats.end(FrameStats.Stage.BLIT);
+        }
+        mScheduler.onFrameDrawn();
+        return true;
+    }
+
+    private void ensureTextures() {
+        if (mFrameTexture == 0) {
+            mFrameTexture = GLTextureAllocator.createTexture(mResources, mWidth, mHeight);
+            mFrameFramebuffer = mResources.genFramebuffer();
+            PingPongBuffers.attach(mGL, mFrameFramebuffer, mFrameTexture);
+            mOutputTexture = GLTextureAllocator.createTexture(mResources, mWidth, mHeight);
+        }
+    }
+
+    //frees the stream's textures, the context has to be current
+    void release() {
+        if (mFrameTexture != 0) {
+            mResources.deleteFramebuffer(mFrameFramebuffer);
+            mResources.deleteTexture(mFrameTexture);
+            mResources.deleteTexture(mOutputTexture);
+            mFrameTexture = 0;
+            mFrameFramebuffer = 0;
+            mOutputTexture = 0;
+        }
+        mResources.deleteTexture(mExternalTexture);
+    }
+}
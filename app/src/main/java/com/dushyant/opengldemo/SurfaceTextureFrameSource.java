@@ -0,0 +1,59 @@
+package com.dushyant.opengldemo;
+
+import android.graphics.SurfaceTexture;
+
+/**
+ * A {@link FrameScheduler.FrameSource} backed by a SurfaceTexture on the stream's external
+ * texture. The camera or decoder renders into {@link #getSurfaceTexture()}, each new frame is
+ * reported to the scheduler from whatever thread the SurfaceTexture calls back on.
+ */
+class SurfaceTextureFrameSource implements FrameScheduler.FrameSource, SurfaceTexture.OnFrameAvailableListener {
+
+    private final SurfaceTexture mSurfaceTexture;
+    private volatile FrameScheduler mScheduler;
+
+    //GL thread, externalTexture has to belong to the current context
+    SurfaceTextureFrameSource(int externalTexture, int width, int height) {
+        mSurfaceTexture = new SurfaceTexture(externalTexture);
+        mSurfaceTexture.setDefaultBufferSize(width, height);
+        mSurfaceTexture.setOnFrameAvailableListener(this);
+    }
+
+    //set before the SurfaceTexture goes to the producer, the scheduler needs the source first
+    void setScheduler(FrameScheduler scheduler) {
+        mScheduler = scheduler;
+    }
+
+    SurfaceTexture getSurfaceTexture() {
+        return mSurfaceTexture;
+    }
+
+    @Override
+    public void onFrameAvailable(SurfaceTexture surfaceTexture) {
+        FrameScheduler scheduler = mScheduler;
+        if (scheduler != null) {
+            scheduler.onFrameAvailable();
+        }
+    }
+
+    @Override
+    public void updateTexImage() {
+        // binds the external texture on the active unit, which is the one the state cache knows
+        mSurfaceTexture.updateTexImage();
+    }
+
+    @Override
+    public long getTimestamp() {
+        return mSurfaceTexture.getTimestamp();
+    }
+
+    @Override
+    public void getTransformMatrix(float[] matrix) {
+        mSurfaceTexture.getTransformMatrix(matrix);
+    }
+
+    void release() {
+        mSurfaceTexture.setOnFrameAvailableListener(null);
+        mSurfaceTexture.release();
+    }
+}
@@ -0,0 +1,220 @@
+package com.dushyant.opengldemo;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Reads {@link CompressedTexture}s from the two containers ETC tools write: KTX 1.1, which
+ * holds a mip chain in any GL format, and PKM, a single ETC1 or ETC2 level. Writes KTX.
+ *
+ * Only 2D textures are read, no arrays, cube maps or uncompressed formats. Every size in the
+ * header is checked against the format before anything is allocated, anything that does not
+ * add up is an IOException.
+ */
+final class TextureContainers {
+
+    private static final byte[] KTX_IDENTIFIER = {
+            (byte) 0xAB, 'K', 'T', 'X', ' ', '1', '1', (byte) 0xBB, '\r', '\n', 0x1A, '\n'
+    };
+    private static final int KTX_ENDIANNESS = 0x04030201;
+    private static final int GL_RGB = 0x1907;
+    private static final int GL_RGBA = 0x1908;
+    private static final int GL_RED = 0x1903;
+    private static final int GL_RG = 0x8227;
+
+    private static final byte[] PKM_MAGIC = {'P', 'K', 'M', ' '};
+    //PKM data types, the index is the type in the header, 0 where the type is not supported
+    private static final int[] PKM_FORMATS = {
+            CompressedTexture.GL_ETC1_RGB8_OES,
+            CompressedTexture.GL_COMPRESSED_RGB8_ETC2,
+            0,//the old, unfinished ETC2 RGBA
+            CompressedTexture.GL_COMPRESSED_RGBA8_ETC2_EAC,
+            CompressedTexture.GL_COMPRESSED_RGB8_PUNCHTHROUGH_ALPHA1_ETC2,
+            CompressedTexture.GL_COMPRESSED_R11_EAC,
+            CompressedTexture.GL_COMPRESSED_RG11_EAC,
+            CompressedTexture.GL_COMPRESSED_SIGNED_R11_EAC,
+            CompressedTexture.GL_COMPRESSED_SIGNED_RG11_EAC
+    };
+
+    //larger than any GL_MAX_TEXTURE_SIZE, keeps a corrupt header from allocating gigabytes
+    static final int MAX_DIMENSION = 16384;
+
+    private TextureContainers() {
+    }
+
+    //reads a KTX or PKM file, told apart by their first bytes
+    static CompressedTexture read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        byte[] magic = new byte[PKM_MAGIC.length];
+        data.readFully(magic);
+        if (Arrays.equals(magic, PKM_MAGIC)) {
+            return readPkmBody(data);
+        }
+        if (Arrays.equals(magic, Arrays.copyOf(KTX_IDENTIFIER, magic.length))) {
+            byte[] rest = new byte[KTX_IDENTIFIER.length - magic.length];
+            data.readFully(rest);
+            if (Arrays.equals(rest, Arrays.copyOfRange(KTX_IDENTIFIER, magic.length, KTX_IDENTIFIER.length))) {
+                return readKtxBody(data);
+            }
+        }
+        throw new IOException("Neither a KTX nor a PKM file");
+    }
+
+    /*
+     * After the identifier: endianness, glType, glTypeSize, glFormat, glInternalFormat, glBaseInternalFormat,
+     * pixelWidth, pixelHeight, pixelDepth, numberOfArrayElements, numberOfFaces, numberOfMipmapLevels,
+     * bytesOfKeyValueData, all uint32 in the writer's byte order. Then the key/value data, then per level
+     * its imageSize and data, padded to 4 bytes.
+     */
+    private static CompressedTexture readKtxBody(DataInputStream data) throws IOException {
+        int endianness = data.readInt();
+        boolean swap;
+        if (endianness == KTX_ENDIANNESS) {
+            swap = false;
+        } else if (endianness == Integer.reverseBytes(KTX_ENDIANNESS)) {
+            swap = true;
+        } else {
+            throw new IOException("Bad KTX endianness 0x" + Integer.toHexString(endianness));
+        }
+        int[] header = new int[12];
+        for (int i = 0; i < header.length; i++) {
+            header[i] = swap ? Integer.reverseBytes(data.readInt()) : data.readInt();
+        }
+        int glType = header[0];
+        int glFormat = header[2];
+        int internalFormat = header[3];
+        int width = header[5];
+        int height = header[6];
+        int depth = header[7];
+        int arrayElements = header[8];
+        int faces = header[9];
+        int levelCount = Math.max(1, header[10]);//0 asks the loader to generate mipmaps, there is one level
+        int keyValueBytes = header[11];
+        if (glType != 0 || glFormat != 0) {
+            throw new IOException("Not a compressed KTX texture");
+        }
+        if (depth != 0 || arrayElements != 0 || faces != 1) {
+            throw new IOException("Only 2D KTX textures are supported");
+        }
+        checkFormat(internalFormat);
+        checkSize(width, height);
+        if (levelCount > CompressedTexture.maxLevels(width, height)) {
+            throw new IOException("KTX has " + levelCount + " levels for " + width + "x" + height);
+        }
+        if (keyValueBytes < 0 || keyValueBytes % 4 != 0) {
+            throw new IOException("Bad KTX key/value length " + keyValueBytes);
+        }
+        skipFully(data, keyValueBytes);
+
+        byte[][] levels = new byte[levelCount][];
+        for (int i = 0; i < levelCount; i++) {
+            int imageSize = swap ? Integer.reverseBytes(data.readInt()) : data.readInt();
+            int expected = CompressedTexture.levelSize(internalFormat,
+                    CompressedTexture.levelDimension(width, i), CompressedTexture.levelDimension(height, i));
+            if (imageSize != expected) {
+                throw new IOException("KTX level " + i + " has " + imageSize + " bytes, expected " + expected);
+            }
+            levels[i] = new byte[imageSize];
+            data.readFully(levels[i]);
+            skipFully(data, 3 - ((imageSize + 3) % 4));
+        }
+        return new CompressedTexture(internalFormat, width, height, levels);
+    }
+
+    //after the magic: version "10" or "20", data type, padded width and height, width and height, all big endian
+    private static CompressedTexture readPkmBody(DataInputStream data) throws IOException {
+        int version = data.readUnsignedShort();
+        if (version != ('1' << 8 | '0') && version != ('2' << 8 | '0')) {
+            throw new IOException("Unknown PKM version 0x" + Integer.toHexString(version));
+        }
+        int type = data.readUnsignedShort();
+        int paddedWidth = data.readUnsignedShort();
+        int paddedHeight = data.readUnsignedShort();
+        int width = data.readUnsignedShort();
+        int height = data.readUnsignedShort();
+        if (type >= PKM_FORMATS.length || PKM_FORMATS[type] == 0) {
+            throw new IOException("Unsupported PKM data type " + type);
+        }
+        checkSize(width, height);
+        if (paddedWidth != (width + 3) / 4 * 4 || paddedHeight != (height + 3) / 4 * 4) {
+            throw new IOException("PKM padded size " + paddedWidth + "x" + paddedHeight + " does not fit " + width + "x" + height);
+        }
+        int format = PKM_FORMATS[type];
+        byte[] level = new byte[CompressedTexture.levelSize(format, width, height)];
+        data.readFully(level);
+        return new CompressedTexture(format, width, height, new byte[][]{level});
+    }
+
+    //writes the texture as little endian KTX 1.1 without key/value data
+    static void writeKtx(CompressedTexture texture, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(KTX_IDENTIFIER);
+        int[] header = {
+                KTX_ENDIANNESS,
+                0, 1, 0,//glType, glTypeSize, glFormat of compressed data
+                texture.internalFormat, baseFormat(texture.internalFormat),
+                texture.width, texture.height, 0,
+                0, 1, texture.getLevelCount(),
+                0
+        };
+        for (int value : header) {
+            data.writeInt(Integer.reverseBytes(value));
+        }
+        for (int i = 0; i < texture.getLevelCount(); i++) {
+            byte[] level = texture.getLevel(i);
+            data.writeInt(Integer.reverseBytes(level.length));
+            data.write(level);
+            for (int pad = 3 - ((level.length + 3) % 4); pad > 0; pad--) {
+                data.writeByte(0);
+            }
+        }
+        data.flush();
+    }
+
+    private static int baseFormat(int internalFormat) {
+        switch (internalFormat) {
+            case CompressedTexture.GL_ETC1_RGB8_OES:
+            case CompressedTexture.GL_COMPRESSED_RGB8_ETC2:
+            case CompressedTexture.GL_COMPRESSED_SRGB8_ETC2:
+                return GL_RGB;
+            case CompressedTexture.GL_COMPRESSED_R11_EAC:
+            case CompressedTexture.GL_COMPRESSED_SIGNED_R11_EAC:
+                return GL_RED;
+            case CompressedTexture.GL_COMPRESSED_RG11_EAC:
+            case CompressedTexture.GL_COMPRESSED_SIGNED_RG11_EAC:
+                return GL_RG;
+            default:
+                return GL_RGBA;
+        }
+    }
+
+    private static void checkFormat(int internalFormat) throws IOException {
+        try {
+            CompressedTexture.blockBytes(internalFormat);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+
+    private static void checkSize(int width, int height) throws IOException {
+        if (width < 1 || height < 1 || width > MAX_DIMENSION || height > MAX_DIMENSION) {
+            throw new IOException("Bad texture size " + width + "x" + height);
+        }
+    }
+
+    private static void skipFully(DataInputStream data, int bytes) throws IOException {
+        while (bytes > 0) {
+            int skipped = data.skipBytes(bytes);
+            if (skipped <= 0) {
+                // skipBytes gives up at the end of the stream without saying so
+                data.readByte();
+                skipped = 1;
+            }
+            bytes -= skipped;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.dushyant.opengldemo;
+
+import android.opengl.GLES20;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Sets up the filtering of the source texture and uploads compressed textures, depending on
+ * what the driver can do.
+ *
+ * With {@link Mode#TRILINEAR} the uploaded image gets a mip chain from glGenerateMipmap, so
+ * drawing it smaller than it is reads a level of about the right size instead of skipping
+ * texels, which aliases and wastes bandwidth. ES 2 only mipmaps power of two textures unless
+ * the driver has OES_texture_npot, other sizes fall back to bilinear filtering.
+ * {@link Mode#ETC1} textures bring their own mip chain, see {@link CompressedTextureCache}.
+ *
+ * GL thread only, create one per EGL context.
+ */
+class TextureUploader {
+
+    enum Mode {
+        //uncompressed RGBA, no mipmaps, nearest texel
+        NEAREST,
+        //uncompressed RGBA, generated mipmaps, trilinear filtering
+        TRILINEAR,
+        //ETC1 compressed with a full mip chain, trilinear filtering; RGBA where ETC1 cannot be sampled
+        ETC1
+    }
+
+    private final GLApi mGL;
+    private int[] mCompressedFormats;//null until first asked
+    private Boolean mNpotMipmaps;
+
+    TextureUploader(GLApi gl) {
+        mGL = gl;
+    }
+
+    /**
+     * Sets the filtering of the 2D texture bound on the active unit, after its level 0 was
+     * uploaded, and generates its mipmaps if the mode asks for them and the size allows.
+     * Returns whether the texture is mipmapped.
+     */
+    boolean finishUpload(Mode mode, int width, int height) {
+        if (mode == Mode.NEAREST) {
+            setFilters(GLES20.GL_NEAREST, GLES20.GL_NEAREST);
+            return false;
+        }
+        if (!canGenerateMipmaps(width, height)) {
+            setFilters(GLES20.GL_LINEAR, GLES20.GL_LINEAR);
+            return false;
+        }
+        mGL.glGenerateMipmap(GLES20.GL_TEXTURE_2D);
+        setFilters(GLES20.GL_LINEAR_MIPMAP_LINEAR, GLES20.GL_LINEAR);
+        return true;
+    }
+
+    /**
+     * Uploads every level of the texture into the 2D texture bound on the active unit and sets
+     * trilinear filtering if the mip chain is complete. Returns false without uploading anything
+     * if the driver cannot sample the format, the caller then uploads the image uncompressed.
+     */
+    boolean uploadCompressed(CompressedTexture texture) {
+        if (!supportsFormat(texture.internalFormat)) {
+            return false;
+        }
+        for (int i = 0; i < texture.getLevelCount(); i++) {
+            byte[] level = texture.getLevel(i);
+            mGL.glCompressedTexImage2D(GLES20.GL_TEXTURE_2D, i, texture.internalFormat, texture.getLevelWidth(i),
+                    texture.getLevelHeight(i), 0, level.length, ByteBuffer.wrap(level));
+        }
+        if (texture.hasFullMipChain()) {
+            setFilters(GLES20.GL_LINEAR_MIPMAP_LINEAR, GLES20.GL_LINEAR);
+        } else {
+            // levels the file does not have cannot be generated from compressed data
+            setFilters(GLES20.GL_LINEAR, GLES20.GL_LINEAR);
+        }
+        return true;
+    }
+
+    //whether the driver lists the format in GL_COMPRESSED_TEXTURE_FORMATS
+    boolean supportsFormat(int internalFormat) {
+        if (mCompressedFormats == null) {
+            int[] count = new int[1];
+            mGL.glGetIntegerv(GLES20.GL_NUM_COMPRESSED_TEXTURE_FORMATS, count, 0);
+            mCompressedFormats = new int[Math.max(0, count[0])];
+            if (mCompressedFormats.length > 0) {
+                mGL.glGetIntegerv(GLES20.GL_COMPRESSED_TEXTURE_FORMATS, mCompressedFormats, 0);
+            }
+        }
+        for (int format : mCompressedFormats) {
+            if (format == internalFormat) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean canGenerateMipmaps(int width, int height) {
+        if (isPowerOfTwo(width) && isPowerOfTwo(height)) {
+            return true;
+        }
+        if (mNpotMipmaps == null) {
+            String version = mGL.glGetString(GLES20.GL_VERSION);
+            String extensions = mGL.glGetString(GLES20.GL_EXTENSIONS);
+            mNpotMipmaps = (version != null && version.startsWith("OpenGL ES 3"))
+                    || (extensions != null && extensions.contains("GL_OES_texture_npot"));
+        }
+        return mNpotMipmaps;
+    }
+
+    private void setFilters(int minFilter, int magFilter) {
+        mGL.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER, minFilter);
+        mGL.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER, magFilter);
+        mGL.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_CLAMP_TO_EDGE);
+        mGL.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_CLAMP_TO_EDGE);
+    }
+
+    private static boolean isPowerOfTwo(int value) {
+        return value > 0 && (value & (value - 1)) == 0;
+    }
+}
@@ -0,0 +1,130 @@
+package com.dushyant.opengldemo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Splits row ranges of an image into bands and runs them on a fixed pool of daemon threads,
+ * returning once every band is done. With a parallelism of 1 the rows run on the calling thread.
+ * The first band to fail cancels the bands not started yet; the ones already running are waited
+ * for, they write into buffers the caller reuses for its next image.
+ *
+ * Plain ExecutorService rather than fork/join: ForkJoinPool only ships with API 21 and the
+ * bands are independent anyway, there is nothing to steal.
+ */
+class TileExecutor {
+
+    interface RowTask {
+        //processes rows [rowStart, rowEnd)
+        void run(int rowStart, int rowEnd);
+    }
+
+    //fewer rows per band and the scheduling overhead starts to show
+    static final int MIN_BAND_ROWS = 16;
+
+    private final int mParallelism;
+    private final ExecutorService mExecutor;
+
+    TileExecutor(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        }
+        mParallelism = parallelism;
+        if (parallelism == 1) {
+            mExecutor = null;
+        } else {
+            mExecutor = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+                private int mCount;
+
+                @Override
+                public synchronized Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "tile-" + mCount++);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    int getParallelism() {
+        return mParallelism;
+    }
+
+    //runs task over rows [0, rows), split into at most a few bands per thread
+    void run(int rows, final RowTask task) {
+        int bands = Math.min(mParallelism * 2, (rows + MIN_BAND_ROWS - 1) / MIN_BAND_ROWS);
+        if (mExecutor == null || bands <= 1) {
+            task.run(0, rows);
+            return;
+        }
+        int bandRows = (rows + bands - 1) / bands;
+        // bands are waited for in the order they finish, so a failure is seen as soon as it happens
+        ExecutorCompletionService<Void> completion = new ExecutorCompletionService<>(mExecutor);
+        List<Future<Void>> futures = new ArrayList<>(bands);
+        for (int start = 0; start < rows; start += bandRows) {
+            final int rowStart = start;
+            final int rowEnd = Math.min(rows, start + bandRows);
+            futures.add(completion.submit(new Runnable() {
+                @Override
+                public void run() {
+                    task.run(rowStart, rowEnd);
+                }
+            }, null));
+        }
+        int taken = 0;
+        try {
+            while (taken < futures.size()) {
+                Future<Void> done = completion.take();
+                taken++;
+                done.get();
+            }
+        } catch (InterruptedException e) {
+            stop(completion, futures, futures.size() - taken);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for tiles", e);
+        } catch (ExecutionException e) {
+            // the image is lost anyway, skip the bands that have not started
+            stop(completion, futures, futures.size() - taken);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /*
+     * Cancels the bands not started yet and waits for the running ones to finish. A cancelled
+     * band completes right away and never runs, a running one cannot be cancelled without
+     * interrupting it and completes when its rows are written.
+     */
+    private static void stop(ExecutorCompletionService<Void> completion, List<Future<Void>> futures, int remaining) {
+        for (Future<Void> future : futures) {
+            future.cancel(false);
+        }
+        boolean interrupted = false;
+        while (remaining > 0) {
+            try {
+                completion.take();
+                remaining--;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void shutdown() {
+        if (mExecutor != null) {
+            mExecutor.shutdown();
+        }
+    }
+}
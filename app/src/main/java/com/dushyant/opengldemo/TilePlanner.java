@@ -0,0 +1,104 @@
+package com.dushyant.opengldemo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Splits an image too large for one texture into tiles that each fit, for effects that only
+ * read a fixed distance around each pixel (see {@link EffectDescriptor#getHalo()}).
+ *
+ * Every tile has a core, the pixels it produces, and is padded by at least the halo on each side
+ * so the effect sees the same neighbours as on the whole image. Padding stops at the image edge,
+ * where the effect clamps as it would on the whole image. The cores cover the image exactly once
+ * and are spread evenly, so there is no sliver of a tile at the right or bottom.
+ *
+ * The padded areas of a split image all have the same size, maxTileSize or the image side if
+ * that is smaller, and are shifted inwards at the image edges. So one pair of scratch images of
+ * that size serves every tile, and every image tiled with the same maxTileSize, however uneven
+ * its cores are. The extra padding is real image, beyond the halo it does not change the core.
+ */
+final class TilePlanner {
+
+    private TilePlanner() {
+    }
+
+    static final class Tile {
+        //the core, in image coordinates
+        final int x;
+        final int y;
+        final int width;
+        final int height;
+        //the core plus its halo, what gets processed
+        final int paddedX;
+        final int paddedY;
+        final int paddedWidth;
+        final int paddedHeight;
+
+        Tile(int x, int y, int width, int height, int paddedX, int paddedY, int paddedWidth, int paddedHeight) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.paddedX = paddedX;
+            this.paddedY = paddedY;
+            this.paddedWidth = paddedWidth;
+            this.paddedHeight = paddedHeight;
+        }
+
+        @Override
+        public String toString() {
+            return width + "x" + height + "@" + x + "," + y
+                    + " padded " + paddedWidth + "x" + paddedHeight + "@" + paddedX + "," + paddedY;
+        }
+    }
+
+    /**
+     * @param maxTileSize largest padded tile side, e.g. GL_MAX_TEXTURE_SIZE
+     * @param halo        pixels each core is padded with, at least 0
+     * @return the tiles row by row, a single one if the image fits
+     */
+    static List<Tile> plan(int width, int height, int maxTileSize, int halo) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid image size " + width + "x" + height);
+        }
+        if (halo < 0) {
+            throw new IllegalArgumentException("Global effects cannot be tiled");
+        }
+        if (width <= maxTileSize && height <= maxTileSize) {
+            return Collections.singletonList(new Tile(0, 0, width, height, 0, 0, width, height));
+        }
+        int maxCore = maxTileSize - 2 * halo;
+        if (maxCore <= 0) {
+            throw new IllegalArgumentException("Halo " + halo + " leaves no room in tiles of " + maxTileSize);
+        }
+        int paddedWidth = Math.min(width, maxTileSize);
+        int paddedHeight = Math.min(height, maxTileSize);
+        int columns = (width + maxCore - 1) / maxCore;
+        int rows = (height + maxCore - 1) / maxCore;
+        List<Tile> tiles = new ArrayList<>(columns * rows);
+        for (int row = 0; row < rows; row++) {
+            int y = split(height, rows, row);
+            int coreHeight = split(height, rows, row + 1) - y;
+            int paddedY = window(y, halo, height, paddedHeight);
+            for (int column = 0; column < columns; column++) {
+                int x = split(width, columns, column);
+                int coreWidth = split(width, columns, column + 1) - x;
+                int paddedX = window(x, halo, width, paddedWidth);
+                tiles.add(new Tile(x, y, coreWidth, coreHeight, paddedX, paddedY, paddedWidth, paddedHeight));
+            }
+        }
+        return tiles;
+    }
+
+    //start of the padded area of a core at start: its halo included, shifted inwards at the image edge.
+    //Cores are at most windowSize - 2 * halo, so the halo after the core is included too.
+    private static int window(int start, int halo, int size, int windowSize) {
+        return Math.min(Math.max(0, start - halo), size - windowSize);
+    }
+
+    //start of the index-th of count even parts of size
+    private static int split(int size, int count, int index) {
+        return (int) ((long) size * index / count);
+    }
+}
@@ -0,0 +1,29 @@
+package com.dushyant.opengldemo;
+
+/**
+ * Moves pixels between a whole ARGB image and its {@link TilePlanner.Tile}s: cuts out the padded
+ * tile to process and pastes only the core of the result back, so the halo never shows as a seam.
+ */
+final class TileStitcher {
+
+    private TileStitcher() {
+    }
+
+    //copies the padded area of the tile out of image into tilePixels, paddedWidth * paddedHeight pixels
+    static void extract(int[] image, int imageWidth, TilePlanner.Tile tile, int[] tilePixels) {
+        for (int row = 0; row < tile.paddedHeight; row++) {
+            System.arraycopy(image, (tile.paddedY + row) * imageWidth + tile.paddedX,
+                    tilePixels, row * tile.paddedWidth, tile.paddedWidth);
+        }
+    }
+
+    //copies the core of the processed tile into its place in image, the halo is dropped
+    static void stitch(int[] tilePixels, TilePlanner.Tile tile, int[] image, int imageWidth) {
+        int coreX = tile.x - tile.paddedX;
+        int coreY = tile.y - tile.paddedY;
+        for (int row = 0; row < tile.height; row++) {
+            System.arraycopy(tilePixels, (coreY + row) * tile.paddedWidth + coreX,
+                    image, (tile.y + row) * imageWidth + tile.x, tile.width);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.dushyant.opengldemo;
+
+import java.util.List;
+
+/**
+ * Runs an effect stack over an image of any size on a {@link RenderBackend} whose images are
+ * limited to maxTileSize, e.g. GL_MAX_TEXTURE_SIZE: the image goes through tile by tile as
+ * planned by {@link TilePlanner} and the cores are stitched into the result.
+ *
+ * The backend holds two tile sized images, which {@link TilePlanner} makes the same for every
+ * tile, and one tile sized int[] is reused for every upload and read back. They are kept from
+ * one image to the next and only replaced for an image tiled to another size, so the memory on top of the source and the result is
+ * bounded by the tile size, not the image size. Stacks with a GLOBAL stage only run on images
+ * that fit into one tile.
+ *
+ * Same threading as the backend.
+ */
+class TiledEffectProcessor {
+
+    private final RenderBackend mBackend;
+    private final int mMaxTileSize;
+    private int mSourceImage;
+    private int mTargetImage;
+    private int mImageWidth;
+    private int mImageHeight;
+    private int[] mTilePixels;
+    private int mTilesProcessed;
+    private int mImagesCreated;
+
+    TiledEffectProcessor(RenderBackend backend, int maxTileSize) {
+        if (maxTileSize <= 0) {
+            throw new IllegalArgumentException("Invalid tile size " + maxTileSize);
+        }
+        mBackend = backend;
+        mMaxTileSize = maxTileSize;
+    }
+
+    static boolean canProcess(EffectPipeline pipeline, int width, int height, int maxTileSize) {
+        return pipeline.getHalo() != EffectDescriptor.GLOBAL || (width <= maxTileSize && height <= maxTileSize);
+    }
+
+    /**
+     * Applies the pipeline to source and writes the result to result, both width * height ARGB pixels.
+     *
+     * @throws IllegalArgumentException if a stage needs the whole image and it does not fit into one tile
+     */
+    void process(EffectPipeline pipeline, int[] source, int width, int height, int[] result) {
+        if (!canProcess(pipeline, width, height, mMaxTileSize)) {
+            throw new IllegalArgumentException(pipeline + " needs the whole image, " + width + "x" + height
+                    + " is larger than tiles of " + mMaxTileSize);
+        }
+        List<TilePlanner.Tile> tiles = TilePlanner.plan(width, height, mMaxTileSize, Math.max(0, pipeline.getHalo()));
+        // the padded tiles all have the size of the first
+        ensureImages(tiles.get(0).paddedWidth, tiles.get(0).paddedHeight);
+        EffectChainPlanner.Plan plan = pipeline.plan();
+        for (TilePlanner.Tile tile : tiles) {
+            TileStitcher.extract(source, width, tile, mTilePixels);
+            mBackend.writePixels(mSourceImage, mTilePixels);
+            mBackend.applyEffects(plan, mSourceImage, mTargetImage);
+            mBackend.readPixels(mTargetImage, mTilePixels);
+            TileStitcher.stitch(mTilePixels, tile, result, width);
+            mTilesProcessed++;
+        }
+    }
+
+    private void ensureImages(int width, int height) {
+        if (mSourceImage != 0 && mImageWidth == width && mImageHeight == height) {
+            return;
+        }
+        releaseImages();
+        mSourceImage = mBackend.createImage(width, height);
+        mTargetImage = mBackend.createImage(width, height);
+        mImagesCreated += 2;
+        mImageWidth = width;
+        mImageHeight = height;
+        if (mTilePixels == null || mTilePixels.length < width * height) {
+            mTilePixels = new int[width * height];
+        }
+    }
+
+    private void releaseImages() {
+        if (mSourceImage != 0) {
+            mBackend.deleteImage(mSourceImage);
+            mBackend.deleteImage(mTargetImage);
+            mSourceImage = 0;
+            mTargetImage = 0;
+        }
+    }
+
+    int getTilesProcessed() {
+        return mTilesProcessed;
+    }
+
+    //backend images made so far, two per size of tile
+    int getImagesCreated() {
+        return mImagesCreated;
+    }
+
+    //frees the backend images and the tile buffer, the backend itself stays usable
+    void release() {
+        releaseImages();
+        mTilePixels = null;
+    }
+}
@@ -0,0 +1,380 @@
+package com.dushyant.opengldemo;
+
+import java.nio.Buffer;
+
+/**
+ * {@link GLApi} decorator that records every call reaching the driver into a {@link GLCallTrace}.
+ * Numeric arguments are kept (at most {@link GLCallTrace#MAX_ARGS}), arrays, buffers and
+ * strings are left out.
+ */
+class TracingGLApi implements GLApi {
+
+    private final GLApi mGL;
+    private final GLCallTrace mTrace;
+
+    TracingGLApi(GLApi gl, GLCallTrace trace) {
+        mGL = gl;
+        mTrace = trace;
+    }
+
+    GLCallTrace getTrace() {
+        return mTrace;
+    }
+
+    @Override
+    public void glGenTextures(int n, int[] textures, int offset) {
+        mGL.glGenTextures(n, textures, offset);
+        mTrace.record("glGenTextures", n, textures[offset]);
+    }
+
+    @Override
+    public void glDeleteTextures(int n, int[] textures, int offset) {
+        mTrace.record("glDeleteTextures", n, textures[offset]);
+        mGL.glDeleteTextures(n, textures, offset);
+    }
+
+    @Override
+    public void glBindTexture(int target, int texture) {
+        mTrace.record("glBindTexture", target, texture);
+        mGL.glBindTexture(target, texture);
+    }
+
+    @Override
+    public void glActiveTexture(int texture) {
+        mTrace.record("glActiveTexture", texture);
+        mGL.glActiveTexture(texture);
+    }
+
+    @Override
+    public void glTexParameteri(int target, int pname, int param) {
+        mTrace.record("glTexParameteri", target, pname, param);
+        mGL.glTexParameteri(target, pname, param);
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                             int format, int type, Buffer pixels) {
+        mTrace.record("glTexImage2D", target, level, width, height);
+        mGL.glTexImage2D(target, level, internalformat, width, height, border, format, type, pixels);
+    }
+
+    @Override
+    public void glCompressedTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                                       int imageSize, Buffer data) {
+        mTrace.record("glCompressedTexImage2D", target, level, width, height);
+        mGL.glCompressedTexImage2D(target, level, internalformat, width, height, border, imageSize, data);
+    }
+
+    @Override
+    public void glGenerateMipmap(int target) {
+        mTrace.record("glGenerateMipmap", target);
+        mGL.glGenerateMipmap(target);
+    }
+
+    @Override
+    public int glCreateShader(int type) {
+        int shader = mGL.glCreateShader(type);
+        mTrace.record("glCreateShader", type, shader);
+        return shader;
+    }
+
+    @Override
+    public void glShaderSource(int shader, String source) {
+        mTrace.record("glShaderSource", shader);
+        mGL.glShaderSource(shader, source);
+    }
+
+    @Override
+    public void glCompileShader(int shader) {
+        mTrace.record("glCompileShader", shader);
+        mGL.glCompileShader(shader);
+    }
+
+    @Override
+    public void glGetShaderiv(int shader, int pname, int[] params, int offset) {
+        mGL.glGetShaderiv(shader, pname, params, offset);
+        mTrace.record("glGetShaderiv", shader, pname, params[offset]);
+    }
+
+    @Override
+    public String glGetShaderInfoLog(int shader) {
+        mTrace.record("glGetShaderInfoLog", shader);
+        return mGL.glGetShaderInfoLog(shader);
+    }
+
+    @Override
+    public void glDeleteShader(int shader) {
+        mTrace.record("glDeleteShader", shader);
+        mGL.glDeleteShader(shader);
+    }
+
+    @Override
+    public int glCreateProgram() {
+        int program = mGL.glCreateProgram();
+        mTrace.record("glCreateProgram", program);
+        return program;
+    }
+
+    @Override
+    public void glAttachShader(int program, int shader) {
+        mTrace.record("glAttachShader", program, shader);
+        mGL.glAttachShader(program, shader);
+    }
+
+    @Override
+    public void glLinkProgram(int program) {
+        mTrace.record("glLinkProgram", program);
+        mGL.glLinkProgram(program);
+    }
+
+    @Override
+    public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+        mGL.glGetProgramiv(program, pname, params, offset);
+        mTrace.record("glGetProgramiv", program, pname, params[offset]);
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program) {
+        mTrace.record("glGetProgramInfoLog", program);
+        return mGL.glGetProgramInfoLog(program);
+    }
+
+    @Override
+    public void glDeleteProgram(int program) {
+        mTrace.record("glDeleteProgram", program);
+        mGL.glDeleteProgram(program);
+    }
+
+    @Override
+    public void glUseProgram(int program) {
+        mTrace.record("glUseProgram", program);
+        mGL.glUseProgram(program);
+    }
+
+    @Override
+    public int glGetUniformLocation(int program, String name) {
+        mTrace.record("glGetUniformLocation", program);
+        return mGL.glGetUniformLocation(program, name);
+    }
+
+    @Override
+    public int glGetAttribLocation(int program, String name) {
+        mTrace.record("glGetAttribLocation", program);
+        return mGL.glGetAttribLocation(program, name);
+    }
+
+    @Override
+    public void glUniform1i(int location, int x) {
+        mTrace.record("glUniform1i", location, x);
+        mGL.glUniform1i(location, x);
+    }
+
+    @Override
+    public void glUniform1f(int location, float x) {
+        mTrace.record("glUniform1f", location, x);
+        mGL.glUniform1f(location, x);
+    }
+
+    @Override
+    public void glUniform3f(int location, float x, float y, float z) {
+        mTrace.record("glUniform3f", location, x, y, z);
+        mGL.glUniform3f(location, x, y, z);
+    }
+
+    @Override
+    public void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset) {
+        mTrace.record("glUniformMatrix4fv", location, count);
+        mGL.glUniformMatrix4fv(location, count, transpose, value, offset);
+    }
+
+    @Override
+    public boolean supportsProgramBinary() {
+        return mGL.supportsProgramBinary();
+    }
+
+    @Override
+    public byte[] glGetProgramBinary(int program, int[] binaryFormat, int offset) {
+        mTrace.record("glGetProgramBinary", program);
+        return mGL.glGetProgramBinary(program, binaryFormat, offset);
+    }
+
+    @Override
+    public void glProgramBinary(int program, int binaryFormat, byte[] binary) {
+        mTrace.record("glProgramBinary", program, binaryFormat, binary.length);
+        mGL.glProgramBinary(program, binaryFormat, binary);
+    }
+
+    @Override
+    public boolean supportsTimerQuery() {
+        return mGL.supportsTimerQuery();
+    }
+
+    @Override
+    public void glGenQueries(int n, int[] ids, int offset) {
+        mGL.glGenQueries(n, ids, offset);
+        mTrace.record("glGenQueries", n, ids[offset]);
+    }
+
+    @Override
+    public void glDeleteQueries(int n, int[] ids, int offset) {
+        mTrace.record("glDeleteQueries", n, ids[offset]);
+        mGL.glDeleteQueries(n, ids, offset);
+    }
+
+    @Override
+    public void glBeginQuery(int target, int id) {
+        mTrace.record("glBeginQuery", target, id);
+        mGL.glBeginQuery(target, id);
+    }
+
+    @Override
+    public void glEndQuery(int target) {
+        mTrace.record("glEndQuery", target);
+        mGL.glEndQuery(target);
+    }
+
+    @Override
+    public void glGetQueryObjectuiv(int id, int pname, int[] params, int offset) {
+        mTrace.record("glGetQueryObjectuiv", id, pname);
+        mGL.glGetQueryObjectuiv(id, pname, params, offset);
+    }
+
+    @Override
+    public void glGenBuffers(int n, int[] buffers, int offset) {
+        mGL.glGenBuffers(n, buffers, offset);
+        mTrace.record("glGenBuffers", n, buffers[offset]);
+    }
+
+    @Override
+    public void glDeleteBuffers(int n, int[] buffers, int offset) {
+        mTrace.record("glDeleteBuffers", n, buffers[offset]);
+        mGL.glDeleteBuffers(n, buffers, offset);
+    }
+
+    @Override
+    public void glBindBuffer(int target, int buffer) {
+        mTrace.record("glBindBuffer", target, buffer);
+        mGL.glBindBuffer(target, buffer);
+    }
+
+    @Override
+    public void glBufferData(int target, int size, Buffer data, int usage) {
+        mTrace.record("glBufferData", target, size, usage);
+        mGL.glBufferData(target, size, data, usage);
+    }
+
+    @Override
+    public void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, Buffer ptr) {
+        mTrace.record("glVertexAttribPointer", index, size, type, stride);
+        mGL.glVertexAttribPointer(index, size, type, normalized, stride, ptr);
+    }
+
+    @Override
+    public void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, int offset) {
+        mTrace.record("glVertexAttribPointer", index, size, stride, offset);
+        mGL.glVertexAttribPointer(index, size, type, normalized, stride, offset);
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index) {
+        mTrace.record("glEnableVertexAttribArray", index);
+        mGL.glEnableVertexAttribArray(index);
+    }
+
+    @Override
+    public void glGenFramebuffers(int n, int[] framebuffers, int offset) {
+        mGL.glGenFramebuffers(n, framebuffers, offset);
+        mTrace.record("glGenFramebuffers", n, framebuffers[offset]);
+    }
+
+    @Override
+    public void glDeleteFramebuffers(int n, int[] framebuffers, int offset) {
+        mTrace.record("glDeleteFramebuffers", n, framebuffers[offset]);
+        mGL.glDeleteFramebuffers(n, framebuffers, offset);
+    }
+
+    @Override
+    public void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level) {
+        mTrace.record("glFramebufferTexture2D", target, attachment, texture, level);
+        mGL.glFramebufferTexture2D(target, attachment, textarget, texture, level);
+    }
+
+    @Override
+    public int glCheckFramebufferStatus(int target) {
+        int status = mGL.glCheckFramebufferStatus(target);
+        mTrace.record("glCheckFramebufferStatus", target, status);
+        return status;
+    }
+
+    @Override
+    public void glBindFramebuffer(int target, int framebuffer) {
+        mTrace.record("glBindFramebuffer", target, framebuffer);
+        mGL.glBindFramebuffer(target, framebuffer);
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height) {
+        mTrace.record("glViewport", x, y, width, height);
+        mGL.glViewport(x, y, width, height);
+    }
+
+    @Override
+    public void glEnable(int cap) {
+        mTrace.record("glEnable", cap);
+        mGL.glEnable(cap);
+    }
+
+    @Override
+    public void glDisable(int cap) {
+        mTrace.record("glDisable", cap);
+        mGL.glDisable(cap);
+    }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha) {
+        mTrace.record("glClearColor", red, green, blue, alpha);
+        mGL.glClearColor(red, green, blue, alpha);
+    }
+
+    @Override
+    public void glClear(int mask) {
+        mTrace.record("glClear", mask);
+        mGL.glClear(mask);
+    }
+
+    @Override
+    public void glDrawArrays(int mode, int first, int count) {
+        mTrace.record("glDrawArrays", mode, first, count);
+        mGL.glDrawArrays(mode, first, count);
+    }
+
+    @Override
+    public void glReadPixels(int x, int y, int width, int height, int format, int type, Buffer pixels) {
+        mTrace.record("glReadPixels", x, y, width, height);
+        mGL.glReadPixels(x, y, width, height, format, type, pixels);
+    }
+
+    @Override
+    public int glGetError() {
+        int error = mGL.glGetError();
+        mTrace.record("glGetError", error);
+        return error;
+    }
+
+    @Override
+    public void glGetIntegerv(int pname, int[] params, int offset) {
+        mGL.glGetIntegerv(pname, params, offset);
+        mTrace.record("glGetIntegerv", pname, params[offset]);
+    }
+
+    @Override
+    public String glGetString(int name) {
+        mTrace.record("glGetString", name);
+        return mGL.glGetString(name);
+    }
+
+    @Override
+    public Object currentContext() {
+        return mGL.currentContext();
+    }
+}
@@ -0,0 +1,193 @@
+package com.dushyant.opengldemo;
+
+import android.media.effect.EffectFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs {@link BatchExporter} on the {@link SoftwareRenderBackend} with an in-memory codec:
+ * outputs, failures and that backpressure keeps the number of images in memory bounded.
+ */
+public class BatchExporterTest {
+
+    private static final int W = 96;
+    private static final int H = 64;
+
+    //"decodes" a gradient that depends on the file name, "encodes" into a map
+    private static class MemoryCodec implements ImageCodec {
+        final Map<File, ArgbImage> written = new ConcurrentHashMap<>();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        volatile long encodeDelayMillis;
+
+        @Override
+        public ArgbImage decode(File file) throws IOException {
+            if (file.getName().startsWith("broken")) {
+                throw new IOException("Cannot decode " + file);
+            }
+            if (file.getName().startsWith("oom")) {
+                throw new OutOfMemoryError("Cannot allocate " + file);
+            }
+            int size = file.getName().startsWith("huge") ? 300 : 0;
+            ArgbImage image = new ArgbImage(W + size, H + size);
+            int seed = file.getName().hashCode();
+            for (int i = 0; i < image.pixels.length; i++) {
+                image.pixels[i] = 0xFF000000 | (i * 31 + seed) & 0xFFFFFF;
+            }
+            int now = inFlight.incrementAndGet();
+            for (int max = maxInFlight.get(); now > max && !maxInFlight.compareAndSet(max, now); ) {
+                max = maxInFlight.get();
+            }
+            return image;
+        }
+
+        @Override
+        public void encode(ArgbImage image, Format format, File file) throws IOException {
+            if (file.getName().startsWith("crash")) {
+                inFlight.decrementAndGet();
+                throw new OutOfMemoryError("Cannot encode " + file);
+            }
+            try {
+                Thread.sleep(encodeDelayMillis);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            written.put(file, image);
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private SoftwareRenderBackend backend;
+    private MemoryCodec codec;
+
+    @Before
+    public void setUp() {
+        backend = new SoftwareRenderBackend(1);
+        codec = new MemoryCodec();
+    }
+
+    @After
+    public void tearDown() {
+        backend.release();
+    }
+
+    private static List<BatchExporter.Job> jobs(String prefix, int count) {
+        List<BatchExporter.Job> jobs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            jobs.add(new BatchExporter.Job(new File(prefix + i + ".jpg"), new File("out/" + prefix + i + ".jpg")));
+        }
+        return jobs;
+    }
+
+    @Test
+    public void everyImageGetsTheEffect() throws Exception {
+        EffectPipeline pipeline = EffectDescriptors.get(25);
+        BatchExporter exporter = new BatchExporter(codec, backend, 4096, 3, 2, 2);
+        BatchExporter.Report report = exporter.export(jobs("photo", 40), pipeline, ImageCodec.Format.JPEG);
+
+        assertEquals(40, report.exported);
+        assertTrue(report.failures.isEmpty());
+        assertEquals(40, report.effectTimes.getTotalCount());
+        assertTrue(report.getImagesPerSecond() > 0);
+        for (BatchExporter.Job job : jobs("photo", 40)) {
+            int[] expected = codec.decode(job.input).pixels;
+            pipeline.plan().getDirectPass().apply(expected, 0, expected.length);
+            assertArrayEquals(job.input.getName(), expected, codec.written.get(job.output).pixels);
+        }
+        exporter.release();
+    }
+
+    @Test
+    public void slowEncodingHoldsBackDecoding() throws Exception {
+        codec.encodeDelayMillis = 2;
+        BatchExporter exporter = new BatchExporter(codec, backend, 4096, 4, 1, 2);
+        BatchExporter.Report report = exporter.export(jobs("photo", 150), EffectDescriptors.get(15), ImageCodec.Format.PNG);
+
+        assertEquals(150, report.exported);
+        //the decoders ran far ahead of the one encoder, but only as far as the queues let them
+        assertTrue(codec.maxInFlight.get() + " in flight", codec.maxInFlight.get() >= 4);
+        //counting the results too, the effects stage holds two images at once
+        int peak = report.peakImagesInFlight;
+        assertTrue(peak + " in flight", peak <= exporter.maxImagesInFlight());
+        assertTrue(peak + " in flight", peak >= 4);
+        assertEquals(4 + 2 + 2 + 2 + 1, exporter.maxImagesInFlight());
+        assertEquals(0, codec.inFlight.get());
+    }
+
+    @Test
+    public void failuresAreReportedAndTheRestGoesOn() throws Exception {
+        List<BatchExporter.Job> jobs = jobs("photo", 10);
+        jobs.addAll(jobs("broken", 3));
+        //rotate needs the whole image, which does not fit into one 128 pixel tile
+        jobs.addAll(jobs("huge", 2));
+        BatchExporter exporter = new BatchExporter(codec, backend, 128, 2, 2, 1);
+        BatchExporter.Report report = exporter.export(jobs, EffectDescriptors.get(17), ImageCodec.Format.JPEG);
+
+        assertEquals(10, report.exported);
+        assertEquals(5, report.failures.size());
+        int decodeFailures = 0;
+        for (BatchExporter.Failure failure : report.failures) {
+            if (failure.error instanceof IOException) {
+                decodeFailures++;
+                assertTrue(failure.job.input.getName().startsWith("broken"));
+            } else {
+                assertTrue(failure.error instanceof IllegalArgumentException);
+                assertTrue(failure.job.input.getName().startsWith("huge"));
+            }
+        }
+        assertEquals(3, decodeFailures);
+    }
+
+    @Test
+    public void largeImagesAreTiled() throws Exception {
+        EffectPipeline sharpen = new EffectPipeline(new EffectDescriptor(EffectFactory.EFFECT_SHARPEN));
+        List<BatchExporter.Job> jobs = jobs("huge", 2);
+        BatchExporter exporter = new BatchExporter(codec, backend, 128, 1, 1, 1);
+        BatchExporter.Report report = exporter.export(jobs, sharpen, ImageCodec.Format.PNG);
+        assertEquals(2, report.exported);
+
+        SoftwareRenderBackend whole = new SoftwareRenderBackend(1);
+        ArgbImage source = codec.decode(jobs.get(0).input);
+        int in = whole.createImage(source.width, source.height);
+        int out = whole.createImage(source.width, source.height);
+        whole.writePixels(in, source.pixels);
+        whole.applyEffects(sharpen.plan(), in, out);
+        int[] expected = new int[source.pixels.length];
+        whole.readPixels(out, expected);
+        whole.release();
+        assertArrayEquals(expected, codec.written.get(jobs.get(0).output).pixels);
+    }
+
+    @Test(timeout = 10000)
+    public void errorsInTheWorkersFailTheirJobOnly() throws Exception {
+        List<BatchExporter.Job> jobs = jobs("photo", 6);
+        jobs.addAll(jobs("oom", 4));
+        jobs.addAll(jobs("crash", 4));
+        //fewer workers than failing jobs, none of them may die
+        BatchExporter exporter = new BatchExporter(codec, backend, 4096, 2, 2, 1);
+        BatchExporter.Report report = exporter.export(jobs, EffectDescriptors.get(15), ImageCodec.Format.PNG);
+
+        assertEquals(6, report.exported);
+        assertEquals(8, report.failures.size());
+        for (BatchExporter.Failure failure : report.failures) {
+            assertTrue(failure.error instanceof OutOfMemoryError);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void poolsNeedThreads() {
+        new BatchExporter(codec, backend, 4096, 0, 1, 1);
+    }
+}
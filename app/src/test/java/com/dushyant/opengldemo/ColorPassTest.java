@@ -0,0 +1,286 @@
+package com.dushyant.opengldemo;
+
+import android.media.effect.EffectFactory;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the CPU reference of the color shaders in {@link ColorPass} and {@link ColorStage}.
+ */
+public class ColorPassTest {
+
+    private static final int WHITE = 0xFFFFFFFF;
+    private static final int BLACK = 0xFF000000;
+    private static final int ORANGE = 0x80FF8000;//half transparent
+
+    private static ColorPass pass(EffectDescriptor... stages) {
+        return new ColorPass(Arrays.asList(stages));
+    }
+
+    private static int apply(ColorPass pass, int argb) {
+        int[] pixels = {argb};
+        pass.apply(pixels, 0, 1);
+        return pixels[0];
+    }
+
+    private static int channel(int argb, int shift) {
+        return (argb >> shift) & 0xFF;
+    }
+
+    @Test
+    public void negativeInvertsAndKeepsAlpha() {
+        ColorPass negative = pass(new EffectDescriptor(EffectFactory.EFFECT_NEGATIVE));
+        assertEquals(BLACK, apply(negative, WHITE));
+        assertEquals(0x80007FFF, apply(negative, ORANGE));
+    }
+
+    @Test
+    public void grayscaleUsesLuma() {
+        int gray = apply(pass(new EffectDescriptor(EffectFactory.EFFECT_GRAYSCALE)), 0xFF00FF00);
+        int expected = Math.round(ColorStage.LUMA_G * 255);
+        assertEquals(expected, channel(gray, 16));
+        assertEquals(expected, channel(gray, 8));
+        assertEquals(expected, channel(gray, 0));
+    }
+
+    @Test
+    public void sepiaOfWhiteIsClamped() {
+        int sepia = apply(pass(new EffectDescriptor(EffectFactory.EFFECT_SEPIA)), WHITE);
+        assertEquals(255, channel(sepia, 16));
+        assertEquals(255, channel(sepia, 8));
+        assertEquals(239, channel(sepia, 0));//(557 + 1097 + 268) / 2048 * 255
+    }
+
+    @Test
+    public void neutralParametersAreIdentity() {
+        ColorPass neutral = pass(
+                new EffectDescriptor(EffectFactory.EFFECT_BRIGHTNESS, "brightness", 1.0f),
+                new EffectDescriptor(EffectFactory.EFFECT_CONTRAST, "contrast", 1.0f),
+                new EffectDescriptor(EffectFactory.EFFECT_SATURATE, "scale", 0.0f),
+                new EffectDescriptor(EffectFactory.EFFECT_TEMPERATURE, "scale", 0.5f));
+        int[] pixels = new int[256];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = (i << 24) | (i << 16) | ((255 - i) << 8) | (i * 7 & 0xFF);
+        }
+        int[] expected = pixels.clone();
+        neutral.apply(pixels, 0, pixels.length);
+        assertArrayEquals(expected, pixels);
+    }
+
+    @Test
+    public void everyStageClampsLikeAnIntermediateTexture() {
+        //2x brightness saturates white first, halving afterwards cannot bring the detail back
+        ColorPass pass = pass(
+                new EffectDescriptor(EffectFactory.EFFECT_BRIGHTNESS, "brightness", 2.0f),
+                new EffectDescriptor(EffectFactory.EFFECT_BRIGHTNESS, "brightness", 0.5f));
+        assertEquals(0xFF808080, apply(pass, 0xFFC0C0C0));
+    }
+
+    @Test
+    public void fusedPassMatchesStagesOneByOne() {
+        EffectDescriptor contrast = new EffectDescriptor(EffectFactory.EFFECT_CONTRAST, "contrast", 1.4f);
+        EffectDescriptor tint = new EffectDescriptor(EffectFactory.EFFECT_TINT, "tint", 0xFFFF00FF);
+        EffectDescriptor sepia = new EffectDescriptor(EffectFactory.EFFECT_SEPIA);
+        int[] fused = new int[1024];
+        for (int i = 0; i < fused.length; i++) {
+            fused[i] = 0xFF000000 | ((i * 0x9E3779B1) >>> 8);//spread over the color cube
+        }
+        int[] staged = fused.clone();
+
+        pass(contrast, tint, sepia).apply(fused, 0, fused.length);
+        //one by one rounds to 8 bits in between, so allow a step of difference per stage
+        pass(contrast).apply(staged, 0, staged.length);
+        pass(tint).apply(staged, 0, staged.length);
+        pass(sepia).apply(staged, 0, staged.length);
+        for (int i = 0; i < fused.length; i++) {
+            for (int shift = 0; shift < 24; shift += 8) {
+                assertEquals(channel(staged[i], shift), channel(fused[i], shift), 3);
+            }
+        }
+    }
+
+    @Test
+    public void onlyParameterizedStagesGetUniforms() {
+        ColorPass pass = pass(
+                new EffectDescriptor(EffectFactory.EFFECT_GRAYSCALE),
+                new EffectDescriptor(EffectFactory.EFFECT_CONTRAST, "contrast", 1.4f),
+                new EffectDescriptor(EffectFactory.EFFECT_NEGATIVE));
+        assertEquals(1, pass.getUniformCount());
+        assertArrayEquals(new float[]{1.4f}, pass.getUniformValue(0), 0f);
+        assertTrue(pass.getFragmentShader().contains("uniform float " + pass.getUniformName(0) + ";"));
+        assertTrue(pass.getFragmentShader().contains("c = 1.0 - c;"));
+    }
+
+    //the framework filter's fragment shader on one rgb color, written out as it is there
+    private interface Reference {
+        void apply(double[] c);
+    }
+
+    //pixels spread over the color cube, with black, white and the primaries
+    private static int[] sample() {
+        int[] pixels = new int[512];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xFF000000 | ((i * 0x9E3779B1) >>> 8);
+        }
+        pixels[0] = BLACK;
+        pixels[1] = WHITE;
+        pixels[2] = 0xFFFF0000;
+        pixels[3] = 0xFF00FF00;
+        pixels[4] = 0xFF0000FF;
+        return pixels;
+    }
+
+    //compares a single stage pass with the reference, allowing one step of rounding
+    private static void assertMatchesReference(EffectDescriptor stage, Reference reference) {
+        int[] pixels = sample();
+        int[] expected = pixels.clone();
+        pass(stage).apply(pixels, 0, pixels.length);
+        double[] c = new double[3];
+        for (int i = 0; i < expected.length; i++) {
+            for (int k = 0; k < 3; k++) {
+                c[k] = channel(expected[i], 16 - 8 * k) / 255.0;
+            }
+            reference.apply(c);
+            for (int k = 0; k < 3; k++) {
+                int value = (int) Math.round(Math.max(0, Math.min(1, c[k])) * 255);
+                assertEquals(stage + " of " + Integer.toHexString(expected[i]),
+                        value, channel(pixels[i], 16 - 8 * k), 1);
+            }
+        }
+    }
+
+    @Test
+    public void desaturateMatchesTheFramework() {
+        final double scale = 1.0 - 0.6;//SaturateFilter's scale below 0 is 1 + the parameter
+        assertMatchesReference(new EffectDescriptor(EffectFactory.EFFECT_SATURATE, "scale", -0.6f), new Reference() {
+            @Override
+            public void apply(double[] c) {
+                double kv = 0.25 * c[0] + 0.625 * c[1] + 0.125 * c[2] + 1.0 / 255.0;
+                for (int k = 0; k < 3; k++) {
+                    c[k] = scale * c[k] + (1.0 - scale) * kv;
+                }
+            }
+        });
+    }
+
+    @Test
+    public void saturateMatchesTheFramework() {
+        final double scale = 0.5;
+        assertMatchesReference(new EffectDescriptor(EffectFactory.EFFECT_SATURATE, "scale", 0.5f), new Reference() {
+            @Override
+            public void apply(double[] c) {
+                double de = 0.25 * c[0] + 0.625 * c[1] + 0.125 * c[2];
+                if (de == 0) {
+                    return;//black, the framework divides by zero
+                }
+                double[] exponents = {0.9 * scale + 1.0, 2.1 * scale + 1.0, 2.7 * scale + 1.0};
+                double max = 1.0;
+                for (int k = 0; k < 3; k++) {
+                    c[k] = de * Math.pow(c[k] / de, exponents[k]);
+                    max = Math.max(max, c[k]);
+                }
+                for (int k = 0; k < 3; k++) {
+                    c[k] /= max;
+                }
+            }
+        });
+    }
+
+    @Test
+    public void temperatureMatchesTheFramework() {
+        for (final float parameter : new float[]{0.1f, 0.9f}) {
+            final double scale = 2.0 * parameter - 1.0;//TemperatureFilter's uniform
+            assertMatchesReference(new EffectDescriptor(EffectFactory.EFFECT_TEMPERATURE, "scale", parameter), new Reference() {
+                @Override
+                public void apply(double[] c) {
+                    double r = c[0] + c[0] * (1.0 - c[0]) * scale;
+                    double g = c[1];
+                    double b = c[2] - c[2] * (1.0 - c[2]) * scale;
+                    if (scale > 0.0) {
+                        g = c[1] + c[1] * (1.0 - c[1]) * scale * 0.25;
+                    }
+                    double max = Math.max(r, Math.max(g, b));
+                    if (max > 1.0) {
+                        r /= max;
+                        g /= max;
+                        b /= max;
+                    }
+                    c[0] = r;
+                    c[1] = g;
+                    c[2] = b;
+                }
+            });
+        }
+    }
+
+    @Test
+    public void tintMatchesTheFramework() {
+        final double[] tint = {1.0, 0.0, 1.0};
+        assertMatchesReference(new EffectDescriptor(EffectFactory.EFFECT_TINT, "tint", 0xFFFF00FF), new Reference() {
+            @Override
+            public void apply(double[] c) {
+                double average = 0.21 * c[0] + 0.71 * c[1] + 0.07 * c[2];
+                for (int k = 0; k < 3; k++) {
+                    c[k] = Math.min(0.8 * average + 0.2 * tint[k], 1.0);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void tintDefaultsToBlue() {
+        // the framework's default tint, 0xFF0000FF
+        assertEquals(0xFFCACAFD, apply(pass(new EffectDescriptor(EffectFactory.EFFECT_TINT)), WHITE));
+    }
+
+    @Test
+    public void fixedStagesMatchTheFramework() {
+        assertMatchesReference(new EffectDescriptor(EffectFactory.EFFECT_SEPIA), new Reference() {
+            @Override
+            public void apply(double[] c) {
+                double r = c[0];
+                double g = c[1];
+                double b = c[2];
+                c[0] = (805 * r + 1575 * g + 387 * b) / 2048;
+                c[1] = (715 * r + 1405 * g + 344 * b) / 2048;
+                c[2] = (557 * r + 1097 * g + 268 * b) / 2048;
+            }
+        });
+        assertMatchesReference(new EffectDescriptor(EffectFactory.EFFECT_GRAYSCALE), new Reference() {
+            @Override
+            public void apply(double[] c) {
+                double y = 0.299 * c[0] + 0.587 * c[1] + 0.114 * c[2];
+                c[0] = y;
+                c[1] = y;
+                c[2] = y;
+            }
+        });
+        assertMatchesReference(new EffectDescriptor(EffectFactory.EFFECT_CONTRAST, "contrast", 1.6f), new Reference() {
+            @Override
+            public void apply(double[] c) {
+                for (int k = 0; k < 3; k++) {
+                    c[k] = (c[k] - 0.5) * 1.6 + 0.5;
+                }
+            }
+        });
+        assertMatchesReference(new EffectDescriptor(EffectFactory.EFFECT_BRIGHTNESS, "brightness", 1.3f), new Reference() {
+            @Override
+            public void apply(double[] c) {
+                for (int k = 0; k < 3; k++) {
+                    c[k] *= 1.3;
+                }
+            }
+        });
+    }
+
+    @Test
+    public void applyRespectsTheRange() {
+        int[] pixels = {WHITE, WHITE, WHITE};
+        pass(new EffectDescriptor(EffectFactory.EFFECT_NEGATIVE)).apply(pixels, 1, 1);
+        assertArrayEquals(new int[]{WHITE, BLACK, WHITE}, pixels);
+    }
+}
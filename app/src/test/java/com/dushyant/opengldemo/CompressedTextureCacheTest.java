@@ -0,0 +1,120 @@
+package com.dushyant.opengldemo;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link CompressedTextureCache} transcodes once and only hands back entries of
+ * the same source version that read back intact.
+ */
+public class CompressedTextureCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String KEY = "2130837590_4";
+
+    //a 16x8 ETC1 mip chain, each level filled with its index
+    static class FakeTranscoder implements CompressedTextureCache.Transcoder {
+        int calls;
+
+        @Override
+        public CompressedTexture transcode() {
+            calls++;
+            byte[][] levels = new byte[CompressedTexture.maxLevels(16, 8)][];
+            for (int i = 0; i < levels.length; i++) {
+                levels[i] = new byte[CompressedTexture.levelSize(CompressedTexture.GL_ETC1_RGB8_OES,
+                        CompressedTexture.levelDimension(16, i), CompressedTexture.levelDimension(8, i))];
+                Arrays.fill(levels[i], (byte) i);
+            }
+            return new CompressedTexture(CompressedTexture.GL_ETC1_RGB8_OES, 16, 8, levels);
+        }
+    }
+
+    private File dir() {
+        return new File(folder.getRoot(), "textures");
+    }
+
+    @Test
+    public void transcodesOnlyOnTheFirstRun() throws IOException {
+        FakeTranscoder transcoder = new FakeTranscoder();
+        new CompressedTextureCache(dir(), "1").get(KEY, transcoder);
+
+        // the next launch
+        CompressedTextureCache cache = new CompressedTextureCache(dir(), "1");
+        CompressedTexture texture = cache.get(KEY, transcoder);
+        assertEquals(1, transcoder.calls);
+        assertEquals(1, cache.getHits());
+        assertEquals(0, cache.getTranscodes());
+        assertEquals(16, texture.width);
+        assertTrue(texture.hasFullMipChain());
+        assertEquals(3, texture.getLevel(3)[0]);
+    }
+
+    @Test
+    public void newSourceVersionTranscodesAgain() throws IOException {
+        FakeTranscoder transcoder = new FakeTranscoder();
+        new CompressedTextureCache(dir(), "1").get(KEY, transcoder);
+        CompressedTextureCache updated = new CompressedTextureCache(dir(), "2");
+        updated.get(KEY, transcoder);
+        assertEquals(2, transcoder.calls);
+        assertEquals(1, updated.getTranscodes());
+        assertNotNull(updated.load(KEY));
+    }
+
+    @Test
+    public void corruptEntryIsDeletedAndTranscoded() throws IOException {
+        FakeTranscoder transcoder = new FakeTranscoder();
+        CompressedTextureCache cache = new CompressedTextureCache(dir(), "1");
+        cache.get(KEY, transcoder);
+        File[] files = dir().listFiles();
+        assertEquals(1, files.length);
+        RandomAccessFile file = new RandomAccessFile(files[0], "rw");
+        try {
+            file.seek(file.length() - 1);
+            file.write(0x55);
+        } finally {
+            file.close();
+        }
+
+        assertNull(cache.load(KEY));
+        assertFalse(files[0].exists());
+        cache.get(KEY, transcoder);
+        assertEquals(2, transcoder.calls);
+    }
+
+    @Test
+    public void failedTranscodeStoresNothing() {
+        CompressedTextureCache cache = new CompressedTextureCache(dir(), "1");
+        try {
+            cache.get(KEY, new CompressedTextureCache.Transcoder() {
+                @Override
+                public CompressedTexture transcode() throws IOException {
+                    throw new IOException("out of memory");
+                }
+            });
+            fail();
+        } catch (IOException expected) {
+        }
+        assertNull(cache.load(KEY));
+        assertEquals(0, cache.getTranscodes());
+    }
+
+    @Test
+    public void unwritableDirectoryStillReturnsTheTexture() throws IOException {
+        File notADir = folder.newFile("file");
+        CompressedTextureCache cache = new CompressedTextureCache(new File(notADir, "textures"), "1");
+        FakeTranscoder transcoder = new FakeTranscoder();
+        assertNotNull(cache.get(KEY, transcoder));
+        assertNotNull(cache.get(KEY, transcoder));
+        assertEquals(2, transcoder.calls);
+    }
+}
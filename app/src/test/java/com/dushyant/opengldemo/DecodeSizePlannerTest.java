@@ -0,0 +1,48 @@
+package com.dushyant.opengldemo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the inSampleSize chosen by {@link DecodeSizePlanner}.
+ */
+public class DecodeSizePlannerTest {
+
+    @Test
+    public void smallImageIsNotDownsampled() {
+        assertEquals(1, DecodeSizePlanner.computeInSampleSize(640, 480, 1080, 1920, 4096));
+    }
+
+    @Test
+    public void downsamplesWhileStillCoveringTheViewport() {
+        // 4000x3000 on a 1000x700 viewport: /2 = 2000x1500, /4 = 1000x750, /8 would be too small
+        assertEquals(4, DecodeSizePlanner.computeInSampleSize(4000, 3000, 1000, 700, 4096));
+        // the short side decides, 4000/4 = 1000 still covers 1000 but 3000/4 = 750 < 800
+        assertEquals(2, DecodeSizePlanner.computeInSampleSize(4000, 3000, 1000, 800, 4096));
+    }
+
+    @Test
+    public void respectsMaxTextureSize() {
+        // the viewport alone would allow full size, the texture limit does not
+        assertEquals(4, DecodeSizePlanner.computeInSampleSize(8000, 2000, 8000, 2000, 2048));
+        // rounding up: 4097 / 2 decodes to 2049 which still does not fit
+        assertEquals(4, DecodeSizePlanner.computeInSampleSize(4097, 100, 0, 0, 2048));
+    }
+
+    @Test
+    public void noRequirementsMeansFullSize() {
+        assertEquals(1, DecodeSizePlanner.computeInSampleSize(5000, 5000, 0, 0, 0));
+    }
+
+    @Test
+    public void decodedSizeRoundsUp() {
+        assertEquals(3, DecodeSizePlanner.decodedSize(5, 2));
+        assertEquals(1, DecodeSizePlanner.decodedSize(1, 8));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyImage() {
+        DecodeSizePlanner.computeInSampleSize(0, 10, 10, 10, 10);
+    }
+}
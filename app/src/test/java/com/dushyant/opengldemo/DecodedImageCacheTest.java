@@ -0,0 +1,106 @@
+package com.dushyant.opengldemo;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the byte bound and thread safety of {@link DecodedImageCache}.
+ */
+public class DecodedImageCacheTest {
+
+    private static final DecodedImageCache.Sizer<byte[]> LENGTH = new DecodedImageCache.Sizer<byte[]>() {
+        @Override
+        public long sizeOf(byte[] value) {
+            return value.length;
+        }
+    };
+
+    private DecodedImageCache<byte[]> cache;
+
+    @Before
+    public void setUp() {
+        cache = new DecodedImageCache<>(LENGTH, 100);
+    }
+
+    @Test
+    public void returnsCachedImage() {
+        byte[] image = new byte[10];
+        cache.put("puppy@1", image);
+        assertSame(image, cache.get("puppy@1"));
+        assertNull(cache.get("puppy@2"));
+        assertEquals(10, cache.getBytes());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedOverLimit() {
+        cache.put("a", new byte[40]);
+        cache.put("b", new byte[40]);
+        cache.get("a");//b is now the eldest
+        cache.put("c", new byte[40]);
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(80, cache.getBytes());
+    }
+
+    @Test
+    public void replacingAKeyUpdatesTheSize() {
+        cache.put("a", new byte[40]);
+        cache.put("a", new byte[10]);
+        assertEquals(10, cache.getBytes());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void keepsOversizedNewestImage() {
+        cache.put("a", new byte[40]);
+        cache.put("huge", new byte[500]);
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get("huge"));
+    }
+
+    @Test
+    public void concurrentPutsKeepTheAccountingConsistent() throws InterruptedException {
+        final int threads = 4;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < 1000; i++) {
+                            cache.put(id + ":" + (i % 7), new byte[1 + i % 13]);
+                            cache.get(id + ":" + (i % 5));
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        start.countDown();
+        done.await();
+
+        assertTrue(cache.getBytes() <= 100);
+        long expected = 0;
+        for (int t = 0; t < threads; t++) {
+            for (int k = 0; k < 7; k++) {
+                byte[] image = cache.get(t + ":" + k);
+                if (image != null) {
+                    expected += image.length;
+                }
+            }
+        }
+        assertEquals(expected, cache.getBytes());
+    }
+}
@@ -0,0 +1,150 @@
+package com.dushyant.opengldemo;
+
+import android.media.effect.EffectFactory;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks pass fusion and ping-pong buffer assignment of {@link EffectChainPlanner}.
+ */
+public class EffectChainPlannerTest {
+
+    private static final EffectDescriptor AUTOFIX = new EffectDescriptor(EffectFactory.EFFECT_AUTOFIX, "scale", 0.5f);
+    private static final EffectDescriptor VIGNETTE = new EffectDescriptor(EffectFactory.EFFECT_VIGNETTE, "scale", .5f);
+    private static final EffectDescriptor SHARPEN = new EffectDescriptor(EffectFactory.EFFECT_SHARPEN);
+    private static final EffectDescriptor BRIGHTNESS = new EffectDescriptor(EffectFactory.EFFECT_BRIGHTNESS, "brightness", 1.2f);
+    private static final EffectDescriptor CONTRAST = new EffectDescriptor(EffectFactory.EFFECT_CONTRAST, "contrast", 1.4f);
+    private static final EffectDescriptor TINT = new EffectDescriptor(EffectFactory.EFFECT_TINT, "tint", 0xFFFF00FF);
+
+    private static EffectChainPlanner.Plan plan(EffectDescriptor... stages) {
+        return EffectChainPlanner.plan(Arrays.asList(stages));
+    }
+
+    //every pass reads what the previous one wrote and never the texture it writes itself
+    private static void assertWellFormed(EffectChainPlanner.Plan plan) {
+        int expectedSource = EffectChainPlanner.SOURCE;
+        for (int i = 0; i < plan.getPassCount(); i++) {
+            EffectChainPlanner.Pass pass = plan.getPass(i);
+            assertEquals(expectedSource, pass.source);
+            assertNotEquals(pass.source, pass.target);
+            if (i < plan.getPassCount() - 1) {
+                assertTrue(pass.target >= 0 && pass.target < plan.getIntermediateCount());
+            } else {
+                assertEquals(EffectChainPlanner.OUTPUT, pass.target);
+            }
+            expectedSource = pass.target;
+        }
+    }
+
+    @Test
+    public void singleEffectGoesStraightToTheOutput() {
+        EffectChainPlanner.Plan plan = plan(AUTOFIX);
+        assertEquals(1, plan.getPassCount());
+        assertEquals(0, plan.getIntermediateCount());
+        assertEquals(EffectChainPlanner.SOURCE, plan.getPass(0).source);
+        assertEquals(EffectChainPlanner.OUTPUT, plan.getPass(0).target);
+        assertSame(AUTOFIX, plan.getPass(0).effect);
+    }
+
+    @Test
+    public void singleColorStageIsAShaderPass() {
+        EffectChainPlanner.Plan plan = plan(AUTOFIX, CONTRAST, VIGNETTE);
+        assertEquals(3, plan.getPassCount());
+        assertFalse(plan.getPass(0).isColorPass());
+        assertTrue(plan.getPass(1).isColorPass());
+        assertFalse(plan.getPass(2).isColorPass());
+        assertEquals(2, plan.getIntermediateCount());
+        assertWellFormed(plan);
+    }
+
+    @Test
+    public void colorOnlyPlansDrawStraightToTheScreen() {
+        assertNotNull(plan(CONTRAST).getDirectPass());
+        assertNotNull(plan(BRIGHTNESS, CONTRAST, TINT).getDirectPass());
+        assertNull(plan(AUTOFIX).getDirectPass());
+        assertNull(plan(BRIGHTNESS, VIGNETTE).getDirectPass());
+        assertNull(plan().getDirectPass());
+    }
+
+    @Test
+    public void adjacentColorStagesAreFused() {
+        EffectChainPlanner.Plan plan = plan(AUTOFIX, BRIGHTNESS, CONTRAST, TINT, VIGNETTE);
+        assertEquals(3, plan.getPassCount());
+        EffectChainPlanner.Pass fused = plan.getPass(1);
+        assertTrue(fused.isColorPass());
+        assertEquals(3, fused.stageCount);
+        assertEquals(3, fused.colorPass.getUniformCount());
+        assertWellFormed(plan);
+    }
+
+    @Test
+    public void longChainsOnlyUseTwoBuffers() {
+        EffectDescriptor[] stages = new EffectDescriptor[9];
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = i % 2 == 0 ? SHARPEN : VIGNETTE;
+        }
+        stages[4] = CONTRAST;
+        EffectChainPlanner.Plan plan = plan(stages);
+        assertEquals(9, plan.getPassCount());
+        assertEquals(2, plan.getIntermediateCount());
+        assertWellFormed(plan);
+    }
+
+    @Test
+    public void runCutByTheCapLeavesALoneColorPass() {
+        EffectDescriptor[] stages = new EffectDescriptor[EffectChainPlanner.MAX_FUSED_STAGES + 1];
+        Arrays.fill(stages, BRIGHTNESS);
+        EffectChainPlanner.Plan plan = plan(stages);
+        assertEquals(2, plan.getPassCount());
+        assertTrue(plan.getPass(1).isColorPass());
+        assertEquals(1, plan.getPass(1).stageCount);
+        assertWellFormed(plan);
+    }
+
+    @Test
+    public void fusedRunsAreCapped() {
+        EffectDescriptor[] stages = new EffectDescriptor[EffectChainPlanner.MAX_FUSED_STAGES + 3];
+        Arrays.fill(stages, BRIGHTNESS);
+        EffectChainPlanner.Plan plan = plan(stages);
+        assertEquals(2, plan.getPassCount());
+        assertEquals(EffectChainPlanner.MAX_FUSED_STAGES, plan.getPass(0).stageCount);
+        assertEquals(3, plan.getPass(1).stageCount);
+        assertWellFormed(plan);
+    }
+
+    @Test
+    public void emptyChainHasNoPasses() {
+        EffectChainPlanner.Plan plan = plan();
+        assertEquals(0, plan.getPassCount());
+        assertEquals(0, plan.getIntermediateCount());
+    }
+
+    @Test
+    public void colorPassCarriesStageUniforms() {
+        ColorPass pass = new ColorPass(Arrays.asList(BRIGHTNESS, TINT));
+        assertArrayEquals(new float[]{1.2f}, pass.getUniformValue(0), 0f);
+        assertArrayEquals(new float[]{1f, 0f, 1f}, pass.getUniformValue(1), 0f);
+
+        String shader = pass.getFragmentShader();
+        assertTrue(shader.contains("uniform float " + pass.getUniformName(0) + ";"));
+        assertTrue(shader.contains("uniform vec3 " + pass.getUniformName(1) + ";"));
+        //brightness has to run before the tint
+        assertTrue(shader.indexOf("* " + pass.getUniformName(0)) < shader.indexOf("* " + pass.getUniformName(1)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void colorPassRejectsOtherEffects() {
+        new ColorPass(Arrays.asList(BRIGHTNESS, VIGNETTE));
+    }
+
+    @Test
+    public void pipelinePlansOnce() {
+        EffectPipeline pipeline = new EffectPipeline(AUTOFIX, CONTRAST, VIGNETTE);
+        assertSame(pipeline.plan(), pipeline.plan());
+        assertNotEquals(pipeline.key(), new EffectPipeline(VIGNETTE, CONTRAST, AUTOFIX).key());
+    }
+}
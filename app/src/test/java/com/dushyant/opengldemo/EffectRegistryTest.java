@@ -0,0 +1,111 @@
+package com.dushyant.opengldemo;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link EffectRegistry} builds each effect once and releases what it evicts.
+ */
+public class EffectRegistryTest {
+
+    private static class FakeEffect {
+        final EffectDescriptor descriptor;
+        boolean released;
+
+        FakeEffect(EffectDescriptor descriptor) {
+            this.descriptor = descriptor;
+        }
+    }
+
+    private static class CountingFactory implements EffectRegistry.Factory<FakeEffect> {
+        final List<FakeEffect> created = new ArrayList<>();
+        final List<FakeEffect> released = new ArrayList<>();
+
+        @Override
+        public FakeEffect create(EffectDescriptor descriptor) {
+            FakeEffect effect = new FakeEffect(descriptor);
+            created.add(effect);
+            return effect;
+        }
+
+        @Override
+        public void release(FakeEffect effect) {
+            assertFalse("released twice", effect.released);
+            effect.released = true;
+            released.add(effect);
+        }
+    }
+
+    private static final EffectDescriptor CONTRAST = new EffectDescriptor("contrast", "contrast", 1.4f);
+    private static final EffectDescriptor FLIP_V = new EffectDescriptor("flip", "vertical", true);
+    private static final EffectDescriptor FLIP_H = new EffectDescriptor("flip", "horizontal", true);
+
+    private CountingFactory factory;
+    private EffectRegistry<FakeEffect> registry;
+
+    @Before
+    public void setUp() {
+        factory = new CountingFactory();
+        registry = new EffectRegistry<>(factory, 2);
+    }
+
+    @Test
+    public void reusesEffectAcrossFrames() {
+        FakeEffect first = registry.obtain(CONTRAST);
+        for (int frame = 0; frame < 100; frame++) {
+            assertSame(first, registry.obtain(CONTRAST));
+        }
+        assertEquals(1, factory.created.size());
+        assertTrue(factory.released.isEmpty());
+    }
+
+    @Test
+    public void sameEffectWithDifferentParametersIsADifferentEntry() {
+        assertNotSame(registry.obtain(FLIP_V), registry.obtain(FLIP_H));
+        assertSame(registry.obtain(FLIP_V), registry.obtain(new EffectDescriptor("flip", "vertical", true)));
+        assertEquals(2, factory.created.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        FakeEffect contrast = registry.obtain(CONTRAST);
+        FakeEffect flipV = registry.obtain(FLIP_V);
+        registry.obtain(CONTRAST);//touch contrast so flipV becomes the eldest
+        registry.obtain(FLIP_H);
+
+        assertEquals(2, registry.size());
+        assertEquals(1, factory.released.size());
+        assertSame(flipV, factory.released.get(0));
+        assertFalse(contrast.released);
+    }
+
+    @Test
+    public void releaseAllReleasesEverything() {
+        registry.obtain(CONTRAST);
+        registry.obtain(FLIP_V);
+        registry.releaseAll();
+
+        assertEquals(0, registry.size());
+        assertEquals(2, factory.released.size());
+
+        //rebuilt after the surface comes back
+        registry.obtain(CONTRAST);
+        assertEquals(3, factory.created.size());
+    }
+
+    @Test
+    public void descriptorTableMatchesSpinner() {
+        assertNull(EffectDescriptors.get(0));
+        assertNull(EffectDescriptors.get(EffectDescriptors.size()));
+        for (int i = 1; i < EffectDescriptors.size(); i++) {
+            assertTrue(EffectDescriptors.get(i).size() > 0);
+        }
+        //23 single effects and 2 chains after "None"
+        assertEquals(26, EffectDescriptors.size());
+    }
+}
@@ -0,0 +1,116 @@
+package com.dushyant.opengldemo;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the dirty tracking and the byte budget of {@link EffectResultCache}.
+ */
+public class EffectResultCacheTest {
+
+    private static class FakeAllocator implements EffectResultCache.TextureAllocator {
+        int nextName = 1;
+        int allocations;
+        final Set<Integer> live = new HashSet<>();
+
+        @Override
+        public int allocate(int width, int height) {
+            allocations++;
+            live.add(nextName);
+            return nextName++;
+        }
+
+        @Override
+        public void free(int textureId) {
+            assertTrue("freed unknown texture " + textureId, live.remove(textureId));
+        }
+    }
+
+    private static final int W = 100;
+    private static final int H = 50;
+    private static final long RESULT_BYTES = W * H * 4;
+
+    private static final String SEPIA = new EffectPipeline(new EffectDescriptor("sepia")).key();
+    private static final String NEGATIVE = new EffectPipeline(new EffectDescriptor("negative")).key();
+    private static final String GRAIN = new EffectPipeline(new EffectDescriptor("grain", "strength", 1.0f)).key();
+
+    private FakeAllocator allocator;
+    private EffectResultCache cache;
+
+    @Before
+    public void setUp() {
+        allocator = new FakeAllocator();
+        cache = new EffectResultCache(allocator, 2 * RESULT_BYTES);
+    }
+
+    @Test
+    public void repeatFramesHitTheCache() {
+        assertEquals(0, cache.get(1, SEPIA));
+        int texture = cache.allocate(1, SEPIA, W, H);
+        for (int frame = 0; frame < 10; frame++) {
+            assertEquals(texture, cache.get(1, SEPIA));
+        }
+        assertEquals(1, allocator.allocations);
+    }
+
+    @Test
+    public void togglingBetweenRecentEffectsDoesNotRecompute() {
+        int sepia = cache.allocate(1, SEPIA, W, H);
+        int negative = cache.allocate(1, NEGATIVE, W, H);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(sepia, cache.get(1, SEPIA));
+            assertEquals(negative, cache.get(1, NEGATIVE));
+        }
+        assertEquals(2, allocator.allocations);
+    }
+
+    @Test
+    public void newSourceGenerationDirtiesOldResults() {
+        cache.allocate(1, SEPIA, W, H);
+        cache.onSourceChanged(2);
+
+        assertEquals(0, cache.get(1, SEPIA));
+        assertEquals(0, cache.get(2, SEPIA));
+        assertEquals(0, cache.getUsedBytes());
+        assertTrue(allocator.live.isEmpty());
+    }
+
+    @Test
+    public void staysWithinBudgetEvictingLeastRecentlyUsed() {
+        cache.allocate(1, SEPIA, W, H);
+        cache.allocate(1, NEGATIVE, W, H);
+        cache.get(1, SEPIA);//negative is now the eldest
+        cache.allocate(1, GRAIN, W, H);
+
+        assertEquals(2 * RESULT_BYTES, cache.getUsedBytes());
+        assertEquals(0, cache.get(1, NEGATIVE));
+        assertNotEquals(0, cache.get(1, SEPIA));
+        assertNotEquals(0, cache.get(1, GRAIN));
+        assertEquals(2, allocator.live.size());
+    }
+
+    @Test
+    public void keepsNewestResultEvenIfOverBudget() {
+        cache.allocate(1, SEPIA, W, H);
+        int big = cache.allocate(1, GRAIN, 4 * W, 4 * H);
+
+        assertEquals(big, cache.get(1, GRAIN));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void releaseAllFreesEveryTexture() {
+        cache.allocate(1, SEPIA, W, H);
+        cache.allocate(1, NEGATIVE, W, H);
+        cache.releaseAll();
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getUsedBytes());
+        assertTrue(allocator.live.isEmpty());
+    }
+}
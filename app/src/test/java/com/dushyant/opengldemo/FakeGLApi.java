@@ -0,0 +1,567 @@
+package com.dushyant.opengldemo;
+
+import android.opengl.GLES20;
+
+import java.nio.Buffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory {@link GLApi} for JVM tests. Hands out increasing names, pretends every
+ * compile and link succeeds, keeps track of which objects are still alive and counts every call.
+ * Program binaries are the bytes of BINARY_FORMAT, only accepted when they match what this
+ * "driver" produced.
+ *
+ * It also tracks the bindings, viewport and enabled caps like a context would, and notes in
+ * {@link #misuse} the calls a real driver would reject or that point at a lifetime bug: binding or
+ * using a name that was never made or is already deleted, deleting twice, drawing without a
+ * linked program. Names are never reused, so a stale name is always caught.
+ * Per-frame call counts are asserted with {@link GLCallBudget}.
+ */
+class FakeGLApi implements GLApi {
+
+    final Set<Integer> liveTextures = new HashSet<>();
+    final Set<Integer> liveShaders = new HashSet<>();
+    final Set<Integer> livePrograms = new HashSet<>();
+    final Set<Integer> liveBuffers = new HashSet<>();
+    final Set<Integer> liveFramebuffers = new HashSet<>();
+    final Set<Integer> liveQueries = new HashSet<>();
+    final Map<String, Integer> calls = new HashMap<>();
+    int compiles;
+    int links;
+    int getErrorCalls;
+    int drawCalls;
+    int maxTextureSize = 4096;
+    Object context = new Object();
+    boolean programBinarySupported;
+    String version = "OpenGL ES 3.0 fake";
+    String extensions = "";
+    //what GL_COMPRESSED_TEXTURE_FORMATS lists, and format:level:size:bytes of every compressed upload
+    int[] compressedFormats = {CompressedTexture.GL_ETC1_RGB8_OES};
+    final List<String> compressedUploads = new ArrayList<>();
+    int binaryLoads;
+    boolean timerQuerySupported;
+    //what every finished timer query reports, and whether results are available yet
+    int queryResult;
+    boolean queryAvailable = true;
+    //raised like a real GPU_DISJOINT_EXT, reading it through glGetIntegerv clears it
+    boolean gpuDisjoint;
+
+    // bound state, as the calls that reached the fake left it
+    int activeTextureUnit;
+    int currentProgram;
+    int boundArrayBuffer;
+    int boundFramebuffer;
+    final int[] viewport = new int[4];
+    final Set<Integer> enabledCaps = new HashSet<>();
+    //one line per call a driver would reject or that uses a dead object, in call order
+    final List<String> misuse = new ArrayList<>();
+    //texture attached to each framebuffer, and per draw the texture it wrote, 0 for the screen
+    final Map<Integer, Integer> attachments = new HashMap<>();
+    final List<Integer> drawTargets = new ArrayList<>();
+    private final Map<String, Integer> mBoundTextures = new HashMap<>();
+    private final Map<String, Integer> mUniformLocations = new HashMap<>();
+
+    static final int BINARY_FORMAT = 0x1234;
+    private final Map<Integer, Integer> mLinkStatus = new HashMap<>();
+
+    private int mNextName = 1;
+
+    int liveObjects() {
+        return liveTextures.size() + liveShaders.size() + livePrograms.size() + liveBuffers.size()
+                + liveFramebuffers.size() + liveQueries.size();
+    }
+
+    //how often the named GL call reached the fake
+    int calls(String name) {
+        Integer count = calls.get(name);
+        return count == null ? 0 : count;
+    }
+
+    int totalCalls() {
+        int total = 0;
+        for (int count : calls.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    private void record(String name) {
+        calls.put(name, calls(name) + 1);
+    }
+
+    //texture bound to target on the unit, GL_TEXTURE0 + n
+    int boundTexture(int unit, int target) {
+        Integer texture = mBoundTextures.get(unit + ":" + target);
+        return texture == null ? 0 : texture;
+    }
+
+    //fails with the leaked names by kind if any object is still alive
+    void assertAllReleased() {
+        if (liveObjects() != 0) {
+            throw new AssertionError("leaked textures " + liveTextures + ", shaders " + liveShaders
+                    + ", programs " + livePrograms + ", buffers " + liveBuffers
+                    + ", framebuffers " + liveFramebuffers + ", queries " + liveQueries);
+        }
+    }
+
+    void assertNoMisuse() {
+        if (!misuse.isEmpty()) {
+            throw new AssertionError("GL misuse: " + misuse);
+        }
+    }
+
+    //notes a bind of a name that is neither 0 nor alive
+    private void checkBind(String call, Set<Integer> live, int name) {
+        if (name != 0 && !live.contains(name)) {
+            misuse.add(call + "(" + name + ") of a dead or unknown name");
+        }
+    }
+
+    private void checkUpload(String call, int target) {
+        if (boundTexture(activeTextureUnit, target) == 0) {
+            misuse.add(call + " with no texture bound");
+        }
+    }
+
+    private void checkDelete(String call, Set<Integer> live, int[] names, int offset, int n) {
+        for (int i = 0; i < n; i++) {
+            int name = names[offset + i];
+            if (name != 0 && !live.remove(name)) {
+                misuse.add(call + "(" + name + ") of a dead or unknown name");
+            }
+        }
+    }
+
+    @Override
+    public void glGenTextures(int n, int[] textures, int offset) {
+        record("glGenTextures");
+        for (int i = 0; i < n; i++) {
+            textures[offset + i] = mNextName;
+            liveTextures.add(mNextName++);
+        }
+    }
+
+    @Override
+    public void glDeleteTextures(int n, int[] textures, int offset) {
+        record("glDeleteTextures");
+        checkDelete("glDeleteTextures", liveTextures, textures, offset, n);
+    }
+
+    @Override
+    public void glBindTexture(int target, int texture) {
+        record("glBindTexture");
+        checkBind("glBindTexture", liveTextures, texture);
+        mBoundTextures.put(activeTextureUnit + ":" + target, texture);
+    }
+
+    @Override
+    public void glActiveTexture(int texture) {
+        record("glActiveTexture");
+        activeTextureUnit = texture;
+    }
+
+    @Override
+    public void glTexParameteri(int target, int pname, int param) {
+        record("glTexParameteri");
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                             int format, int type, Buffer pixels) {
+        record("glTexImage2D");
+        checkUpload("glTexImage2D", target);
+    }
+
+    @Override
+    public void glCompressedTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                                       int imageSize, Buffer data) {
+        record("glCompressedTexImage2D");
+        checkUpload("glCompressedTexImage2D", target);
+        compressedUploads.add(internalformat + ":" + level + ":" + width + "x" + height + ":" + imageSize);
+    }
+
+    @Override
+    public void glGenerateMipmap(int target) {
+        record("glGenerateMipmap");
+    }
+
+    @Override
+    public int glCreateShader(int type) {
+        record("glCreateShader");
+        liveShaders.add(mNextName);
+        return mNextName++;
+    }
+
+    @Override
+    public void glShaderSource(int shader, String source) {
+        record("glShaderSource");
+    }
+
+    @Override
+    public void glCompileShader(int shader) {
+        record("glCompileShader");
+        compiles++;
+    }
+
+    @Override
+    public void glGetShaderiv(int shader, int pname, int[] params, int offset) {
+        record("glGetShaderiv");
+        params[offset] = GLES20.GL_TRUE;
+    }
+
+    @Override
+    public String glGetShaderInfoLog(int shader) {
+        record("glGetShaderInfoLog");
+        return "";
+    }
+
+    @Override
+    public void glDeleteShader(int shader) {
+        record("glDeleteShader");
+        // GL keeps shaders attached to a program alive until the program goes, good enough for counting
+        if (!liveShaders.remove(shader)) {
+            misuse.add("glDeleteShader(" + shader + ") of a dead or unknown name");
+        }
+    }
+
+    @Override
+    public int glCreateProgram() {
+        record("glCreateProgram");
+        livePrograms.add(mNextName);
+        return mNextName++;
+    }
+
+    @Override
+    public void glAttachShader(int program, int shader) {
+        record("glAttachShader");
+        checkBind("glAttachShader", livePrograms, program);
+        checkBind("glAttachShader", liveShaders, shader);
+    }
+
+    @Override
+    public void glLinkProgram(int program) {
+        record("glLinkProgram");
+        links++;
+        mLinkStatus.put(program, GLES20.GL_TRUE);
+    }
+
+    @Override
+    public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+        record("glGetProgramiv");
+        Integer status = mLinkStatus.get(program);
+        params[offset] = status == null ? GLES20.GL_FALSE : status;
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program) {
+        record("glGetProgramInfoLog");
+        return "";
+    }
+
+    @Override
+    public void glDeleteProgram(int program) {
+        record("glDeleteProgram");
+        if (program != 0 && !livePrograms.remove(program)) {
+            misuse.add("glDeleteProgram(" + program + ") of a dead or unknown name");
+        }
+        if (program == currentProgram) {
+            // a current program stays usable until another is made current, but nothing here relies on that
+            currentProgram = 0;
+        }
+    }
+
+    @Override
+    public boolean supportsProgramBinary() {
+        return programBinarySupported;
+    }
+
+    @Override
+    public byte[] glGetProgramBinary(int program, int[] binaryFormat, int offset) {
+        record("glGetProgramBinary");
+        binaryFormat[offset] = BINARY_FORMAT;
+        return binaryFor(version);
+    }
+
+    @Override
+    public void glProgramBinary(int program, int binaryFormat, byte[] binary) {
+        record("glProgramBinary");
+        binaryLoads++;
+        boolean valid = binaryFormat == BINARY_FORMAT && Arrays.equals(binary, binaryFor(version));
+        mLinkStatus.put(program, valid ? GLES20.GL_TRUE : GLES20.GL_FALSE);
+    }
+
+    static byte[] binaryFor(String driverVersion) {
+        return ("linked by " + driverVersion).getBytes();
+    }
+
+    @Override
+    public boolean supportsTimerQuery() {
+        return timerQuerySupported;
+    }
+
+    @Override
+    public void glGenQueries(int n, int[] ids, int offset) {
+        record("glGenQueries");
+        for (int i = 0; i < n; i++) {
+            ids[offset + i] = mNextName;
+            liveQueries.add(mNextName++);
+        }
+    }
+
+    @Override
+    public void glDeleteQueries(int n, int[] ids, int offset) {
+        record("glDeleteQueries");
+        checkDelete("glDeleteQueries", liveQueries, ids, offset, n);
+    }
+
+    @Override
+    public void glBeginQuery(int target, int id) {
+        record("glBeginQuery");
+    }
+
+    @Override
+    public void glEndQuery(int target) {
+        record("glEndQuery");
+    }
+
+    @Override
+    public void glGetQueryObjectuiv(int id, int pname, int[] params, int offset) {
+        record("glGetQueryObjectuiv");
+        if (pname == GpuTimer.GL_QUERY_RESULT_AVAILABLE) {
+            params[offset] = queryAvailable ? GLES20.GL_TRUE : GLES20.GL_FALSE;
+        } else {
+            params[offset] = queryResult;
+        }
+    }
+
+    @Override
+    public void glUseProgram(int program) {
+        record("glUseProgram");
+        checkBind("glUseProgram", livePrograms, program);
+        currentProgram = program;
+    }
+
+    @Override
+    public int glGetUniformLocation(int program, String name) {
+        record("glGetUniformLocation");
+        // distinct per name within a program, like a driver's active uniforms
+        String key = program + ":" + name;
+        Integer location = mUniformLocations.get(key);
+        if (location == null) {
+            location = mUniformLocations.size();
+            mUniformLocations.put(key, location);
+        }
+        return location;
+    }
+
+    @Override
+    public int glGetAttribLocation(int program, String name) {
+        record("glGetAttribLocation");
+        return name.hashCode() & 0x7;
+    }
+
+    @Override
+    public void glUniform1i(int location, int x) {
+        record("glUniform1i");
+    }
+
+    @Override
+    public void glUniform1f(int location, float x) {
+        record("glUniform1f");
+    }
+
+    @Override
+    public void glUniform3f(int location, float x, float y, float z) {
+        record("glUniform3f");
+    }
+
+    @Override
+    public void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset) {
+        record("glUniformMatrix4fv");
+    }
+
+    @Override
+    public void glGenBuffers(int n, int[] buffers, int offset) {
+        record("glGenBuffers");
+        for (int i = 0; i < n; i++) {
+            buffers[offset + i] = mNextName;
+            liveBuffers.add(mNextName++);
+        }
+    }
+
+    @Override
+    public void glDeleteBuffers(int n, int[] buffers, int offset) {
+        record("glDeleteBuffers");
+        checkDelete("glDeleteBuffers", liveBuffers, buffers, offset, n);
+    }
+
+    @Override
+    public void glBindBuffer(int target, int buffer) {
+        record("glBindBuffer");
+        checkBind("glBindBuffer", liveBuffers, buffer);
+        if (target == GLES20.GL_ARRAY_BUFFER) {
+            boundArrayBuffer = buffer;
+        }
+    }
+
+    @Override
+    public void glBufferData(int target, int size, Buffer data, int usage) {
+        record("glBufferData");
+    }
+
+    @Override
+    public void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, Buffer ptr) {
+        record("glVertexAttribPointer");
+    }
+
+    @Override
+    public void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, int offset) {
+        record("glVertexAttribPointer");
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index) {
+        record("glEnableVertexAttribArray");
+    }
+
+    @Override
+    public void glGenFramebuffers(int n, int[] framebuffers, int offset) {
+        record("glGenFramebuffers");
+        for (int i = 0; i < n; i++) {
+            framebuffers[offset + i] = mNextName;
+            liveFramebuffers.add(mNextName++);
+        }
+    }
+
+    @Override
+    public void glDeleteFramebuffers(int n, int[] framebuffers, int offset) {
+        record("glDeleteFramebuffers");
+        checkDelete("glDeleteFramebuffers", liveFramebuffers, framebuffers, offset, n);
+    }
+
+    @Override
+    public void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level) {
+        record("glFramebufferTexture2D");
+        checkBind("glFramebufferTexture2D", liveTextures, texture);
+        if (boundFramebuffer == 0) {
+            misuse.add("glFramebufferTexture2D on the default framebuffer");
+        } else {
+            attachments.put(boundFramebuffer, texture);
+        }
+    }
+
+    @Override
+    public int glCheckFramebufferStatus(int target) {
+        record("glCheckFramebufferStatus");
+        return GLES20.GL_FRAMEBUFFER_COMPLETE;
+    }
+
+    @Override
+    public void glBindFramebuffer(int target, int framebuffer) {
+        record("glBindFramebuffer");
+        checkBind("glBindFramebuffer", liveFramebuffers, framebuffer);
+        boundFramebuffer = framebuffer;
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height) {
+        record("glViewport");
+        viewport[0] = x;
+        viewport[1] = y;
+        viewport[2] = width;
+        viewport[3] = height;
+    }
+
+    @Override
+    public void glEnable(int cap) {
+        record("glEnable");
+        enabledCaps.add(cap);
+    }
+
+    @Override
+    public void glDisable(int cap) {
+        record("glDisable");
+        enabledCaps.remove(cap);
+    }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha) {
+        record("glClearColor");
+    }
+
+    @Override
+    public void glClear(int mask) {
+        record("glClear");
+    }
+
+    @Override
+    public void glDrawArrays(int mode, int first, int count) {
+        record("glDrawArrays");
+        drawCalls++;
+        Integer target = attachments.get(boundFramebuffer);
+        drawTargets.add(boundFramebuffer == 0 || target == null ? 0 : target);
+        Integer status = mLinkStatus.get(currentProgram);
+        if (currentProgram == 0 || !livePrograms.contains(currentProgram) || status == null || status != GLES20.GL_TRUE) {
+            misuse.add("glDrawArrays without a linked program");
+        }
+    }
+
+    @Override
+    public void glReadPixels(int x, int y, int width, int height, int format, int type, Buffer pixels) {
+        record("glReadPixels");
+    }
+
+    @Override
+    public int glGetError() {
+        record("glGetError");
+        getErrorCalls++;
+        return GLES20.GL_NO_ERROR;
+    }
+
+    @Override
+    public void glGetIntegerv(int pname, int[] params, int offset) {
+        record("glGetIntegerv");
+        if (pname == GpuTimer.GL_GPU_DISJOINT_EXT) {
+            params[offset] = gpuDisjoint ? 1 : 0;
+            gpuDisjoint = false;
+            return;
+        }
+        if (pname == GLES20.GL_COMPRESSED_TEXTURE_FORMATS) {
+            System.arraycopy(compressedFormats, 0, params, offset, compressedFormats.length);
+            return;
+        }
+        if (pname == GLES20.GL_NUM_COMPRESSED_TEXTURE_FORMATS) {
+            params[offset] = compressedFormats.length;
+            return;
+        }
+        params[offset] = pname == GLES20.GL_MAX_TEXTURE_SIZE ? maxTextureSize : 0;
+    }
+
+    @Override
+    public String glGetString(int name) {
+        record("glGetString");
+        switch (name) {
+            case GLES20.GL_VENDOR:
+                return "fake vendor";
+            case GLES20.GL_RENDERER:
+                return "fake renderer";
+            case GLES20.GL_VERSION:
+                return version;
+            case GLES20.GL_EXTENSIONS:
+                return extensions;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public Object currentContext() {
+        return context;
+    }
+}
@@ -0,0 +1,178 @@
+package com.dushyant.opengldemo;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives {@link FrameScheduler} with a fake frame source and clock, the way the GL thread and
+ * a camera's callbacks would.
+ */
+public class FrameSchedulerTest {
+
+    //a producer that stamps each frame with the fake clock's time
+    static class FakeFrameSource implements FrameScheduler.FrameSource {
+        final AtomicInteger produced = new AtomicInteger();
+        volatile long producedAt;
+        int updates;
+        long timestamp;
+        int currentFrame;
+
+        void produce(long now) {
+            producedAt = now;
+            produced.incrementAndGet();
+        }
+
+        @Override
+        public void updateTexImage() {
+            updates++;
+            currentFrame = produced.get();
+            timestamp = producedAt;
+        }
+
+        @Override
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public void getTransformMatrix(float[] matrix) {
+            matrix[0] = currentFrame;
+        }
+    }
+
+    private long now;
+    private final AtomicInteger renderRequests = new AtomicInteger();
+    private FakeFrameSource source;
+    private FrameStats stats;
+    private FrameScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        now = 1000000;
+        FrameStats.Clock clock = new FrameStats.Clock() {
+            @Override
+            public long nanoTime() {
+                return now;
+            }
+        };
+        source = new FakeFrameSource();
+        stats = new FrameStats(clock, FrameStats.DEFAULT_FRAME_BUDGET_NANOS);
+        scheduler = new FrameScheduler(source, new Runnable() {
+            @Override
+            public void run() {
+                renderRequests.incrementAndGet();
+            }
+        }, stats, clock, true);
+    }
+
+    private void frameAvailable() {
+        source.produce(now);
+        scheduler.onFrameAvailable();
+    }
+
+    @Test
+    public void nothingToLatchBeforeTheFirstFrame() {
+        assertFalse(scheduler.latchFrame());
+        assertFalse(scheduler.hasFrame());
+        assertEquals(0, source.updates);
+        assertEquals(0, renderRequests.get());
+    }
+
+    @Test
+    public void eachFrameRequestsOneRender() {
+        for (int i = 0; i < 10; i++) {
+            frameAvailable();
+            assertTrue(scheduler.latchFrame());
+            scheduler.onFrameDrawn();
+        }
+        assertEquals(10, renderRequests.get());
+        assertEquals(10, scheduler.getLatchedFrames());
+        assertEquals(0, scheduler.getDroppedFrames());
+    }
+
+    @Test
+    public void aBurstIsCoalescedIntoOneRenderOfTheNewest() {
+        for (int i = 0; i < 5; i++) {
+            frameAvailable();
+        }
+        assertEquals(1, renderRequests.get());
+
+        assertTrue(scheduler.latchFrame());
+        assertEquals(1, source.updates);
+        assertEquals(5f, scheduler.getTransform()[0], 0);
+        assertEquals(1, scheduler.getLatchedFrames());
+        assertEquals(4, scheduler.getDroppedFrames());
+
+        // a redraw without a new frame keeps the current one
+        assertFalse(scheduler.latchFrame());
+        assertTrue(scheduler.hasFrame());
+        assertEquals(1, source.updates);
+    }
+
+    @Test
+    public void latencyIsRecordedOncePerFrame() {
+        frameAvailable();
+        now += 5000000;
+        scheduler.latchFrame();
+        now += 3000000;
+        scheduler.onFrameDrawn();
+        // drawn again for another effect, not a new frame
+        now += 16000000;
+        scheduler.latchFrame();
+        scheduler.onFrameDrawn();
+
+        LatencyHistogram.Snapshot latency = stats.snapshot().get(FrameStats.Stage.LATENCY);
+        assertEquals(1, latency.getTotalCount());
+        assertTrue(latency.getMax() >= 8000000 && latency.getMax() <= 8000000 * 1.04);
+    }
+
+    @Test
+    public void noLatencyForPresentationTimestamps() {
+        FrameScheduler video = new FrameScheduler(source, new Runnable() {
+            @Override
+            public void run() {
+            }
+        }, stats, FrameStats.SYSTEM_CLOCK, false);
+        source.produce(33000000);
+        video.onFrameAvailable();
+        video.latchFrame();
+        video.onFrameDrawn();
+        assertEquals(0, stats.snapshot().get(FrameStats.Stage.LATENCY).getTotalCount());
+    }
+
+    @Test
+    public void everyFrameIsLatchedOrDroppedUnderContention() throws InterruptedException {
+        final int producers = 4;
+        final int framesEach = 20000;
+        final CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < framesEach; i++) {
+                        scheduler.onFrameAvailable();
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        // the GL thread renders whenever asked, like GLSurfaceView in RENDERMODE_WHEN_DIRTY
+        int rendered = 0;
+        while (done.getCount() > 0 || renderRequests.get() > rendered) {
+            if (renderRequests.get() > rendered) {
+                rendered++;
+                scheduler.latchFrame();
+            }
+        }
+        scheduler.latchFrame();
+
+        assertEquals(producers * framesEach, scheduler.getLatchedFrames() + scheduler.getDroppedFrames());
+        // every latched frame asked for its render, a render can find its frame latched by an earlier one
+        assertTrue(renderRequests.get() >= scheduler.getLatchedFrames());
+    }
+}
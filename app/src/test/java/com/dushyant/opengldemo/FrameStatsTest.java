@@ -0,0 +1,187 @@
+package com.dushyant.opengldemo;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives {@link FrameStats} with a fake clock and checks counters, JSON and the binary
+ * round trip, plus {@link GpuTimer} against {@link FakeGLApi} timer queries.
+ */
+public class FrameStatsTest {
+
+    private static final long MS = 1000000L;
+
+    private long now;
+    private FrameStats stats;
+
+    @Before
+    public void setUp() {
+        stats = new FrameStats(new FrameStats.Clock() {
+            @Override
+            public long nanoTime() {
+                return now;
+            }
+        }, FrameStats.DEFAULT_FRAME_BUDGET_NANOS);
+    }
+
+    private void frame(long applyNanos, long blitNanos) {
+        stats.beginFrame();
+        stats.begin(FrameStats.Stage.APPLY);
+        now += applyNanos;
+        stats.end(FrameStats.Stage.APPLY);
+        stats.begin(FrameStats.Stage.BLIT);
+        now += blitNanos;
+        stats.end(FrameStats.Stage.BLIT);
+        stats.endFrame();
+    }
+
+    @Test
+    public void framesOverBudgetCountAsDropped() {
+        frame(2 * MS, 1 * MS);
+        frame(10 * MS, 6 * MS);//16ms, just in budget
+        frame(20 * MS, 1 * MS);
+        frame(1 * MS, 1 * MS);
+
+        assertEquals(4, stats.getFrames());
+        assertEquals(1, stats.getDroppedFrames());
+        FrameStats.Snapshot snapshot = stats.snapshot();
+        assertEquals(21 * MS, snapshot.get(FrameStats.Stage.FRAME).getMax());
+        assertEquals(20 * MS, snapshot.get(FrameStats.Stage.APPLY).getMax());
+        assertEquals(4, snapshot.get(FrameStats.Stage.BLIT).getTotalCount());
+    }
+
+    @Test
+    public void nestedStageIsLeftOutOfTheOuterOne() {
+        stats.begin(FrameStats.Stage.APPLY);
+        now += 1 * MS;
+        for (int i = 0; i < 2; i++) {
+            // an effect lookup creating the effect, then its pass
+            stats.begin(FrameStats.Stage.EFFECT_CREATE);
+            now += 3 * MS;
+            assertEquals(3 * MS, stats.endNested(FrameStats.Stage.EFFECT_CREATE, FrameStats.Stage.APPLY));
+            now += 2 * MS;
+        }
+        assertEquals(5 * MS, stats.end(FrameStats.Stage.APPLY));
+
+        FrameStats.Snapshot snapshot = stats.snapshot();
+        assertEquals(2, snapshot.get(FrameStats.Stage.EFFECT_CREATE).getTotalCount());
+        assertEquals(6 * MS, snapshot.get(FrameStats.Stage.EFFECT_CREATE).getSum());
+    }
+
+    @Test
+    public void jsonListsEveryStage() {
+        frame(2 * MS, 1 * MS);
+        String json = stats.snapshot().toJson();
+
+        assertTrue(json, json.startsWith("{\"frames\":1,\"dropped\":0,\"unit\":\"ns\",\"stages\":{"));
+        for (FrameStats.Stage stage : FrameStats.Stage.values()) {
+            assertTrue(json, json.contains("\"" + stage.jsonName + "\":{\"count\":"));
+        }
+        assertTrue(json, json.contains("\"apply\":{\"count\":1,\"mean\":2000000.0,\"p50\":2000000,\"p99\":2000000,\"max\":2000000}"));
+        assertTrue(json, json.contains("\"gpu\":{\"count\":0,"));
+        assertTrue(json, json.endsWith("}}"));
+    }
+
+    @Test
+    public void binaryDumpRoundTrips() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            frame(i * 37 * 1000L, 500000 + i);
+        }
+        stats.recordGpu(3 * MS);
+        FrameStats.Snapshot before = stats.snapshot();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        before.writeBinary(out);
+        FrameStats.Snapshot after = FrameStats.Snapshot.readBinary(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(before.frames, after.frames);
+        assertEquals(before.droppedFrames, after.droppedFrames);
+        assertEquals(before.toJson(), after.toJson());
+        for (FrameStats.Stage stage : FrameStats.Stage.values()) {
+            for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+                assertEquals(before.get(stage).getCount(i), after.get(stage).getCount(i));
+            }
+        }
+        //only used buckets are written
+        assertTrue(out.size() < 4096);
+    }
+
+    @Test(expected = IOException.class)
+    public void binaryDumpRejectsOtherData() throws IOException {
+        FrameStats.Snapshot.readBinary(new ByteArrayInputStream(new byte[64]));
+    }
+
+    @Test
+    public void gpuTimerReadsFinishedQueriesWithoutWaiting() {
+        FakeGLApi gl = new FakeGLApi();
+        gl.timerQuerySupported = true;
+        gl.queryResult = (int) (5 * MS);
+        gl.queryAvailable = false;
+        GLResourceManager resources = new GLResourceManager(gl, null);
+        resources.onSurfaceCreated();
+        GpuTimer timer = new GpuTimer(resources, stats);
+        assertEquals(GpuTimer.QUERY_COUNT, gl.liveQueries.size());
+
+        //the GPU falls behind, once every query is in flight frames go unmeasured
+        for (int i = 0; i < GpuTimer.QUERY_COUNT + 2; i++) {
+            timer.beginFrame();
+            timer.endFrame();
+        }
+        assertEquals(GpuTimer.QUERY_COUNT, gl.calls("glBeginQuery"));
+        assertEquals(2, timer.getSkipped());
+        assertEquals(0, timer.getMeasured());
+
+        gl.queryAvailable = true;
+        timer.poll();
+        assertEquals(GpuTimer.QUERY_COUNT, timer.getMeasured());
+        assertEquals(5 * MS, stats.snapshot().get(FrameStats.Stage.GPU).getMax());
+
+        resources.releaseAll();
+        gl.assertAllReleased();
+    }
+
+    @Test
+    public void gpuTimerDropsResultsAcrossADisjointEvent() {
+        FakeGLApi gl = new FakeGLApi();
+        gl.timerQuerySupported = true;
+        GLResourceManager resources = new GLResourceManager(gl, null);
+        resources.onSurfaceCreated();
+        GpuTimer timer = new GpuTimer(resources, stats);
+
+        gl.queryAvailable = false;
+        timer.beginFrame();
+        timer.endFrame();
+        timer.beginFrame();
+        timer.endFrame();
+        //the clock changed while both were in flight
+        gl.gpuDisjoint = true;
+        gl.queryAvailable = true;
+        timer.poll();
+        assertEquals(2, timer.getDiscarded());
+        assertEquals(0, stats.snapshot().get(FrameStats.Stage.GPU).getTotalCount());
+
+        timer.beginFrame();
+        timer.endFrame();
+        timer.poll();
+        assertEquals(1, timer.getMeasured());
+    }
+
+    @Test
+    public void gpuTimerIsInertWithoutTheExtension() {
+        FakeGLApi gl = new FakeGLApi();
+        GLResourceManager resources = new GLResourceManager(gl, null);
+        resources.onSurfaceCreated();
+        GpuTimer timer = new GpuTimer(resources, stats);
+        timer.beginFrame();
+        timer.endFrame();
+
+        assertFalse(timer.isEnabled());
+        assertEquals(0, gl.totalCalls());
+    }
+}
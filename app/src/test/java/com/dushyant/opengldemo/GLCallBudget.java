@@ -0,0 +1,104 @@
+package com.dushyant.opengldemo;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counts the calls that reach a {@link FakeGLApi} from the moment it is started, so a test can
+ * hold a frame to a budget. A frame that starts making more calls than its budget fails with
+ * the calls it made, which shows what grew.
+ *
+ * glGetError is left out by default, error checks are not part of what a frame costs in release.
+ */
+class GLCallBudget {
+
+    private final FakeGLApi mGL;
+    private final Map<String, Integer> mStart;
+    private final int mStartLinks;
+    private final int mStartObjects;
+    private final String[] mIgnored;
+
+    private GLCallBudget(FakeGLApi gl, String[] ignored) {
+        mGL = gl;
+        mStart = new HashMap<>(gl.calls);
+        mStartLinks = gl.links;
+        mStartObjects = gl.liveObjects();
+        mIgnored = ignored;
+    }
+
+    static GLCallBudget start(FakeGLApi gl) {
+        return new GLCallBudget(gl, new String[]{"glGetError"});
+    }
+
+    //counts every call, error checks included
+    static GLCallBudget startCountingAll(FakeGLApi gl) {
+        return new GLCallBudget(gl, new String[0]);
+    }
+
+    int calls(String name) {
+        Integer start = mStart.get(name);
+        return mGL.calls(name) - (start == null ? 0 : start);
+    }
+
+    int total() {
+        int total = 0;
+        for (int count : counts().values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    //the calls made since the start by name, sorted for readable failures
+    Map<String, Integer> counts() {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (String name : mGL.calls.keySet()) {
+            int count = calls(name);
+            if (count > 0 && !isIgnored(name)) {
+                counts.put(name, count);
+            }
+        }
+        return counts;
+    }
+
+    private boolean isIgnored(String name) {
+        for (String ignored : mIgnored) {
+            if (ignored.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //fails if the work, which drew the given number of frames, made more than max calls per frame
+    void assertAtMost(int max, int frames) {
+        int total = total();
+        if (total > max * frames) {
+            throw new AssertionError(total + " calls in " + frames + " frames, budget " + max
+                    + " per frame: " + counts());
+        }
+    }
+
+    void assertAtMost(String name, int max) {
+        int count = calls(name);
+        if (count > max) {
+            throw new AssertionError(count + " x " + name + ", budget " + max + ": " + counts());
+        }
+    }
+
+    void assertNone(String... names) {
+        for (String name : names) {
+            assertAtMost(name, 0);
+        }
+    }
+
+    //fails if the work made, deleted or linked GL objects, which steady-state frames must not
+    void assertNoObjectChurn() {
+        assertNone("glGenTextures", "glGenFramebuffers", "glGenBuffers", "glGenQueries", "glCreateProgram",
+                "glCreateShader", "glDeleteTextures", "glDeleteFramebuffers", "glDeleteBuffers",
+                "glDeleteQueries", "glDeleteProgram", "glDeleteShader");
+        if (mGL.links != mStartLinks || mGL.liveObjects() != mStartObjects) {
+            throw new AssertionError("objects changed: " + counts());
+        }
+    }
+}
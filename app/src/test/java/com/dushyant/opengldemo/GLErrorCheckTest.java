@@ -0,0 +1,100 @@
+package com.dushyant.opengldemo;
+
+import android.opengl.GLES20;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks how many glGetError calls each {@link GLToolbox.ErrorCheckMode} costs,
+ * and the call trace used for post-mortem dumps.
+ */
+public class GLErrorCheckTest {
+
+    private GLToolbox.ErrorCheckMode previousMode;
+    private FakeGLApi gl;
+    private GLResourceManager resources;
+    private GLTextureRenderer renderer;
+
+    @Before
+    public void setUp() {
+        previousMode = GLToolbox.getErrorCheckMode();
+        gl = new FakeGLApi();
+        resources = new GLResourceManager(gl, null);
+        renderer = new GLTextureRenderer(gl);
+    }
+
+    @After
+    public void tearDown() {
+        GLToolbox.setErrorCheckMode(previousMode);
+    }
+
+    private void renderFrames(int frames) {
+        resources.onSurfaceCreated();
+        renderer.initializeOpenGL(resources);
+        int texture = resources.genTexture();
+        for (int i = 0; i < frames; i++) {
+            renderer.renderTexture(texture);
+            GLToolbox.checkFrameErrors(gl, "frame");
+        }
+    }
+
+    @Test
+    public void offNeverCallsGlGetError() {
+        GLToolbox.setErrorCheckMode(GLToolbox.ErrorCheckMode.OFF);
+        renderFrames(10);
+        assertEquals(0, gl.calls("glGetError"));
+    }
+
+    @Test
+    public void perFrameChecksOncePerFrame() {
+        GLToolbox.setErrorCheckMode(GLToolbox.ErrorCheckMode.PER_FRAME);
+        renderFrames(10);
+        assertEquals(10, gl.calls("glGetError"));
+    }
+
+    @Test
+    public void strictChecksEveryCall() {
+        GLToolbox.setErrorCheckMode(GLToolbox.ErrorCheckMode.STRICT);
+        renderFrames(10);
+        assertTrue(gl.calls("glGetError") > 10 * 4);
+    }
+
+    @Test
+    public void strictNamesTheFailingOp() {
+        GLToolbox.setErrorCheckMode(GLToolbox.ErrorCheckMode.STRICT);
+        GLApi failing = new FakeGLApi() {
+            @Override
+            public int glGetError() {
+                return GLES20.GL_INVALID_OPERATION;
+            }
+        };
+        try {
+            GLToolbox.checkGlError(failing, "glBindTexture");
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals("glBindTexture: glError " + GLES20.GL_INVALID_OPERATION, e.getMessage());
+        }
+    }
+
+    @Test
+    public void traceKeepsTheLastCalls() {
+        GLCallTrace trace = new GLCallTrace(3);
+        TracingGLApi tracing = new TracingGLApi(gl, trace);
+        tracing.glUseProgram(7);
+        tracing.glBindTexture(GLES20.GL_TEXTURE_2D, 2);
+        tracing.glClearColor(0.5f, 0f, 0f, 1f);
+        tracing.glDrawArrays(GLES20.GL_TRIANGLE_STRIP, 0, 4);
+
+        assertEquals(4, trace.getRecorded());
+        assertEquals(3, trace.size());
+        assertEquals("glBindTexture(" + GLES20.GL_TEXTURE_2D + ", 2)", trace.get(0));
+        assertEquals("glClearColor(0.5, 0, 0, 1)", trace.get(1));
+        assertEquals("glDrawArrays(" + GLES20.GL_TRIANGLE_STRIP + ", 0, 4)\n",
+                trace.dump().substring(trace.dump().lastIndexOf("glDrawArrays")));
+        assertEquals(1, gl.calls("glDrawArrays"));
+    }
+}
@@ -0,0 +1,144 @@
+package com.dushyant.opengldemo;
+
+import android.media.effect.EffectFactory;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives {@link GLResourceManager} and {@link GLTextureRenderer} through the same surface
+ * callbacks MyGLRenderer gets and checks that no GL handles pile up.
+ */
+public class GLResourceManagerTest {
+
+    private FakeGLApi gl;
+    private GLResourceManager resources;
+    private GLTextureRenderer renderer;
+    private int sourceTexture;
+
+    @Before
+    public void setUp() {
+        gl = new FakeGLApi();
+        resources = new GLResourceManager(gl, null);
+        renderer = new GLTextureRenderer(gl);
+    }
+
+    //what MyGLRenderer does in onSurfaceCreated
+    private void surfaceCreated() {
+        if (resources.onSurfaceCreated()) {
+            renderer.initializeOpenGL(resources);
+            sourceTexture = resources.genTexture();
+        }
+    }
+
+    //what MyGLRenderer does in onSurfaceChanged and the frame it is followed by
+    private void surfaceChanged(int width, int height, ColorPass pass) {
+        renderer.setViewportSize(width, height);
+        renderer.setContentSize(996, 664);
+        if (pass == null) {
+            renderer.renderTexture(sourceTexture);
+        } else {
+            renderer.renderTexture(sourceTexture, pass);
+        }
+    }
+
+    @Test
+    public void resizingDoesNotCreateHandles() {
+        ColorPass pass = new EffectPipeline(new EffectDescriptor(EffectFactory.EFFECT_SEPIA),
+                new EffectDescriptor(EffectFactory.EFFECT_CONTRAST, "contrast", 1.5f)).plan().getDirectPass();
+        surfaceCreated();
+        surfaceChanged(1080, 1920, null);
+        surfaceChanged(1080, 1920, pass);
+        int handles = gl.liveObjects();
+        int links = gl.links;
+
+        for (int i = 0; i < 100; i++) {
+            // rotations and multi-window resizes, each with a frame of its own
+            int width = i % 2 == 0 ? 1920 : 1080 - i;
+            int height = i % 2 == 0 ? 1080 : 1920;
+            surfaceChanged(width, height, i % 3 == 0 ? pass : null);
+            ImageLayout layout = renderer.getLayout();
+            assertArrayEquals(new int[]{layout.x, layout.y, layout.width, layout.height}, gl.viewport);
+        }
+
+        assertEquals(handles, gl.liveObjects());
+        assertEquals(links, gl.links);
+        // the source texture, the quad's program and buffer, and the color pass program
+        assertEquals(4, resources.getOutstandingTotal());
+        gl.assertNoMisuse();
+    }
+
+    @Test
+    public void newSurfaceOnSameContextKeepsResources() {
+        surfaceCreated();
+        for (int i = 0; i < 100; i++) {
+            surfaceCreated();
+        }
+        assertEquals(1, gl.links);
+        assertEquals(1, gl.liveTextures.size());
+        assertEquals(1, gl.livePrograms.size());
+    }
+
+    @Test
+    public void lostContextRecreatesWithoutDeletingDeadHandles() {
+        surfaceCreated();
+        gl.context = new Object();//the old context and its objects are gone
+        gl.liveTextures.clear();
+        gl.livePrograms.clear();
+        gl.liveBuffers.clear();
+        surfaceCreated();
+
+        assertEquals(2, gl.links);
+        assertEquals(1, resources.getOutstanding(GLResourceManager.Kind.TEXTURE));
+        assertEquals(1, resources.getOutstanding(GLResourceManager.Kind.PROGRAM));
+        assertEquals(1, resources.getOutstanding(GLResourceManager.Kind.BUFFER));
+        assertEquals(3, gl.liveObjects());
+    }
+
+    @Test
+    public void releaseAllFreesEverything() {
+        surfaceCreated();
+        resources.genTexture();
+        resources.releaseAll();
+
+        assertEquals(0, resources.getOutstandingTotal());
+        gl.assertAllReleased();
+
+        //after a release the next surface builds everything again, even on the same context
+        surfaceCreated();
+        assertEquals(2, gl.links);
+    }
+
+    @Test
+    public void sharedProgramIsDeletedByItsLastOwner() {
+        surfaceCreated();
+        // two owners asking for the same sources get the same program
+        int program = resources.createProgram("vertex", "fragment");
+        int shared = resources.createProgram("vertex", "fragment");
+        assertEquals(program, shared);
+        assertEquals(2, gl.links);
+
+        resources.deleteProgram(program);
+        assertTrue(gl.livePrograms.contains(program));
+        assertEquals(2, resources.getOutstanding(GLResourceManager.Kind.PROGRAM));
+
+        resources.deleteProgram(shared);
+        assertFalse(gl.livePrograms.contains(program));
+        assertEquals(1, resources.getOutstanding(GLResourceManager.Kind.PROGRAM));
+        // deleting more often than created does not touch anything else
+        resources.deleteProgram(shared);
+        assertEquals(1, gl.livePrograms.size());
+
+        // the next owner links it again
+        assertNotEquals(0, resources.createProgram("vertex", "fragment"));
+        assertEquals(3, gl.links);
+    }
+
+    @Test
+    public void shadersDoNotOutliveTheLink() {
+        surfaceCreated();
+        assertTrue(gl.liveShaders.isEmpty());
+    }
+}
@@ -0,0 +1,122 @@
+package com.dushyant.opengldemo;
+
+import android.opengl.GLES20;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Renders through {@link GLStateCache} into a recording {@link FakeGLApi} and checks
+ * which calls reach the driver.
+ */
+public class GLStateCacheTest {
+
+    private FakeGLApi gl;
+    private GLStateCache state;
+    private GLResourceManager resources;
+    private GLTextureRenderer renderer;
+    private int texture;
+
+    @Before
+    public void setUp() {
+        gl = new FakeGLApi();
+        state = new GLStateCache(gl);
+        resources = new GLResourceManager(state, null);
+        renderer = new GLTextureRenderer(state);
+        resources.onSurfaceCreated();
+        renderer.initializeOpenGL(resources);
+        texture = resources.genTexture();
+    }
+
+    @Test
+    public void vertexDataIsUploadedOnce() {
+        for (int frame = 0; frame < 10; frame++) {
+            renderer.renderTexture(texture);
+        }
+        assertEquals(1, gl.calls("glBufferData"));
+        assertEquals(1, gl.liveBuffers.size());
+    }
+
+    @Test
+    public void steadyStateFrameOnlyClearsAndDraws() {
+        renderer.renderTexture(texture);
+        GLCallBudget budget = GLCallBudget.start(gl);
+
+        state.beginFrame();
+        renderer.renderTexture(texture);
+
+        assertEquals(2, budget.total());//glClear + glDrawArrays
+        budget.assertAtMost(2, 1);
+        budget.assertNone("glUseProgram", "glBindTexture", "glVertexAttribPointer");
+        // only the first frame's
+        assertEquals(1, gl.calls("glUseProgram"));
+        assertEquals(1, gl.calls("glBindTexture"));
+        assertEquals(2, gl.calls("glVertexAttribPointer"));
+        assertEquals(budget.total() + budget.calls("glGetError"), state.getFrameIssued());
+        assertEquals(12, state.getFrameElided());
+    }
+
+    @Test
+    public void changingTheTextureRebindsOnlyTheTexture() {
+        int other = resources.genTexture();
+        renderer.renderTexture(texture);
+        int binds = gl.calls("glBindTexture");
+
+        renderer.renderTexture(other);
+        renderer.renderTexture(other);
+        assertEquals(binds + 1, gl.calls("glBindTexture"));
+        assertEquals(1, gl.calls("glUseProgram"));
+    }
+
+    @Test
+    public void invalidateForcesFullSetup() {
+        renderer.renderTexture(texture);
+        state.invalidate();
+        renderer.renderTexture(texture);
+
+        assertEquals(2, gl.calls("glUseProgram"));
+        assertEquals(2, gl.calls("glBindTexture"));
+        assertEquals(4, gl.calls("glVertexAttribPointer"));
+        assertEquals(2, gl.calls("glUniform1i"));
+    }
+
+    @Test
+    public void deletedTextureNameIsBoundAgain() {
+        renderer.renderTexture(texture);
+        resources.deleteTexture(texture);
+        int binds = gl.calls("glBindTexture");
+
+        //a fresh bind of the same name must reach GL even though the cache saw it last
+        state.glBindTexture(GLES20.GL_TEXTURE_2D, texture);
+        assertEquals(binds + 1, gl.calls("glBindTexture"));
+        // which a driver would take as a new texture, the fake flags it
+        assertEquals(1, gl.misuse.size());
+    }
+
+    @Test
+    public void uniformsAreCachedPerProgram() {
+        state.glUseProgram(1);
+        state.glUniform1i(0, 5);
+        state.glUseProgram(2);
+        state.glUniform1i(0, 7);
+        state.glUseProgram(1);
+        state.glUniform1i(0, 5);
+
+        assertEquals(2, gl.calls("glUniform1i"));
+    }
+
+    @Test
+    public void countsIssuedAndElided() {
+        state.beginFrame();
+        state.glEnable(GLES20.GL_BLEND);
+        state.glEnable(GLES20.GL_BLEND);
+        state.glDisable(GLES20.GL_BLEND);
+
+        assertEquals(2, state.getFrameIssued());
+        assertEquals(1, state.getFrameElided());
+        assertEquals(1, gl.calls("glEnable"));
+        assertEquals(1, gl.calls("glDisable"));
+    }
+}
@@ -0,0 +1,69 @@
+package com.dushyant.opengldemo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the rectangles {@link ImageLayout} places images in, for portrait and landscape
+ * surfaces and sizes that do not divide evenly.
+ */
+public class ImageLayoutTest {
+
+    @Test
+    public void fitLetterboxesAWideImageTopAndBottom() {
+        ImageLayout layout = ImageLayout.compute(ImageLayout.Mode.FIT, 1600, 900, 1080, 1920);
+        assertEquals(1080, layout.width);
+        assertEquals(608, layout.height);// 607.5 rounded
+        assertEquals(0, layout.x);
+        assertEquals(656, layout.y);
+    }
+
+    @Test
+    public void fitPillarboxesATallImage() {
+        ImageLayout layout = ImageLayout.compute(ImageLayout.Mode.FIT, 600, 800, 1920, 1080);
+        assertEquals(810, layout.width);
+        assertEquals(1080, layout.height);
+        assertEquals(555, layout.x);
+        assertEquals(0, layout.y);
+    }
+
+    @Test
+    public void fillCropsAndCoversTheSurface() {
+        ImageLayout layout = ImageLayout.compute(ImageLayout.Mode.FILL, 1600, 900, 1080, 1920);
+        assertEquals(1920, layout.height);
+        assertEquals(3413, layout.width);
+        assertEquals(-1167, layout.x);// (1080 - 3413) / 2 rounded down
+        assertEquals(0, layout.y);
+    }
+
+    @Test
+    public void sameAspectRatioCoversTheSurface() {
+        ImageLayout layout = ImageLayout.compute(ImageLayout.Mode.FIT, 540, 960, 1080, 1920);
+        assertEquals(ImageLayout.fullSurface(1080, 1920), layout);
+    }
+
+    @Test
+    public void centerKeepsThePixelSize() {
+        ImageLayout small = ImageLayout.compute(ImageLayout.Mode.CENTER, 101, 51, 1080, 1920);
+        assertEquals(101, small.width);
+        assertEquals(51, small.height);
+        assertEquals(489, small.x);
+        assertEquals(934, small.y);
+
+        ImageLayout large = ImageLayout.compute(ImageLayout.Mode.CENTER, 4000, 3000, 1080, 1920);
+        assertEquals(-1460, large.x);
+        assertEquals(-540, large.y);
+    }
+
+    @Test
+    public void unknownImageSizeUsesTheWholeSurface() {
+        assertEquals(ImageLayout.fullSurface(720, 1280), ImageLayout.compute(ImageLayout.Mode.FIT, 0, 0, 720, 1280));
+    }
+
+    @Test
+    public void thinImagesStayAtLeastOnePixel() {
+        ImageLayout layout = ImageLayout.compute(ImageLayout.Mode.FIT, 100000, 1, 1080, 1920);
+        assertEquals(1, layout.height);
+    }
+}
@@ -0,0 +1,120 @@
+package com.dushyant.opengldemo;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the bucket layout and percentile error of {@link LatencyHistogram} against exact
+ * percentiles, and that concurrent recording loses nothing.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsTileTheValueRange() {
+        for (int i = 0; i < LatencyHistogram.BUCKET_COUNT - 1; i++) {
+            assertEquals(i, LatencyHistogram.bucketIndex(LatencyHistogram.lowestValue(i)));
+            assertEquals(i, LatencyHistogram.bucketIndex(LatencyHistogram.highestValue(i)));
+            assertEquals(LatencyHistogram.highestValue(i) + 1, LatencyHistogram.lowestValue(i + 1));
+        }
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+        assertEquals(0, LatencyHistogram.bucketIndex(-5));
+    }
+
+    @Test
+    public void percentilesAreWithinTheBucketResolution() {
+        Random random = new Random(42);
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = new long[100000];
+        for (int i = 0; i < values.length; i++) {
+            // log-normal-ish frame times around a few milliseconds with a long tail
+            values[i] = (long) (4000000 * Math.exp(random.nextGaussian() * 0.8));
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(values.length, snapshot.getTotalCount());
+        assertEquals(values[values.length - 1], snapshot.getMax());
+        double[] percentiles = {1, 10, 50, 90, 99, 99.9, 100};
+        for (double percentile : percentiles) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long reported = snapshot.getValueAtPercentile(percentile);
+            assertTrue("p" + percentile + " " + reported + " < " + exact, reported >= exact);
+            assertTrue("p" + percentile + " " + reported + " vs " + exact,
+                    reported - exact <= exact / LatencyHistogram.SUB_BUCKETS);
+        }
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 50; i++) {
+            histogram.record(i);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(25, snapshot.getValueAtPercentile(50));
+        assertEquals(50, snapshot.getValueAtPercentile(99));
+        assertEquals(25.5, snapshot.getMean(), 1e-9);
+    }
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+        assertEquals(0, snapshot.getValueAtPercentile(99));
+        assertEquals(0, snapshot.getMax());
+        assertEquals(0, snapshot.getMean(), 0);
+    }
+
+    @Test
+    public void concurrentRecordingLosesNothing() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final int threads = 8;
+        final int perThread = 50000;
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final long base = t * 1000L;
+            workers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        histogram.record(base + i % 1000);
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals((long) threads * perThread, snapshot.getTotalCount());
+        assertEquals((threads - 1) * 1000L + 999, snapshot.getMax());
+        long expectedSum = 0;
+        for (int t = 0; t < threads; t++) {
+            expectedSum += (long) perThread * (t * 1000L) + (long) (perThread / 1000) * (999 * 1000 / 2);
+        }
+        assertEquals(expectedSum, snapshot.getSum());
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(123456);
+        histogram.reset();
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.snapshot().getMax());
+    }
+}
@@ -0,0 +1,158 @@
+package com.dushyant.opengldemo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks coalescing and ordering of {@link LatestValueMailbox}, single threaded with a manual
+ * executor and under contention with a real consumer thread, plus parameter changes through
+ * {@link EffectSelection}.
+ */
+public class LatestValueMailboxTest {
+
+    //runs deliveries when told to, like GLSurfaceView.queueEvent before the GL thread gets to them
+    private static class ManualExecutor implements Executor {
+        final List<Runnable> queued = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            queued.add(command);
+        }
+
+        void runAll() {
+            List<Runnable> batch = new ArrayList<>(queued);
+            queued.clear();
+            for (Runnable runnable : batch) {
+                runnable.run();
+            }
+        }
+    }
+
+    private static class Recorder<T> implements LatestValueMailbox.Receiver<T> {
+        final List<T> received = new ArrayList<>();
+
+        @Override
+        public void receive(T value) {
+            received.add(value);
+        }
+    }
+
+    @Test
+    public void burstCoalescesIntoOneDeliveryOfTheLastValue() {
+        ManualExecutor executor = new ManualExecutor();
+        Recorder<Integer> recorder = new Recorder<>();
+        LatestValueMailbox<Integer> mailbox = new LatestValueMailbox<>(executor, recorder);
+
+        for (int i = 0; i < 100; i++) {
+            mailbox.post(i);
+        }
+        assertEquals(1, executor.queued.size());
+        assertTrue(mailbox.hasPending());
+
+        executor.runAll();
+        assertEquals(1, recorder.received.size());
+        assertEquals(99, (int) recorder.received.get(0));
+        assertFalse(mailbox.hasPending());
+
+        //the next post after a delivery schedules again
+        mailbox.post(100);
+        executor.runAll();
+        assertEquals(100, (int) recorder.received.get(1));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void nullIsRejected() {
+        new LatestValueMailbox<>(new ManualExecutor(), new Recorder<Object>()).post(null);
+    }
+
+    @Test
+    public void concurrentProducersKeepOrderAndDeliverTheLastValue() throws Exception {
+        final int producers = 4;
+        final int posts = 20000;
+        ExecutorService consumer = Executors.newSingleThreadExecutor();
+        // only touched on the consumer thread until it is shut down
+        final Recorder<long[]> recorder = new Recorder<>();
+        final LatestValueMailbox<long[]> mailbox = new LatestValueMailbox<>(consumer, recorder);
+
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final long producer = p;
+            threads[p] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (long i = 0; i < posts; i++) {
+                        mailbox.post(new long[]{producer, i});
+                    }
+                }
+            });
+            threads[p].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        consumer.shutdown();
+        assertTrue(consumer.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertFalse(mailbox.hasPending());
+        assertTrue(recorder.received.size() <= producers * posts);
+        long[] last = new long[producers];
+        Arrays.fill(last, -1);
+        for (long[] value : recorder.received) {
+            int producer = (int) value[0];
+            assertTrue("out of order for producer " + producer, value[1] > last[producer]);
+            last[producer] = value[1];
+        }
+        //whatever was posted last is what the consumer ends up with
+        long[] delivered = recorder.received.get(recorder.received.size() - 1);
+        assertEquals(posts - 1, delivered[1]);
+    }
+
+    @Test
+    public void singleProducerAlwaysEndsOnItsLastPost() throws Exception {
+        ExecutorService consumer = Executors.newSingleThreadExecutor();
+        Recorder<Integer> recorder = new Recorder<>();
+        LatestValueMailbox<Integer> mailbox = new LatestValueMailbox<>(consumer, recorder);
+        for (int i = 0; i < 100000; i++) {
+            mailbox.post(i);
+        }
+        consumer.shutdown();
+        assertTrue(consumer.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(99999, (int) recorder.received.get(recorder.received.size() - 1));
+        for (int i = 1; i < recorder.received.size(); i++) {
+            assertTrue(recorder.received.get(i) > recorder.received.get(i - 1));
+        }
+    }
+
+    @Test
+    public void parameterChangesMakeANewCacheKey() {
+        EffectSelection contrast = EffectSelection.of(4);
+        EffectSelection stronger = contrast.withParam(0, "contrast", 2.0f);
+
+        assertEquals(4, stronger.position);
+        assertEquals(2.0f, stronger.pipeline.getStages().get(0).getParam("contrast"));
+        assertNotEquals(contrast.pipeline.key(), stronger.pipeline.key());
+        assertEquals(1.4f, contrast.pipeline.getStages().get(0).getParam("contrast"));
+
+        EffectSelection added = contrast.withParam(0, "extra", 1);
+        assertEquals(2, added.pipeline.getStages().get(0).getParamCount());
+        assertNull(EffectSelection.NONE.pipeline);
+    }
+}
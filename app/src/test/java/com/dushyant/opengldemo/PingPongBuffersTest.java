@@ -0,0 +1,64 @@
+package com.dushyant.opengldemo;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link PingPongBuffers} are pooled across frames instead of being made per pass.
+ */
+public class PingPongBuffersTest {
+
+    private FakeGLApi gl;
+    private GLResourceManager resources;
+    private PingPongBuffers buffers;
+
+    @Before
+    public void setUp() {
+        gl = new FakeGLApi();
+        resources = new GLResourceManager(gl, null);
+        resources.onSurfaceCreated();
+        buffers = new PingPongBuffers(resources);
+    }
+
+    @Test
+    public void buffersAreReusedAcrossFrames() {
+        buffers.ensure(2, 640, 480);
+        int texture = buffers.getTexture(0);
+        GLCallBudget budget = GLCallBudget.start(gl);
+        for (int frame = 0; frame < 100; frame++) {
+            buffers.ensure(2, 640, 480);
+        }
+        assertEquals(texture, buffers.getTexture(0));
+        budget.assertNoObjectChurn();
+        assertEquals(2, gl.calls("glTexImage2D"));
+    }
+
+    @Test
+    public void onlyAsManyAsThePlanNeeds() {
+        buffers.ensure(1, 640, 480);
+        assertNotEquals(0, buffers.getTexture(0));
+        assertEquals(0, buffers.getTexture(1));
+        assertEquals(1, resources.getOutstanding(GLResourceManager.Kind.FRAMEBUFFER));
+    }
+
+    @Test
+    public void resizeKeepsTheHandles() {
+        buffers.ensure(2, 640, 480);
+        int framebuffer = buffers.getFramebuffer(1);
+        buffers.ensure(2, 320, 240);
+
+        assertEquals(framebuffer, buffers.getFramebuffer(1));
+        assertEquals(4, gl.calls("glTexImage2D"));
+        assertEquals(2, gl.liveTextures.size());
+    }
+
+    @Test
+    public void releaseFreesEverything() {
+        buffers.ensure(2, 640, 480);
+        buffers.release();
+        assertEquals(0, resources.getOutstandingTotal());
+        gl.assertAllReleased();
+    }
+}
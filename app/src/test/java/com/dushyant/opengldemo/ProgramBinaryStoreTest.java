@@ -0,0 +1,107 @@
+package com.dushyant.opengldemo;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the on-disk format and the invalidation rules of {@link ProgramBinaryStore}.
+ */
+public class ProgramBinaryStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String KEY = ShaderProgramCache.key("vertex", "fragment");
+    private static final String DRIVER_A = ProgramBinaryStore.fingerprint("vendor", "gpu", "OpenGL ES 3.0 v1");
+    private static final String DRIVER_B = ProgramBinaryStore.fingerprint("vendor", "gpu", "OpenGL ES 3.0 v2");
+
+    private static ProgramBinaryStore.ProgramBinary binary() {
+        return new ProgramBinaryStore.ProgramBinary(42, new byte[]{1, 2, 3, 4, 5});
+    }
+
+    private File dir() {
+        return new File(folder.getRoot(), "binaries");
+    }
+
+    @Test
+    public void roundTrip() {
+        ProgramBinaryStore store = new ProgramBinaryStore(dir(), DRIVER_A);
+        assertNull(store.load(KEY));
+        assertTrue(store.save(KEY, binary()));
+
+        ProgramBinaryStore.ProgramBinary loaded = new ProgramBinaryStore(dir(), DRIVER_A).load(KEY);
+        assertNotNull(loaded);
+        assertEquals(42, loaded.format);
+        assertArrayEquals(binary().data, loaded.data);
+    }
+
+    @Test
+    public void driverUpdateWipesTheStore() {
+        new ProgramBinaryStore(dir(), DRIVER_A).save(KEY, binary());
+
+        ProgramBinaryStore updated = new ProgramBinaryStore(dir(), DRIVER_B);
+        assertNull(updated.load(KEY));
+        assertFalse(new File(dir(), KEY + ".bin").exists());
+    }
+
+    @Test
+    public void entryFromAnotherDriverIsRejected() throws IOException {
+        new ProgramBinaryStore(dir(), DRIVER_B).save(KEY, binary());
+        File entry = new File(dir(), KEY + ".bin");
+        File foreign = new File(folder.getRoot(), "foreign.bin");
+        assertTrue(entry.renameTo(foreign));
+
+        //the store itself is tagged A, but the entry was written by B
+        ProgramBinaryStore store = new ProgramBinaryStore(dir(), DRIVER_A);
+        assertTrue(foreign.renameTo(entry));
+        assertNull(store.load(KEY));
+        assertFalse(entry.exists());
+    }
+
+    @Test
+    public void corruptEntryIsDropped() throws IOException {
+        ProgramBinaryStore store = new ProgramBinaryStore(dir(), DRIVER_A);
+        store.save(KEY, binary());
+        File entry = new File(dir(), KEY + ".bin");
+        RandomAccessFile raf = new RandomAccessFile(entry, "rw");
+        try {
+            raf.seek(raf.length() - 1);
+            raf.write(99);
+        } finally {
+            raf.close();
+        }
+
+        assertNull(store.load(KEY));
+        assertFalse(entry.exists());
+    }
+
+    @Test
+    public void truncatedEntryIsDropped() throws IOException {
+        ProgramBinaryStore store = new ProgramBinaryStore(dir(), DRIVER_A);
+        store.save(KEY, binary());
+        File entry = new File(dir(), KEY + ".bin");
+        RandomAccessFile raf = new RandomAccessFile(entry, "rw");
+        try {
+            raf.setLength(raf.length() - 3);
+        } finally {
+            raf.close();
+        }
+
+        assertNull(store.load(KEY));
+    }
+
+    @Test
+    public void keysDependOnBothShaders() {
+        assertEquals(KEY, ShaderProgramCache.key("vertex", "fragment"));
+        assertNotEquals(KEY, ShaderProgramCache.key("fragment", "vertex"));
+        assertNotEquals(ShaderProgramCache.key("ab", "c"), ShaderProgramCache.key("a", "bc"));
+        assertEquals(40, KEY.length());
+    }
+}
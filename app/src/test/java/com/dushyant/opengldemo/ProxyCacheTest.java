@@ -0,0 +1,110 @@
+package com.dushyant.opengldemo;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the proxy sizes and the eviction of {@link ProxyCache}.
+ */
+public class ProxyCacheTest {
+
+    private static class FakeAllocator implements EffectResultCache.TextureAllocator {
+        int nextName = 1;
+        final Set<Integer> live = new HashSet<>();
+
+        @Override
+        public int allocate(int width, int height) {
+            live.add(nextName);
+            return nextName++;
+        }
+
+        @Override
+        public void free(int textureId) {
+            assertTrue("freed unknown texture " + textureId, live.remove(textureId));
+        }
+    }
+
+    private static final int W = 2000;
+    private static final int H = 1001;
+    // 500 x 251 RGBA
+    private static final long PROXY_BYTES = 500 * 251 * 4;
+
+    private static final String SEPIA = new EffectPipeline(new EffectDescriptor("sepia")).key();
+    private static final String NEGATIVE = new EffectPipeline(new EffectDescriptor("negative")).key();
+    private static final String GRAIN = new EffectPipeline(new EffectDescriptor("grain", "strength", 1.0f)).key();
+
+    private FakeAllocator allocator;
+    private ProxyCache cache;
+
+    @Before
+    public void setUp() {
+        allocator = new FakeAllocator();
+        cache = new ProxyCache(allocator, 2 * PROXY_BYTES);
+        cache.onSourceChanged(1, W, H);
+    }
+
+    @Test
+    public void proxyIsAQuarterOfEachSide() {
+        assertEquals(500, cache.getWidth());
+        assertEquals(251, cache.getHeight());
+        assertEquals(1, ProxyCache.proxyDimension(3));
+    }
+
+    @Test
+    public void smallImagesAreNotPreviewed() {
+        assertFalse(ProxyCache.shouldPreview(480, 320));
+        assertTrue(ProxyCache.shouldPreview(W, H));
+    }
+
+    @Test
+    public void leastRecentlyUsedPreviewIsEvicted() {
+        int sepia = cache.allocateResult(SEPIA);
+        cache.allocateResult(NEGATIVE);
+        // touch sepia, negative is now the oldest
+        assertEquals(sepia, cache.getResult(SEPIA));
+        cache.allocateResult(GRAIN);
+
+        assertEquals(2, cache.size());
+        assertEquals(sepia, cache.getResult(SEPIA));
+        assertEquals(0, cache.getResult(NEGATIVE));
+        assertNotEquals(0, cache.getResult(GRAIN));
+    }
+
+    @Test
+    public void proxyOutlivesEvictions() {
+        int proxy = cache.allocateProxy();
+        cache.allocateResult(SEPIA);
+        cache.allocateResult(NEGATIVE);
+        cache.allocateResult(GRAIN);
+
+        assertEquals(proxy, cache.getProxy());
+        assertEquals(3 * PROXY_BYTES, cache.getUsedBytes());
+        assertEquals(3, allocator.live.size());
+    }
+
+    @Test
+    public void newSourceFreesProxyAndPreviews() {
+        cache.allocateProxy();
+        cache.allocateResult(SEPIA);
+        cache.onSourceChanged(2, 400, 400);
+
+        assertEquals(0, cache.getProxy());
+        assertEquals(0, cache.getResult(SEPIA));
+        assertTrue(allocator.live.isEmpty());
+        assertEquals(100, cache.getWidth());
+    }
+
+    @Test
+    public void releaseAllFreesEverything() {
+        cache.allocateProxy();
+        cache.allocateResult(SEPIA);
+        cache.releaseAll();
+        assertTrue(allocator.live.isEmpty());
+        assertEquals(0, cache.getUsedBytes());
+    }
+}
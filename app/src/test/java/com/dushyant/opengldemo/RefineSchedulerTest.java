@@ -0,0 +1,165 @@
+package com.dushyant.opengldemo;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives {@link RefineScheduler} with a fake clock whose delayed tasks run when time is
+ * advanced past them, the way View.postDelayed runs them on the UI thread.
+ */
+public class RefineSchedulerTest {
+
+    private static final long DELAY = TimeUnit.MILLISECONDS.toNanos(150);
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final String SEPIA = new EffectPipeline(new EffectDescriptor("sepia")).key();
+    private static final String GRAIN = new EffectPipeline(new EffectDescriptor("grain", "strength", 1.0f)).key();
+    private static final String FISHEYE = new EffectPipeline(new EffectDescriptor("fisheye", "scale", 0.5f)).key();
+
+    private static class FakeTimer implements FrameStats.Clock, RefineScheduler.Delayer {
+        long now = 1000 * MS;
+        final List<Runnable> tasks = new ArrayList<>();
+        final List<Long> dueTimes = new ArrayList<>();
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+
+        @Override
+        public void postDelayed(Runnable task, long delayMillis) {
+            tasks.add(task);
+            dueTimes.add(now + delayMillis * MS);
+        }
+
+        @Override
+        public void remove(Runnable task) {
+            int index = tasks.indexOf(task);
+            if (index >= 0) {
+                tasks.remove(index);
+                dueTimes.remove(index);
+            }
+        }
+
+        //moves the clock forward and runs the tasks that came due
+        void advance(long nanos) {
+            now += nanos;
+            Iterator<Runnable> task = tasks.iterator();
+            Iterator<Long> due = dueTimes.iterator();
+            List<Runnable> run = new ArrayList<>();
+            while (task.hasNext()) {
+                Runnable next = task.next();
+                if (due.next() <= now) {
+                    run.add(next);
+                    task.remove();
+                    due.remove();
+                }
+            }
+            for (Runnable r : run) {
+                r.run();
+            }
+        }
+    }
+
+    private FakeTimer timer;
+    private int renderRequests;
+    private RefineScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        timer = new FakeTimer();
+        scheduler = new RefineScheduler(timer, timer, new Runnable() {
+            @Override
+            public void run() {
+                renderRequests++;
+            }
+        }, DELAY);
+    }
+
+    @Test
+    public void refineIsDueAfterTheDelay() {
+        scheduler.schedule(SEPIA);
+        assertFalse(scheduler.isDue(SEPIA));
+        timer.advance(DELAY - MS);
+        assertFalse(scheduler.isDue(SEPIA));
+        assertEquals(0, renderRequests);
+
+        timer.advance(MS);
+        assertEquals(1, renderRequests);
+        assertTrue(scheduler.isDue(SEPIA));
+        assertFalse(scheduler.isDue(GRAIN));
+
+        scheduler.onRefined(SEPIA);
+        assertFalse(scheduler.isPending());
+        assertFalse(scheduler.isDue(SEPIA));
+        assertEquals(1, scheduler.getRefined());
+    }
+
+    @Test
+    public void newSelectionCancelsThePendingRefine() {
+        scheduler.schedule(SEPIA);
+        timer.advance(100 * MS);
+        scheduler.schedule(GRAIN);
+        timer.advance(100 * MS);
+        scheduler.schedule(FISHEYE);
+        assertEquals(2, scheduler.getCancelled());
+        assertEquals(1, timer.tasks.size());
+
+        // the cancelled refines never ask for a frame, the last one does after its own delay
+        timer.advance(DELAY - MS);
+        assertEquals(0, renderRequests);
+        assertFalse(scheduler.isDue(SEPIA));
+        assertFalse(scheduler.isDue(GRAIN));
+        timer.advance(MS);
+        assertEquals(1, renderRequests);
+        assertTrue(scheduler.isDue(FISHEYE));
+    }
+
+    @Test
+    public void redrawingThePreviewKeepsTheDeadline() {
+        scheduler.schedule(SEPIA);
+        timer.advance(100 * MS);
+        // e.g. the surface was redrawn while the preview was up
+        scheduler.schedule(SEPIA);
+        timer.advance(50 * MS);
+        assertTrue(scheduler.isDue(SEPIA));
+        assertEquals(1, scheduler.getScheduled());
+    }
+
+    @Test
+    public void cancelDropsTheTask() {
+        scheduler.schedule(SEPIA);
+        scheduler.cancel();
+        scheduler.cancel();
+        assertEquals(1, scheduler.getCancelled());
+        assertTrue(timer.tasks.isEmpty());
+        timer.advance(DELAY);
+        assertEquals(0, renderRequests);
+        assertFalse(scheduler.isDue(SEPIA));
+    }
+
+    @Test
+    public void taskRunningEarlyStillRefines() {
+        scheduler.schedule(SEPIA);
+        // a timer on another clock may run the task a little before this clock reaches the deadline
+        timer.tasks.get(0).run();
+        assertEquals(1, renderRequests);
+        assertTrue(scheduler.isDue(SEPIA));
+    }
+
+    @Test
+    public void refiningByTheClockRemovesTheTask() {
+        scheduler.schedule(SEPIA);
+        timer.now += DELAY;
+        assertTrue(scheduler.isDue(SEPIA));
+        scheduler.onRefined(SEPIA);
+        assertTrue(timer.tasks.isEmpty());
+    }
+}
@@ -0,0 +1,114 @@
+package com.dushyant.opengldemo;
+
+import android.media.effect.EffectFactory;
+import android.opengl.GLES20;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Per-frame GL call budgets of the steady-state screen draws, through {@link GLStateCache} as in
+ * the app. The budgets are what the paths cost today: a change that adds calls to every frame
+ * fails here and has to raise the budget on purpose.
+ */
+public class RenderBudgetTest {
+
+    private static final int FRAMES = 50;
+
+    private FakeGLApi gl;
+    private GLStateCache state;
+    private GLResourceManager resources;
+    private GLTextureRenderer renderer;
+    private int texture;
+
+    @Before
+    public void setUp() {
+        gl = new FakeGLApi();
+        state = new GLStateCache(gl);
+        resources = new GLResourceManager(state, null);
+        resources.onSurfaceCreated();
+        renderer = new GLTextureRenderer(state);
+        renderer.initializeOpenGL(resources);
+        renderer.setViewportSize(1080, 1920);
+        texture = resources.genTexture();
+        state.glBindTexture(GLES20.GL_TEXTURE_2D, texture);
+    }
+
+    @After
+    public void tearDown() {
+        gl.assertNoMisuse();
+        resources.releaseAll();
+        gl.assertAllReleased();
+    }
+
+    @Test
+    public void imageCoveringTheScreen() {
+        renderer.setContentSize(540, 960);
+        renderer.renderTexture(texture);
+        GLCallBudget budget = GLCallBudget.start(gl);
+        for (int i = 0; i < FRAMES; i++) {
+            state.beginFrame();
+            renderer.renderTexture(texture);
+        }
+        // clear and draw, the screen is cleared every frame
+        budget.assertAtMost(2, FRAMES);
+        assertEquals(FRAMES, budget.calls("glClear"));
+        budget.assertNoObjectChurn();
+    }
+
+    @Test
+    public void letterboxedImage() {
+        renderer.setContentSize(1600, 900);
+        renderer.renderTexture(texture);
+        GLCallBudget budget = GLCallBudget.start(gl);
+        for (int i = 0; i < FRAMES; i++) {
+            state.beginFrame();
+            renderer.renderTexture(texture);
+        }
+        // clear and draw
+        budget.assertAtMost(2, FRAMES);
+        assertEquals(FRAMES, budget.calls("glClear"));
+        assertEquals(0, gl.boundFramebuffer);
+        assertArrayEquals(new int[]{0, 656, 1080, 608}, gl.viewport);
+    }
+
+    @Test
+    public void colorPassOnTheScreen() {
+        ColorPass pass = new EffectPipeline(new EffectDescriptor(EffectFactory.EFFECT_SEPIA),
+                new EffectDescriptor(EffectFactory.EFFECT_CONTRAST, "contrast", 1.5f)).plan().getDirectPass();
+        renderer.setContentSize(540, 960);
+        renderer.renderTexture(texture, pass);
+        GLCallBudget budget = GLCallBudget.start(gl);
+        for (int i = 0; i < FRAMES; i++) {
+            state.beginFrame();
+            renderer.renderTexture(texture, pass);
+        }
+        // clear and draw, unchanged uniforms are elided too
+        budget.assertAtMost(2, FRAMES);
+        budget.assertNoObjectChurn();
+    }
+
+    @Test
+    public void switchingBetweenImageAndPass() {
+        ColorPass pass = new EffectPipeline(new EffectDescriptor(EffectFactory.EFFECT_NEGATIVE)).plan().getDirectPass();
+        renderer.setContentSize(540, 960);
+        renderer.renderTexture(texture);
+        renderer.renderTexture(texture, pass);
+        GLCallBudget budget = GLCallBudget.start(gl);
+        for (int i = 0; i < FRAMES; i++) {
+            state.beginFrame();
+            if (i % 2 == 0) {
+                renderer.renderTexture(texture);
+            } else {
+                renderer.renderTexture(texture, pass);
+            }
+        }
+        budget.assertNoObjectChurn();
+        // clear, draw and the program, the fake gives both the same attribute locations
+        budget.assertAtMost(3, FRAMES);
+        budget.assertNone("glBindTexture", "glBindBuffer", "glBufferData");
+    }
+}
@@ -0,0 +1,101 @@
+package com.dushyant.opengldemo;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks deduplication and binary reuse of {@link ShaderProgramCache} against {@link FakeGLApi}.
+ */
+public class ShaderProgramCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String VS = "void main() { gl_Position = vec4(0.0); }";
+    private static final String FS = "void main() { gl_FragColor = vec4(1.0); }";
+
+    private FakeGLApi gl;
+    private File dir;
+
+    @Before
+    public void setUp() {
+        gl = new FakeGLApi();
+        gl.programBinarySupported = true;
+        dir = new File(folder.getRoot(), "binaries");
+    }
+
+    private ProgramBinaryStore store() {
+        return new ProgramBinaryStore(dir, ProgramBinaryStore.fingerprint("v", "r", gl.version));
+    }
+
+    @Test
+    public void sameSourcesLinkOnce() {
+        ShaderProgramCache cache = new ShaderProgramCache(gl, null);
+        int program = cache.obtain(VS, FS);
+        assertEquals(program, cache.obtain(VS, FS));
+        assertNotEquals(program, cache.obtain(VS, "void main() {}"));
+
+        assertEquals(2, gl.links);
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void nextLaunchLoadsTheBinary() {
+        new ShaderProgramCache(gl, store()).obtain(VS, FS);
+        assertEquals(1, gl.links);
+
+        //new context, new process: nothing in memory but the store
+        ShaderProgramCache relaunched = new ShaderProgramCache(gl, store());
+        assertNotEquals(0, relaunched.obtain(VS, FS));
+        assertEquals(1, gl.links);
+        assertEquals(1, relaunched.getBinaryHits());
+        assertEquals(0, relaunched.getMisses());
+    }
+
+    @Test
+    public void driverUpdateFallsBackToSource() {
+        new ShaderProgramCache(gl, store()).obtain(VS, FS);
+        gl.version = "OpenGL ES 3.0 fake update";
+
+        ShaderProgramCache relaunched = new ShaderProgramCache(gl, store());
+        relaunched.obtain(VS, FS);
+        assertEquals(0, relaunched.getBinaryHits());
+        assertEquals(1, relaunched.getMisses());
+        assertEquals(2, gl.links);
+    }
+
+    @Test
+    public void rejectedBinaryIsRecompiledAndReplaced() {
+        ProgramBinaryStore store = store();
+        //same fingerprint but the driver refuses the bytes
+        store.save(ShaderProgramCache.key(VS, FS), new ProgramBinaryStore.ProgramBinary(FakeGLApi.BINARY_FORMAT, new byte[]{7}));
+
+        ShaderProgramCache cache = new ShaderProgramCache(gl, store);
+        int program = cache.obtain(VS, FS);
+        assertNotEquals(0, program);
+        assertEquals(1, gl.binaryLoads);
+        assertEquals(1, cache.getMisses());
+        assertFalse(gl.livePrograms.size() > 1);//the refused program is not leaked
+
+        ShaderProgramCache relaunched = new ShaderProgramCache(gl, store());
+        relaunched.obtain(VS, FS);
+        assertEquals(1, relaunched.getBinaryHits());
+    }
+
+    @Test
+    public void withoutDriverSupportNothingIsPersisted() {
+        gl.programBinarySupported = false;
+        ShaderProgramCache cache = new ShaderProgramCache(gl, store());
+        cache.obtain(VS, FS);
+
+        assertFalse(cache.isPersistent());
+        assertFalse(new File(dir, ShaderProgramCache.key(VS, FS) + ".bin").exists());
+    }
+}
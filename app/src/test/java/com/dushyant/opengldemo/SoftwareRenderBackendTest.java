@@ -0,0 +1,178 @@
+package com.dushyant.opengldemo;
+
+import android.media.effect.EffectFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.*;
+
+/**
+ * Renders puppy.jpg sized frames with {@link SoftwareRenderBackend} and checks them against
+ * golden checksums, and that tiling across threads does not change a single pixel.
+ *
+ * The goldens are CRC32s of the ARGB output for {@link #source()}. When a kernel changes on
+ * purpose, print {@link #checksum(int[])} of the new output and update the table.
+ */
+public class SoftwareRenderBackendTest {
+
+    //res/drawable/puppy.jpg
+    private static final int W = 996;
+    private static final int H = 664;
+
+    //spinner position and expected checksum of the effect applied to source()
+    private static final long[][] GOLDEN = {
+            {3, 1370650623L},//Brightness
+            {4, 124069103L},//Contrast
+            {10, 2015075442L},//Flip Vertical
+            {11, 1835746357L},//Flip Horizontal
+            {13, 1834578413L},//GrayScale
+            {15, 2549570841L},//Negative
+            {17, 2572616295L},//Rotate
+            {18, 3384300401L},//Saturate
+            {19, 2175030808L},//Sepia
+            {20, 2341053745L},//Sharpen
+            {21, 600995860L},//Temperature
+            {22, 1552681013L},//Tint
+            {25, 2957164272L},//Warm Boost
+    };
+
+    private SoftwareRenderBackend tiled;
+    private SoftwareRenderBackend untiled;
+
+    @Before
+    public void setUp() {
+        tiled = new SoftwareRenderBackend(4);
+        untiled = new SoftwareRenderBackend(1);
+    }
+
+    @After
+    public void tearDown() {
+        tiled.release();
+        untiled.release();
+    }
+
+    //deterministic stand-in for the decoded photo: gradients plus a high frequency pattern
+    static int[] source() {
+        int[] pixels = new int[W * H];
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                int r = x * 255 / (W - 1);
+                int g = y * 255 / (H - 1);
+                int b = ((x ^ y) * 7) & 0xFF;
+                pixels[y * W + x] = 0xFF000000 | r << 16 | g << 8 | b;
+            }
+        }
+        return pixels;
+    }
+
+    static long checksum(int[] pixels) {
+        CRC32 crc = new CRC32();
+        for (int pixel : pixels) {
+            crc.update(pixel >>> 24);
+            crc.update(pixel >>> 16);
+            crc.update(pixel >>> 8);
+            crc.update(pixel);
+        }
+        return crc.getValue();
+    }
+
+    private static int[] render(RenderBackend backend, EffectPipeline pipeline) {
+        int source = backend.createImage(W, H);
+        int target = backend.createImage(W, H);
+        backend.writePixels(source, source());
+        backend.applyEffects(pipeline.plan(), source, target);
+        int[] result = new int[W * H];
+        backend.readPixels(target, result);
+        return result;
+    }
+
+    @Test
+    public void matchesGoldens() {
+        for (long[] golden : GOLDEN) {
+            EffectPipeline pipeline = EffectDescriptors.get((int) golden[0]);
+            assertEquals(pipeline.toString(), golden[1], checksum(render(tiled, pipeline)));
+        }
+    }
+
+    @Test
+    public void tilingDoesNotChangeTheResult() {
+        for (long[] golden : GOLDEN) {
+            EffectPipeline pipeline = EffectDescriptors.get((int) golden[0]);
+            assertArrayEquals(pipeline.toString(), render(untiled, pipeline), render(tiled, pipeline));
+        }
+    }
+
+    @Test
+    public void colorPassesMatchTheReference() {
+        EffectPipeline pipeline = EffectDescriptors.get(25);
+        int[] expected = source();
+        pipeline.plan().getDirectPass().apply(expected, 0, expected.length);
+        assertArrayEquals(expected, render(tiled, pipeline));
+    }
+
+    @Test
+    public void emptyPlanCopies() {
+        assertArrayEquals(source(), render(tiled, new EffectPipeline()));
+    }
+
+    @Test
+    public void halfTurnTwiceIsIdentity() {
+        EffectDescriptor rotate = new EffectDescriptor(EffectFactory.EFFECT_ROTATE, "angle", 180);
+        assertArrayEquals(source(), render(tiled, new EffectPipeline(rotate, rotate)));
+    }
+
+    @Test
+    public void drawToOutputStretchesNearest() {
+        int image = tiled.createImage(2, 1);
+        tiled.writePixels(image, new int[]{0xFFFF0000, 0xFF0000FF});
+        tiled.setOutputSize(4, 2);
+        tiled.drawToOutput(image, null);
+        int[] output = new int[8];
+        tiled.readPixels(RenderBackend.OUTPUT, output);
+        assertArrayEquals(new int[]{
+                0xFFFF0000, 0xFFFF0000, 0xFF0000FF, 0xFF0000FF,
+                0xFFFF0000, 0xFFFF0000, 0xFF0000FF, 0xFF0000FF}, output);
+    }
+
+    @Test
+    public void drawToOutputAppliesThePass() {
+        int image = untiled.createImage(W, H);
+        untiled.writePixels(image, source());
+        untiled.setOutputSize(W, H);
+        ColorPass negative = EffectDescriptors.get(15).plan().getDirectPass();
+        untiled.drawToOutput(image, negative);
+
+        int[] expected = source();
+        negative.apply(expected, 0, expected.length);
+        int[] output = new int[W * H];
+        untiled.readPixels(RenderBackend.OUTPUT, output);
+        assertArrayEquals(expected, output);
+    }
+
+    @Test
+    public void unsupportedEffectsFailUpFront() {
+        int source = tiled.createImage(W, H);
+        int target = tiled.createImage(W, H);
+        int[] before = new int[W * H];
+        tiled.readPixels(target, before);
+        try {
+            //autofix has no software kernel
+            tiled.applyEffects(EffectDescriptors.get(24).plan(), source, target);
+            fail();
+        } catch (UnsupportedOperationException expected) {
+            int[] after = new int[W * H];
+            tiled.readPixels(target, after);
+            assertArrayEquals(before, after);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sourceAndTargetMustDiffer() {
+        int image = tiled.createImage(W, H);
+        tiled.applyEffects(EffectDescriptors.get(15).plan(), image, image);
+    }
+}
@@ -0,0 +1,197 @@
+package com.dushyant.opengldemo;
+
+import android.media.effect.Effect;
+import android.media.effect.EffectFactory;
+import android.opengl.GLES20;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link StreamRenderer} draws stream frames through the external texture without
+ * making GL objects per frame.
+ */
+public class StreamRendererTest {
+
+    private static final int FRAMES = 100;
+
+    private FakeGLApi gl;
+    private GLResourceManager resources;
+    private FrameSchedulerTest.FakeFrameSource source;
+    private FrameScheduler scheduler;
+    private StreamRenderer stream;
+    private int externalTexture;
+
+    //records the textures each apply reads and writes instead of running an effect
+    private static class FakeEffect extends Effect {
+        final String name;
+        int applied;
+        int input;
+        int output;
+
+        FakeEffect(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public void apply(int inputTexId, int width, int height, int outputTexId) {
+            applied++;
+            input = inputTexId;
+            output = outputTexId;
+            assertEquals(1280, width);
+            assertEquals(720, height);
+        }
+
+        @Override
+        public void setParameter(String parameterKey, Object value) {
+        }
+
+        @Override
+        public void release() {
+        }
+    }
+
+    private static class FakeEffectFactory implements EffectRegistry.Factory<Effect> {
+        final List<FakeEffect> created = new ArrayList<>();
+
+        @Override
+        public Effect create(EffectDescriptor descriptor) {
+            FakeEffect effect = new FakeEffect(descriptor.getEffectName());
+            created.add(effect);
+            return effect;
+        }
+
+        @Override
+        public void release(Effect effect) {
+        }
+    }
+
+    @Before
+    public void setUp() {
+        gl = new FakeGLApi();
+        GLStateCache cache = new GLStateCache(gl);
+        resources = new GLResourceManager(cache, null);
+        resources.onSurfaceCreated();
+        GLTextureRenderer renderer = new GLTextureRenderer(cache);
+        renderer.initializeOpenGL(resources);
+        renderer.setViewportSize(1080, 1920);
+        FrameStats stats = new FrameStats();
+        source = new FrameSchedulerTest.FakeFrameSource();
+        scheduler = new FrameScheduler(source, new Runnable() {
+            @Override
+            public void run() {
+            }
+        }, stats, FrameStats.SYSTEM_CLOCK, true);
+        externalTexture = StreamRenderer.createExternalTexture(resources);
+        stream = new StreamRenderer(resources, renderer, new EffectChain(cache, resources, renderer), scheduler,
+                stats, externalTexture, 1280, 720);
+    }
+
+    private boolean frame(EffectPipeline pipeline, EffectRegistry<Effect> registry) {
+        source.produce(System.nanoTime());
+        scheduler.onFrameAvailable();
+        return stream.drawFrame(pipeline, registry);
+    }
+
+    private boolean frame(EffectPipeline pipeline) {
+        return frame(pipeline, null);
+    }
+
+    @Test
+    public void nothingIsDrawnBeforeTheFirstFrame() {
+        assertFalse(stream.drawFrame(null, null));
+        assertEquals(0, gl.drawCalls);
+    }
+
+    @Test
+    public void plainFramesReuseEverything() {
+        assertTrue(frame(null));
+        GLCallBudget budget = GLCallBudget.start(gl);
+        for (int i = 0; i < FRAMES; i++) {
+            assertTrue(frame(null));
+        }
+        budget.assertNoObjectChurn();
+        gl.assertNoMisuse();
+        assertEquals(FRAMES + 1, gl.drawCalls);
+        assertEquals(FRAMES + 1, source.updates);
+    }
+
+    @Test
+    public void colorEffectsAreAppliedInTheScreenPass() {
+        EffectPipeline pipeline = new EffectPipeline(new EffectDescriptor(EffectFactory.EFFECT_SEPIA),
+                new EffectDescriptor(EffectFactory.EFFECT_CONTRAST, "contrast", 1.5f));
+        assertNotNull(pipeline.plan().getDirectPass());
+        assertTrue(frame(pipeline));
+        GLCallBudget budget = GLCallBudget.start(gl);
+        for (int i = 0; i < FRAMES; i++) {
+            assertTrue(frame(pipeline));
+        }
+        budget.assertNoObjectChurn();
+        gl.assertNoMisuse();
+        // one pass per frame, no copy into a texture
+        assertEquals(FRAMES + 1, gl.drawCalls);
+        assertEquals(0, resources.getOutstanding(GLResourceManager.Kind.FRAMEBUFFER));
+    }
+
+    @Test
+    public void otherEffectsRunOnACopyOfTheFrame() {
+        FakeEffectFactory factory = new FakeEffectFactory();
+        EffectRegistry<Effect> registry = new EffectRegistry<>(factory, 4);
+        EffectPipeline pipeline = new EffectPipeline(new EffectDescriptor(EffectFactory.EFFECT_VIGNETTE, "scale", .5f));
+        assertNull(pipeline.plan().getDirectPass());
+
+        assertTrue(frame(pipeline, registry));
+        FakeEffect vignette = factory.created.get(0);
+        assertEquals(1, vignette.applied);
+        // the external frame is drawn into the 2D texture the effect reads, then its output to the screen
+        assertNotEquals(externalTexture, vignette.input);
+        assertTrue(gl.liveTextures.contains(vignette.input));
+        assertTrue(gl.liveTextures.contains(vignette.output));
+        assertNotEquals(vignette.input, vignette.output);
+        assertEquals(2, gl.drawTargets.size());
+        assertEquals(vignette.input, (int) gl.drawTargets.get(0));
+        assertEquals(0, (int) gl.drawTargets.get(1));
+        assertEquals(externalTexture, gl.boundTexture(0, GLStateCache.GL_TEXTURE_EXTERNAL_OES));
+        assertEquals(vignette.output, gl.boundTexture(0, GLES20.GL_TEXTURE_2D));
+
+        GLCallBudget budget = GLCallBudget.start(gl);
+        for (int i = 0; i < FRAMES; i++) {
+            assertTrue(frame(pipeline, registry));
+        }
+        budget.assertNoObjectChurn();
+        gl.assertNoMisuse();
+        // the copy and the screen draw every frame, on the same textures, with the effect made once
+        assertEquals(2 * (FRAMES + 1), gl.drawCalls);
+        assertEquals(1, factory.created.size());
+        assertEquals(FRAMES + 1, vignette.applied);
+        assertEquals(vignette.input, (int) gl.drawTargets.get(gl.drawTargets.size() - 2));
+        assertEquals(1, resources.getOutstanding(GLResourceManager.Kind.FRAMEBUFFER));
+    }
+
+    @Test
+    public void releaseFreesTheStreamTextures() {
+        int before = resources.getOutstanding(GLResourceManager.Kind.TEXTURE);
+        frame(null);
+        stream.release();
+        assertEquals(before - 1, resources.getOutstanding(GLResourceManager.Kind.TEXTURE));
+    }
+
+    @Test
+    public void externalShaderSamplesTheExternalTexture() {
+        String shader = GLTextureRenderer.externalVariant(
+                "precision mediump float;\nuniform sampler2D tex_sampler;\nvoid main() {}\n");
+        assertTrue(shader.startsWith("#extension GL_OES_EGL_image_external : require\n"));
+        assertTrue(shader.contains("uniform samplerExternalOES tex_sampler;"));
+        assertFalse(shader.contains("sampler2D"));
+    }
+}
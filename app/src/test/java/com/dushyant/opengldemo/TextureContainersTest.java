@@ -0,0 +1,130 @@
+package com.dushyant.opengldemo;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Reads the KTX and PKM samples in test resources/textures, which were written by hand from the
+ * specs: a 6x5 ETC1 PKM, a 16x8 ETC2 RGBA KTX with its full mip chain and key/value data, and
+ * a big endian 4x4 ETC1 KTX.
+ */
+public class TextureContainersTest {
+
+    private static byte[] sample(String name) throws IOException {
+        InputStream in = TextureContainersTest.class.getResourceAsStream("/textures/" + name);
+        assertNotNull(name, in);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[256];
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    private static CompressedTexture read(byte[] bytes) throws IOException {
+        return TextureContainers.read(new ByteArrayInputStream(bytes));
+    }
+
+    @Test
+    public void readsPkm() throws IOException {
+        CompressedTexture texture = read(sample("etc1_6x5.pkm"));
+        assertEquals(CompressedTexture.GL_ETC1_RGB8_OES, texture.internalFormat);
+        assertEquals(6, texture.width);
+        assertEquals(5, texture.height);
+        assertEquals(1, texture.getLevelCount());
+        // 2x2 blocks of 8 bytes, the partial blocks are whole in the file
+        assertEquals(32, texture.getLevel(0).length);
+        assertFalse(texture.hasFullMipChain());
+    }
+
+    @Test
+    public void readsKtxMipChain() throws IOException {
+        CompressedTexture texture = read(sample("etc2_rgba_16x8_mips.ktx"));
+        assertEquals(CompressedTexture.GL_COMPRESSED_RGBA8_ETC2_EAC, texture.internalFormat);
+        assertEquals(16, texture.width);
+        assertEquals(8, texture.height);
+        assertEquals(5, texture.getLevelCount());
+        assertTrue(texture.hasFullMipChain());
+        int[] sizes = {128, 32, 16, 16, 16};
+        for (int i = 0; i < sizes.length; i++) {
+            assertEquals(sizes[i], texture.getLevel(i).length);
+        }
+        assertEquals(1, texture.getLevelWidth(4));
+        assertEquals(1, texture.getLevelHeight(3));
+    }
+
+    @Test
+    public void readsBigEndianKtx() throws IOException {
+        CompressedTexture texture = read(sample("etc1_4x4_big_endian.ktx"));
+        assertEquals(CompressedTexture.GL_ETC1_RGB8_OES, texture.internalFormat);
+        assertEquals(4, texture.width);
+        // numberOfMipmapLevels 0 still has the one level
+        assertEquals(1, texture.getLevelCount());
+        assertEquals(8, texture.getLevel(0).length);
+    }
+
+    @Test
+    public void writtenKtxReadsBack() throws IOException {
+        CompressedTexture texture = read(sample("etc2_rgba_16x8_mips.ktx"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TextureContainers.writeKtx(texture, out);
+
+        CompressedTexture copy = read(out.toByteArray());
+        assertEquals(texture.internalFormat, copy.internalFormat);
+        assertEquals(texture.width, copy.width);
+        assertEquals(texture.height, copy.height);
+        assertEquals(texture.getLevelCount(), copy.getLevelCount());
+        for (int i = 0; i < texture.getLevelCount(); i++) {
+            assertArrayEquals(texture.getLevel(i), copy.getLevel(i));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedFileFails() throws IOException {
+        byte[] bytes = sample("etc2_rgba_16x8_mips.ktx");
+        read(Arrays.copyOf(bytes, bytes.length - 20));
+    }
+
+    @Test(expected = IOException.class)
+    public void unknownFormatFails() throws IOException {
+        byte[] bytes = sample("etc1_4x4_big_endian.ktx");
+        // glInternalFormat, big endian, at byte 28
+        bytes[30] = 0x12;
+        read(bytes);
+    }
+
+    @Test(expected = IOException.class)
+    public void levelSizeMustMatchTheFormat() throws IOException {
+        byte[] bytes = sample("etc1_4x4_big_endian.ktx");
+        // imageSize of level 0 right after the 64 byte header
+        bytes[67] = 16;
+        read(bytes);
+    }
+
+    @Test(expected = IOException.class)
+    public void hugeSizeIsRejectedBeforeAllocating() throws IOException {
+        byte[] bytes = sample("etc1_6x5.pkm");
+        // width and padded width 0xFFFC
+        bytes[8] = (byte) 0xFF;
+        bytes[9] = (byte) 0xFC;
+        bytes[12] = (byte) 0xFF;
+        bytes[13] = (byte) 0xFC;
+        read(bytes);
+    }
+
+    @Test(expected = IOException.class)
+    public void otherFilesAreRejected() throws IOException {
+        read("\u0089PNG\r\n\u001a\n0000000000".getBytes("ISO-8859-1"));
+    }
+}
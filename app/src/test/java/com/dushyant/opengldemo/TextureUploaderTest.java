@@ -0,0 +1,92 @@
+package com.dushyant.opengldemo;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks which uploads of {@link TextureUploader} get mipmaps, depending on the size and what
+ * the fake driver claims to support.
+ */
+public class TextureUploaderTest {
+
+    private FakeGLApi gl;
+    private TextureUploader uploader;
+
+    @Before
+    public void setUp() {
+        gl = new FakeGLApi();
+        gl.version = "OpenGL ES 2.0 fake";
+        uploader = new TextureUploader(gl);
+    }
+
+    private static CompressedTexture etc1(int width, int height, int levelCount) {
+        byte[][] levels = new byte[levelCount][];
+        for (int i = 0; i < levelCount; i++) {
+            levels[i] = new byte[CompressedTexture.levelSize(CompressedTexture.GL_ETC1_RGB8_OES,
+                    CompressedTexture.levelDimension(width, i), CompressedTexture.levelDimension(height, i))];
+        }
+        return new CompressedTexture(CompressedTexture.GL_ETC1_RGB8_OES, width, height, levels);
+    }
+
+    @Test
+    public void nearestModeHasNoMipmaps() {
+        assertFalse(uploader.finishUpload(TextureUploader.Mode.NEAREST, 512, 512));
+        assertEquals(0, gl.calls("glGenerateMipmap"));
+    }
+
+    @Test
+    public void powerOfTwoIsMipmappedOnEs2() {
+        assertTrue(uploader.finishUpload(TextureUploader.Mode.TRILINEAR, 512, 256));
+        assertEquals(1, gl.calls("glGenerateMipmap"));
+    }
+
+    @Test
+    public void otherSizesNeedNpotSupport() {
+        assertFalse(uploader.finishUpload(TextureUploader.Mode.TRILINEAR, 1080, 720));
+        assertEquals(0, gl.calls("glGenerateMipmap"));
+
+        gl.extensions = "GL_OES_rgb8_rgba8 GL_OES_texture_npot";
+        TextureUploader npot = new TextureUploader(gl);
+        assertTrue(npot.finishUpload(TextureUploader.Mode.TRILINEAR, 1080, 720));
+
+        gl.extensions = "";
+        gl.version = "OpenGL ES 3.0 fake";
+        TextureUploader es3 = new TextureUploader(gl);
+        assertTrue(es3.finishUpload(TextureUploader.Mode.TRILINEAR, 1080, 720));
+    }
+
+    @Test
+    public void capabilitiesAreQueriedOnce() {
+        uploader.finishUpload(TextureUploader.Mode.TRILINEAR, 1080, 720);
+        uploader.finishUpload(TextureUploader.Mode.TRILINEAR, 1080, 720);
+        uploader.supportsFormat(CompressedTexture.GL_ETC1_RGB8_OES);
+        uploader.supportsFormat(CompressedTexture.GL_COMPRESSED_RGB8_ETC2);
+        assertEquals(2, gl.calls("glGetString"));
+        assertEquals(2, gl.calls("glGetIntegerv"));
+    }
+
+    @Test
+    public void compressedUploadSendsEveryLevel() {
+        assertTrue(uploader.uploadCompressed(etc1(6, 5, 3)));
+        assertEquals(3, gl.compressedUploads.size());
+        int format = CompressedTexture.GL_ETC1_RGB8_OES;
+        assertEquals(format + ":0:6x5:32", gl.compressedUploads.get(0));
+        assertEquals(format + ":1:3x2:8", gl.compressedUploads.get(1));
+        assertEquals(format + ":2:1x1:8", gl.compressedUploads.get(2));
+        assertEquals(0, gl.calls("glGenerateMipmap"));
+    }
+
+    @Test
+    public void unsupportedFormatUploadsNothing() {
+        gl.compressedFormats = new int[0];
+        assertFalse(uploader.uploadCompressed(etc1(4, 4, 1)));
+        assertEquals(0, gl.calls("glCompressedTexImage2D"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void levelsMustMatchTheFormat() {
+        new CompressedTexture(CompressedTexture.GL_ETC1_RGB8_OES, 8, 8, new byte[][]{new byte[16]});
+    }
+}
@@ -0,0 +1,137 @@
+package com.dushyant.opengldemo;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link TileExecutor} covers every row exactly once, passes failures on and
+ * stops the other bands when one fails.
+ */
+public class TileExecutorTest {
+
+    private static void assertEveryRowOnce(TileExecutor tiles, int rows) {
+        final AtomicIntegerArray visits = new AtomicIntegerArray(rows);
+        tiles.run(rows, new TileExecutor.RowTask() {
+            @Override
+            public void run(int rowStart, int rowEnd) {
+                for (int row = rowStart; row < rowEnd; row++) {
+                    visits.incrementAndGet(row);
+                }
+            }
+        });
+        for (int row = 0; row < rows; row++) {
+            assertEquals("row " + row, 1, visits.get(row));
+        }
+    }
+
+    @Test
+    public void coversEveryRowOnce() {
+        TileExecutor tiles = new TileExecutor(4);
+        try {
+            for (int rows : new int[]{1, 15, 16, 17, 100, 664, 1001}) {
+                assertEveryRowOnce(tiles, rows);
+            }
+        } finally {
+            tiles.shutdown();
+        }
+    }
+
+    @Test
+    public void singleThreadRunsInline() {
+        final Thread caller = Thread.currentThread();
+        new TileExecutor(1).run(1000, new TileExecutor.RowTask() {
+            @Override
+            public void run(int rowStart, int rowEnd) {
+                assertSame(caller, Thread.currentThread());
+                assertEquals(0, rowStart);
+                assertEquals(1000, rowEnd);
+            }
+        });
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void bandFailuresReachTheCaller() {
+        TileExecutor tiles = new TileExecutor(2);
+        try {
+            tiles.run(100, new TileExecutor.RowTask() {
+                @Override
+                public void run(int rowStart, int rowEnd) {
+                    if (rowStart > 0) {
+                        throw new IllegalStateException("band at " + rowStart);
+                    }
+                }
+            });
+        } finally {
+            tiles.shutdown();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void aFailedBandWaitsForTheRunningOnes() throws InterruptedException {
+        final TileExecutor tiles = new TileExecutor(2);
+        final CountDownLatch bandStarted = new CountDownLatch(1);
+        final CountDownLatch failed = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger started = new AtomicInteger();
+        final AtomicInteger stopped = new AtomicInteger();
+        final AtomicInteger stoppedWhenRunReturned = new AtomicInteger(-1);
+        final AtomicReference<RuntimeException> thrown = new AtomicReference<>();
+        Thread caller = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    tiles.run(100, new TileExecutor.RowTask() {
+                        @Override
+                        public void run(int rowStart, int rowEnd) {
+                            if (rowStart == 0) {
+                                awaitQuietly(bandStarted);
+                                failed.countDown();
+                                throw new IllegalArgumentException("first band");
+                            }
+                            started.incrementAndGet();
+                            bandStarted.countDown();
+                            try {
+                                // still writing its rows
+                                awaitQuietly(release);
+                            } finally {
+                                stopped.incrementAndGet();
+                            }
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    thrown.set(e);
+                    stoppedWhenRunReturned.set(stopped.get());
+                }
+            }
+        });
+        caller.start();
+        failed.await();
+        // the failure is in, but a band is still running
+        caller.join(100);
+        assertTrue(caller.isAlive());
+        assertNull(thrown.get());
+
+        release.countDown();
+        caller.join();
+        assertEquals("first band", thrown.get().getMessage());
+        // every band that started had stopped before run threw, the ones still queued never ran
+        assertEquals(started.get(), stoppedWhenRunReturned.get());
+        assertTrue(started.get() >= 1 && started.get() <= 3);
+        assertEveryRowOnce(tiles, 100);
+        tiles.shutdown();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
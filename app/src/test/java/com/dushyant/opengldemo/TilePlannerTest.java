@@ -0,0 +1,208 @@
+package com.dushyant.opengldemo;
+
+import android.media.effect.EffectFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link TilePlanner} covers the image exactly once within the size limit, and that
+ * {@link TiledEffectProcessor} on the {@link SoftwareRenderBackend} stitches tiles without seams.
+ */
+public class TilePlannerTest {
+
+    private SoftwareRenderBackend backend;
+
+    @Before
+    public void setUp() {
+        backend = new SoftwareRenderBackend(1);
+    }
+
+    @After
+    public void tearDown() {
+        backend.release();
+    }
+
+    private static void assertCoversOnce(int width, int height, int maxTileSize, int halo) {
+        List<TilePlanner.Tile> tiles = TilePlanner.plan(width, height, maxTileSize, halo);
+        int[] covered = new int[width * height];
+        for (TilePlanner.Tile tile : tiles) {
+            String name = tile.toString();
+            assertTrue(name, tile.paddedWidth <= maxTileSize && tile.paddedHeight <= maxTileSize);
+            assertTrue(name, tile.paddedX >= 0 && tile.paddedX + tile.paddedWidth <= width);
+            assertTrue(name, tile.paddedY >= 0 && tile.paddedY + tile.paddedHeight <= height);
+            //padded by at least the halo wherever the image goes on
+            assertTrue(name, tile.paddedX <= Math.max(0, tile.x - halo));
+            assertTrue(name, tile.paddedY <= Math.max(0, tile.y - halo));
+            assertTrue(name, tile.paddedX + tile.paddedWidth >= Math.min(width, tile.x + tile.width + halo));
+            assertTrue(name, tile.paddedY + tile.paddedHeight >= Math.min(height, tile.y + tile.height + halo));
+            //all of the same size, so the scratch images fit every tile
+            assertEquals(name, Math.min(width, maxTileSize), tile.paddedWidth);
+            assertEquals(name, Math.min(height, maxTileSize), tile.paddedHeight);
+            for (int y = tile.y; y < tile.y + tile.height; y++) {
+                for (int x = tile.x; x < tile.x + tile.width; x++) {
+                    covered[y * width + x]++;
+                }
+            }
+        }
+        for (int i = 0; i < covered.length; i++) {
+            assertEquals("pixel " + i, 1, covered[i]);
+        }
+    }
+
+    @Test
+    public void tilesCoverTheImageExactlyOnce() {
+        assertCoversOnce(996, 664, 256, 0);
+        assertCoversOnce(996, 664, 256, 3);
+        assertCoversOnce(1000, 1000, 100, 10);
+        assertCoversOnce(257, 1, 16, 2);
+    }
+
+    @Test
+    public void imageThatFitsIsOneTile() {
+        List<TilePlanner.Tile> tiles = TilePlanner.plan(4096, 3000, 4096, 8);
+        assertEquals(1, tiles.size());
+        assertEquals(4096, tiles.get(0).paddedWidth);
+    }
+
+    @Test
+    public void tilesAreEven() {
+        //1000 in cores of at most 90 is 12 tiles of 83 or 84, no sliver at the end
+        List<TilePlanner.Tile> tiles = TilePlanner.plan(1000, 10, 100, 5);
+        assertEquals(12, tiles.size());
+        for (TilePlanner.Tile tile : tiles) {
+            assertTrue(tile.toString(), tile.width == 83 || tile.width == 84);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void haloMustLeaveRoom() {
+        TilePlanner.plan(1000, 1000, 20, 10);
+    }
+
+    @Test
+    public void stitchingTheCoresRebuildsTheImage() {
+        int width = 300;
+        int height = 200;
+        int[] source = Arrays.copyOf(SoftwareRenderBackendTest.source(), width * height);
+        int[] rebuilt = new int[width * height];
+        int[] tilePixels = new int[64 * 64];
+        for (TilePlanner.Tile tile : TilePlanner.plan(width, height, 64, 4)) {
+            TileStitcher.extract(source, width, tile, tilePixels);
+            TileStitcher.stitch(tilePixels, tile, rebuilt, width);
+        }
+        assertArrayEquals(source, rebuilt);
+    }
+
+    @Test
+    public void halosDeclareTheNeighbourhood() {
+        assertEquals(1, new EffectDescriptor(EffectFactory.EFFECT_SHARPEN).getHalo());
+        assertEquals(0, new EffectDescriptor(EffectFactory.EFFECT_SEPIA).getHalo());
+        assertEquals(EffectDescriptor.GLOBAL, new EffectDescriptor(EffectFactory.EFFECT_FISHEYE, "scale", .5f).getHalo());
+        EffectPipeline twice = new EffectPipeline(new EffectDescriptor(EffectFactory.EFFECT_SHARPEN),
+                new EffectDescriptor(EffectFactory.EFFECT_CONTRAST, "contrast", 1.4f),
+                new EffectDescriptor(EffectFactory.EFFECT_SHARPEN, "scale", .8f));
+        assertEquals(2, twice.getHalo());
+        assertEquals(EffectDescriptor.GLOBAL, EffectDescriptors.get(24).getHalo());
+    }
+
+    private static int[] processWhole(RenderBackend backend, EffectPipeline pipeline, int[] source, int width, int height) {
+        int in = backend.createImage(width, height);
+        int out = backend.createImage(width, height);
+        backend.writePixels(in, source);
+        backend.applyEffects(pipeline.plan(), in, out);
+        int[] result = new int[width * height];
+        backend.readPixels(out, result);
+        return result;
+    }
+
+    @Test
+    public void tiledResultHasNoSeams() {
+        int width = 996;
+        int height = 664;
+        int[] source = SoftwareRenderBackendTest.source();
+        EffectPipeline pipeline = new EffectPipeline(new EffectDescriptor(EffectFactory.EFFECT_SHARPEN),
+                new EffectDescriptor(EffectFactory.EFFECT_CONTRAST, "contrast", 1.4f),
+                new EffectDescriptor(EffectFactory.EFFECT_SHARPEN, "scale", .8f));
+        int[] expected = processWhole(backend, pipeline, source, width, height);
+
+        TiledEffectProcessor processor = new TiledEffectProcessor(backend, 128);
+        int[] tiled = new int[width * height];
+        processor.process(pipeline, source, width, height, tiled);
+
+        assertTrue(processor.getTilesProcessed() > 1);
+        assertArrayEquals(expected, tiled);
+        processor.release();
+    }
+
+    @Test
+    public void unevenTilesShareTheScratchImages() {
+        int width = 996;
+        int height = 664;
+        int[] source = SoftwareRenderBackendTest.source();
+        EffectPipeline sharpen = EffectDescriptors.get(20);
+        TiledEffectProcessor processor = new TiledEffectProcessor(backend, 128);
+        int[] tiled = new int[width * height];
+        processor.process(sharpen, source, width, height, tiled);
+
+        //the cores are uneven, the padded tiles at the edges too, and all share the first pair
+        assertTrue(processor.getTilesProcessed() > 40);
+        assertEquals(2, processor.getImagesCreated());
+        assertArrayEquals(processWhole(backend, sharpen, source, width, height), tiled);
+
+        //a smaller image in a batch, tiled differently, reuses them too
+        int[] small = Arrays.copyOf(source, 500 * 300);
+        int[] smallTiled = new int[small.length];
+        processor.process(sharpen, small, 500, 300, smallTiled);
+        assertEquals(2, processor.getImagesCreated());
+        assertArrayEquals(processWhole(backend, sharpen, small, 500, 300), smallTiled);
+        processor.release();
+    }
+
+    @Test
+    public void withoutTheHaloSeamsShow() {
+        int width = 996;
+        int height = 664;
+        int[] source = SoftwareRenderBackendTest.source();
+        EffectPipeline sharpen = EffectDescriptors.get(20);
+        int[] expected = processWhole(backend, sharpen, source, width, height);
+
+        //tile as if sharpen were per pixel
+        int[] tilePixels = new int[128 * 128];
+        int[] tiled = new int[width * height];
+        for (TilePlanner.Tile tile : TilePlanner.plan(width, height, 128, 0)) {
+            int in = backend.createImage(tile.paddedWidth, tile.paddedHeight);
+            int out = backend.createImage(tile.paddedWidth, tile.paddedHeight);
+            TileStitcher.extract(source, width, tile, tilePixels);
+            backend.writePixels(in, tilePixels);
+            backend.applyEffects(sharpen.plan(), in, out);
+            backend.readPixels(out, tilePixels);
+            TileStitcher.stitch(tilePixels, tile, tiled, width);
+        }
+        assertFalse(Arrays.equals(expected, tiled));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void globalEffectsNeedOneTile() {
+        int[] pixels = new int[300 * 300];
+        new TiledEffectProcessor(backend, 128).process(EffectDescriptors.get(9), pixels, 300, 300, new int[pixels.length]);
+    }
+
+    @Test
+    public void globalEffectsRunWhenTheImageFits() {
+        int[] source = new int[100 * 100];
+        for (int i = 0; i < source.length; i++) {
+            source[i] = 0xFF000000 | i;
+        }
+        int[] result = new int[source.length];
+        //rotate by 180 is global, but fits
+        new TiledEffectProcessor(backend, 128).process(EffectDescriptors.get(17), source, 100, 100, result);
+        assertEquals(source[0], result[result.length - 1]);
+    }
+}
@@ -0,0 +1,115 @@
+package com.dushyant.opengldemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+/**
+ * The batch export pipeline on the CPU backend, the Linux setup of {@link BatchExporter}:
+ * copies of puppy.jpg decoded and encoded with ImageIO, reported in images per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BatchExportBenchmark {
+
+    private static final int IMAGES = 32;
+
+    //ImageIO stands in for BitmapFactory and Bitmap.compress
+    static class ImageIOCodec implements ImageCodec {
+        @Override
+        public ArgbImage decode(File file) throws IOException {
+            BufferedImage decoded = ImageIO.read(file);
+            if (decoded == null) {
+                throw new IOException("Cannot decode " + file);
+            }
+            ArgbImage image = new ArgbImage(decoded.getWidth(), decoded.getHeight());
+            decoded.getRGB(0, 0, image.width, image.height, image.pixels, 0, image.width);
+            return image;
+        }
+
+        @Override
+        public void encode(ArgbImage image, Format format, File file) throws IOException {
+            // JPEG has no alpha, ImageIO refuses ARGB for it
+            BufferedImage encoded = new BufferedImage(image.width, image.height,
+                    format == Format.PNG ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            encoded.setRGB(0, 0, image.width, image.height, image.pixels, 0, image.width);
+            if (!ImageIO.write(encoded, format == Format.PNG ? "png" : "jpg", file)) {
+                throw new IOException("No writer for " + format);
+            }
+        }
+    }
+
+    //spinner positions: sepia, the fused warm boost chain and sharpen
+    @Param({"19", "25", "20"})
+    public int effect;
+
+    //decode and encode threads each
+    @Param({"1", "2"})
+    public int threads;
+
+    private File mDir;
+    private List<BatchExporter.Job> mJobs;
+    private SoftwareRenderBackend mBackend;
+    private BatchExporter mExporter;
+
+    @Setup
+    public void setUp() throws IOException {
+        mDir = Files.createTempDirectory("batch-export").toFile();
+        File source = new File(mDir, "puppy.jpg");
+        InputStream in = BatchExportBenchmark.class.getResourceAsStream("/puppy.jpg");
+        try {
+            Files.copy(in, source.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            in.close();
+        }
+        mJobs = new ArrayList<>();
+        for (int i = 0; i < IMAGES; i++) {
+            mJobs.add(new BatchExporter.Job(source, new File(mDir, "out-" + i + ".jpg")));
+        }
+        mBackend = new SoftwareRenderBackend(1);
+        mExporter = new BatchExporter(new ImageIOCodec(), mBackend, 4096, threads, threads, 2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mExporter.release();
+        mBackend.release();
+        File[] files = mDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mDir.delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IMAGES)
+    public int export() throws InterruptedException {
+        BatchExporter.Report report = mExporter.export(mJobs, EffectDescriptors.get(effect), ImageCodec.Format.JPEG);
+        if (!report.failures.isEmpty()) {
+            throw new IllegalStateException("Export failed: " + report.failures.get(0).error);
+        }
+        return report.exported;
+    }
+}
@@ -0,0 +1,44 @@
+package com.dushyant.opengldemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Planning passes and buffers for effect chains, what a pipeline pays once on first use.
+ * Includes generating the fused color shaders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ChainPlanningBenchmark {
+
+    //spinner positions whose stages make up the chain, see EffectDescriptors. Not comma separated,
+    //JMH splits parameter values on commas
+    @Param({"1", "24", "25", "1+3+4+24+25+13+9+21+22+12"})
+    public String chain;
+
+    private List<EffectDescriptor> mStages;
+
+    @Setup
+    public void setUp() {
+        mStages = new ArrayList<>();
+        for (String position : chain.split("\\+")) {
+            mStages.addAll(EffectDescriptors.get(Integer.parseInt(position)).getStages());
+        }
+    }
+
+    @Benchmark
+    public EffectChainPlanner.Plan plan() {
+        return EffectChainPlanner.plan(mStages);
+    }
+}
@@ -0,0 +1,98 @@
+package com.dushyant.opengldemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Downsample planning plus decoding puppy.jpg at the planned sample size.
+ *
+ * BitmapFactory only exists on a device, the decode uses ImageIO with source subsampling,
+ * the JVM equivalent of BitmapFactory.Options.inSampleSize.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DecodeBenchmark {
+
+    private static final int SOURCE_WIDTH = 996;
+    private static final int SOURCE_HEIGHT = 664;
+    private static final int MAX_TEXTURE_SIZE = 4096;
+
+    //the size the view asks for
+    @Param({"996x664", "498x332", "249x166"})
+    public String request;
+
+    private byte[] mJpeg;
+    private int mRequestWidth;
+    private int mRequestHeight;
+    private int mSampleSize;
+    //a spread of view sizes for the planner
+    private final int[] mViewSizes = new int[64];
+
+    @Setup
+    public void setUp() throws IOException {
+        mRequestWidth = Integer.parseInt(request.substring(0, request.indexOf('x')));
+        mRequestHeight = Integer.parseInt(request.substring(request.indexOf('x') + 1));
+        mSampleSize = DecodeSizePlanner.computeInSampleSize(SOURCE_WIDTH, SOURCE_HEIGHT,
+                mRequestWidth, mRequestHeight, MAX_TEXTURE_SIZE);
+        for (int i = 0; i < mViewSizes.length; i++) {
+            mViewSizes[i] = 64 + i * 37;
+        }
+        InputStream in = DecodeBenchmark.class.getResourceAsStream("/puppy.jpg");
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[16 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            mJpeg = out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    @Benchmark
+    public int planSampleSizes() {
+        int sum = 0;
+        for (int size : mViewSizes) {
+            sum += DecodeSizePlanner.computeInSampleSize(SOURCE_WIDTH, SOURCE_HEIGHT, size, size, MAX_TEXTURE_SIZE);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public BufferedImage decodeDownsampled() throws IOException {
+        ImageInputStream stream = ImageIO.createImageInputStream(new ByteArrayInputStream(mJpeg));
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(stream);
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(mSampleSize, mSampleSize, 0, 0);
+            return reader.read(0, param);
+        } finally {
+            reader.dispose();
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.dushyant.opengldemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One frame of each spinner effect the software backend can run, at half, full and double
+ * the size of puppy.jpg, on one thread and tiled over four.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EffectKernelBenchmark {
+
+    //spinner positions, see EffectDescriptors: brightness, contrast, both flips, grayscale, negative,
+    //rotate, saturate, sepia, temperature, tint and the fused warm boost chain
+    @Param({"3", "4", "10", "11", "13", "15", "17", "18", "19", "21", "22", "25"})
+    public int effect;
+
+    @Param({"498x332", "996x664", "1992x1328"})
+    public String resolution;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private SoftwareRenderBackend mBackend;
+    private EffectChainPlanner.Plan mPlan;
+    private int mSource;
+    private int mTarget;
+
+    @Setup
+    public void setUp() {
+        int width = Integer.parseInt(resolution.substring(0, resolution.indexOf('x')));
+        int height = Integer.parseInt(resolution.substring(resolution.indexOf('x') + 1));
+        mBackend = new SoftwareRenderBackend(threads);
+        mPlan = EffectDescriptors.get(effect).plan();
+        mSource = mBackend.createImage(width, height);
+        mTarget = mBackend.createImage(width, height);
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xFF000000 | (i * 0x9E3779B1) >>> 8;
+        }
+        mBackend.writePixels(mSource, pixels);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mBackend.release();
+    }
+
+    @Benchmark
+    public void applyEffect() {
+        mBackend.applyEffects(mPlan, mSource, mTarget);
+    }
+}
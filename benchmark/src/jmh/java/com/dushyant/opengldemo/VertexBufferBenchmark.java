@@ -0,0 +1,23 @@
+package com.dushyant.opengldemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the interleaved quad GLTextureRenderer uploads into its vertex buffer,
+ * mostly the cost of the direct buffer allocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class VertexBufferBenchmark {
+
+    @Benchmark
+    public FloatBuffer initializeByteBuffer() {
+        return GLTextureRenderer.initializeByteBuffer();
+    }
+}
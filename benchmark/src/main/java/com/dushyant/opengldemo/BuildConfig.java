@@ -0,0 +1,8 @@
+package com.dushyant.opengldemo;
+
+/**
+ * Stands in for the class the android plugin generates, benchmarks measure the release setup.
+ */
+public final class BuildConfig {
+    public static final boolean DEBUG = false;
+}